@@ -0,0 +1,26 @@
+package net.petrikainulainen.spring.datasolr;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which reports the allocation rate
+ * (gc.alloc.rate.norm is bytes per operation) next to the score of each benchmark.
+ * All command line options of JMH are supported. For example, the benchmarks of a single
+ * class are run by passing the name of the class as an argument.
+ * @author Petri Kainulainen
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,65 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.IOException;
+
+/**
+ * Delegates the requests to another server and sums the QTime values of the responses. QTime
+ * is the time which Solr spent processing the request, so the difference between the latency
+ * and QTime is the overhead of the client. The sum is kept per thread.
+ * @author Petri Kainulainen
+ */
+public class QTimeRecordingSolrServer extends SolrServer {
+
+    private static final String RESPONSE_HEADER = "responseHeader";
+    private static final String RESPONSE_HEADER_QTIME = "QTime";
+
+    private final SolrServer delegate;
+
+    private final ThreadLocal<long[]> qTime = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    public QTimeRecordingSolrServer(SolrServer delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request) throws SolrServerException, IOException {
+        NamedList<Object> response = delegate.request(request);
+
+        NamedList<?> header = (NamedList<?>) response.get(RESPONSE_HEADER);
+        if (header != null) {
+            Number requestQTime = (Number) header.get(RESPONSE_HEADER_QTIME);
+            if (requestQTime != null) {
+                qTime.get()[0] += requestQTime.longValue();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Returns the sum of the QTime values which have been received by the current thread
+     * since the last reset, in milliseconds.
+     */
+    public long getQTime() {
+        return qTime.get()[0];
+    }
+
+    public void resetQTime() {
+        qTime.get()[0] = 0;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
@@ -0,0 +1,63 @@
+package net.petrikainulainen.spring.datasolr.security.authorization;
+
+import net.petrikainulainen.spring.datasolr.user.dto.SecurityRole;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the permission check which is made before every call to the to-do API.
+ * @author Petri Kainulainen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoPermissionEvaluatorBenchmark {
+
+    private static final String DOMAIN_OBJECT_TODO = "Todo";
+    private static final String DOMAIN_OBJECT_UNKNOWN = "Unknown";
+    private static final String PERMISSION = "READ";
+
+    private TodoPermissionEvaluator evaluator;
+
+    private Authentication anonymous;
+
+    private Authentication user;
+
+    @Setup
+    public void setUp() {
+        evaluator = new TodoPermissionEvaluator();
+
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(SecurityRole.ROLE_USER.name());
+        UserDetails principal = new User("user", "password", authorities);
+        user = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+
+        anonymous = new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+    }
+
+    @Benchmark
+    public boolean hasPermissionAsUser() {
+        return evaluator.hasPermission(user, DOMAIN_OBJECT_TODO, PERMISSION);
+    }
+
+    @Benchmark
+    public boolean hasPermissionAsAnonymousUser() {
+        return evaluator.hasPermission(anonymous, DOMAIN_OBJECT_TODO, PERMISSION);
+    }
+
+    @Benchmark
+    public boolean hasPermissionForUnknownDomainObject() {
+        return evaluator.hasPermission(user, DOMAIN_OBJECT_UNKNOWN, PERMISSION);
+    }
+}
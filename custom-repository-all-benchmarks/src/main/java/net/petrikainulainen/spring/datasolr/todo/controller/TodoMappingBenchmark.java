@@ -0,0 +1,61 @@
+package net.petrikainulainen.spring.datasolr.todo.controller;
+
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of transforming model objects and search results into the DTOs
+ * which are returned by the controller.
+ * @author Petri Kainulainen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoMappingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int resultCount;
+
+    private List<Todo> models;
+
+    private List<TodoDocument> documents;
+
+    @Setup
+    public void setUp() {
+        models = new ArrayList<Todo>();
+        documents = new ArrayList<TodoDocument>();
+
+        for (long id = 1; id <= resultCount; id++) {
+            models.add(Todo.getBuilder("Title " + id)
+                    .description("Description " + id)
+                    .id(id)
+                    .version(id)
+                    .build());
+            documents.add(TodoDocument.getBuilder(id, "Title " + id)
+                    .description("Description " + id)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void createDTO(Blackhole blackhole) {
+        for (Todo model: models) {
+            blackhole.consume(TodoController.createDTO(model));
+        }
+    }
+
+    @Benchmark
+    public List<TodoDTO> createSearchResultDTOs() {
+        return TodoController.createSearchResultDTOs(documents);
+    }
+}
@@ -0,0 +1,41 @@
+package net.petrikainulainen.spring.datasolr.todo.document;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of building a document before it is added to the index.
+ * @author Petri Kainulainen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoDocumentBuilderBenchmark {
+
+    private static final String DESCRIPTION = "Lorem ipsum dolor sit amet";
+    private static final String TITLE = "Foo";
+
+    private Long id;
+
+    @Setup
+    public void setUp() {
+        //The id is boxed outside the benchmark so that the boxing is not measured.
+        id = 1000L;
+    }
+
+    @Benchmark
+    public TodoDocument buildWithTitle() {
+        return TodoDocument.getBuilder(id, TITLE).build();
+    }
+
+    @Benchmark
+    public TodoDocument buildWithTitleAndDescription() {
+        return TodoDocument.getBuilder(id, TITLE)
+                .description(DESCRIPTION)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and Smile encodings of a list of to-do entries. JMH reports only the
+ * time and the allocations of an operation, so the sizes of the serialized lists are printed
+ * by {@link TodoDTOSerializationSizes}.
+ * @author Petri Kainulainen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoDTOSerializationBenchmark {
+
+    private static final TypeReference<List<TodoDTO>> TODO_LIST_TYPE = new TypeReference<List<TodoDTO>>() {};
+
+    @Param({"1", "10", "100", "1000"})
+    private int listSize;
+
+    private ObjectMapper jsonMapper;
+
+    private ObjectMapper smileMapper;
+
+    private List<TodoDTO> todoEntries;
+
+    private byte[] json;
+
+    private byte[] smile;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = new ObjectMapper();
+        smileMapper = new ObjectMapper(new SmileFactory());
+
+        todoEntries = createTodoEntries(listSize);
+
+        json = jsonMapper.writeValueAsBytes(todoEntries);
+        smile = smileMapper.writeValueAsBytes(todoEntries);
+    }
+
+    protected static List<TodoDTO> createTodoEntries(int listSize) {
+        List<TodoDTO> todoEntries = new ArrayList<TodoDTO>();
+        for (long id = 1; id <= listSize; id++) {
+            todoEntries.add(new TodoDTO(id, "Lorem ipsum dolor sit amet " + id, "Title " + id, id));
+        }
+        return todoEntries;
+    }
+
+    @Benchmark
+    public byte[] writeJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(todoEntries);
+    }
+
+    @Benchmark
+    public byte[] writeSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(todoEntries);
+    }
+
+    @Benchmark
+    public List<TodoDTO> readJson() throws IOException {
+        return jsonMapper.readValue(json, TODO_LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<TodoDTO> readSmile() throws IOException {
+        return smileMapper.readValue(smile, TODO_LIST_TYPE);
+    }
+}
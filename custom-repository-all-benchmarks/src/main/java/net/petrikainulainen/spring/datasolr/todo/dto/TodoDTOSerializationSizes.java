@@ -0,0 +1,38 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Prints the sizes of the JSON and Smile encodings of the lists which are serialized by
+ * {@link TodoDTOSerializationBenchmark}, so the sizes can be compared with the timings.
+ * @author Petri Kainulainen
+ */
+public class TodoDTOSerializationSizes {
+
+    private static final int[] LIST_SIZES = {1, 10, 100, 1000};
+
+    public static void main(String[] args) throws IOException {
+        print(System.out);
+    }
+
+    public static void print(PrintStream out) throws IOException {
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        out.printf("%8s %12s %12s %8s%n", "Entries", "JSON bytes", "Smile bytes", "Ratio");
+
+        for (int listSize: LIST_SIZES) {
+            List<TodoDTO> todoEntries = TodoDTOSerializationBenchmark.createTodoEntries(listSize);
+
+            int jsonSize = jsonMapper.writeValueAsBytes(todoEntries).length;
+            int smileSize = smileMapper.writeValueAsBytes(todoEntries).length;
+
+            out.printf("%8d %12d %12d %8.2f%n", listSize, jsonSize, smileSize, (double) smileSize / jsonSize);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.solr;
+
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of a query strategy. A search returns the ids of the found documents in the
+ * order in which they were returned, and a count query returns the number of found documents.
+ * @author Petri Kainulainen
+ */
+public class QueryResult {
+
+    private final List<String> ids;
+
+    private final Long count;
+
+    private QueryResult(List<String> ids, Long count) {
+        this.ids = ids;
+        this.count = count;
+    }
+
+    public static QueryResult of(List<TodoDocument> documents) {
+        List<String> ids = new ArrayList<String>(documents.size());
+        for (TodoDocument document: documents) {
+            ids.add(document.getId());
+        }
+        return new QueryResult(ids, null);
+    }
+
+    public static QueryResult of(long count) {
+        return new QueryResult(null, count);
+    }
+
+    /**
+     * Checks if this result is the same as the result of the reference strategy. A search
+     * which returns more documents than the reference matches if its first documents are
+     * the documents of the reference in the same order.
+     */
+    public boolean matches(QueryResult reference) {
+        if (count != null) {
+            return count.equals(reference.count);
+        }
+
+        if (reference.ids == null || ids.size() < reference.ids.size()) {
+            return false;
+        }
+
+        return ids.subList(0, reference.ids.size()).equals(reference.ids);
+    }
+}
@@ -0,0 +1,108 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.solr;
+
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.SimpleQuery;
+
+/**
+ * The ways in which the example applications search to-do entries from Solr. Every strategy
+ * is executed exactly as in the example application which uses it.
+ * @author Petri Kainulainen
+ */
+public enum QueryStrategy {
+
+    /**
+     * The query is generated from the method name (query-methods-pagination).
+     */
+    METHOD_NAME("methodName", false) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            return QueryResult.of(repository.findByTitleContainsOrDescriptionContains(searchTerm, searchTerm, page));
+        }
+    },
+    /**
+     * The query is read from the named queries file (query-methods-pagination).
+     */
+    NAMED_QUERY("namedQuery", false) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            return QueryResult.of(repository.findByNamedQuery(searchTerm, page));
+        }
+    },
+    /**
+     * The query is read from the @Query annotation (query-methods-pagination).
+     */
+    QUERY_ANNOTATION("queryAnnotation", false) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            return QueryResult.of(repository.findByQueryAnnotation(searchTerm, page));
+        }
+    },
+    /**
+     * The query is built with the criteria API and it returns the number of rows which is
+     * configured in Solr (criteria).
+     */
+    CRITERIA("criteria", false) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            SimpleQuery search = new SimpleQuery(CustomBaseRepositoryImpl.createSearchConditions(searchTerm.split(WORD_SEPARATOR)));
+            search.addSort(page.getSort());
+            return QueryResult.of(solrTemplate.queryForPage(search, TodoDocument.class).getContent());
+        }
+    },
+    /**
+     * The query is built with the criteria API and it returns the requested page (criteria-pagination).
+     */
+    CRITERIA_PAGINATION("criteriaPagination", false) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            SimpleQuery search = new SimpleQuery(CustomBaseRepositoryImpl.createSearchConditions(searchTerm.split(WORD_SEPARATOR)));
+            search.setPageRequest(page);
+            return QueryResult.of(solrTemplate.queryForPage(search, TodoDocument.class).getContent());
+        }
+    },
+    /**
+     * The search results are counted with the criteria API (criteria-pagination).
+     */
+    CRITERIA_COUNT("criteriaCount", true) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            SimpleQuery countQuery = new SimpleQuery(CustomBaseRepositoryImpl.createSearchConditions(searchTerm.split(WORD_SEPARATOR)));
+            return QueryResult.of(solrTemplate.count(countQuery));
+        }
+    },
+    /**
+     * The search results are counted by the method which is added to all repositories (custom-repository-all).
+     */
+    CUSTOM_BASE_REPOSITORY_COUNT("customBaseRepositoryCount", true) {
+        @Override
+        public QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page) {
+            return QueryResult.of(repository.count(searchTerm));
+        }
+    };
+
+    private static final String WORD_SEPARATOR = " ";
+
+    private final String key;
+
+    private final boolean count;
+
+    private QueryStrategy(String key, boolean count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    public abstract QueryResult execute(TodoDocumentRepository repository, SolrOperations solrTemplate, String searchTerm, Pageable page);
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the strategy whose results are compared with the results of this strategy.
+     */
+    public QueryStrategy getReference() {
+        return count ? CRITERIA_COUNT : CRITERIA_PAGINATION;
+    }
+}
@@ -0,0 +1,289 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.solr;
+
+import net.petrikainulainen.spring.datasolr.common.solr.QTimeRecordingSolrServer;
+import net.petrikainulainen.spring.datasolr.dataset.SolrDatasetWriter;
+import net.petrikainulainen.spring.datasolr.dataset.TodoGenerator;
+import net.petrikainulainen.spring.datasolr.dataset.TodoRecord;
+import net.petrikainulainen.spring.datasolr.dataset.Vocabulary;
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the query strategies of the example applications by running them against the
+ * same embedded Solr index. The index is filled with a generated dataset of every configured
+ * size, and the search terms are sampled from the vocabulary of the dataset. Every strategy is executed with search terms of every configured word count.
+ * <p>
+ * The strategies are executed in the calling thread, and so is the embedded Solr server.
+ * This means that the reported allocation includes the allocation of Solr. The parity is the
+ * share of the search terms for which a strategy returned the same result as its reference
+ * strategy, which is criteria with pagination for searches and criteria count for counts.
+ * </p>
+ * The settings are given as system properties.
+ * @author Petri Kainulainen
+ */
+public class QueryStrategyComparison {
+
+    protected static final String PROPERTY_NAME_DATASET_SIZES = "comparison.dataset.sizes";
+    protected static final String PROPERTY_NAME_ITERATIONS = "comparison.iterations";
+    protected static final String PROPERTY_NAME_SEED = "comparison.seed";
+    protected static final String PROPERTY_NAME_VOCABULARY_EXPONENT = "comparison.vocabulary.exponent";
+    protected static final String PROPERTY_NAME_VOCABULARY_SIZE = "comparison.vocabulary.size";
+    protected static final String PROPERTY_NAME_WARM_UP_ITERATIONS = "comparison.warmup.iterations";
+    protected static final String PROPERTY_NAME_WORD_COUNTS = "comparison.word.counts";
+
+    private static final String DEFAULT_DATASET_SIZES = "1000,10000,100000";
+    private static final int DEFAULT_ITERATIONS = 500;
+    private static final long DEFAULT_SEED = 42L;
+    private static final double DEFAULT_VOCABULARY_EXPONENT = 1.0;
+    private static final int DEFAULT_VOCABULARY_SIZE = 10000;
+    private static final int DEFAULT_WARM_UP_ITERATIONS = 200;
+    private static final String DEFAULT_WORD_COUNTS = "1,2,5";
+
+    private static final int INDEX_BATCH_SIZE = 1000;
+    private static final int INDEX_COMMIT_INTERVAL = 100;
+    private static final int PAGE_SIZE = 10;
+    private static final int SEARCH_TERM_COUNT = 50;
+
+    /**
+     * Only the id, title and description of an entry are indexed, so the generated times are not used.
+     */
+    private static final long GENERATED_CREATION_TIME = 0L;
+    private static final double GENERATED_CREATION_SKEW = 1.0;
+    private static final double GENERATED_DESCRIPTION_PROBABILITY = 0.7;
+    private static final double GENERATED_MODIFIED_PROBABILITY = 0.0;
+
+    private static final String SOLR_HOME = "solr/";
+    private static final String[] SOLR_HOME_FILES = {
+            "solr.xml",
+            "collection1/conf/schema.xml",
+            "collection1/conf/solrconfig.xml"
+    };
+
+    private static final String PROPERTY_NAME_SOLR_DATA_DIR = "solr.data.dir";
+
+    private final TodoDocumentRepository repository;
+
+    private final SolrOperations solrTemplate;
+
+    private final QTimeRecordingSolrServer solrServer;
+
+    private final Pageable page = new PageRequest(0, PAGE_SIZE, new Sort(Sort.Direction.DESC, TodoDocument.FIELD_ID));
+
+    private final int iterations = Integer.getInteger(PROPERTY_NAME_ITERATIONS, DEFAULT_ITERATIONS);
+
+    private final int warmUpIterations = Integer.getInteger(PROPERTY_NAME_WARM_UP_ITERATIONS, DEFAULT_WARM_UP_ITERATIONS);
+
+    private final long seed = Long.getLong(PROPERTY_NAME_SEED, DEFAULT_SEED);
+
+    private final Vocabulary vocabulary = new Vocabulary(
+            Integer.getInteger(PROPERTY_NAME_VOCABULARY_SIZE, DEFAULT_VOCABULARY_SIZE),
+            Double.parseDouble(System.getProperty(PROPERTY_NAME_VOCABULARY_EXPONENT, String.valueOf(DEFAULT_VOCABULARY_EXPONENT)))
+    );
+
+    private final TodoGenerator generator = new TodoGenerator(seed, vocabulary, GENERATED_CREATION_TIME, GENERATED_CREATION_TIME,
+            GENERATED_CREATION_SKEW, GENERATED_DESCRIPTION_PROBABILITY, GENERATED_MODIFIED_PROBABILITY);
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final boolean allocationMeasured = threadBean instanceof com.sun.management.ThreadMXBean;
+
+    public QueryStrategyComparison(TodoDocumentRepository repository, SolrOperations solrTemplate, QTimeRecordingSolrServer solrServer) {
+        this.repository = repository;
+        this.solrTemplate = solrTemplate;
+        this.solrServer = solrServer;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File solrHome = createSolrHome();
+        System.setProperty(QueryStrategyComparisonContext.PROPERTY_NAME_SOLR_SOLR_HOME, solrHome.getAbsolutePath());
+        System.setProperty(PROPERTY_NAME_SOLR_DATA_DIR, new File(solrHome, "data").getAbsolutePath());
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(QueryStrategyComparisonContext.class);
+        try {
+            QueryStrategyComparison comparison = new QueryStrategyComparison(context.getBean(TodoDocumentRepository.class),
+                    context.getBean(SolrOperations.class),
+                    context.getBean(QTimeRecordingSolrServer.class));
+
+            comparison.run(parseIntegers(System.getProperty(PROPERTY_NAME_DATASET_SIZES, DEFAULT_DATASET_SIZES)),
+                    parseIntegers(System.getProperty(PROPERTY_NAME_WORD_COUNTS, DEFAULT_WORD_COUNTS)),
+                    System.out);
+        }
+        finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(solrHome);
+        }
+    }
+
+    public void run(List<Integer> datasetSizes, List<Integer> wordCounts, PrintStream out) throws Exception {
+        out.printf("%9s %6s %-26s %9s %9s %9s %11s %12s %7s%n",
+                "Documents", "Words", "Strategy", "p50 ms", "p99 ms", "max ms", "QTime ms", "KB/op", "Parity");
+
+        for (Integer datasetSize: datasetSizes) {
+            index(datasetSize);
+
+            for (Integer wordCount: wordCounts) {
+                List<String> searchTerms = createSearchTerms(wordCount);
+                Map<QueryStrategy, Map<String, QueryResult>> references = findReferenceResults(searchTerms);
+
+                for (QueryStrategy strategy: QueryStrategy.values()) {
+                    measure(strategy, searchTerms, references.get(strategy.getReference()), datasetSize, wordCount, out);
+                }
+            }
+        }
+
+        out.println("Latency is measured in the client and QTime is the mean processing time reported by Solr.");
+    }
+
+    private void measure(QueryStrategy strategy, List<String> searchTerms, Map<String, QueryResult> references,
+                         int datasetSize, int wordCount, PrintStream out) {
+        for (int iteration = 0; iteration < warmUpIterations; iteration++) {
+            strategy.execute(repository, solrTemplate, searchTerms.get(iteration % searchTerms.size()), page);
+        }
+
+        Histogram latencies = new Histogram(3);
+        long allocated = 0;
+        long matching = 0;
+        solrServer.resetQTime();
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            String searchTerm = searchTerms.get(iteration % searchTerms.size());
+
+            long allocatedBefore = getAllocatedBytes();
+            long start = System.nanoTime();
+
+            QueryResult result = strategy.execute(repository, solrTemplate, searchTerm, page);
+
+            long latency = System.nanoTime() - start;
+            allocated += getAllocatedBytes() - allocatedBefore;
+
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latency));
+            if (result.matches(references.get(searchTerm))) {
+                matching++;
+            }
+        }
+
+        out.printf("%9d %6d %-26s %9.2f %9.2f %9.2f %11.2f %12s %6.0f%%%n",
+                datasetSize,
+                wordCount,
+                strategy.getKey(),
+                latencies.getValueAtPercentile(50.0) / 1000.0,
+                latencies.getValueAtPercentile(99.0) / 1000.0,
+                latencies.getMaxValue() / 1000.0,
+                (double) solrServer.getQTime() / iterations,
+                !allocationMeasured ? "n/a" : String.format("%.1f", allocated / 1024.0 / iterations),
+                100.0 * matching / iterations);
+    }
+
+    /**
+     * Returns the number of bytes which the current thread has allocated. The allocation can
+     * be measured only by HotSpot, and zero is returned by other JVMs.
+     */
+    private long getAllocatedBytes() {
+        if (allocationMeasured) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private Map<QueryStrategy, Map<String, QueryResult>> findReferenceResults(List<String> searchTerms) {
+        Map<QueryStrategy, Map<String, QueryResult>> references = new HashMap<QueryStrategy, Map<String, QueryResult>>();
+
+        for (QueryStrategy strategy: QueryStrategy.values()) {
+            QueryStrategy reference = strategy.getReference();
+            if (!references.containsKey(reference)) {
+                Map<String, QueryResult> results = new HashMap<String, QueryResult>();
+                for (String searchTerm: searchTerms) {
+                    results.put(searchTerm, reference.execute(repository, solrTemplate, searchTerm, page));
+                }
+                references.put(reference, results);
+            }
+        }
+
+        return references;
+    }
+
+    /**
+     * Replaces the documents of the index with a generated dataset. The dataset depends only
+     * on its size and the seed, so every strategy and every run searches the same documents.
+     */
+    private void index(int datasetSize) throws Exception {
+        solrServer.deleteByQuery("*:*");
+
+        SolrDatasetWriter writer = new SolrDatasetWriter(solrServer, INDEX_COMMIT_INTERVAL);
+        List<TodoRecord> batch = new ArrayList<TodoRecord>(INDEX_BATCH_SIZE);
+
+        for (long id = 1; id <= datasetSize; id++) {
+            batch.add(generator.generate(id));
+
+            if (batch.size() == INDEX_BATCH_SIZE) {
+                writer.write(batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            writer.write(batch);
+        }
+
+        writer.close();
+    }
+
+    private List<String> createSearchTerms(int wordCount) {
+        Random random = new Random(seed + wordCount);
+        List<String> searchTerms = new ArrayList<String>(SEARCH_TERM_COUNT);
+
+        for (int index = 0; index < SEARCH_TERM_COUNT; index++) {
+            searchTerms.add(vocabulary.searchTerm(random, wordCount));
+        }
+
+        return searchTerms;
+    }
+
+    private static List<Integer> parseIntegers(String values) {
+        List<Integer> parsed = new ArrayList<Integer>();
+        for (String value: values.split(",")) {
+            parsed.add(Integer.valueOf(value.trim()));
+        }
+        return parsed;
+    }
+
+    /**
+     * Copies the Solr home from the classpath to a temporary directory, because Solr cannot
+     * read its configuration from a jar file.
+     */
+    private static File createSolrHome() throws IOException {
+        File solrHome = File.createTempFile("solr-home", "");
+        if (!solrHome.delete() || !solrHome.mkdir()) {
+            throw new IOException("Cannot create Solr home: " + solrHome);
+        }
+
+        for (String file: SOLR_HOME_FILES) {
+            File target = new File(solrHome, file);
+            target.getParentFile().mkdirs();
+            FileCopyUtils.copy(new ClassPathResource(SOLR_HOME + file).getInputStream(), new FileOutputStream(target));
+        }
+
+        return solrHome;
+    }
+}
@@ -0,0 +1,40 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.solr;
+
+import net.petrikainulainen.spring.datasolr.common.solr.EmbeddedSolrServerLoader;
+import net.petrikainulainen.spring.datasolr.common.solr.QTimeRecordingSolrServer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.solr.core.SolrTemplate;
+import org.springframework.data.solr.repository.config.EnableSolrRepositories;
+
+import javax.annotation.Resource;
+
+/**
+ * Configures the Solr repository of the example application to use an embedded Solr server
+ * which records the QTime of every response.
+ * @author Petri Kainulainen
+ */
+@Configuration
+@EnableSolrRepositories(
+        basePackages = "net.petrikainulainen.spring.datasolr.todo.repository.solr",
+        repositoryFactoryBeanClass = CustomSolrRepositoryFactoryBean.class
+)
+public class QueryStrategyComparisonContext {
+
+    protected static final String PROPERTY_NAME_SOLR_SOLR_HOME = "solr.solr.home";
+
+    @Resource
+    private Environment environment;
+
+    @Bean(destroyMethod = "shutdown")
+    public QTimeRecordingSolrServer solrServer() throws Exception {
+        EmbeddedSolrServerLoader loader = new EmbeddedSolrServerLoader(environment.getRequiredProperty(PROPERTY_NAME_SOLR_SOLR_HOME));
+        return new QTimeRecordingSolrServer(loader.call());
+    }
+
+    @Bean
+    public SolrTemplate solrTemplate() throws Exception {
+        return new SolrTemplate(solrServer());
+    }
+}
@@ -0,0 +1,50 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.solr;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.solr.core.QueryParser;
+import org.springframework.data.solr.core.query.Criteria;
+import org.springframework.data.solr.core.query.SimpleQuery;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the cost of creating the search conditions and the Solr query string grows
+ * with the number of words in the search term.
+ * @author Petri Kainulainen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchConditionsBenchmark {
+
+    @Param({"1", "2", "5", "10", "20", "50"})
+    private int wordCount;
+
+    private String[] words;
+
+    private QueryParser queryParser;
+
+    @Setup
+    public void setUp() {
+        words = new String[wordCount];
+        for (int index = 0; index < wordCount; index++) {
+            words[index] = "word" + index;
+        }
+
+        queryParser = new QueryParser();
+    }
+
+    @Benchmark
+    public Criteria createSearchConditions() {
+        return CustomBaseRepositoryImpl.createSearchConditions(words);
+    }
+
+    @Benchmark
+    public String createQueryString() {
+        Criteria conditions = CustomBaseRepositoryImpl.createSearchConditions(words);
+        return queryParser.getQueryString(new SimpleQuery(conditions));
+    }
+}
@@ -0,0 +1,229 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The settings of the dataset generator. Every setting can be overridden with a system property.
+ * @author Petri Kainulainen
+ */
+public class DatasetConfiguration {
+
+    protected static final String OUTPUT_JDBC = "jdbc";
+    protected static final String OUTPUT_NDJSON = "ndjson";
+    protected static final String OUTPUT_SOLR = "solr";
+
+    protected static final String PROPERTY_NAME_BATCH_SIZE = "dataset.batch.size";
+    protected static final String PROPERTY_NAME_CREATION_END = "dataset.creation.end";
+    protected static final String PROPERTY_NAME_CREATION_SKEW = "dataset.creation.skew";
+    protected static final String PROPERTY_NAME_CREATION_START = "dataset.creation.start";
+    protected static final String PROPERTY_NAME_DESCRIPTION_PROBABILITY = "dataset.description.probability";
+    protected static final String PROPERTY_NAME_FIRST_ID = "dataset.first.id";
+    protected static final String PROPERTY_NAME_JDBC_AFTER_LOAD_SQL = "dataset.jdbc.after.load.sql";
+    protected static final String PROPERTY_NAME_JDBC_PASSWORD = "dataset.jdbc.password";
+    protected static final String PROPERTY_NAME_JDBC_URL = "dataset.jdbc.url";
+    protected static final String PROPERTY_NAME_JDBC_USERNAME = "dataset.jdbc.username";
+    protected static final String PROPERTY_NAME_MODIFIED_PROBABILITY = "dataset.modified.probability";
+    protected static final String PROPERTY_NAME_NDJSON_FILE = "dataset.ndjson.file";
+    protected static final String PROPERTY_NAME_OUTPUTS = "dataset.outputs";
+    protected static final String PROPERTY_NAME_SEED = "dataset.seed";
+    protected static final String PROPERTY_NAME_SIZE = "dataset.size";
+    protected static final String PROPERTY_NAME_SOLR_COMMIT_INTERVAL = "dataset.solr.commit.interval";
+    protected static final String PROPERTY_NAME_SOLR_QUEUE_SIZE = "dataset.solr.queue.size";
+    protected static final String PROPERTY_NAME_SOLR_THREAD_COUNT = "dataset.solr.thread.count";
+    protected static final String PROPERTY_NAME_SOLR_URL = "dataset.solr.url";
+    protected static final String PROPERTY_NAME_VOCABULARY_EXPONENT = "dataset.vocabulary.exponent";
+    protected static final String PROPERTY_NAME_VOCABULARY_SIZE = "dataset.vocabulary.size";
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final String DEFAULT_CREATION_END = "2013-01-01T00:00:00Z";
+    private static final double DEFAULT_CREATION_SKEW = 1.0;
+    private static final String DEFAULT_CREATION_START = "2012-01-01T00:00:00Z";
+    private static final double DEFAULT_DESCRIPTION_PROBABILITY = 0.7;
+    private static final long DEFAULT_FIRST_ID = 1L;
+    private static final String DEFAULT_JDBC_USERNAME = "sa";
+    private static final double DEFAULT_MODIFIED_PROBABILITY = 0.3;
+    private static final String DEFAULT_NDJSON_FILE = "todos.ndjson";
+    private static final String DEFAULT_OUTPUTS = OUTPUT_NDJSON;
+    private static final long DEFAULT_SEED = 42L;
+    private static final long DEFAULT_SIZE = 10000L;
+    private static final int DEFAULT_SOLR_COMMIT_INTERVAL = 100;
+    private static final int DEFAULT_SOLR_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_SOLR_THREAD_COUNT = 4;
+    private static final String DEFAULT_SOLR_URL = "http://localhost:8983/solr/";
+    private static final double DEFAULT_VOCABULARY_EXPONENT = 1.0;
+    private static final int DEFAULT_VOCABULARY_SIZE = 10000;
+
+    private static final String OUTPUT_SEPARATOR = ",";
+
+    private int batchSize;
+
+    private long creationEnd;
+
+    private double creationSkew;
+
+    private long creationStart;
+
+    private double descriptionProbability;
+
+    private long firstId;
+
+    private String jdbcAfterLoadSql;
+
+    private String jdbcPassword;
+
+    private String jdbcUrl;
+
+    private String jdbcUsername;
+
+    private double modifiedProbability;
+
+    private String ndjsonFile;
+
+    private List<String> outputs;
+
+    private long seed;
+
+    private long size;
+
+    private int solrCommitInterval;
+
+    private int solrQueueSize;
+
+    private int solrThreadCount;
+
+    private String solrUrl;
+
+    private double vocabularyExponent;
+
+    private int vocabularySize;
+
+    public static DatasetConfiguration fromSystemProperties() {
+        DatasetConfiguration configuration = new DatasetConfiguration();
+
+        configuration.batchSize = Integer.getInteger(PROPERTY_NAME_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        configuration.creationEnd = DateTime.parse(System.getProperty(PROPERTY_NAME_CREATION_END, DEFAULT_CREATION_END)).getMillis();
+        configuration.creationSkew = getDouble(PROPERTY_NAME_CREATION_SKEW, DEFAULT_CREATION_SKEW);
+        configuration.creationStart = DateTime.parse(System.getProperty(PROPERTY_NAME_CREATION_START, DEFAULT_CREATION_START)).getMillis();
+        configuration.descriptionProbability = getDouble(PROPERTY_NAME_DESCRIPTION_PROBABILITY, DEFAULT_DESCRIPTION_PROBABILITY);
+        configuration.firstId = Long.getLong(PROPERTY_NAME_FIRST_ID, DEFAULT_FIRST_ID);
+        configuration.jdbcAfterLoadSql = System.getProperty(PROPERTY_NAME_JDBC_AFTER_LOAD_SQL);
+        configuration.jdbcPassword = System.getProperty(PROPERTY_NAME_JDBC_PASSWORD, "");
+        configuration.jdbcUrl = System.getProperty(PROPERTY_NAME_JDBC_URL);
+        configuration.jdbcUsername = System.getProperty(PROPERTY_NAME_JDBC_USERNAME, DEFAULT_JDBC_USERNAME);
+        configuration.modifiedProbability = getDouble(PROPERTY_NAME_MODIFIED_PROBABILITY, DEFAULT_MODIFIED_PROBABILITY);
+        configuration.ndjsonFile = System.getProperty(PROPERTY_NAME_NDJSON_FILE, DEFAULT_NDJSON_FILE);
+        configuration.outputs = parseOutputs(System.getProperty(PROPERTY_NAME_OUTPUTS, DEFAULT_OUTPUTS));
+        configuration.seed = Long.getLong(PROPERTY_NAME_SEED, DEFAULT_SEED);
+        configuration.size = Long.getLong(PROPERTY_NAME_SIZE, DEFAULT_SIZE);
+        configuration.solrCommitInterval = Integer.getInteger(PROPERTY_NAME_SOLR_COMMIT_INTERVAL, DEFAULT_SOLR_COMMIT_INTERVAL);
+        configuration.solrQueueSize = Integer.getInteger(PROPERTY_NAME_SOLR_QUEUE_SIZE, DEFAULT_SOLR_QUEUE_SIZE);
+        configuration.solrThreadCount = Integer.getInteger(PROPERTY_NAME_SOLR_THREAD_COUNT, DEFAULT_SOLR_THREAD_COUNT);
+        configuration.solrUrl = System.getProperty(PROPERTY_NAME_SOLR_URL, DEFAULT_SOLR_URL);
+        configuration.vocabularyExponent = getDouble(PROPERTY_NAME_VOCABULARY_EXPONENT, DEFAULT_VOCABULARY_EXPONENT);
+        configuration.vocabularySize = Integer.getInteger(PROPERTY_NAME_VOCABULARY_SIZE, DEFAULT_VOCABULARY_SIZE);
+
+        if (configuration.outputs.contains(OUTPUT_JDBC) && configuration.jdbcUrl == null) {
+            throw new IllegalArgumentException("JDBC output requires the property: " + PROPERTY_NAME_JDBC_URL);
+        }
+
+        return configuration;
+    }
+
+    private static double getDouble(String propertyName, double defaultValue) {
+        String value = System.getProperty(propertyName);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static List<String> parseOutputs(String value) {
+        List<String> outputs = new ArrayList<String>();
+
+        for (String output: value.split(OUTPUT_SEPARATOR)) {
+            String trimmed = output.trim();
+            if (!trimmed.equals(OUTPUT_JDBC) && !trimmed.equals(OUTPUT_NDJSON) && !trimmed.equals(OUTPUT_SOLR)) {
+                throw new IllegalArgumentException("Unknown output: " + trimmed);
+            }
+            outputs.add(trimmed);
+        }
+
+        return outputs;
+    }
+
+    /**
+     * Creates the generator of the configured dataset.
+     */
+    public TodoGenerator createGenerator() {
+        Vocabulary vocabulary = new Vocabulary(vocabularySize, vocabularyExponent);
+        return new TodoGenerator(seed, vocabulary, creationStart, creationEnd, creationSkew, descriptionProbability, modifiedProbability);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public String getJdbcAfterLoadSql() {
+        return jdbcAfterLoadSql;
+    }
+
+    public String getJdbcPassword() {
+        return jdbcPassword;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public String getJdbcUsername() {
+        return jdbcUsername;
+    }
+
+    public String getNdjsonFile() {
+        return ndjsonFile;
+    }
+
+    public List<String> getOutputs() {
+        return outputs;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getSolrCommitInterval() {
+        return solrCommitInterval;
+    }
+
+    public int getSolrQueueSize() {
+        return solrQueueSize;
+    }
+
+    public int getSolrThreadCount() {
+        return solrThreadCount;
+    }
+
+    public String getSolrUrl() {
+        return solrUrl;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("size", size)
+                .append("firstId", firstId)
+                .append("seed", seed)
+                .append("vocabularySize", vocabularySize)
+                .append("vocabularyExponent", vocabularyExponent)
+                .append("creationStart", new DateTime(creationStart))
+                .append("creationEnd", new DateTime(creationEnd))
+                .append("creationSkew", creationSkew)
+                .append("outputs", outputs)
+                .toString();
+    }
+}
@@ -0,0 +1,97 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the configured dataset and writes it to every configured output. The entries are
+ * generated and written in batches, so the size of the dataset is not limited by the heap.
+ * <p>
+ * Because an entry depends only on its id, a large dataset can be loaded by several processes
+ * in parallel. Every process is given its own range of ids with the properties dataset.first.id
+ * and dataset.size.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class DatasetGeneratorTool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatasetGeneratorTool.class);
+
+    private static final String CHARSET = "UTF-8";
+
+    private static final long PROGRESS_INTERVAL = 100000L;
+
+    public static void main(String[] args) throws Exception {
+        DatasetConfiguration configuration = DatasetConfiguration.fromSystemProperties();
+        LOGGER.info("Generating dataset: {}", configuration);
+
+        TodoGenerator generator = configuration.createGenerator();
+        List<DatasetWriter> writers = createWriters(configuration);
+
+        ConcurrentUpdateSolrServer solrServer = null;
+        if (configuration.getOutputs().contains(DatasetConfiguration.OUTPUT_SOLR)) {
+            solrServer = new ConcurrentUpdateSolrServer(configuration.getSolrUrl(), configuration.getSolrQueueSize(), configuration.getSolrThreadCount());
+            writers.add(new SolrDatasetWriter(solrServer, configuration.getSolrCommitInterval()));
+        }
+
+        try {
+            generate(configuration, generator, writers);
+        }
+        finally {
+            for (DatasetWriter writer: writers) {
+                writer.close();
+            }
+            if (solrServer != null) {
+                solrServer.shutdown();
+            }
+        }
+    }
+
+    private static List<DatasetWriter> createWriters(DatasetConfiguration configuration) throws Exception {
+        List<DatasetWriter> writers = new ArrayList<DatasetWriter>();
+
+        if (configuration.getOutputs().contains(DatasetConfiguration.OUTPUT_JDBC)) {
+            writers.add(new JdbcDatasetWriter(DriverManager.getConnection(configuration.getJdbcUrl(), configuration.getJdbcUsername(), configuration.getJdbcPassword()),
+                    configuration.getJdbcAfterLoadSql()));
+        }
+
+        if (configuration.getOutputs().contains(DatasetConfiguration.OUTPUT_NDJSON)) {
+            writers.add(new NdjsonDatasetWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(configuration.getNdjsonFile()), CHARSET))));
+        }
+
+        return writers;
+    }
+
+    private static void generate(DatasetConfiguration configuration, TodoGenerator generator, List<DatasetWriter> writers) throws Exception {
+        List<TodoRecord> batch = new ArrayList<TodoRecord>(configuration.getBatchSize());
+
+        long firstId = configuration.getFirstId();
+        long lastId = firstId + configuration.getSize() - 1;
+
+        for (long id = firstId; id <= lastId; id++) {
+            batch.add(generator.generate(id));
+
+            if (batch.size() == configuration.getBatchSize() || id == lastId) {
+                for (DatasetWriter writer: writers) {
+                    writer.write(batch);
+                }
+                batch.clear();
+            }
+
+            long generated = id - firstId + 1;
+            if (generated % PROGRESS_INTERVAL == 0) {
+                LOGGER.info("Generated {} to-do entries", generated);
+            }
+        }
+
+        LOGGER.info("Generated {} to-do entries", configuration.getSize());
+    }
+}
@@ -0,0 +1,22 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import java.util.List;
+
+/**
+ * Writes the generated to-do entries to their destination in batches.
+ * @author Petri Kainulainen
+ */
+public interface DatasetWriter {
+
+    /**
+     * Writes a batch of entries.
+     * @throws Exception if the batch cannot be written.
+     */
+    public void write(List<TodoRecord> batch) throws Exception;
+
+    /**
+     * Makes the written entries visible and releases the resources of the writer.
+     * @throws Exception if the written entries cannot be made visible.
+     */
+    public void close() throws Exception;
+}
@@ -0,0 +1,99 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Inserts the entries to the todos table by using JDBC batches. Every batch is committed in
+ * its own transaction, which keeps the transactions small when millions of entries are inserted.
+ * <p>
+ * The ids of the inserted entries are not taken from the id generator of the database. If the
+ * application inserts entries after the load, the generator must be moved past the largest
+ * inserted id by the SQL statement which is given to this writer. Its {nextId} placeholder is
+ * replaced with the largest inserted id plus one.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class JdbcDatasetWriter implements DatasetWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcDatasetWriter.class);
+
+    protected static final String INSERT_TODO = "INSERT INTO todos (id, creation_time, description, modification_time, title, version) VALUES (?, ?, ?, ?, ?, ?)";
+
+    protected static final String PLACEHOLDER_NEXT_ID = "{nextId}";
+
+    private final Connection connection;
+
+    private final PreparedStatement insert;
+
+    private final String afterLoadSql;
+
+    private long maxId;
+
+    /**
+     * @param connection    The connection which is used and closed by this writer.
+     * @param afterLoadSql  The statement which is executed after all entries are inserted, or null.
+     */
+    public JdbcDatasetWriter(Connection connection, String afterLoadSql) throws SQLException {
+        this.connection = connection;
+        this.afterLoadSql = afterLoadSql;
+
+        connection.setAutoCommit(false);
+        this.insert = connection.prepareStatement(INSERT_TODO);
+    }
+
+    @Override
+    public void write(List<TodoRecord> batch) throws SQLException {
+        for (TodoRecord record: batch) {
+            insert.setLong(1, record.getId());
+            insert.setTimestamp(2, new Timestamp(record.getCreationTime()));
+            if (record.getDescription() != null) {
+                insert.setString(3, record.getDescription());
+            }
+            else {
+                insert.setNull(3, Types.VARCHAR);
+            }
+            insert.setTimestamp(4, new Timestamp(record.getModificationTime()));
+            insert.setString(5, record.getTitle());
+            insert.setLong(6, record.getVersion());
+            insert.addBatch();
+
+            maxId = Math.max(maxId, record.getId());
+        }
+
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            insert.close();
+
+            if (afterLoadSql != null && !afterLoadSql.isEmpty()) {
+                String sql = afterLoadSql.replace(PLACEHOLDER_NEXT_ID, String.valueOf(maxId + 1));
+                LOGGER.info("Executing: {}", sql);
+
+                Statement statement = connection.createStatement();
+                try {
+                    statement.execute(sql);
+                }
+                finally {
+                    statement.close();
+                }
+                connection.commit();
+            }
+        }
+        finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes the entries as newline delimited JSON, which means that every line of the output
+ * is a JSON object. The times are written as ISO 8601 strings in UTC.
+ * @author Petri Kainulainen
+ */
+public class NdjsonDatasetWriter implements DatasetWriter {
+
+    protected static final String FIELD_CREATION_TIME = "creationTime";
+    protected static final String FIELD_DESCRIPTION = "description";
+    protected static final String FIELD_ID = "id";
+    protected static final String FIELD_MODIFICATION_TIME = "modificationTime";
+    protected static final String FIELD_TITLE = "title";
+    protected static final String FIELD_VERSION = "version";
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final Writer writer;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * @param writer    The writer which is closed by this writer. It should be buffered.
+     */
+    public NdjsonDatasetWriter(Writer writer) {
+        this.writer = writer;
+        jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void write(List<TodoRecord> batch) throws IOException {
+        for (TodoRecord record: batch) {
+            //A new generator is created for every line, because a generator separates root level values with a space.
+            JsonGenerator generator = jsonFactory.createJsonGenerator(writer);
+
+            generator.writeStartObject();
+            generator.writeNumberField(FIELD_ID, record.getId());
+            generator.writeStringField(FIELD_TITLE, record.getTitle());
+            if (record.getDescription() != null) {
+                generator.writeStringField(FIELD_DESCRIPTION, record.getDescription());
+            }
+            else {
+                generator.writeNullField(FIELD_DESCRIPTION);
+            }
+            generator.writeStringField(FIELD_CREATION_TIME, formatTime(record.getCreationTime()));
+            generator.writeStringField(FIELD_MODIFICATION_TIME, formatTime(record.getModificationTime()));
+            generator.writeNumberField(FIELD_VERSION, record.getVersion());
+            generator.writeEndObject();
+            generator.close();
+
+            writer.write(LINE_SEPARATOR);
+        }
+    }
+
+    private String formatTime(long time) {
+        return new DateTime(time, DateTimeZone.UTC).toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,92 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrServer;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.params.UpdateParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds the entries to the Solr index. The entries are made visible by one commit after all of
+ * them have been added, because opening a new searcher after every batch would slow down the load.
+ * The server is not shut down by this writer.
+ * <p>
+ * The update log of Solr grows until the next hard commit, and Solr replays it when it is
+ * restarted. Because the index is not configured to commit automatically, this writer issues a hard
+ * commit which does not open a new searcher after every configured number of batches.
+ * </p>
+ * <p>
+ * The fastest way to load a remote Solr server is to give this writer a
+ * {@link ConcurrentUpdateSolrServer}, which sends the batches in parallel.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class SolrDatasetWriter implements DatasetWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrDatasetWriter.class);
+
+    private final SolrServer solrServer;
+
+    private final int commitInterval;
+
+    private int uncommittedBatchCount;
+
+    /**
+     * @param solrServer    The server which is used but not shut down by this writer.
+     * @param commitInterval    The number of batches after which the added entries are flushed with a hard commit.
+     */
+    public SolrDatasetWriter(SolrServer solrServer, int commitInterval) {
+        this.solrServer = solrServer;
+        this.commitInterval = commitInterval;
+    }
+
+    public static TodoDocument createDocument(TodoRecord record) {
+        return TodoDocument.getBuilder(record.getId(), record.getTitle())
+                .description(record.getDescription())
+                .build();
+    }
+
+    @Override
+    public void write(List<TodoRecord> batch) throws SolrServerException, IOException {
+        List<TodoDocument> documents = new ArrayList<TodoDocument>(batch.size());
+        for (TodoRecord record: batch) {
+            documents.add(createDocument(record));
+        }
+
+        solrServer.addBeans(documents);
+
+        if (++uncommittedBatchCount >= commitInterval) {
+            flush();
+            uncommittedBatchCount = 0;
+        }
+    }
+
+    /**
+     * Writes the added entries to the index and rolls over the update log without opening a new
+     * searcher. A {@link ConcurrentUpdateSolrServer} sends the queued batches before the commit.
+     */
+    private void flush() throws SolrServerException, IOException {
+        LOGGER.debug("Flushing {} batches with a hard commit", uncommittedBatchCount);
+
+        UpdateRequest commit = new UpdateRequest();
+        commit.setAction(AbstractUpdateRequest.ACTION.COMMIT, true, false);
+        commit.setParam(UpdateParams.OPEN_SEARCHER, Boolean.FALSE.toString());
+        commit.process(solrServer);
+    }
+
+    @Override
+    public void close() throws SolrServerException, IOException {
+        if (solrServer instanceof ConcurrentUpdateSolrServer) {
+            ((ConcurrentUpdateSolrServer) solrServer).blockUntilFinished();
+        }
+        solrServer.commit();
+    }
+}
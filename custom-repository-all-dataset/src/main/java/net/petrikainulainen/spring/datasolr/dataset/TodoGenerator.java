@@ -0,0 +1,93 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+
+import java.util.Random;
+
+/**
+ * Generates to-do entries. An entry depends only on its id and the settings of the generator,
+ * so any range of ids can be generated independently of the other ranges, and the same entry
+ * is generated every time.
+ * @author Petri Kainulainen
+ */
+public class TodoGenerator {
+
+    protected static final int MAX_WORDS_DESCRIPTION = 60;
+    protected static final int MAX_WORDS_TITLE = 8;
+
+    protected static final int MAX_VERSION = 5;
+
+    /**
+     * Spreads the seeds of consecutive ids over the whole range of long values.
+     */
+    private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    private final Vocabulary vocabulary;
+
+    private final long creationStart;
+
+    private final long creationEnd;
+
+    private final double creationSkew;
+
+    private final double descriptionProbability;
+
+    private final double modifiedProbability;
+
+    /**
+     * @param seed                      The seed of the generated entries.
+     * @param vocabulary                The vocabulary of the titles and descriptions.
+     * @param creationStart             The earliest creation time.
+     * @param creationEnd               The latest creation and modification time.
+     * @param creationSkew              One spreads the creation times evenly. Larger values create more
+     *                                  entries near the end of the period, like a growing user base does.
+     * @param descriptionProbability    The probability that an entry has a description.
+     * @param modifiedProbability       The probability that an entry has been modified after it was created.
+     */
+    public TodoGenerator(long seed, Vocabulary vocabulary, long creationStart, long creationEnd, double creationSkew,
+                         double descriptionProbability, double modifiedProbability) {
+        if (creationEnd < creationStart) {
+            throw new IllegalArgumentException("Creation period ends before it starts");
+        }
+        if (creationSkew <= 0) {
+            throw new IllegalArgumentException("Creation skew must be positive");
+        }
+
+        this.seed = seed;
+        this.vocabulary = vocabulary;
+        this.creationStart = creationStart;
+        this.creationEnd = creationEnd;
+        this.creationSkew = creationSkew;
+        this.descriptionProbability = descriptionProbability;
+        this.modifiedProbability = modifiedProbability;
+    }
+
+    public TodoRecord generate(long id) {
+        Random random = new Random(seed + id * SEED_MULTIPLIER);
+
+        String title = vocabulary.text(random, MAX_WORDS_TITLE, Todo.MAX_LENGTH_TITLE);
+
+        String description = null;
+        if (random.nextDouble() < descriptionProbability) {
+            description = vocabulary.text(random, MAX_WORDS_DESCRIPTION, Todo.MAX_LENGTH_DESCRIPTION);
+        }
+
+        long period = creationEnd - creationStart;
+        long creationTime = creationStart + (long) (period * Math.pow(random.nextDouble(), 1.0 / creationSkew));
+
+        long modificationTime = creationTime;
+        long version = 0;
+        if (random.nextDouble() < modifiedProbability) {
+            modificationTime = creationTime + (long) ((creationEnd - creationTime) * random.nextDouble());
+            version = 1 + random.nextInt(MAX_VERSION);
+        }
+
+        return new TodoRecord(id, title, description, creationTime, modificationTime, version);
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+}
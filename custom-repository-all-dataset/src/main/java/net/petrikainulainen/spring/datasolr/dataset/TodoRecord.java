@@ -0,0 +1,56 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+/**
+ * A generated to-do entry. The times are given in milliseconds since the epoch.
+ * @author Petri Kainulainen
+ */
+public class TodoRecord {
+
+    private final long id;
+
+    private final String title;
+
+    private final String description;
+
+    private final long creationTime;
+
+    private final long modificationTime;
+
+    private final long version;
+
+    public TodoRecord(long id, String title, String description, long creationTime, long modificationTime, long version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.creationTime = creationTime;
+        this.modificationTime = modificationTime;
+        this.version = version;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the description, or null if the entry has no description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getModificationTime() {
+        return modificationTime;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
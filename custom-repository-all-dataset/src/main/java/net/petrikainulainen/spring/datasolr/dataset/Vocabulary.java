@@ -0,0 +1,99 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import java.util.Random;
+
+/**
+ * A generated vocabulary whose words are used according to a Zipf distribution. The words are
+ * built from syllables, and the most common words are the shortest ones, like in a natural
+ * language. The words depend only on the size of the vocabulary, so the same vocabulary is
+ * generated every time.
+ * @author Petri Kainulainen
+ */
+public class Vocabulary {
+
+    private static final String[] SYLLABLES = {
+            "ba", "ce", "di", "fo", "gu", "ha", "ke", "li", "mo", "nu",
+            "pa", "re", "si", "to", "vu", "za", "ro", "ne", "mi", "la"
+    };
+
+    private static final String WORD_SEPARATOR = " ";
+
+    private final String[] words;
+
+    private final ZipfDistribution distribution;
+
+    public Vocabulary(int size, double exponent) {
+        this.words = new String[size];
+        for (int index = 0; index < size; index++) {
+            words[index] = createWord(index);
+        }
+
+        this.distribution = new ZipfDistribution(size, exponent);
+    }
+
+    /**
+     * Writes the number in base 20 by using syllables as digits. The offset guarantees that
+     * every word has at least two syllables and that no two numbers produce the same word.
+     */
+    private static String createWord(int index) {
+        StringBuilder word = new StringBuilder();
+
+        long value = index + SYLLABLES.length;
+        while (value > 0) {
+            word.insert(0, SYLLABLES[(int) (value % SYLLABLES.length)]);
+            value /= SYLLABLES.length;
+        }
+
+        return word.toString();
+    }
+
+    /**
+     * Returns the word of the given rank. The word of rank 1 is the most common word.
+     */
+    public String getWord(int rank) {
+        return words[rank - 1];
+    }
+
+    /**
+     * Returns a random word. The probability of a word depends on its rank.
+     */
+    public String sample(Random random) {
+        return getWord(distribution.sample(random));
+    }
+
+    /**
+     * Returns a text which has at least one and at most the given number of words. The text
+     * is never longer than the given maximum length.
+     */
+    public String text(Random random, int maxWordCount, int maxLength) {
+        int wordCount = 1 + random.nextInt(maxWordCount);
+        StringBuilder text = new StringBuilder(sample(random));
+
+        for (int index = 1; index < wordCount; index++) {
+            String word = sample(random);
+            if (text.length() + WORD_SEPARATOR.length() + word.length() > maxLength) {
+                break;
+            }
+            text.append(WORD_SEPARATOR).append(word);
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Returns a search term which has the given number of words.
+     */
+    public String searchTerm(Random random, int wordCount) {
+        StringBuilder searchTerm = new StringBuilder(sample(random));
+
+        for (int index = 1; index < wordCount; index++) {
+            searchTerm.append(WORD_SEPARATOR).append(sample(random));
+        }
+
+        return searchTerm.toString();
+    }
+
+    public int size() {
+        return words.length;
+    }
+}
@@ -0,0 +1,54 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks from a Zipf distribution. The probability of rank k is proportional to
+ * 1 / k^exponent, which means that a few ranks are very common and most ranks are rare,
+ * like the words of a natural language.
+ * @author Petri Kainulainen
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulativeWeights;
+
+    /**
+     * @param size      The number of ranks.
+     * @param exponent  The skew of the distribution. Zero gives a uniform distribution.
+     */
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Exponent must not be negative");
+        }
+
+        cumulativeWeights = new double[size];
+
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cumulativeWeights[rank - 1] = sum;
+        }
+    }
+
+    /**
+     * Returns a rank between 1 and the size of the distribution.
+     */
+    public int sample(Random random) {
+        double value = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+
+        int index = Arrays.binarySearch(cumulativeWeights, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return Math.min(index, cumulativeWeights.length - 1) + 1;
+    }
+
+    public int size() {
+        return cumulativeWeights.length;
+    }
+}
@@ -0,0 +1,124 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TodoGeneratorTest {
+
+    private static final long CREATION_START = 1000000L;
+    private static final long CREATION_END = 2000000L;
+
+    private static final int GENERATED_COUNT = 1000;
+
+    private static final long SEED = 42L;
+
+    private Vocabulary vocabulary;
+
+    @Before
+    public void setUp() {
+        vocabulary = new Vocabulary(1000, 1.0);
+    }
+
+    @Test
+    public void generate_SameSettingsAndId_ShouldGenerateSameEntry() {
+        TodoGenerator first = createGenerator(SEED, 1.0, 0.5, 0.5);
+        TodoGenerator second = createGenerator(SEED, 1.0, 0.5, 0.5);
+
+        for (long id = 1; id <= GENERATED_COUNT; id++) {
+            TodoRecord expected = first.generate(id);
+            TodoRecord actual = second.generate(id);
+
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getCreationTime(), actual.getCreationTime());
+            assertEquals(expected.getModificationTime(), actual.getModificationTime());
+            assertEquals(expected.getVersion(), actual.getVersion());
+        }
+    }
+
+    @Test
+    public void generate_DifferentSeed_ShouldGenerateDifferentEntry() {
+        TodoRecord first = createGenerator(SEED, 1.0, 1.0, 1.0).generate(1L);
+        TodoRecord second = createGenerator(SEED + 1, 1.0, 1.0, 1.0).generate(1L);
+
+        assertFalse(first.getDescription().equals(second.getDescription()));
+    }
+
+    @Test
+    public void generate_ShouldRespectLengthAndTimeLimits() {
+        TodoGenerator generator = createGenerator(SEED, 2.0, 0.5, 0.5);
+
+        for (long id = 1; id <= GENERATED_COUNT; id++) {
+            TodoRecord generated = generator.generate(id);
+
+            assertEquals(id, generated.getId());
+            assertTrue(generated.getTitle().length() <= Todo.MAX_LENGTH_TITLE);
+            if (generated.getDescription() != null) {
+                assertTrue(generated.getDescription().length() <= Todo.MAX_LENGTH_DESCRIPTION);
+            }
+            assertTrue(generated.getCreationTime() >= CREATION_START);
+            assertTrue(generated.getCreationTime() <= generated.getModificationTime());
+            assertTrue(generated.getModificationTime() <= CREATION_END);
+        }
+    }
+
+    @Test
+    public void generate_DescriptionProbabilityIsZero_ShouldNotGenerateDescriptions() {
+        TodoGenerator generator = createGenerator(SEED, 1.0, 0.0, 0.0);
+
+        for (long id = 1; id <= GENERATED_COUNT; id++) {
+            TodoRecord generated = generator.generate(id);
+
+            assertNull(generated.getDescription());
+            assertEquals(0L, generated.getVersion());
+            assertEquals(generated.getCreationTime(), generated.getModificationTime());
+        }
+    }
+
+    @Test
+    public void generate_ModifiedProbabilityIsOne_ShouldGenerateModifiedEntries() {
+        TodoGenerator generator = createGenerator(SEED, 1.0, 1.0, 1.0);
+
+        for (long id = 1; id <= GENERATED_COUNT; id++) {
+            TodoRecord generated = generator.generate(id);
+
+            assertNotNull(generated.getDescription());
+            assertTrue(generated.getVersion() >= 1 && generated.getVersion() <= TodoGenerator.MAX_VERSION);
+        }
+    }
+
+    @Test
+    public void generate_CreationSkewIsLarge_ShouldCreateMostEntriesNearEndOfPeriod() {
+        TodoGenerator generator = createGenerator(SEED, 4.0, 0.5, 0.5);
+        long middle = (CREATION_START + CREATION_END) / 2;
+
+        int createdAfterMiddle = 0;
+        for (long id = 1; id <= GENERATED_COUNT; id++) {
+            if (generator.generate(id).getCreationTime() > middle) {
+                createdAfterMiddle++;
+            }
+        }
+
+        //The expected share is 1 - 0.5^4, which is about 94 percent.
+        assertTrue(createdAfterMiddle > GENERATED_COUNT * 0.9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_CreationEndIsBeforeStart_ShouldThrowException() {
+        new TodoGenerator(SEED, vocabulary, CREATION_END, CREATION_START, 1.0, 0.5, 0.5);
+    }
+
+    private TodoGenerator createGenerator(long seed, double creationSkew, double descriptionProbability, double modifiedProbability) {
+        return new TodoGenerator(seed, vocabulary, CREATION_START, CREATION_END, creationSkew, descriptionProbability, modifiedProbability);
+    }
+}
@@ -0,0 +1,72 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class VocabularyTest {
+
+    private static final int SIZE = 10000;
+
+    private static final int MAX_LENGTH = 30;
+    private static final int MAX_WORD_COUNT = 20;
+
+    @Test
+    public void getWord_ShouldReturnUniqueWords() {
+        Vocabulary vocabulary = new Vocabulary(SIZE, 1.0);
+
+        Set<String> words = new HashSet<String>();
+        for (int rank = 1; rank <= SIZE; rank++) {
+            words.add(vocabulary.getWord(rank));
+        }
+
+        assertEquals(SIZE, words.size());
+    }
+
+    @Test
+    public void getWord_SameSize_ShouldReturnSameWords() {
+        Vocabulary first = new Vocabulary(SIZE, 1.0);
+        Vocabulary second = new Vocabulary(SIZE, 0.5);
+
+        for (int rank = 1; rank <= SIZE; rank++) {
+            assertEquals(first.getWord(rank), second.getWord(rank));
+        }
+    }
+
+    @Test
+    public void getWord_CommonWord_ShouldNotBeLongerThanRareWord() {
+        Vocabulary vocabulary = new Vocabulary(SIZE, 1.0);
+
+        assertTrue(vocabulary.getWord(1).length() <= vocabulary.getWord(SIZE).length());
+    }
+
+    @Test
+    public void text_ShouldNotExceedMaxLengthOrWordCount() {
+        Vocabulary vocabulary = new Vocabulary(SIZE, 1.0);
+        Random random = new Random(42L);
+
+        for (int index = 0; index < 1000; index++) {
+            String text = vocabulary.text(random, MAX_WORD_COUNT, MAX_LENGTH);
+
+            assertTrue(text.length() <= MAX_LENGTH);
+            assertTrue(text.split(" ").length <= MAX_WORD_COUNT);
+        }
+    }
+
+    @Test
+    public void searchTerm_ShouldReturnGivenNumberOfWords() {
+        Vocabulary vocabulary = new Vocabulary(SIZE, 1.0);
+
+        String searchTerm = vocabulary.searchTerm(new Random(42L), 5);
+
+        assertEquals(5, searchTerm.split(" ").length);
+    }
+}
@@ -0,0 +1,76 @@
+package net.petrikainulainen.spring.datasolr.dataset;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ZipfDistributionTest {
+
+    private static final int SAMPLE_COUNT = 100000;
+    private static final int SIZE = 100;
+
+    @Test
+    public void sample_ShouldReturnRanksWithinSize() {
+        ZipfDistribution distribution = new ZipfDistribution(SIZE, 1.0);
+        Random random = new Random(42L);
+
+        for (int index = 0; index < SAMPLE_COUNT; index++) {
+            int rank = distribution.sample(random);
+            assertTrue(rank >= 1 && rank <= SIZE);
+        }
+    }
+
+    @Test
+    public void sample_ExponentIsOne_ShouldReturnFirstRankTwiceAsOftenAsSecondRank() {
+        int[] counts = sample(new ZipfDistribution(SIZE, 1.0));
+
+        double ratio = (double) counts[1] / counts[2];
+        assertTrue(ratio > 1.9 && ratio < 2.1);
+    }
+
+    @Test
+    public void sample_ExponentIsZero_ShouldReturnRanksUniformly() {
+        int[] counts = sample(new ZipfDistribution(SIZE, 0.0));
+
+        double ratio = (double) counts[1] / counts[SIZE];
+        assertTrue(ratio > 0.8 && ratio < 1.2);
+    }
+
+    @Test
+    public void sample_SameSeed_ShouldReturnSameRanks() {
+        ZipfDistribution distribution = new ZipfDistribution(SIZE, 1.0);
+        Random first = new Random(42L);
+        Random second = new Random(42L);
+
+        for (int index = 0; index < SAMPLE_COUNT; index++) {
+            assertEquals(distribution.sample(first), distribution.sample(second));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_SizeIsZero_ShouldThrowException() {
+        new ZipfDistribution(0, 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_ExponentIsNegative_ShouldThrowException() {
+        new ZipfDistribution(SIZE, -1.0);
+    }
+
+    private int[] sample(ZipfDistribution distribution) {
+        Random random = new Random(42L);
+        int[] counts = new int[SIZE + 1];
+
+        for (int index = 0; index < SAMPLE_COUNT; index++) {
+            counts[distribution.sample(random)]++;
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,33 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * The status code and the body of a response returned by the to-do API.
+ * @author Petri Kainulainen
+ */
+public class ApiResponse {
+
+    private final int status;
+
+    private final byte[] body;
+
+    public ApiResponse(int status, byte[] body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+
+    public <T> T readBody(ObjectMapper objectMapper, Class<T> type) throws IOException {
+        return objectMapper.readValue(body, type);
+    }
+}
@@ -0,0 +1,111 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.dataset.TodoGenerator;
+import net.petrikainulainen.spring.datasolr.dataset.TodoRecord;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Adds the to-do entries of the load test by using the to-do API, so that they are saved
+ * to the database and indexed exactly like the entries added during the load test. The
+ * content of the entries is created by the dataset generator, which means that every run
+ * uses the same dataset.
+ * @author Petri Kainulainen
+ */
+public class DatasetSeeder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final TodoGenerator generator;
+
+    private final ObjectMapper objectMapper;
+
+    public DatasetSeeder(TodoGenerator generator, ObjectMapper objectMapper) {
+        this.generator = generator;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Adds the given number of to-do entries in parallel. Each user adds its own share of the
+     * entries. The added entries are put to the pool.
+     * @throws Exception if an entry cannot be added.
+     */
+    public void seed(int size, List<VirtualUser> users, TodoPool pool) throws Exception {
+        LOGGER.info("Seeding {} to-do entries", size);
+
+        List<List<TodoDTO>> shares = new ArrayList<List<TodoDTO>>();
+        for (int index = 0; index < users.size(); index++) {
+            shares.add(new ArrayList<TodoDTO>());
+        }
+
+        for (int index = 0; index < size; index++) {
+            shares.get(index % users.size()).add(createTodo(index + 1));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(users.size());
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int index = 0; index < users.size(); index++) {
+                results.add(executor.submit(addAll(users.get(index), shares.get(index), pool)));
+            }
+
+            for (Future<Void> result: results) {
+                result.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        LOGGER.info("Seeded {} to-do entries", pool.size());
+    }
+
+    /**
+     * Creates a new to-do entry which has the title and description of the generated entry
+     * with the given number. The id of the entry is assigned by the application.
+     */
+    public TodoDTO createTodo(long number) {
+        TodoRecord generated = generator.generate(number);
+
+        TodoDTO todo = new TodoDTO();
+        todo.setTitle(generated.getTitle());
+        todo.setDescription(generated.getDescription());
+
+        return todo;
+    }
+
+    private Callable<Void> addAll(final VirtualUser user, final List<TodoDTO> todoEntries, final TodoPool pool) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (TodoDTO todo: todoEntries) {
+                    ApiResponse response = user.add(todo);
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Cannot add to-do entry. Status: " + response.getStatus());
+                    }
+
+                    TodoDTO added = response.readBody(objectMapper, TodoDTO.class);
+                    pool.put(added.getId(), added.getVersion());
+
+                    int seeded = pool.size();
+                    if (seeded % PROGRESS_INTERVAL == 0) {
+                        LOGGER.info("Seeded {} to-do entries", seeded);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.config.ExampleApplicationConfig;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/**
+ * Runs the example application in an embedded Jetty server. The servlets, filters and
+ * listeners of the application are registered by {@link ExampleApplicationConfig}, just
+ * like they are when the application is deployed to a servlet container.
+ * @author Petri Kainulainen
+ */
+public class EmbeddedApplicationServer {
+
+    private static final String CONTEXT_PATH = "/";
+
+    private static final String HOST = "localhost";
+
+    private final Server server;
+
+    private ServletContextHandler context;
+
+    public EmbeddedApplicationServer(int port) {
+        this.server = new Server(port);
+    }
+
+    public void start() throws Exception {
+        context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath(CONTEXT_PATH);
+
+        //The servlets can be registered only before the context is started.
+        new ExampleApplicationConfig().onStartup(context.getServletContext());
+
+        server.setHandler(context);
+        server.start();
+    }
+
+    public void stop() throws Exception {
+        server.stop();
+    }
+
+    public String getBaseUrl() {
+        return "http://" + HOST + ":" + server.getConnectors()[0].getLocalPort();
+    }
+
+    public WebApplicationContext getApplicationContext() {
+        return WebApplicationContextUtils.getRequiredWebApplicationContext(context.getServletContext());
+    }
+}
@@ -0,0 +1,114 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SynchronizedHistogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latencies and failures of the executed operations. The latencies are recorded
+ * in microseconds and reported in milliseconds.
+ * @author Petri Kainulainen
+ */
+public class LatencyReport {
+
+    private static final int SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private static final double MICROSECONDS_PER_MILLISECOND = 1000.0;
+
+    private static final double[] REPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private static final String HISTOGRAM_FILE_SUFFIX = ".hgrm";
+
+    private final List<Operation> operations;
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<Operation, Histogram>(Operation.class);
+
+    private final Map<Operation, AtomicLong> failures = new EnumMap<Operation, AtomicLong>(Operation.class);
+
+    private final Map<Operation, AtomicLong> skipped = new EnumMap<Operation, AtomicLong>(Operation.class);
+
+    /**
+     * The maps are filled before they are shared between threads, and only their values
+     * are modified after that.
+     */
+    public LatencyReport(List<Operation> operations) {
+        this.operations = operations;
+
+        for (Operation operation: operations) {
+            latencies.put(operation, new SynchronizedHistogram(SIGNIFICANT_VALUE_DIGITS));
+            failures.put(operation, new AtomicLong());
+            skipped.put(operation, new AtomicLong());
+        }
+    }
+
+    public void recordSuccess(Operation operation, long latencyNanos) {
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    public void recordFailure(Operation operation) {
+        failures.get(operation).incrementAndGet();
+    }
+
+    /**
+     * Records an operation which was not executed because there was no to-do entry
+     * which could have been updated or deleted.
+     */
+    public void recordSkipped(Operation operation) {
+        skipped.get(operation).incrementAndGet();
+    }
+
+    public long getSuccessCount(Operation operation) {
+        return latencies.get(operation).getTotalCount();
+    }
+
+    public long getFailureCount(Operation operation) {
+        return failures.get(operation).get();
+    }
+
+    public void print(PrintStream out, double durationSeconds) {
+        out.printf("%-42s %9s %9s %9s %9s", "Endpoint", "Requests", "Failures", "Skipped", "Req/s");
+        for (double percentile: REPORTED_PERCENTILES) {
+            out.printf(" %9s", "p" + percentile);
+        }
+        out.printf(" %9s%n", "max");
+
+        for (Operation operation: operations) {
+            Histogram histogram = latencies.get(operation);
+            long failureCount = getFailureCount(operation);
+            double throughput = (histogram.getTotalCount() + failureCount) / durationSeconds;
+
+            out.printf("%-42s %9d %9d %9d %9.1f", operation.getEndpoint(), histogram.getTotalCount(), failureCount,
+                    skipped.get(operation).get(), throughput);
+            for (double percentile: REPORTED_PERCENTILES) {
+                out.printf(" %9.2f", histogram.getValueAtPercentile(percentile) / MICROSECONDS_PER_MILLISECOND);
+            }
+            out.printf(" %9.2f%n", histogram.getMaxValue() / MICROSECONDS_PER_MILLISECOND);
+        }
+
+        out.println("Latencies are given in milliseconds. They are measured from the intended start time of the request.");
+    }
+
+    /**
+     * Writes the full percentile distribution of every operation to its own file. The files
+     * can be plotted with the HdrHistogram plotter.
+     */
+    public void writeHistograms(File directory) throws FileNotFoundException {
+        for (Operation operation: operations) {
+            PrintStream out = new PrintStream(new File(directory, operation.getKey() + HISTOGRAM_FILE_SUFFIX));
+            try {
+                latencies.get(operation).outputPercentileDistribution(out, MICROSECONDS_PER_MILLISECOND);
+            }
+            finally {
+                out.close();
+            }
+        }
+    }
+}
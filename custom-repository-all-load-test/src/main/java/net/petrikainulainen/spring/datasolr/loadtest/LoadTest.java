@@ -0,0 +1,133 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.common.solr.BackgroundSolrServer;
+import net.petrikainulainen.spring.datasolr.dataset.TodoGenerator;
+import org.apache.solr.client.solrj.SolrServer;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the example application with an embedded Solr server and an in-memory H2 database,
+ * seeds the to-do entries, and measures the latency of the to-do API under a mixed workload.
+ * The test runs in a single JVM and does not need network access.
+ * @author Petri Kainulainen
+ */
+public class LoadTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String BEAN_NAME_SOLR_SERVER = "solrServer";
+
+    private static final String PROFILE_DEV = "dev";
+
+    private static final String PROPERTY_NAME_HIBERNATE_SHOW_SQL = "hibernate.show_sql";
+    private static final String PROPERTY_NAME_HTTP_MAX_CONNECTIONS = "http.maxConnections";
+    private static final String PROPERTY_NAME_SOLR_DATA_DIR = "solr.data.dir";
+    private static final String PROPERTY_NAME_SOLR_SOLR_HOME = "solr.solr.home";
+    private static final String PROPERTY_NAME_SPRING_PROFILES_ACTIVE = "spring.profiles.active";
+
+    private static final String SOLR_HOME = "solr/";
+    private static final String[] SOLR_HOME_FILES = {
+            "solr.xml",
+            "collection1/conf/schema.xml",
+            "collection1/conf/solrconfig.xml"
+    };
+
+    private static final long SOLR_SERVER_READY_TIMEOUT_SECONDS = 300;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfiguration configuration = LoadTestConfiguration.fromSystemProperties();
+        LOGGER.info("Running load test with configuration: {}", configuration);
+
+        File solrHome = createSolrHome();
+        configureApplication(solrHome, configuration);
+
+        EmbeddedApplicationServer server = new EmbeddedApplicationServer(configuration.getPort());
+        try {
+            server.start();
+            awaitSolrServer(server);
+
+            ObjectMapper objectMapper = new ObjectMapper();
+            TodoGenerator todoGenerator = configuration.createTodoGenerator();
+            DatasetSeeder seeder = new DatasetSeeder(todoGenerator, objectMapper);
+            TodoPool pool = new TodoPool();
+
+            List<VirtualUser> users = login(server.getBaseUrl(), configuration, objectMapper);
+            seeder.seed(configuration.getDatasetSize(), users, pool);
+
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(configuration, users, pool, seeder, todoGenerator.getVocabulary(), objectMapper);
+            LatencyReport report = generator.run();
+
+            report.print(System.out, configuration.getDurationSeconds());
+            if (configuration.getHistogramDirectory() != null) {
+                report.writeHistograms(new File(configuration.getHistogramDirectory()));
+            }
+        }
+        finally {
+            server.stop();
+            FileSystemUtils.deleteRecursively(solrHome);
+        }
+    }
+
+    /**
+     * Copies the Solr home from the classpath to a temporary directory, because Solr cannot
+     * read its configuration from a jar file.
+     */
+    private static File createSolrHome() throws IOException {
+        File solrHome = File.createTempFile("solr-home", "");
+        if (!solrHome.delete() || !solrHome.mkdir()) {
+            throw new IOException("Cannot create Solr home: " + solrHome);
+        }
+
+        for (String file: SOLR_HOME_FILES) {
+            File target = new File(solrHome, file);
+            target.getParentFile().mkdirs();
+            FileCopyUtils.copy(new ClassPathResource(SOLR_HOME + file).getInputStream(), new FileOutputStream(target));
+        }
+
+        return solrHome;
+    }
+
+    /**
+     * System properties override the properties which are read from the application.properties file.
+     */
+    private static void configureApplication(File solrHome, LoadTestConfiguration configuration) {
+        System.setProperty(PROPERTY_NAME_SPRING_PROFILES_ACTIVE, PROFILE_DEV);
+        System.setProperty(PROPERTY_NAME_SOLR_SOLR_HOME, solrHome.getAbsolutePath());
+        System.setProperty(PROPERTY_NAME_SOLR_DATA_DIR, new File(solrHome, "data").getAbsolutePath());
+        System.setProperty(PROPERTY_NAME_HIBERNATE_SHOW_SQL, Boolean.FALSE.toString());
+        System.setProperty(PROPERTY_NAME_HTTP_MAX_CONNECTIONS, String.valueOf(configuration.getThreadCount()));
+    }
+
+    private static void awaitSolrServer(EmbeddedApplicationServer server) throws InterruptedException {
+        SolrServer solrServer = server.getApplicationContext().getBean(BEAN_NAME_SOLR_SERVER, SolrServer.class);
+
+        LOGGER.info("Waiting for the Solr server");
+        if (!BackgroundSolrServer.awaitReady(solrServer, SOLR_SERVER_READY_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Solr server was not loaded");
+        }
+    }
+
+    private static List<VirtualUser> login(String baseUrl, LoadTestConfiguration configuration, ObjectMapper objectMapper) throws IOException {
+        List<VirtualUser> users = new ArrayList<VirtualUser>();
+
+        for (int index = 0; index < configuration.getUserCount(); index++) {
+            VirtualUser user = new VirtualUser(baseUrl, objectMapper);
+            user.login(configuration.getUsername(), configuration.getPassword());
+            users.add(user);
+        }
+
+        return users;
+    }
+}
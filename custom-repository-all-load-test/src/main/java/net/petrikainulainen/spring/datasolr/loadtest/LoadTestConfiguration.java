@@ -0,0 +1,188 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.dataset.TodoGenerator;
+import net.petrikainulainen.spring.datasolr.dataset.Vocabulary;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * The settings of the load test. Every setting can be overridden with a system property.
+ * @author Petri Kainulainen
+ */
+public class LoadTestConfiguration {
+
+    protected static final String PROPERTY_NAME_DATASET_SIZE = "loadtest.dataset.size";
+    protected static final String PROPERTY_NAME_DURATION_SECONDS = "loadtest.duration.seconds";
+    protected static final String PROPERTY_NAME_HISTOGRAM_DIRECTORY = "loadtest.histogram.directory";
+    protected static final String PROPERTY_NAME_MIX = "loadtest.mix";
+    protected static final String PROPERTY_NAME_PASSWORD = "loadtest.password";
+    protected static final String PROPERTY_NAME_PORT = "loadtest.port";
+    protected static final String PROPERTY_NAME_RATE = "loadtest.rate";
+    protected static final String PROPERTY_NAME_SEED = "loadtest.seed";
+    protected static final String PROPERTY_NAME_THREAD_COUNT = "loadtest.thread.count";
+    protected static final String PROPERTY_NAME_USER_COUNT = "loadtest.user.count";
+    protected static final String PROPERTY_NAME_USERNAME = "loadtest.username";
+    protected static final String PROPERTY_NAME_VOCABULARY_EXPONENT = "loadtest.vocabulary.exponent";
+    protected static final String PROPERTY_NAME_VOCABULARY_SIZE = "loadtest.vocabulary.size";
+    protected static final String PROPERTY_NAME_WARM_UP_SECONDS = "loadtest.warmup.seconds";
+
+    private static final int DEFAULT_DATASET_SIZE = 10000;
+    private static final int DEFAULT_DURATION_SECONDS = 120;
+    private static final String DEFAULT_MIX = "search=40,count=20,findAll=2,add=15,update=15,delete=8";
+    private static final String DEFAULT_PASSWORD = "password";
+    private static final int DEFAULT_PORT = 0;
+    private static final double DEFAULT_RATE = 200.0;
+    private static final long DEFAULT_SEED = 42L;
+    private static final int DEFAULT_THREAD_COUNT = 200;
+    private static final int DEFAULT_USER_COUNT = 50;
+    private static final String DEFAULT_USERNAME = "user";
+    private static final double DEFAULT_VOCABULARY_EXPONENT = 1.0;
+    private static final int DEFAULT_VOCABULARY_SIZE = 10000;
+    private static final int DEFAULT_WARM_UP_SECONDS = 30;
+
+    /**
+     * The times of the entries are set by the application, so the generated times are not used.
+     */
+    private static final long GENERATED_CREATION_TIME = 0L;
+    private static final double GENERATED_CREATION_SKEW = 1.0;
+    private static final double GENERATED_DESCRIPTION_PROBABILITY = 0.7;
+    private static final double GENERATED_MODIFIED_PROBABILITY = 0.0;
+
+    private int datasetSize;
+
+    private int durationSeconds;
+
+    private String histogramDirectory;
+
+    private OperationMix mix;
+
+    private String password;
+
+    private int port;
+
+    private double rate;
+
+    private long seed;
+
+    private int threadCount;
+
+    private int userCount;
+
+    private String username;
+
+    private double vocabularyExponent;
+
+    private int vocabularySize;
+
+    private int warmUpSeconds;
+
+    public static LoadTestConfiguration fromSystemProperties() {
+        LoadTestConfiguration configuration = new LoadTestConfiguration();
+
+        configuration.datasetSize = Integer.getInteger(PROPERTY_NAME_DATASET_SIZE, DEFAULT_DATASET_SIZE);
+        configuration.durationSeconds = Integer.getInteger(PROPERTY_NAME_DURATION_SECONDS, DEFAULT_DURATION_SECONDS);
+        configuration.histogramDirectory = System.getProperty(PROPERTY_NAME_HISTOGRAM_DIRECTORY);
+        configuration.mix = OperationMix.parse(System.getProperty(PROPERTY_NAME_MIX, DEFAULT_MIX));
+        configuration.password = System.getProperty(PROPERTY_NAME_PASSWORD, DEFAULT_PASSWORD);
+        configuration.port = Integer.getInteger(PROPERTY_NAME_PORT, DEFAULT_PORT);
+        configuration.rate = Double.parseDouble(System.getProperty(PROPERTY_NAME_RATE, String.valueOf(DEFAULT_RATE)));
+        configuration.seed = Long.getLong(PROPERTY_NAME_SEED, DEFAULT_SEED);
+        configuration.threadCount = Integer.getInteger(PROPERTY_NAME_THREAD_COUNT, DEFAULT_THREAD_COUNT);
+        configuration.userCount = Integer.getInteger(PROPERTY_NAME_USER_COUNT, DEFAULT_USER_COUNT);
+        configuration.username = System.getProperty(PROPERTY_NAME_USERNAME, DEFAULT_USERNAME);
+        configuration.vocabularyExponent = Double.parseDouble(System.getProperty(PROPERTY_NAME_VOCABULARY_EXPONENT, String.valueOf(DEFAULT_VOCABULARY_EXPONENT)));
+        configuration.vocabularySize = Integer.getInteger(PROPERTY_NAME_VOCABULARY_SIZE, DEFAULT_VOCABULARY_SIZE);
+        configuration.warmUpSeconds = Integer.getInteger(PROPERTY_NAME_WARM_UP_SECONDS, DEFAULT_WARM_UP_SECONDS);
+
+        if (configuration.rate <= 0) {
+            throw new IllegalArgumentException("Request rate must be positive");
+        }
+
+        return configuration;
+    }
+
+    /**
+     * Creates the generator of the seeded and added to-do entries. The search terms are
+     * sampled from the vocabulary of the generator, so they follow the same Zipf distribution
+     * as the words of the entries.
+     */
+    public TodoGenerator createTodoGenerator() {
+        Vocabulary vocabulary = new Vocabulary(vocabularySize, vocabularyExponent);
+        return new TodoGenerator(seed, vocabulary, GENERATED_CREATION_TIME, GENERATED_CREATION_TIME, GENERATED_CREATION_SKEW,
+                GENERATED_DESCRIPTION_PROBABILITY, GENERATED_MODIFIED_PROBABILITY);
+    }
+
+    public int getDatasetSize() {
+        return datasetSize;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * Returns the directory to which the percentile distributions are written, or null if
+     * they are not written.
+     */
+    public String getHistogramDirectory() {
+        return histogramDirectory;
+    }
+
+    public OperationMix getMix() {
+        return mix;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * Returns the port of the server. Zero means that a free port is selected when the server is started.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Returns the number of requests per second. The requests are started at this rate even if
+     * the earlier requests have not been completed.
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getWarmUpSeconds() {
+        return warmUpSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("datasetSize", datasetSize)
+                .append("durationSeconds", durationSeconds)
+                .append("mix", mix)
+                .append("rate", rate)
+                .append("seed", seed)
+                .append("threadCount", threadCount)
+                .append("userCount", userCount)
+                .append("vocabularySize", vocabularySize)
+                .append("vocabularyExponent", vocabularyExponent)
+                .append("warmUpSeconds", warmUpSeconds)
+                .toString();
+    }
+}
@@ -0,0 +1,244 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.dataset.Vocabulary;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests to the to-do API by using an open workload model. The requests arrive at
+ * the configured rate regardless of how fast the earlier requests are completed, and the
+ * time between two arrivals is exponentially distributed. When the application cannot keep
+ * up, the requests wait in the queue of the executor.
+ * <p>
+ * The latency of a request is measured from its intended start time instead of the time when
+ * it was sent. Otherwise the latency would not include the time which the request spent
+ * waiting, and the percentiles would hide the slow periods (coordinated omission).
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class OpenModelLoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenModelLoadGenerator.class);
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private static final String THREAD_NAME_PREFIX = "load-";
+
+    private static final Runnable NO_OPERATION = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final LoadTestConfiguration configuration;
+
+    private final List<VirtualUser> users;
+
+    private final TodoPool pool;
+
+    private final DatasetSeeder seeder;
+
+    private final Vocabulary vocabulary;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The number of the next generated entry. The numbers of the seeded entries are not reused.
+     */
+    private long nextTodoNumber;
+
+    public OpenModelLoadGenerator(LoadTestConfiguration configuration, List<VirtualUser> users, TodoPool pool,
+                                  DatasetSeeder seeder, Vocabulary vocabulary, ObjectMapper objectMapper) {
+        this.configuration = configuration;
+        this.users = users;
+        this.pool = pool;
+        this.seeder = seeder;
+        this.vocabulary = vocabulary;
+        this.objectMapper = objectMapper;
+        this.nextTodoNumber = configuration.getDatasetSize() + 1;
+    }
+
+    /**
+     * Runs the warm-up and the measurement. The requests which are started during the
+     * warm-up are not recorded.
+     * @return  The report of the measurement.
+     */
+    public LatencyReport run() throws InterruptedException {
+        OperationMix mix = configuration.getMix();
+        LatencyReport report = new LatencyReport(mix.getOperations());
+
+        //All random choices are made by the dispatching thread, which makes the sequence of requests repeatable.
+        Random random = new Random(configuration.getSeed());
+        ThreadPoolExecutor executor = createExecutor();
+
+        long start = System.nanoTime();
+        long measurementStart = start + TimeUnit.SECONDS.toNanos(configuration.getWarmUpSeconds());
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(configuration.getDurationSeconds());
+
+        LOGGER.info("Warming up for {} seconds", configuration.getWarmUpSeconds());
+
+        boolean measuring = false;
+        long intendedStart = start;
+
+        while (intendedStart < end) {
+            waitUntil(intendedStart);
+
+            if (!measuring && intendedStart >= measurementStart) {
+                LOGGER.info("Measuring for {} seconds", configuration.getDurationSeconds());
+                measuring = true;
+            }
+
+            Operation operation = mix.next(random);
+            VirtualUser user = users.get(random.nextInt(users.size()));
+            executor.execute(createRequest(operation, user, random, intendedStart, measuring ? report : null));
+
+            intendedStart += nextInterarrivalTime(random);
+        }
+
+        executor.shutdown();
+        if (!executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            LOGGER.warn("{} requests were not completed", executor.getQueue().size() + executor.getActiveCount());
+            executor.shutdownNow();
+        }
+
+        return report;
+    }
+
+    private ThreadPoolExecutor createExecutor() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(configuration.getThreadCount(), configuration.getThreadCount(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+        executor.setThreadFactory(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.prestartAllCoreThreads();
+
+        return executor;
+    }
+
+    private long nextInterarrivalTime(Random random) {
+        return (long) (-Math.log(1.0 - random.nextDouble()) / configuration.getRate() * NANOS_PER_SECOND);
+    }
+
+    private void waitUntil(long time) {
+        long delay;
+        while ((delay = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    /**
+     * Creates the request and selects its parameters. If the report is null, the request is
+     * not recorded.
+     */
+    private Runnable createRequest(final Operation operation, final VirtualUser user, Random random,
+                                   final long intendedStart, final LatencyReport report) {
+        final String searchTerm = vocabulary.sample(random);
+        final TodoDTO todo = createParameter(operation, random);
+
+        if (todo == null && (operation == Operation.UPDATE || operation == Operation.DELETE)) {
+            if (report != null) {
+                report.recordSkipped(operation);
+            }
+            return NO_OPERATION;
+        }
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                boolean successful = false;
+
+                try {
+                    successful = execute(operation, user, searchTerm, todo);
+                }
+                catch (Exception ex) {
+                    LOGGER.debug("Request: {} failed", operation, ex);
+                }
+
+                long latency = System.nanoTime() - intendedStart;
+
+                if (report != null) {
+                    if (successful) {
+                        report.recordSuccess(operation, latency);
+                    }
+                    else {
+                        report.recordFailure(operation);
+                    }
+                }
+            }
+        };
+    }
+
+    private TodoDTO createParameter(Operation operation, Random random) {
+        switch (operation) {
+            case ADD:
+                return seeder.createTodo(nextTodoNumber++);
+            case UPDATE:
+                TodoDTO updated = pool.take(random);
+                if (updated != null) {
+                    TodoDTO content = seeder.createTodo(nextTodoNumber++);
+                    updated.setTitle(content.getTitle());
+                    updated.setDescription(content.getDescription());
+                }
+                return updated;
+            case DELETE:
+                return pool.take(random);
+            default:
+                return null;
+        }
+    }
+
+    private boolean execute(Operation operation, VirtualUser user, String searchTerm, TodoDTO todo) throws Exception {
+        ApiResponse response;
+
+        switch (operation) {
+            case SEARCH:
+                return user.search(searchTerm).isSuccessful();
+            case COUNT:
+                return user.count(searchTerm).isSuccessful();
+            case FIND_ALL:
+                return user.findAll().isSuccessful();
+            case ADD:
+                response = user.add(todo);
+                if (response.isSuccessful()) {
+                    TodoDTO added = response.readBody(objectMapper, TodoDTO.class);
+                    pool.put(added.getId(), added.getVersion());
+                }
+                return response.isSuccessful();
+            case UPDATE:
+                response = user.update(todo);
+                if (response.isSuccessful()) {
+                    TodoDTO updated = response.readBody(objectMapper, TodoDTO.class);
+                    pool.put(updated.getId(), updated.getVersion());
+                }
+                else {
+                    //The entry still exists, so it can be updated or deleted later.
+                    pool.put(todo.getId(), todo.getVersion());
+                }
+                return response.isSuccessful();
+            case DELETE:
+                return user.delete(todo.getId()).isSuccessful();
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+/**
+ * The operations of the to-do API which are executed by the load test.
+ * @author Petri Kainulainen
+ */
+public enum Operation {
+
+    SEARCH("search", "GET /api/todo/search/{searchTerm}"),
+    COUNT("count", "GET /api/todo/search/count/{searchTerm}"),
+    FIND_ALL("findAll", "GET /api/todo"),
+    ADD("add", "POST /api/todo"),
+    UPDATE("update", "PUT /api/todo/{id}"),
+    DELETE("delete", "DELETE /api/todo/{id}");
+
+    private final String key;
+
+    private final String endpoint;
+
+    private Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Returns the operation which is identified by the given key.
+     * @throws IllegalArgumentException if no operation is found.
+     */
+    public static Operation fromKey(String key) {
+        for (Operation operation: values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
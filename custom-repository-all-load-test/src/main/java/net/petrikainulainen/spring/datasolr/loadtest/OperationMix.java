@@ -0,0 +1,91 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selects the executed operations randomly. The probability of an operation is its weight
+ * divided by the sum of all weights.
+ * @author Petri Kainulainen
+ */
+public class OperationMix {
+
+    private static final String ENTRY_SEPARATOR = ",";
+    private static final String WEIGHT_SEPARATOR = "=";
+
+    private final String definition;
+
+    private final List<Operation> operations;
+
+    private final int[] cumulativeWeights;
+
+    private OperationMix(String definition, List<Operation> operations, List<Integer> weights) {
+        this.definition = definition;
+        this.operations = operations;
+        this.cumulativeWeights = new int[weights.size()];
+
+        int sum = 0;
+        for (int index = 0; index < weights.size(); index++) {
+            sum += weights.get(index);
+            cumulativeWeights[index] = sum;
+        }
+    }
+
+    /**
+     * Parses a mix which is given as comma separated list of weighted operations. For example,
+     * the mix "search=3,add=1" executes three searches for every added to-do entry.
+     * @throws IllegalArgumentException if the mix is invalid.
+     */
+    public static OperationMix parse(String mix) {
+        List<Operation> operations = new ArrayList<Operation>();
+        List<Integer> weights = new ArrayList<Integer>();
+
+        for (String entry: mix.split(ENTRY_SEPARATOR)) {
+            String[] parts = entry.trim().split(WEIGHT_SEPARATOR);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid operation weight: " + entry);
+            }
+
+            Operation operation = Operation.fromKey(parts[0].trim());
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of operation: " + operation + " is negative");
+            }
+            if (operations.contains(operation)) {
+                throw new IllegalArgumentException("Operation: " + operation + " is listed more than once");
+            }
+
+            if (weight > 0) {
+                operations.add(operation);
+                weights.add(weight);
+            }
+        }
+
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Operation mix: " + mix + " has no operations");
+        }
+
+        return new OperationMix(mix, operations, weights);
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public Operation next(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+        int index = 0;
+        while (value >= cumulativeWeights[index]) {
+            index++;
+        }
+
+        return operations.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return definition;
+    }
+}
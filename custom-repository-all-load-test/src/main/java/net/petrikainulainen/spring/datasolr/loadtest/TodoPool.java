@@ -0,0 +1,63 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Keeps track of the to-do entries which exist in the database. An entry is taken from the
+ * pool before it is updated or deleted, so that two requests never modify the same entry
+ * at the same time. An updated entry is put back to the pool with its new version.
+ * @author Petri Kainulainen
+ */
+public class TodoPool {
+
+    private final List<Long> ids = new ArrayList<Long>();
+
+    private final Map<Long, Integer> positions = new HashMap<Long, Integer>();
+
+    private final Map<Long, Long> versions = new HashMap<Long, Long>();
+
+    public synchronized void put(Long id, Long version) {
+        if (!positions.containsKey(id)) {
+            positions.put(id, ids.size());
+            ids.add(id);
+        }
+        versions.put(id, version);
+    }
+
+    /**
+     * Removes a random to-do entry from the pool.
+     * @return  The id and version of the removed entry, or null if the pool is empty.
+     */
+    public synchronized TodoDTO take(Random random) {
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        int position = random.nextInt(ids.size());
+        Long id = ids.get(position);
+
+        //Moves the last id to the position of the removed id, so that the removal is constant time.
+        Long last = ids.remove(ids.size() - 1);
+        if (!last.equals(id)) {
+            ids.set(position, last);
+            positions.put(last, position);
+        }
+        positions.remove(id);
+
+        TodoDTO taken = new TodoDTO();
+        taken.setId(id);
+        taken.setVersion(versions.remove(id));
+
+        return taken;
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,164 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.List;
+
+/**
+ * A logged in user of the to-do API. The user sends requests with the session cookie which
+ * it received when it logged in. The requests are sent with {@link HttpURLConnection}, which
+ * reuses the connections to the server.
+ * @author Petri Kainulainen
+ */
+public class VirtualUser {
+
+    private static final String CHARSET = "UTF-8";
+
+    private static final String CONTENT_TYPE_FORM = "application/x-www-form-urlencoded";
+    private static final String CONTENT_TYPE_JSON = "application/json";
+
+    private static final String COOKIE_NAME_SESSION = "JSESSIONID";
+
+    private static final String HEADER_ACCEPT = "Accept";
+    private static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final String HEADER_COOKIE = "Cookie";
+    private static final String HEADER_SET_COOKIE = "Set-Cookie";
+
+    private static final String METHOD_DELETE = "DELETE";
+    private static final String METHOD_GET = "GET";
+    private static final String METHOD_POST = "POST";
+    private static final String METHOD_PUT = "PUT";
+
+    private static final String PATH_LOGIN = "/api/login";
+    private static final String PATH_TODO = "/api/todo";
+    private static final String PATH_SEARCH = "/api/todo/search/";
+    private static final String PATH_SEARCH_COUNT = "/api/todo/search/count/";
+
+    private static final String REQUEST_PARAM_PASSWORD = "password";
+    private static final String REQUEST_PARAM_USERNAME = "username";
+
+    private final String baseUrl;
+
+    private final ObjectMapper objectMapper;
+
+    private String sessionCookie;
+
+    public VirtualUser(String baseUrl, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Logs in by using the login form of the application and stores the session cookie.
+     * @throws IOException if the login fails.
+     */
+    public void login(String username, String password) throws IOException {
+        String form = REQUEST_PARAM_USERNAME + "=" + URLEncoder.encode(username, CHARSET)
+                + "&" + REQUEST_PARAM_PASSWORD + "=" + URLEncoder.encode(password, CHARSET);
+
+        HttpURLConnection connection = open(METHOD_POST, PATH_LOGIN);
+        ApiResponse response = send(connection, CONTENT_TYPE_FORM, form.getBytes(CHARSET));
+        if (!response.isSuccessful()) {
+            throw new IOException("Login failed with status: " + response.getStatus());
+        }
+
+        sessionCookie = findSessionCookie(connection.getHeaderFields().get(HEADER_SET_COOKIE));
+        if (sessionCookie == null) {
+            throw new IOException("Login response has no session cookie");
+        }
+    }
+
+    private String findSessionCookie(List<String> cookies) {
+        if (cookies != null) {
+            for (String cookie: cookies) {
+                if (cookie.startsWith(COOKIE_NAME_SESSION + "=")) {
+                    int end = cookie.indexOf(';');
+                    return end == -1 ? cookie : cookie.substring(0, end);
+                }
+            }
+        }
+        return null;
+    }
+
+    public ApiResponse search(String searchTerm) throws IOException {
+        return send(open(METHOD_GET, PATH_SEARCH + encodePathSegment(searchTerm)), null, null);
+    }
+
+    public ApiResponse count(String searchTerm) throws IOException {
+        return send(open(METHOD_GET, PATH_SEARCH_COUNT + encodePathSegment(searchTerm)), null, null);
+    }
+
+    public ApiResponse findAll() throws IOException {
+        return send(open(METHOD_GET, PATH_TODO), null, null);
+    }
+
+    public ApiResponse add(TodoDTO added) throws IOException {
+        return send(open(METHOD_POST, PATH_TODO), CONTENT_TYPE_JSON, objectMapper.writeValueAsBytes(added));
+    }
+
+    public ApiResponse update(TodoDTO updated) throws IOException {
+        return send(open(METHOD_PUT, PATH_TODO + "/" + updated.getId()), CONTENT_TYPE_JSON, objectMapper.writeValueAsBytes(updated));
+    }
+
+    public ApiResponse delete(Long id) throws IOException {
+        return send(open(METHOD_DELETE, PATH_TODO + "/" + id), null, null);
+    }
+
+    private String encodePathSegment(String segment) throws IOException {
+        return URLEncoder.encode(segment, CHARSET).replace("+", "%20");
+    }
+
+    private HttpURLConnection open(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty(HEADER_ACCEPT, CONTENT_TYPE_JSON);
+        connection.setUseCaches(false);
+        connection.setInstanceFollowRedirects(false);
+
+        if (sessionCookie != null) {
+            connection.setRequestProperty(HEADER_COOKIE, sessionCookie);
+        }
+
+        return connection;
+    }
+
+    /**
+     * Sends the request and reads the whole response. The response must be read before
+     * the connection can be reused by the next request.
+     */
+    private ApiResponse send(HttpURLConnection connection, String contentType, byte[] body) throws IOException {
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty(HEADER_CONTENT_TYPE, contentType);
+            connection.setFixedLengthStreamingMode(body.length);
+
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body);
+            }
+            finally {
+                out.close();
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream in = status >= HttpURLConnection.HTTP_BAD_REQUEST ? connection.getErrorStream() : connection.getInputStream();
+        if (in == null) {
+            return new ApiResponse(status, new byte[0]);
+        }
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        FileCopyUtils.copy(in, content);
+
+        return new ApiResponse(status, content.toByteArray());
+    }
+}
@@ -0,0 +1,76 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class OperationMixTest {
+
+    private static final int SELECTION_COUNT = 10000;
+
+    @Test
+    public void parse_ValidMix_ShouldReturnListedOperations() {
+        OperationMix mix = OperationMix.parse("search=3, add = 1");
+
+        assertEquals(Arrays.asList(Operation.SEARCH, Operation.ADD), mix.getOperations());
+    }
+
+    @Test
+    public void parse_OperationHasZeroWeight_ShouldIgnoreOperation() {
+        OperationMix mix = OperationMix.parse("search=1,delete=0");
+
+        assertEquals(Arrays.asList(Operation.SEARCH), mix.getOperations());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_UnknownOperation_ShouldThrowException() {
+        OperationMix.parse("search=1,foo=1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_WeightIsMissing_ShouldThrowException() {
+        OperationMix.parse("search");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_WeightIsNegative_ShouldThrowException() {
+        OperationMix.parse("search=-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_OperationIsListedTwice_ShouldThrowException() {
+        OperationMix.parse("search=1,search=2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_AllWeightsAreZero_ShouldThrowException() {
+        OperationMix.parse("search=0");
+    }
+
+    @Test
+    public void next_ShouldSelectOperationsInProportionToWeights() {
+        OperationMix mix = OperationMix.parse("search=3,add=1");
+        Random random = new Random(42L);
+
+        Map<Operation, Integer> counts = new EnumMap<Operation, Integer>(Operation.class);
+        counts.put(Operation.SEARCH, 0);
+        counts.put(Operation.ADD, 0);
+
+        for (int index = 0; index < SELECTION_COUNT; index++) {
+            Operation selected = mix.next(random);
+            counts.put(selected, counts.get(selected) + 1);
+        }
+
+        double searchShare = (double) counts.get(Operation.SEARCH) / SELECTION_COUNT;
+        assertTrue(searchShare > 0.72 && searchShare < 0.78);
+    }
+}
@@ -0,0 +1,64 @@
+package net.petrikainulainen.spring.datasolr.loadtest;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TodoPoolTest {
+
+    private static final int ENTRY_COUNT = 10;
+
+    private TodoPool pool;
+
+    private Random random;
+
+    @Before
+    public void setUp() {
+        pool = new TodoPool();
+        random = new Random(42L);
+    }
+
+    @Test
+    public void take_EmptyPool_ShouldReturnNull() {
+        assertNull(pool.take(random));
+    }
+
+    @Test
+    public void take_ShouldReturnEveryEntryOnce() {
+        for (long id = 1; id <= ENTRY_COUNT; id++) {
+            pool.put(id, id * 10);
+        }
+
+        Set<Long> taken = new HashSet<Long>();
+        for (int index = 0; index < ENTRY_COUNT; index++) {
+            TodoDTO entry = pool.take(random);
+            assertEquals(Long.valueOf(entry.getId() * 10), entry.getVersion());
+            taken.add(entry.getId());
+        }
+
+        assertEquals(ENTRY_COUNT, taken.size());
+        assertEquals(0, pool.size());
+        assertNull(pool.take(random));
+    }
+
+    @Test
+    public void put_EntryExists_ShouldUpdateVersion() {
+        pool.put(1L, 1L);
+        pool.put(1L, 2L);
+
+        assertEquals(1, pool.size());
+
+        TodoDTO entry = pool.take(random);
+        assertEquals(Long.valueOf(2L), entry.getVersion());
+    }
+}
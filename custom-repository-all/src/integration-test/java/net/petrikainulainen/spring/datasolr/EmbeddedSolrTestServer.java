@@ -0,0 +1,96 @@
+package net.petrikainulainen.spring.datasolr;
+
+import net.petrikainulainen.spring.datasolr.common.solr.EmbeddedSolrServerLoader;
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import org.apache.solr.client.solrj.SolrServer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Starts one embedded Solr server per JVM and shares it between all integration tests. The index
+ * is kept in memory and the schema is read from the Solr home found from the classpath. Because
+ * the server is started only once, a test resets the index by calling {@link #reset()} instead of
+ * starting a new server.
+ * @author Petri Kainulainen
+ */
+public final class EmbeddedSolrTestServer {
+
+    private static final String SOLR_HOME = "solr";
+
+    private static final String PROPERTY_NAME_SOLR_DATA_DIR = "solr.data.dir";
+
+    private static SolrServer server;
+
+    private EmbeddedSolrTestServer() {
+    }
+
+    /**
+     * Returns the shared server. The server is started when this method is called for the first
+     * time, and it is shut down when the JVM exits.
+     */
+    public static synchronized SolrServer getServer() {
+        if (server == null) {
+            server = start();
+        }
+        return server;
+    }
+
+    private static SolrServer start() {
+        try {
+            final File dataDir = createDataDir();
+            System.setProperty(PROPERTY_NAME_SOLR_DATA_DIR, dataDir.getAbsolutePath());
+
+            String solrHome = new ClassPathResource(SOLR_HOME).getFile().getAbsolutePath();
+            final SolrServer started = new EmbeddedSolrServerLoader(solrHome).call();
+
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    started.shutdown();
+                    FileSystemUtils.deleteRecursively(dataDir);
+                }
+            });
+
+            return started;
+        }
+        catch (Exception ex) {
+            throw new IllegalStateException("Cannot start embedded Solr server", ex);
+        }
+    }
+
+    /**
+     * The update log of Solr is written to the file system even if the index is kept in memory.
+     */
+    private static File createDataDir() throws IOException {
+        File dataDir = File.createTempFile("solr-data", "");
+        if (!dataDir.delete() || !dataDir.mkdir()) {
+            throw new IOException("Cannot create Solr data directory: " + dataDir);
+        }
+        return dataDir;
+    }
+
+    /**
+     * Deletes all documents from the index. The deletion is made visible with a soft commit,
+     * which does not flush the index.
+     */
+    public static void reset() throws Exception {
+        SolrServer solrServer = getServer();
+
+        solrServer.deleteByQuery("*:*");
+        solrServer.commit(true, true, true);
+    }
+
+    /**
+     * Adds the documents to the index and makes them visible with a soft commit.
+     */
+    public static void index(TodoDocument... documents) throws Exception {
+        SolrServer solrServer = getServer();
+
+        solrServer.addBeans(Arrays.asList(documents));
+        solrServer.commit(true, true, true);
+    }
+}
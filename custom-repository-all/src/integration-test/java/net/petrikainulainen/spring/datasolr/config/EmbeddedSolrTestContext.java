@@ -0,0 +1,54 @@
+package net.petrikainulainen.spring.datasolr.config;
+
+import net.petrikainulainen.spring.datasolr.EmbeddedSolrTestServer;
+import net.petrikainulainen.spring.datasolr.common.async.InstrumentedThreadPoolExecutor;
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrTemplate;
+import net.petrikainulainen.spring.datasolr.todo.repository.solr.CustomSolrRepositoryFactoryBean;
+import org.apache.solr.client.solrj.SolrServer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.solr.core.SolrTemplate;
+import org.springframework.data.solr.repository.config.EnableSolrRepositories;
+
+/**
+ * Configures the Solr repositories to use the embedded Solr server which is shared between
+ * the integration tests. Unlike {@link TestSolrContext}, this context executes real Solr queries.
+ * @author Petri Kainulainen
+ */
+@Configuration
+@EnableSolrRepositories(
+        basePackages = "net.petrikainulainen.spring.datasolr.todo.repository.solr",
+        repositoryFactoryBeanClass = CustomSolrRepositoryFactoryBean.class
+)
+@Profile("test")
+public class EmbeddedSolrTestContext {
+
+    private static final int SOLR_EXECUTOR_POOL_SIZE = 4;
+    private static final int SOLR_EXECUTOR_QUEUE_CAPACITY = 100;
+    private static final String SOLR_EXECUTOR_THREAD_NAME_PREFIX = "solr-";
+
+    /**
+     * The server is shared with the other application contexts of the JVM, so it must not be
+     * shut down when this application context is closed.
+     */
+    @Bean(destroyMethod = "")
+    public SolrServer solrServer() {
+        return EmbeddedSolrTestServer.getServer();
+    }
+
+    @Bean
+    public SolrTemplate solrTemplate() {
+        return new SolrTemplate(solrServer());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public InstrumentedThreadPoolExecutor solrExecutor() {
+        return new InstrumentedThreadPoolExecutor(SOLR_EXECUTOR_POOL_SIZE, SOLR_EXECUTOR_QUEUE_CAPACITY, SOLR_EXECUTOR_THREAD_NAME_PREFIX);
+    }
+
+    @Bean
+    public AsyncSolrTemplate asyncSolrTemplate() {
+        return new AsyncSolrTemplate(solrTemplate(), solrExecutor());
+    }
+}
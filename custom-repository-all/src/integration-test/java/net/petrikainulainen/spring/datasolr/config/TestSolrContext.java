@@ -1,6 +1,8 @@
 package net.petrikainulainen.spring.datasolr.config;
 
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrOperations;
 import net.petrikainulainen.spring.datasolr.todo.repository.solr.TodoDocumentRepository;
+import org.apache.solr.client.solrj.SolrServer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -18,4 +20,14 @@ public class TestSolrContext {
     public TodoDocumentRepository todoDocumentRepository() {
         return mock(TodoDocumentRepository.class);
     }
+
+    @Bean
+    public AsyncSolrOperations asyncSolrTemplate() {
+        return mock(AsyncSolrOperations.class);
+    }
+
+    @Bean
+    public SolrServer solrServer() {
+        return mock(SolrServer.class);
+    }
 }
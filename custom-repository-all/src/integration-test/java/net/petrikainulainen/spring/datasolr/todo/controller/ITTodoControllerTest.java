@@ -4,8 +4,12 @@ import com.github.springtestdbunit.DbUnitTestExecutionListener;
 import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.ExpectedDatabase;
 import com.github.springtestdbunit.assertion.DatabaseAssertionMode;
+import net.petrikainulainen.spring.datasolr.EmbeddedSolrTestServer;
+import net.petrikainulainen.spring.datasolr.common.http.GzipResponseFilter;
+import net.petrikainulainen.spring.datasolr.common.http.SmileHttpMessageConverter;
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
 import net.petrikainulainen.spring.datasolr.config.ExampleApplicationContext;
-import net.petrikainulainen.spring.datasolr.config.TestSolrContext;
+import net.petrikainulainen.spring.datasolr.config.EmbeddedSolrTestContext;
 import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
 import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
@@ -21,6 +25,7 @@ import org.springframework.test.context.support.DirtiesContextTestExecutionListe
 import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -28,12 +33,16 @@ import javax.annotation.Resource;
 import javax.sql.DataSource;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
 import static org.springframework.test.web.server.samples.context.SecurityRequestPostProcessors.userDetailsService;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -41,8 +50,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Petri Kainulainen
  */
 @RunWith(SpringJUnit4ClassRunner.class)
-@ContextConfiguration(classes = {ExampleApplicationContext.class, TestSolrContext.class})
-//@ContextConfiguration(locations = {"classpath:exampleApplicationContext.xml", "classpath:exampleApplicationContext-test.xml"})
+@ContextConfiguration(classes = {ExampleApplicationContext.class, EmbeddedSolrTestContext.class})
+//@ContextConfiguration(locations = {"classpath:exampleApplicationContext.xml", "classpath:exampleApplicationContext-test-solr.xml"})
 @WebAppConfiguration
 @TestExecutionListeners({ DependencyInjectionTestExecutionListener.class,
         DirtiesContextTestExecutionListener.class,
@@ -51,20 +60,33 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @DatabaseSetup("toDoData.xml")
 public class ITTodoControllerTest {
 
+    private static final long EVENT_TIMEOUT_MILLIS = 5000;
+
+    private static final int MAX_IDS_PER_REQUEST = 1000;
+
     @Resource
     private FilterChainProxy springSecurityFilterChain;
 
+    @Resource
+    private GzipResponseFilter gzipResponseFilter;
+
     @Resource
     private WebApplicationContext webApplicationContext;
 
     @Resource
     private DataSource datasource;
 
+    @Resource
+    private EventBroadcaster todoEventBroadcaster;
+
     private MockMvc mockMvc;
 
     @Before
-    public void setUp() {
+    public void setUp() throws Exception {
+        EmbeddedSolrTestServer.reset();
+
         mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilter(gzipResponseFilter, "/api/*")
                 .addFilter(springSecurityFilterChain)
                 .build();
     }
@@ -73,10 +95,14 @@ public class ITTodoControllerTest {
     @ExpectedDatabase("toDoData.xml")
     public void addAsAnonymous_AllFieldsOk_ShouldReturnStatusUnauthorized() throws Exception {
         TodoDTO added = TodoTestUtil.createDTO(null, "description", "title");
-        mockMvc.perform(post("/api/todo")
+        MvcResult result = mockMvc.perform(post("/api/todo")
                 .contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8)
                 .content(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.convertObjectToJsonBytes(added))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isUnauthorized());
     }
 
@@ -84,14 +110,18 @@ public class ITTodoControllerTest {
     @ExpectedDatabase(value="toDoData-add-expected.xml", assertionMode = DatabaseAssertionMode.NON_STRICT)
     public void addAsUser_AllFieldsOk_ShouldReturnAddedTodo() throws Exception {
         TodoDTO added = TodoTestUtil.createDTO(null, "description", "title");
-        mockMvc.perform(post("/api/todo")
+        MvcResult result = mockMvc.perform(post("/api/todo")
                 .contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8)
                 .content(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.convertObjectToJsonBytes(added))
                 .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
-                .andExpect(content().string("{\"id\":3,\"description\":\"description\",\"title\":\"title\"}"));
+                .andExpect(content().string("{\"id\":3,\"description\":\"description\",\"title\":\"title\",\"version\":0}"));
     }
 
     @Test
@@ -158,34 +188,49 @@ public class ITTodoControllerTest {
     @Test
     @ExpectedDatabase("toDoData.xml")
     public void deleteByIdAsAnonymous_TodoFound_ShouldReturnStatusUnauthorized() throws Exception {
-        mockMvc.perform(delete("/api/todo/{id}", 1L))
+        MvcResult result = mockMvc.perform(delete("/api/todo/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isUnauthorized());
     }
 
     @Test
     @ExpectedDatabase("toDoData-delete-expected.xml")
-    public void deleteByIdAsUser_TodoFound_ShouldReturnDeletedUser() throws Exception {
-        mockMvc.perform(delete("/api/todo/{id}", 1L)
+    public void deleteByIdAsUser_TodoFound_ShouldReturnStatusNoContent() throws Exception {
+        MvcResult result = mockMvc.perform(delete("/api/todo/{id}", 1L)
                 .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
         )
-                .andExpect(status().isOk())
-                .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
-                .andExpect(content().string("{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\"}"));
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
     }
 
     @Test
     @ExpectedDatabase("toDoData.xml")
     public void deleteByIdAsAnonymous_TodoIsNotFound_ShouldReturnStatusUnauthorized() throws Exception {
-        mockMvc.perform(delete("/api/todo/{id}", 3L))
+        MvcResult result = mockMvc.perform(delete("/api/todo/{id}", 3L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isUnauthorized());
     }
 
     @Test
     @ExpectedDatabase("toDoData.xml")
     public void deleteByIdAsUser_TodoIsNotFound_ShouldReturnStatusNotFound() throws Exception {
-        mockMvc.perform(delete("/api/todo/{id}", 3L)
+        MvcResult result = mockMvc.perform(delete("/api/todo/{id}", 3L)
                 .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound());
     }
 
@@ -204,7 +249,105 @@ public class ITTodoControllerTest {
         )
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
-                .andExpect(content().string("[{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\"},{\"id\":2,\"description\":\"Lorem ipsum\",\"title\":\"Bar\"}]"));
+                .andExpect(content().string("[{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\",\"version\":0},{\"id\":2,\"description\":\"Lorem ipsum\",\"title\":\"Bar\",\"version\":0}]"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdsAsAnonymous_ShouldReturnStatusUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/todo")
+                .param("ids", "2,3,1")
+        )
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdsAsUser_ShouldReturnTodosInRequestedOrderAndMissingIds() throws Exception {
+        mockMvc.perform(get("/api/todo")
+                .param("ids", "2,3,1")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
+                .andExpect(content().string("{\"results\":[{\"id\":2,\"description\":\"Lorem ipsum\",\"title\":\"Bar\",\"version\":0},{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\",\"version\":0}],\"missingIds\":[3]}"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdsAsUser_TooManyIds_ShouldReturnStatusBadRequest() throws Exception {
+        StringBuilder ids = new StringBuilder("1");
+        for (int id = 2; id <= MAX_IDS_PER_REQUEST + 1; id++) {
+            ids.append(",").append(id);
+        }
+
+        mockMvc.perform(get("/api/todo")
+                .param("ids", ids.toString())
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findPageAsUser_LastIdGiven_ShouldReturnNextPage() throws Exception {
+        mockMvc.perform(get("/api/todo")
+                .param("lastId", "1")
+                .param("pageSize", "10")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
+                .andExpect(content().string("[{\"id\":2,\"description\":\"Lorem ipsum\",\"title\":\"Bar\",\"version\":0}]"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findChangesAsAnonymous_ShouldReturnStatusUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/todo/changes"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findChangesAsUser_NoChangeToken_ShouldReturnCreatedAndDeletedTodosInOrder() throws Exception {
+        mockMvc.perform(get("/api/todo/changes")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
+                .andExpect(content().string(allOf(
+                        containsString("{\"type\":\"CREATED\",\"id\":1,"),
+                        containsString("{\"type\":\"CREATED\",\"id\":2,"),
+                        containsString("{\"type\":\"DELETED\",\"id\":3,"),
+                        containsString("\"hasMore\":false")
+                )));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findChangesAsUser_PageSizeIsOne_ShouldReturnFirstChangeAndNextToken() throws Exception {
+        mockMvc.perform(get("/api/todo/changes")
+                .param("pageSize", "1")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("{\"type\":\"CREATED\",\"id\":1,"),
+                        not(containsString("\"id\":2,")),
+                        containsString("\"nextToken\":\""),
+                        containsString("\"hasMore\":true")
+                )));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findChangesAsUser_InvalidChangeToken_ShouldReturnStatusBadRequest() throws Exception {
+        mockMvc.perform(get("/api/todo/changes")
+                .param("since", "foo")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -222,7 +365,58 @@ public class ITTodoControllerTest {
         )
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
-                .andExpect(content().string("{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\"}"));
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(content().string("{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\",\"version\":0}"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdAsUser_SmileRequested_ShouldReturnTodoAsSmile() throws Exception {
+        mockMvc.perform(get("/api/todo/{id}", 1L)
+                .accept(SmileHttpMessageConverter.MEDIA_TYPE_SMILE)
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SmileHttpMessageConverter.MEDIA_TYPE_SMILE))
+                .andExpect(header().string("ETag", "\"1-0-smile\""))
+                .andExpect(header().string("Vary", "Accept"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdAsUser_SmileRequestedWithETagOfJson_ShouldReturnTodoAsSmile() throws Exception {
+        mockMvc.perform(get("/api/todo/{id}", 1L)
+                .accept(SmileHttpMessageConverter.MEDIA_TYPE_SMILE)
+                .header("If-None-Match", "\"1-0\"")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SmileHttpMessageConverter.MEDIA_TYPE_SMILE))
+                .andExpect(header().string("ETag", "\"1-0-smile\""));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdAsUser_ETagMatches_ShouldReturnStatusNotModified() throws Exception {
+        mockMvc.perform(get("/api/todo/{id}", 1L)
+                .header("If-None-Match", "\"1-0\"")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void findByIdAsUser_ETagIsOutdated_ShouldReturnTodo() throws Exception {
+        mockMvc.perform(get("/api/todo/{id}", 1L)
+                .header("If-None-Match", "\"1-1\"")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(content().string("{\"id\":1,\"description\":\"Lorem ipsum\",\"title\":\"Foo\",\"version\":0}"));
     }
 
     @Test
@@ -241,15 +435,74 @@ public class ITTodoControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void searchAsUser_DocumentsFound_ShouldReturnMatchingTodos() throws Exception {
+        EmbeddedSolrTestServer.index(TodoTestUtil.createDocument(1L, "Lorem ipsum", "Foo"),
+                TodoTestUtil.createDocument(2L, "Lorem ipsum", "Bar")
+        );
+
+        MvcResult result = mockMvc.perform(get("/api/todo/search/{searchTerm}", "foo")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
+                .andExpect(content().string("[{\"id\":1,\"description\":null,\"title\":\"Foo\"}]"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void searchAsUser_NoDocumentsFound_ShouldReturnEmptyList() throws Exception {
+        EmbeddedSolrTestServer.index(TodoTestUtil.createDocument(1L, "Lorem ipsum", "Foo"));
+
+        MvcResult result = mockMvc.perform(get("/api/todo/search/{searchTerm}", "bar")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
+                .andExpect(content().string("[]"));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void countSearchResultsAsUser_DocumentsFound_ShouldReturnResultCount() throws Exception {
+        EmbeddedSolrTestServer.index(TodoTestUtil.createDocument(1L, "Lorem ipsum", "Foo"),
+                TodoTestUtil.createDocument(2L, "Lorem ipsum", "Bar")
+        );
+
+        MvcResult result = mockMvc.perform(get("/api/todo/search/count/{searchTerm}", "lorem")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+    }
+
     @Test
     @ExpectedDatabase(value="toDoData.xml")
     public void updateAsAnonymous_TodoFound_ShouldReturnStatusUnauthorized() throws Exception {
         TodoDTO updated = TodoTestUtil.createDTO(1L, "description", "title");
+        updated.setVersion(0L);
 
-        mockMvc.perform(put("/api/todo/{id}", 1L)
+        MvcResult result = mockMvc.perform(put("/api/todo/{id}", 1L)
                 .contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8)
                 .content(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.convertObjectToJsonBytes(updated))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isUnauthorized());
     }
 
@@ -257,15 +510,20 @@ public class ITTodoControllerTest {
     @ExpectedDatabase(value="toDoData-update-expected.xml", assertionMode = DatabaseAssertionMode.NON_STRICT)
     public void updateAsUser_TodoFound_ShouldReturnUpdatedTodo() throws Exception {
         TodoDTO updated = TodoTestUtil.createDTO(1L, "description", "title");
+        updated.setVersion(0L);
 
-        mockMvc.perform(put("/api/todo/{id}", 1L)
+        MvcResult result = mockMvc.perform(put("/api/todo/{id}", 1L)
                 .contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8)
                 .content(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.convertObjectToJsonBytes(updated))
                 .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8))
-                .andExpect(content().string("{\"id\":1,\"description\":\"description\",\"title\":\"title\"}"));
+                .andExpect(content().string("{\"id\":1,\"description\":\"description\",\"title\":\"title\",\"version\":1}"));
     }
 
     @Test
@@ -337,11 +595,16 @@ public class ITTodoControllerTest {
     @ExpectedDatabase("toDoData.xml")
     public void updateAsAnonymous_TodoIsNotFound_ShouldReturnStatusUnauthorized() throws Exception {
         TodoDTO updated = TodoTestUtil.createDTO(3L, "description", "title");
+        updated.setVersion(0L);
 
-        mockMvc.perform(put("/api/todo/{id}", 3L)
+        MvcResult result = mockMvc.perform(put("/api/todo/{id}", 3L)
                 .contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8)
                 .content(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.convertObjectToJsonBytes(updated))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isUnauthorized());
     }
 
@@ -349,13 +612,79 @@ public class ITTodoControllerTest {
     @ExpectedDatabase("toDoData.xml")
     public void updateAsUser_TodoIsNotFound_ShouldReturnStatusNotFound() throws Exception {
         TodoDTO updated = TodoTestUtil.createDTO(3L, "description", "title");
+        updated.setVersion(0L);
 
-        mockMvc.perform(put("/api/todo/{id}", 3L)
+        MvcResult result = mockMvc.perform(put("/api/todo/{id}", 3L)
                 .contentType(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.APPLICATION_JSON_UTF8)
                 .content(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.convertObjectToJsonBytes(updated))
                 .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
         )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isNotFound());
     }
-}
 
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void subscribeToChangesAsAnonymous_ShouldReturnStatusUnauthorizedWithoutStartingStream() throws Exception {
+        mockMvc.perform(get("/api/todo/events"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void subscribeToChangesAsUser_EventIsPublished_ShouldWriteEventToStream() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/todo/events")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/event-stream;charset=UTF-8"))
+                .andReturn();
+
+        todoEventBroadcaster.publish("updated", TodoTestUtil.createDTO(1L, "Lorem ipsum", "Foo"));
+
+        String stream = waitForEvent(result);
+        assertThat(stream, containsString("event: updated\n"));
+        assertThat(stream, containsString("\"title\":\"Foo\""));
+    }
+
+    @Test
+    @ExpectedDatabase("toDoData.xml")
+    public void subscribeToChangesAsUser_GzipIsAccepted_ShouldWriteUncompressedEventToStream() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/todo/events")
+                .header("Accept-Encoding", "gzip, deflate")
+                .with(userDetailsService(net.petrikainulainen.spring.datasolr.IntegrationTestUtil.CORRECT_USERNAME))
+        )
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/event-stream;charset=UTF-8"))
+                .andExpect(header().string("Content-Encoding", nullValue()))
+                .andReturn();
+
+        todoEventBroadcaster.publish("updated", TodoTestUtil.createDTO(1L, "Lorem ipsum", "Foo"));
+
+        String stream = waitForEvent(result);
+        assertThat(stream, containsString("event: updated\n"));
+        assertThat(stream, containsString("\"title\":\"Foo\""));
+    }
+
+    /**
+     * The events are written by the threads of the broadcaster, so the content of the
+     * response is polled until an event is found or the wait times out.
+     */
+    private String waitForEvent(MvcResult result) throws Exception {
+        long deadline = System.currentTimeMillis() + EVENT_TIMEOUT_MILLIS;
+
+        String stream = result.getResponse().getContentAsString();
+        while (!stream.contains("event: ") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            stream = result.getResponse().getContentAsString();
+        }
+
+        return stream;
+    }
+}
@@ -0,0 +1,67 @@
+package net.petrikainulainen.spring.datasolr.common.async;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.solr.UncategorizedSolrException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for the results of the futures returned by the asynchronous Solr operations and
+ * translates the checked exceptions of the {@link Future} API into runtime exceptions.
+ * @author Petri Kainulainen
+ */
+public final class Futures {
+
+    private Futures() {
+
+    }
+
+    /**
+     * Calculates a deadline which can be shared between several futures.
+     * @param timeoutMillis The time which can be spent waiting for all results.
+     * @return  The deadline in the time scale of {@link System#nanoTime()}.
+     */
+    public static long createDeadline(long timeoutMillis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Waits for the result of the future until the given deadline has passed. If the
+     * deadline has already passed, the result is returned only if it is available.
+     * @param future    The future which returns the result.
+     * @param deadline  The deadline which is created by calling {@link #createDeadline(long)}.
+     * @return  The result of the future.
+     */
+    public static <T> T getResultBefore(Future<T> future, long deadline) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        return getResult(future, Math.max(0L, remainingMillis));
+    }
+
+    public static <T> T getResult(Future<T> future, long timeoutMillis) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new UncategorizedSolrException("Asynchronous Solr operation failed", cause);
+        }
+        catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new QueryTimeoutException("Asynchronous Solr operation did not finish in " + timeoutMillis + " ms", ex);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new UncategorizedSolrException("Interrupted while waiting for asynchronous Solr operation", ex);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package net.petrikainulainen.spring.datasolr.common.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded thread pool executor which keeps track of the number of submitted, completed,
+ * failed and rejected tasks and of the time the tasks spend waiting in the queue and
+ * executing.
+ * @author Petri Kainulainen
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentedThreadPoolExecutor.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private final ThreadLocal<Long> executionStartTime = new ThreadLocal<Long>();
+
+    private final AtomicLong submittedTaskCount = new AtomicLong();
+    private final AtomicLong succeededTaskCount = new AtomicLong();
+    private final AtomicLong failedTaskCount = new AtomicLong();
+    private final AtomicLong rejectedTaskCount = new AtomicLong();
+    private final AtomicLong totalExecutionTimeNanos = new AtomicLong();
+    private final AtomicLong maxExecutionTimeNanos = new AtomicLong();
+
+    public InstrumentedThreadPoolExecutor(int poolSize, int queueCapacity, String threadNamePrefix) {
+        super(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new NamedThreadFactory(threadNamePrefix)
+        );
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submittedTaskCount.incrementAndGet();
+        try {
+            super.execute(command);
+        }
+        catch (RejectedExecutionException ex) {
+            rejectedTaskCount.incrementAndGet();
+            LOGGER.warn("Task was rejected because the executor is saturated. Active threads: {}, queue size: {}",
+                    getActiveCount(),
+                    getQueue().size()
+            );
+            throw ex;
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        super.beforeExecute(thread, task);
+        executionStartTime.set(System.nanoTime());
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable failure) {
+        try {
+            long executionTime = System.nanoTime() - executionStartTime.get();
+            executionStartTime.remove();
+
+            totalExecutionTimeNanos.addAndGet(executionTime);
+            updateMaxExecutionTime(executionTime);
+
+            if (failure == null) {
+                succeededTaskCount.incrementAndGet();
+            }
+            else {
+                failedTaskCount.incrementAndGet();
+            }
+        }
+        finally {
+            super.afterExecute(task, failure);
+        }
+    }
+
+    private void updateMaxExecutionTime(long executionTime) {
+        long currentMax = maxExecutionTimeNanos.get();
+        while (executionTime > currentMax && !maxExecutionTimeNanos.compareAndSet(currentMax, executionTime)) {
+            currentMax = maxExecutionTimeNanos.get();
+        }
+    }
+
+    public long getSubmittedTaskCount() {
+        return submittedTaskCount.get();
+    }
+
+    /**
+     * Returns the number of tasks which were completed without throwing an exception. Note
+     * that the tasks submitted by using the submit() methods catch their own exceptions,
+     * which means that they are counted as succeeded tasks.
+     */
+    public long getSucceededTaskCount() {
+        return succeededTaskCount.get();
+    }
+
+    public long getFailedTaskCount() {
+        return failedTaskCount.get();
+    }
+
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount.get();
+    }
+
+    public int getQueueSize() {
+        return getQueue().size();
+    }
+
+    public long getAverageExecutionTimeMicros() {
+        long executed = succeededTaskCount.get() + failedTaskCount.get();
+        if (executed == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMicros(totalExecutionTimeNanos.get() / executed);
+    }
+
+    public long getMaxExecutionTimeMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxExecutionTimeNanos.get());
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private final String threadNamePrefix;
+
+        private NamedThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
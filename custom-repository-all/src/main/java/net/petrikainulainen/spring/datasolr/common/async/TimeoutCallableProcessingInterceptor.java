@@ -0,0 +1,25 @@
+package net.petrikainulainen.spring.datasolr.common.async;
+
+import net.petrikainulainen.spring.datasolr.common.exception.RequestTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Converts the timeout of an asynchronous request into a {@link RequestTimeoutException}, which
+ * is then processed by the exception handler methods of the controller that started the request.
+ * @author Petri Kainulainen
+ */
+public class TimeoutCallableProcessingInterceptor extends CallableProcessingInterceptorAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeoutCallableProcessingInterceptor.class);
+
+    @Override
+    public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) throws Exception {
+        LOGGER.debug("Asynchronous request: {} timed out", request);
+        return new RequestTimeoutException("Asynchronous request timed out: " + request.getDescription(false));
+    }
+}
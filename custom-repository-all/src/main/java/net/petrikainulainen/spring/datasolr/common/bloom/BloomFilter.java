@@ -0,0 +1,115 @@
+package net.petrikainulainen.spring.datasolr.common.bloom;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size Bloom filter of long keys. The bits are kept in an atomic long array, so keys can be
+ * added and looked up concurrently without locking. The bit positions of a key are calculated with
+ * double hashing from a single 64-bit hash.
+ * @author Petri Kainulainen
+ */
+class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private final int capacity;
+
+    private final double falsePositiveProbability;
+
+    private final AtomicInteger keyCount = new AtomicInteger();
+
+    /**
+     * Creates a filter whose false positive probability stays below the given value until
+     * the given number of keys has been added.
+     */
+    BloomFilter(int capacity, double falsePositiveProbability) {
+        this.capacity = capacity;
+        this.falsePositiveProbability = falsePositiveProbability;
+
+        long optimalBitCount = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (LN2 * LN2));
+        int wordCount = (int) Math.max(1, (optimalBitCount + 63) / 64);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        for (int index = 1; index <= hashCount; index++) {
+            setBit(position(hash1, hash2, index));
+        }
+
+        keyCount.incrementAndGet();
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        for (int index = 1; index <= hashCount; index++) {
+            long bit = position(hash1, hash2, index);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    boolean isFull() {
+        return keyCount.get() >= capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    int getKeyCount() {
+        return keyCount.get();
+    }
+
+    private long position(int hash1, int hash2, int index) {
+        long combined = hash1 + (long) index * hash2;
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    private void setBit(long bit) {
+        int wordIndex = (int) (bit >>> 6);
+        long mask = 1L << bit;
+
+        while (true) {
+            long word = words.get(wordIndex);
+            if ((word & mask) != 0 || words.compareAndSet(wordIndex, word, word | mask)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The finalization step of MurmurHash3. Sequential ids are spread over all bits of the hash.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
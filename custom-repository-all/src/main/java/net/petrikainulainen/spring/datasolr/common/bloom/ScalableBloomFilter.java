@@ -0,0 +1,84 @@
+package net.petrikainulainen.spring.datasolr.common.bloom;
+
+import java.util.Arrays;
+
+/**
+ * A Bloom filter of long keys which grows with the number of added keys. Keys are added to the
+ * latest fixed size filter. When it is full, a new filter is created with twice the capacity and
+ * half the false positive probability of the previous one, so the total false positive probability
+ * stays below twice the initial probability.
+ * <p>
+ * Lookups do not lock. Adding keys is synchronized, because it can create a new filter.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private volatile BloomFilter[] filters;
+
+    /**
+     * Creates a new filter.
+     * @param initialCapacity   The number of keys which fit into the first fixed size filter.
+     * @param falsePositiveProbability  The false positive probability of the first fixed size filter.
+     */
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveProbability) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("The initial capacity must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("The false positive probability must be between 0 and 1");
+        }
+
+        this.filters = new BloomFilter[] {new BloomFilter(initialCapacity, falsePositiveProbability)};
+    }
+
+    /**
+     * Returns false if the key has definitely not been added to the filter and true if it may
+     * have been added.
+     */
+    public boolean mightContain(long key) {
+        BloomFilter[] current = filters;
+        for (int index = current.length - 1; index >= 0; index--) {
+            if (current[index].mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void add(long key) {
+        BloomFilter latest = filters[filters.length - 1];
+
+        if (latest.isFull()) {
+            BloomFilter[] grown = Arrays.copyOf(filters, filters.length + 1);
+            grown[filters.length] = new BloomFilter(latest.getCapacity() * GROWTH_FACTOR,
+                    latest.getFalsePositiveProbability() * TIGHTENING_RATIO);
+            latest = grown[filters.length];
+            filters = grown;
+        }
+
+        latest.add(key);
+    }
+
+    /**
+     * Returns the number of added keys. Keys which have been added more than once are counted more than once.
+     */
+    public long getKeyCount() {
+        long keyCount = 0;
+        for (BloomFilter filter: filters) {
+            keyCount += filter.getKeyCount();
+        }
+        return keyCount;
+    }
+
+    /**
+     * Returns the number of fixed size filters.
+     */
+    public int getFilterCount() {
+        return filters.length;
+    }
+}
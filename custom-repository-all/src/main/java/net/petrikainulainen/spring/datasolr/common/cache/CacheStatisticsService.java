@@ -0,0 +1,16 @@
+package net.petrikainulainen.spring.datasolr.common.cache;
+
+import net.petrikainulainen.spring.datasolr.common.dto.CacheStatisticsDTO;
+
+/**
+ * @author Petri Kainulainen
+ */
+public interface CacheStatisticsService {
+
+    /**
+     * Returns the hit and miss statistics of the second-level cache region of to-do entries.
+     * @return  The statistics of the cache region. If the second-level cache or statistics
+     *          are disabled, the returned statistics are marked as disabled.
+     */
+    public CacheStatisticsDTO getTodoCacheStatistics();
+}
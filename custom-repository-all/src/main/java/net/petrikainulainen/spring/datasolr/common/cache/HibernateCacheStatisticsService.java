@@ -0,0 +1,59 @@
+package net.petrikainulainen.spring.datasolr.common.cache;
+
+import net.petrikainulainen.spring.datasolr.common.dto.CacheStatisticsDTO;
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+/**
+ * @author Petri Kainulainen
+ */
+@Service
+public class HibernateCacheStatisticsService implements CacheStatisticsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateCacheStatisticsService.class);
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @PreAuthorize("isAuthenticated()")
+    @Override
+    public CacheStatisticsDTO getTodoCacheStatistics() {
+        LOGGER.debug("Getting statistics of cache region: {}", Todo.CACHE_REGION);
+
+        Statistics statistics = getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            LOGGER.debug("Statistics are not enabled.");
+            return CacheStatisticsDTO.disabled(Todo.CACHE_REGION);
+        }
+
+        SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(Todo.CACHE_REGION);
+        if (regionStatistics == null) {
+            LOGGER.debug("Second-level cache is not enabled.");
+            return CacheStatisticsDTO.disabled(Todo.CACHE_REGION);
+        }
+
+        CacheStatisticsDTO dto = new CacheStatisticsDTO(Todo.CACHE_REGION,
+                true,
+                regionStatistics.getHitCount(),
+                regionStatistics.getMissCount(),
+                regionStatistics.getPutCount(),
+                regionStatistics.getElementCountInMemory()
+        );
+        LOGGER.debug("Got cache statistics: {}", dto);
+
+        return dto;
+    }
+
+    private Statistics getStatistics() {
+        return ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory().getStatistics();
+    }
+}
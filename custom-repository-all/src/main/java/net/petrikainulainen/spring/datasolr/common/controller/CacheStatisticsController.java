@@ -0,0 +1,31 @@
+package net.petrikainulainen.spring.datasolr.common.controller;
+
+import net.petrikainulainen.spring.datasolr.common.cache.CacheStatisticsService;
+import net.petrikainulainen.spring.datasolr.common.dto.CacheStatisticsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.annotation.Resource;
+
+/**
+ * @author Petri Kainulainen
+ */
+@Controller
+public class CacheStatisticsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheStatisticsController.class);
+
+    @Resource
+    private CacheStatisticsService cacheStatisticsService;
+
+    @RequestMapping(value = "/api/cache/todo", method = RequestMethod.GET)
+    @ResponseBody
+    public CacheStatisticsDTO getTodoCacheStatistics() {
+        LOGGER.debug("Getting statistics of to-do entry cache.");
+        return cacheStatisticsService.getTodoCacheStatistics();
+    }
+}
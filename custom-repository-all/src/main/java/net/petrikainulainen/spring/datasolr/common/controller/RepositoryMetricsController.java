@@ -0,0 +1,32 @@
+package net.petrikainulainen.spring.datasolr.common.controller;
+
+import net.petrikainulainen.spring.datasolr.common.dto.RepositoryMethodMetricsDTO;
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+@Controller
+public class RepositoryMetricsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryMetricsController.class);
+
+    @Resource
+    private RepositoryMetricsService repositoryMetricsService;
+
+    @RequestMapping(value = "/api/metrics/repository", method = RequestMethod.GET)
+    @ResponseBody
+    public List<RepositoryMethodMetricsDTO> getRepositoryMetrics() {
+        LOGGER.debug("Getting metrics of repository methods.");
+        return repositoryMetricsService.getRepositoryMetrics();
+    }
+}
@@ -0,0 +1,43 @@
+package net.petrikainulainen.spring.datasolr.common.datasource;
+
+import com.jolbox.bonecp.BoneCPDataSource;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ReplicaDataSourceFactory {
+
+    /**
+     * Creates a connection pool for each replica.
+     * @param driverClass   The JDBC driver class.
+     * @param jdbcUrls  The comma separated JDBC urls of the replicas. If this is empty, no replicas are created.
+     * @param username  The username used to connect to the replicas.
+     * @param password  The password used to connect to the replicas.
+     * @return  The created data sources.
+     */
+    public static List<DataSource> createReplicas(String driverClass, String jdbcUrls, String username, String password) {
+        List<DataSource> replicas = new ArrayList<DataSource>();
+
+        for (String jdbcUrl: StringUtils.commaDelimitedListToStringArray(jdbcUrls)) {
+            if (!StringUtils.hasText(jdbcUrl)) {
+                continue;
+            }
+
+            BoneCPDataSource replica = new BoneCPDataSource();
+
+            replica.setDriverClass(driverClass);
+            replica.setJdbcUrl(jdbcUrl.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+
+            replicas.add(replica);
+        }
+
+        return replicas;
+    }
+}
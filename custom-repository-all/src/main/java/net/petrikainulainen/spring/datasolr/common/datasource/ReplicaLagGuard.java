@@ -0,0 +1,83 @@
+package net.petrikainulainen.spring.datasolr.common.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Decides whether a replica is in sync with the primary by running a query which returns the
+ * replication lag of the replica in seconds. The query depends on the used database, for example
+ * a heartbeat table which is updated on the primary and read from the replica.
+ * A replica which cannot be queried is considered to be out of sync. If the lag query is empty,
+ * the guard is disabled.
+ * @author Petri Kainulainen
+ */
+public class ReplicaLagGuard {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaLagGuard.class);
+
+    private final String lagQuery;
+
+    private final long maxLagSeconds;
+
+    public ReplicaLagGuard(String lagQuery, long maxLagSeconds) {
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(lagQuery);
+    }
+
+    public boolean isInSync(DataSource replica) {
+        Connection connection = null;
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = replica.getConnection();
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery(lagQuery);
+
+            if (!resultSet.next()) {
+                LOGGER.warn("Replica lag query returned no rows");
+                return false;
+            }
+
+            long lagSeconds = resultSet.getLong(1);
+            LOGGER.debug("Replica lag is {} seconds", lagSeconds);
+
+            return lagSeconds <= maxLagSeconds;
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Cannot check replica lag", ex);
+            return false;
+        }
+        finally {
+            closeQuietly(resultSet, statement, connection);
+        }
+    }
+
+    private void closeQuietly(ResultSet resultSet, Statement statement, Connection connection) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+            if (connection != null) {
+                connection.close();
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.debug("Cannot close JDBC resources", ex);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package net.petrikainulainen.spring.datasolr.common.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A data source which sends the statements of read-only transactions to the replica data sources
+ * and all other statements to the primary data source. Read-only transactions are balanced across
+ * the replicas in round-robin order, and replicas which fall too far behind the primary are skipped
+ * until they catch up. If no replica is available, the primary data source is used.
+ * <p>
+ * The read-only flag of a transaction is set after the transaction has been started. This data
+ * source must therefore be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so that the target connection is fetched when the first statement is executed.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationRoutingDataSource.class);
+
+    protected static final String PRIMARY_KEY = "primary";
+    protected static final String REPLICA_KEY_PREFIX = "replica-";
+
+    private static final long DEFAULT_LAG_CHECK_INTERVAL_MILLIS = 5000;
+
+    private final List<String> replicaKeys = new ArrayList<String>();
+
+    private final Map<String, DataSource> replicas = new HashMap<String, DataSource>();
+
+    private final Set<String> laggingReplicaKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final AtomicInteger replicaCounter = new AtomicInteger();
+
+    private ReplicaLagGuard lagGuard;
+
+    private long lagCheckIntervalMillis = DEFAULT_LAG_CHECK_INTERVAL_MILLIS;
+
+    private ScheduledExecutorService lagCheckExecutor;
+
+    public ReplicationRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources) {
+        Map<Object, Object> targetDataSources = new HashMap<Object, Object>();
+        targetDataSources.put(PRIMARY_KEY, primary);
+
+        for (int index = 0; index < replicaDataSources.size(); index++) {
+            String key = REPLICA_KEY_PREFIX + index;
+            DataSource replica = replicaDataSources.get(index);
+
+            replicaKeys.add(key);
+            replicas.put(key, replica);
+            targetDataSources.put(key, replica);
+        }
+
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Sets the guard which decides whether a replica is in sync with the primary.
+     */
+    public void setLagGuard(ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+    }
+
+    /**
+     * Sets the delay between two replica lag checks in milliseconds.
+     */
+    public void setLagCheckIntervalMillis(long lagCheckIntervalMillis) {
+        this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+
+        if (replicaKeys.isEmpty() || lagGuard == null || !lagGuard.isEnabled()) {
+            LOGGER.debug("Replica lag is not checked");
+            return;
+        }
+
+        LOGGER.debug("Checking replica lag every {} milliseconds", lagCheckIntervalMillis);
+        checkReplicaLag();
+
+        lagCheckExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "replica-lag-check");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        lagCheckExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                checkReplicaLag();
+            }
+        }, lagCheckIntervalMillis, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Updates the set of lagging replicas. Replicas which are lagging are not used until
+     * they are in sync with the primary again.
+     */
+    public void checkReplicaLag() {
+        if (lagGuard == null || !lagGuard.isEnabled()) {
+            return;
+        }
+
+        for (String key: replicaKeys) {
+            if (lagGuard.isInSync(replicas.get(key))) {
+                if (laggingReplicaKeys.remove(key)) {
+                    LOGGER.info("Replica: {} is in sync again", key);
+                }
+            }
+            else if (laggingReplicaKeys.add(key)) {
+                LOGGER.warn("Replica: {} is lagging behind the primary. Skipping it.", key);
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (lagCheckExecutor != null) {
+            lagCheckExecutor.shutdownNow();
+        }
+    }
+
+    public int getReplicaCount() {
+        return replicaKeys.size();
+    }
+
+    public int getLaggingReplicaCount() {
+        return laggingReplicaKeys.size();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY_KEY;
+        }
+
+        String replicaKey = selectReplica();
+        if (replicaKey == null) {
+            LOGGER.debug("No replica available. Using the primary for a read-only transaction.");
+            return PRIMARY_KEY;
+        }
+
+        return replicaKey;
+    }
+
+    private String selectReplica() {
+        int replicaCount = replicaKeys.size();
+
+        for (int attempt = 0; attempt < replicaCount; attempt++) {
+            int index = (replicaCounter.getAndIncrement() & Integer.MAX_VALUE) % replicaCount;
+            String key = replicaKeys.get(index);
+
+            if (!laggingReplicaKeys.contains(key)) {
+                return key;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package net.petrikainulainen.spring.datasolr.common.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class CacheStatisticsDTO {
+
+    private String region;
+
+    private boolean enabled;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long putCount;
+
+    private long elementCountInMemory;
+
+    public CacheStatisticsDTO() {
+
+    }
+
+    public CacheStatisticsDTO(String region, boolean enabled, long hitCount, long missCount, long putCount, long elementCountInMemory) {
+        this.region = region;
+        this.enabled = enabled;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.elementCountInMemory = elementCountInMemory;
+    }
+
+    public static CacheStatisticsDTO disabled(String region) {
+        return new CacheStatisticsDTO(region, false, 0, 0, 0, 0);
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getElementCountInMemory() {
+        return elementCountInMemory;
+    }
+
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,149 @@
+package net.petrikainulainen.spring.datasolr.common.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * The metrics of a repository method. The latencies are given in microseconds.
+ * @author Petri Kainulainen
+ */
+public class RepositoryMethodMetricsDTO {
+
+    private String repository;
+
+    private String method;
+
+    private long callCount;
+
+    private long errorCount;
+
+    private double meanLatency;
+
+    private long medianLatency;
+
+    private long percentile95Latency;
+
+    private long percentile99Latency;
+
+    private long maxLatency;
+
+    private double meanResultSize;
+
+    private long medianResultSize;
+
+    private long percentile99ResultSize;
+
+    private long maxResultSize;
+
+    public RepositoryMethodMetricsDTO() {
+
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public void setRepository(String repository) {
+        this.repository = repository;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public void setCallCount(long callCount) {
+        this.callCount = callCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public double getMeanLatency() {
+        return meanLatency;
+    }
+
+    public void setMeanLatency(double meanLatency) {
+        this.meanLatency = meanLatency;
+    }
+
+    public long getMedianLatency() {
+        return medianLatency;
+    }
+
+    public void setMedianLatency(long medianLatency) {
+        this.medianLatency = medianLatency;
+    }
+
+    public long getPercentile95Latency() {
+        return percentile95Latency;
+    }
+
+    public void setPercentile95Latency(long percentile95Latency) {
+        this.percentile95Latency = percentile95Latency;
+    }
+
+    public long getPercentile99Latency() {
+        return percentile99Latency;
+    }
+
+    public void setPercentile99Latency(long percentile99Latency) {
+        this.percentile99Latency = percentile99Latency;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    public void setMaxLatency(long maxLatency) {
+        this.maxLatency = maxLatency;
+    }
+
+    public double getMeanResultSize() {
+        return meanResultSize;
+    }
+
+    public void setMeanResultSize(double meanResultSize) {
+        this.meanResultSize = meanResultSize;
+    }
+
+    public long getMedianResultSize() {
+        return medianResultSize;
+    }
+
+    public void setMedianResultSize(long medianResultSize) {
+        this.medianResultSize = medianResultSize;
+    }
+
+    public long getPercentile99ResultSize() {
+        return percentile99ResultSize;
+    }
+
+    public void setPercentile99ResultSize(long percentile99ResultSize) {
+        this.percentile99ResultSize = percentile99ResultSize;
+    }
+
+    public long getMaxResultSize() {
+        return maxResultSize;
+    }
+
+    public void setMaxResultSize(long maxResultSize) {
+        this.maxResultSize = maxResultSize;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,11 @@
+package net.petrikainulainen.spring.datasolr.common.exception;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RequestTimeoutException extends Exception {
+
+    public RequestTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,126 @@
+package net.petrikainulainen.spring.datasolr.common.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Compresses the response with gzip if the client accepts it and the response body is at
+ * least as large as the configured minimum size. Smaller responses are sent as they are,
+ * because compressing them costs more CPU than it saves bandwidth.
+ * <p>
+ * The response of an asynchronous request is written during the asynchronous dispatch, so
+ * the response wrapper is stored as a request attribute and finished after that dispatch.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class GzipResponseFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GzipResponseFilter.class);
+
+    protected static final int DEFAULT_MIN_SIZE = 1024;
+
+    protected static final String ENCODING_GZIP = "gzip";
+    protected static final String ENCODING_ANY = "*";
+
+    protected static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    protected static final String REQUEST_ATTRIBUTE_RESPONSE = GzipResponseFilter.class.getName() + ".RESPONSE";
+
+    private static final String QUALITY_PREFIX = "q=";
+
+    private int minSize = DEFAULT_MIN_SIZE;
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        GzipResponseWrapper wrapper = (GzipResponseWrapper) request.getAttribute(REQUEST_ATTRIBUTE_RESPONSE);
+
+        if (wrapper != null) {
+            LOGGER.debug("Continuing compression of an asynchronous response");
+            filterChain.doFilter(request, response);
+        }
+        else if (acceptsGzip(request)) {
+            wrapper = new GzipResponseWrapper(response, minSize);
+            filterChain.doFilter(request, wrapper);
+        }
+        else {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (isAsyncStarted(request)) {
+            request.setAttribute(REQUEST_ATTRIBUTE_RESPONSE, wrapper);
+        }
+        else {
+            request.removeAttribute(REQUEST_ATTRIBUTE_RESPONSE);
+            wrapper.finish();
+        }
+    }
+
+    /**
+     * Checks if the client accepts gzip. A gzip coding is preferred over the * coding regardless of
+     * their order, and a coding whose quality value is zero is not accepted.
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HEADER_ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+
+        for (String coding: StringUtils.commaDelimitedListToStringArray(acceptEncoding)) {
+            String[] parts = StringUtils.delimitedListToStringArray(coding, ";", " ");
+            String name = parts[0];
+
+            if (name.equalsIgnoreCase(ENCODING_GZIP)) {
+                gzipQuality = getQuality(parts);
+            }
+            else if (name.equals(ENCODING_ANY)) {
+                anyQuality = getQuality(parts);
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private double getQuality(String[] parts) {
+        for (int index = 1; index < parts.length; index++) {
+            String parameter = parts[index];
+            if (!parameter.startsWith(QUALITY_PREFIX)) {
+                continue;
+            }
+
+            try {
+                return Double.parseDouble(parameter.substring(QUALITY_PREFIX.length()));
+            }
+            catch (NumberFormatException ex) {
+                LOGGER.debug("Invalid quality value: {}", parameter);
+                return 0;
+            }
+        }
+
+        return 1;
+    }
+}
@@ -0,0 +1,229 @@
+package net.petrikainulainen.spring.datasolr.common.http;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Buffers the response body until it reaches the minimum size of a compressed response.
+ * If the minimum size is reached, the buffered bytes and the rest of the body are written
+ * through a gzip stream. Otherwise the buffered bytes are written as they are when the
+ * response is finished. Flushes are ignored while the body is buffered.
+ * <p>
+ * A strong ETag of a compressed response is turned into a weak one, because the compressed
+ * body is not byte-for-byte identical with the uncompressed representation.
+ * </p>
+ * <p>
+ * An event stream is never compressed. Its events must reach the client as soon as they are
+ * flushed, so the body of a response whose content type is text/event-stream is written
+ * straight to the response.
+ * </p>
+ * @author Petri Kainulainen
+ */
+class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+    protected static final String HEADER_ACCEPT_ENCODING = GzipResponseFilter.HEADER_ACCEPT_ENCODING;
+    protected static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    protected static final String HEADER_ETAG = "ETag";
+    protected static final String HEADER_VARY = "Vary";
+
+    protected static final String CONTENT_TYPE_EVENT_STREAM = "text/event-stream";
+
+    private static final String WEAK_ETAG_PREFIX = "W/";
+
+    private final int minSize;
+
+    private final ByteArrayOutputStream buffer;
+
+    private GZIPOutputStream gzipStream;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    private boolean finished;
+
+    private volatile boolean streamed;
+
+    GzipResponseWrapper(HttpServletResponse response, int minSize) {
+        super(response);
+        this.minSize = minSize;
+        this.buffer = new ByteArrayOutputStream(minSize);
+        response.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+
+        if (outputStream == null) {
+            outputStream = new BufferingOutputStream();
+        }
+
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (outputStream != null && writer == null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+
+        if (writer == null) {
+            outputStream = new BufferingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void setContentType(String type) {
+        super.setContentType(type);
+
+        if (type != null && type.startsWith(CONTENT_TYPE_EVENT_STREAM) && gzipStream == null) {
+            streamed = true;
+        }
+    }
+
+    /**
+     * The length of the body is not known before the body is written, so the content length
+     * set by the application is ignored.
+     */
+    @Override
+    public void setContentLength(int length) {
+
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (streamed) {
+            super.flushBuffer();
+        }
+        else if (gzipStream != null) {
+            gzipStream.flush();
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        buffer.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        buffer.reset();
+        addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+    }
+
+    boolean isCompressed() {
+        return gzipStream != null;
+    }
+
+    /**
+     * Writes the buffered body to the response or finishes the gzip stream.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        if (writer != null) {
+            writer.flush();
+        }
+
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        else if (buffer.size() > 0) {
+            getResponse().setContentLength(buffer.size());
+            buffer.writeTo(getResponse().getOutputStream());
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        //The events of a stream are written after the filter has returned.
+        if (streamed) {
+            writeStreamed(bytes, offset, length);
+            return;
+        }
+
+        if (finished) {
+            throw new IOException("Response has already been finished");
+        }
+
+        if (gzipStream != null) {
+            gzipStream.write(bytes, offset, length);
+            return;
+        }
+
+        buffer.write(bytes, offset, length);
+
+        if (buffer.size() >= minSize) {
+            startCompression();
+        }
+    }
+
+    private void writeStreamed(byte[] bytes, int offset, int length) throws IOException {
+        ServletOutputStream out = getResponse().getOutputStream();
+
+        if (buffer.size() > 0) {
+            buffer.writeTo(out);
+            buffer.reset();
+        }
+
+        out.write(bytes, offset, length);
+    }
+
+    private void startCompression() throws IOException {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+
+        response.setHeader(HEADER_CONTENT_ENCODING, GzipResponseFilter.ENCODING_GZIP);
+
+        String eTag = response.getHeader(HEADER_ETAG);
+        if (eTag != null && !eTag.startsWith(WEAK_ETAG_PREFIX)) {
+            response.setHeader(HEADER_ETAG, WEAK_ETAG_PREFIX + eTag);
+        }
+
+        gzipStream = new GZIPOutputStream(response.getOutputStream());
+        buffer.writeTo(gzipStream);
+        buffer.reset();
+    }
+
+    private class BufferingOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            GzipResponseWrapper.this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            GzipResponseWrapper.this.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (streamed) {
+                getResponse().getOutputStream().flush();
+            }
+            else if (gzipStream != null) {
+                gzipStream.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.petrikainulainen.spring.datasolr.common.http;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+
+import java.util.Collections;
+
+/**
+ * Reads and writes the binary Smile encoding of JSON. Smile uses the same data model
+ * as JSON, so every object which can be written as JSON can be written as Smile. Clients
+ * select it by sending the Accept header application/x-jackson-smile.
+ * @author Petri Kainulainen
+ */
+public class SmileHttpMessageConverter extends MappingJacksonHttpMessageConverter {
+
+    public static final String MEDIA_TYPE_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType MEDIA_TYPE_SMILE = MediaType.valueOf(MEDIA_TYPE_SMILE_VALUE);
+
+    public SmileHttpMessageConverter() {
+        setObjectMapper(new ObjectMapper(new SmileFactory()));
+        setSupportedMediaTypes(Collections.singletonList(MEDIA_TYPE_SMILE));
+    }
+
+    /**
+     * Checks if the client has explicitly listed Smile in the given Accept header.
+     * Wildcards are not taken into account, so JSON stays the default format.
+     * @param accept    The value of the Accept header. Can be null.
+     * @return  true if Smile is requested, false otherwise.
+     */
+    public static boolean isRequested(String accept) {
+        if (accept == null) {
+            return false;
+        }
+
+        for (MediaType mediaType: MediaType.parseMediaTypes(accept)) {
+            if (mediaType.getQualityValue() > 0 && MEDIA_TYPE_SMILE.includes(mediaType)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
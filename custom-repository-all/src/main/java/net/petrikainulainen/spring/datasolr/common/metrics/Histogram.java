@@ -0,0 +1,131 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative long values which uses a fixed amount of memory. Every power of
+ * two is divided into the same number of buckets, which means that a value is counted to a
+ * bucket whose width is at most 1 / 2^precision of the value. The percentiles are reported as
+ * the upper bounds of the buckets, so they are never smaller than the real percentiles.
+ * <p>
+ * The counters are kept in an atomic long array, so values can be recorded concurrently without
+ * locking. A percentile which is calculated while values are being recorded can miss the newest values.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class Histogram {
+
+    private final int precision;
+
+    private final int subBucketCount;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a new histogram.
+     * @param precision The number of bits which are used to divide each power of two into buckets.
+     *                  Three bits keep the relative error of the percentiles below 12.5 percent.
+     */
+    public Histogram(int precision) {
+        if (precision < 0 || precision > 10) {
+            throw new IllegalArgumentException("The precision must be between 0 and 10");
+        }
+
+        this.precision = precision;
+        this.subBucketCount = 1 << precision;
+        this.counts = new AtomicLongArray(getIndex(Long.MAX_VALUE) + 1);
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The value cannot be negative");
+        }
+
+        counts.incrementAndGet(getIndex(value));
+        sum.addAndGet(value);
+        updateMax(value);
+    }
+
+    private void updateMax(long value) {
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * The values which are smaller than the sub bucket count have their own buckets. The larger
+     * values are grouped by their highest set bit and counted to a bucket by the bits which
+     * follow it.
+     */
+    protected int getIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - precision;
+
+        return (shift + 1) * subBucketCount + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    protected long getUpperBound(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+
+        int shift = index / subBucketCount - 1;
+        long lowerBound = (long) (subBucketCount + index % subBucketCount) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int index = 0; index < counts.length(); index++) {
+            count += counts.get(index);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        return (double) sum.get() / count;
+    }
+
+    /**
+     * Returns the smallest value which is greater than or equal to the given percentage of the
+     * recorded values, or zero if no values have been recorded.
+     * @param percentile    The percentile between 0 and 100.
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int index = 0; index < counts.length(); index++) {
+            seen += counts.get(index);
+            if (seen >= rank) {
+                return Math.min(getUpperBound(index), max.get());
+            }
+        }
+
+        return max.get();
+    }
+}
@@ -0,0 +1,140 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the calls of a repository method: the number of calls and errors, the
+ * distribution of the latencies, and the distribution of the sizes of the returned results.
+ * The size of a result is the number of returned entries, which means that a single entry
+ * has size one and a missing entry has size zero. The result sizes are not recorded for
+ * methods which return nothing, a number or a boolean.
+ * @author Petri Kainulainen
+ */
+public class MethodMetrics implements MethodMetricsMBean {
+
+    private static final int HISTOGRAM_PRECISION = 3;
+
+    private final String repository;
+
+    private final String method;
+
+    private final boolean resultSizeRecorded;
+
+    private final Histogram latencies = new Histogram(HISTOGRAM_PRECISION);
+
+    private final Histogram resultSizes = new Histogram(HISTOGRAM_PRECISION);
+
+    private final AtomicLong errorCount = new AtomicLong();
+
+    public MethodMetrics(String repository, Method method) {
+        this.repository = repository;
+        this.method = getSignature(method);
+        this.resultSizeRecorded = hasResult(method.getReturnType());
+    }
+
+    /**
+     * Returns the name and the parameter types of the method, which tell overloaded methods apart.
+     */
+    protected static String getSignature(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append("(");
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int index = 0; index < parameterTypes.length; index++) {
+            if (index > 0) {
+                signature.append(", ");
+            }
+            signature.append(parameterTypes[index].getSimpleName());
+        }
+
+        return signature.append(")").toString();
+    }
+
+    private static boolean hasResult(Class<?> returnType) {
+        return !returnType.isPrimitive()
+                && !Number.class.isAssignableFrom(returnType)
+                && !Boolean.class.equals(returnType);
+    }
+
+    public void recordSuccess(long latencyNanos, int resultSize) {
+        latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (resultSizeRecorded) {
+            resultSizes.record(resultSize);
+        }
+    }
+
+    public void recordError(long latencyNanos) {
+        latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        errorCount.incrementAndGet();
+    }
+
+    public boolean isResultSizeRecorded() {
+        return resultSizeRecorded;
+    }
+
+    @Override
+    public String getRepository() {
+        return repository;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public long getCallCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latencies.getMean();
+    }
+
+    @Override
+    public long getMedianLatencyMicros() {
+        return latencies.getPercentile(50);
+    }
+
+    @Override
+    public long getPercentile95LatencyMicros() {
+        return latencies.getPercentile(95);
+    }
+
+    @Override
+    public long getPercentile99LatencyMicros() {
+        return latencies.getPercentile(99);
+    }
+
+    @Override
+    public long getMaxLatencyMicros() {
+        return latencies.getMax();
+    }
+
+    @Override
+    public double getMeanResultSize() {
+        return resultSizes.getMean();
+    }
+
+    @Override
+    public long getMedianResultSize() {
+        return resultSizes.getPercentile(50);
+    }
+
+    @Override
+    public long getPercentile99ResultSize() {
+        return resultSizes.getPercentile(99);
+    }
+
+    @Override
+    public long getMaxResultSize() {
+        return resultSizes.getMax();
+    }
+}
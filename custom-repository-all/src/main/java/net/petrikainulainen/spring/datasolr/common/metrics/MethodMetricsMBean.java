@@ -0,0 +1,34 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+/**
+ * The JMX view of the metrics of a repository method. The latencies are given in microseconds.
+ * @author Petri Kainulainen
+ */
+public interface MethodMetricsMBean {
+
+    public String getRepository();
+
+    public String getMethod();
+
+    public long getCallCount();
+
+    public long getErrorCount();
+
+    public double getMeanLatencyMicros();
+
+    public long getMedianLatencyMicros();
+
+    public long getPercentile95LatencyMicros();
+
+    public long getPercentile99LatencyMicros();
+
+    public long getMaxLatencyMicros();
+
+    public double getMeanResultSize();
+
+    public long getMedianResultSize();
+
+    public long getPercentile99ResultSize();
+
+    public long getMaxResultSize();
+}
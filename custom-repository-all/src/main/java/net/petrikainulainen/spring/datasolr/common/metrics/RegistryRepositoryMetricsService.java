@@ -0,0 +1,56 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import net.petrikainulainen.spring.datasolr.common.dto.RepositoryMethodMetricsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+@Service
+public class RegistryRepositoryMetricsService implements RepositoryMetricsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistryRepositoryMetricsService.class);
+
+    @Resource
+    private RepositoryMetricsRegistry repositoryMetricsRegistry;
+
+    @PreAuthorize("isAuthenticated()")
+    @Override
+    public List<RepositoryMethodMetricsDTO> getRepositoryMetrics() {
+        List<RepositoryMethodMetricsDTO> dtos = new ArrayList<RepositoryMethodMetricsDTO>();
+        for (MethodMetrics methodMetrics: repositoryMetricsRegistry.getMethodMetrics()) {
+            dtos.add(createDTO(methodMetrics));
+        }
+
+        LOGGER.debug("Got metrics of {} repository methods", dtos.size());
+
+        return dtos;
+    }
+
+    private RepositoryMethodMetricsDTO createDTO(MethodMetrics methodMetrics) {
+        RepositoryMethodMetricsDTO dto = new RepositoryMethodMetricsDTO();
+
+        dto.setRepository(methodMetrics.getRepository());
+        dto.setMethod(methodMetrics.getMethod());
+        dto.setCallCount(methodMetrics.getCallCount());
+        dto.setErrorCount(methodMetrics.getErrorCount());
+        dto.setMeanLatency(methodMetrics.getMeanLatencyMicros());
+        dto.setMedianLatency(methodMetrics.getMedianLatencyMicros());
+        dto.setPercentile95Latency(methodMetrics.getPercentile95LatencyMicros());
+        dto.setPercentile99Latency(methodMetrics.getPercentile99LatencyMicros());
+        dto.setMaxLatency(methodMetrics.getMaxLatencyMicros());
+        dto.setMeanResultSize(methodMetrics.getMeanResultSize());
+        dto.setMedianResultSize(methodMetrics.getMedianResultSize());
+        dto.setPercentile99ResultSize(methodMetrics.getPercentile99ResultSize());
+        dto.setMaxResultSize(methodMetrics.getMaxResultSize());
+
+        return dto;
+    }
+}
@@ -0,0 +1,76 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Page;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Records the latency, the outcome and the result size of every call of a repository method.
+ * The interceptor is the outermost advice of the repository proxy, so the latency includes the
+ * transaction and the exception translation of the repository.
+ * <p>
+ * A call costs two reads of the system timer, one lookup from a map which is never modified,
+ * and a few atomic increments. No locks are taken and nothing is allocated, so the interceptor
+ * can be left on in production.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final Map<Method, MethodMetrics> methodMetrics;
+
+    public RepositoryMetricsInterceptor(Map<Method, MethodMetrics> methodMetrics) {
+        this.methodMetrics = methodMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodMetrics metrics = methodMetrics.get(invocation.getMethod());
+        if (metrics == null) {
+            return invocation.proceed();
+        }
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        }
+        catch (Throwable ex) {
+            metrics.recordError(System.nanoTime() - start);
+            throw ex;
+        }
+
+        long latency = System.nanoTime() - start;
+        metrics.recordSuccess(latency, metrics.isResultSizeRecorded() ? getResultSize(result) : 0);
+
+        return result;
+    }
+
+    /**
+     * Returns the number of entries in the result. Only the entries of the returned page are
+     * counted, because the total number of entries is not read from the data store.
+     */
+    protected static int getResultSize(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Page) {
+            return ((Page<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return 1;
+    }
+}
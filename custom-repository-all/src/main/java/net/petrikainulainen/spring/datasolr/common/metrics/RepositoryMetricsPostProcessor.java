@@ -0,0 +1,40 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+/**
+ * Adds the {@link RepositoryMetricsInterceptor} to the proxy of a repository. This post processor
+ * is added to a repository factory before the post processors which add the transaction and
+ * exception translation advices, so the metrics advice wraps them.
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsPostProcessor implements RepositoryProxyPostProcessor {
+
+    private final RepositoryMetricsRegistry registry;
+
+    public RepositoryMetricsPostProcessor(RepositoryMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void postProcess(ProxyFactory factory) {
+        Class<?> repositoryInterface = getRepositoryInterface(factory.getProxiedInterfaces());
+        if (repositoryInterface != null) {
+            factory.addAdvice(new RepositoryMetricsInterceptor(registry.register(repositoryInterface)));
+        }
+    }
+
+    /**
+     * Returns the first proxied interface which extends the {@link Repository} marker interface.
+     */
+    protected static Class<?> getRepositoryInterface(Class<?>[] proxiedInterfaces) {
+        for (Class<?> proxiedInterface: proxiedInterfaces) {
+            if (!Repository.class.equals(proxiedInterface) && Repository.class.isAssignableFrom(proxiedInterface)) {
+                return proxiedInterface;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,132 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the metrics of the methods of the instrumented repositories and registers them to
+ * the MBean server. The metrics of a method are registered with the object name
+ * net.petrikainulainen.spring.datasolr:type=RepositoryMetrics,repository=[interface],method=[signature].
+ * <p>
+ * If the same name has already been registered by another application in the same JVM, the
+ * metrics are still collected and returned by {@link #getMethodMetrics()}, but they are not
+ * visible through JMX.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryMetricsRegistry.class);
+
+    protected static final String OBJECT_NAME_DOMAIN = "net.petrikainulainen.spring.datasolr";
+    protected static final String OBJECT_NAME_TYPE = "RepositoryMetrics";
+
+    private final MBeanServer mBeanServer;
+
+    private final ConcurrentMap<String, MethodMetrics> metrics = new ConcurrentHashMap<String, MethodMetrics>();
+
+    private final List<ObjectName> registeredNames = new CopyOnWriteArrayList<ObjectName>();
+
+    public RepositoryMetricsRegistry() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public RepositoryMetricsRegistry(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * Creates the metrics of every method of the repository interface. The metrics are created
+     * when the repository is created, so that a call only has to look up its metrics from a map
+     * which is never modified.
+     * @return  The metrics of the methods of the repository interface.
+     */
+    public Map<Method, MethodMetrics> register(Class<?> repositoryInterface) {
+        LOGGER.debug("Registering metrics of repository: {}", repositoryInterface.getName());
+
+        Map<Method, MethodMetrics> repositoryMetrics = new HashMap<Method, MethodMetrics>();
+
+        for (Method method: repositoryInterface.getMethods()) {
+            MethodMetrics created = new MethodMetrics(repositoryInterface.getSimpleName(), method);
+
+            MethodMetrics existing = metrics.putIfAbsent(created.getRepository() + "." + created.getMethod(), created);
+            if (existing == null) {
+                registerMBean(created);
+                existing = created;
+            }
+
+            repositoryMetrics.put(method, existing);
+        }
+
+        return repositoryMetrics;
+    }
+
+    private void registerMBean(MethodMetrics methodMetrics) {
+        try {
+            ObjectName name = createObjectName(methodMetrics);
+            mBeanServer.registerMBean(methodMetrics, name);
+            registeredNames.add(name);
+        }
+        catch (JMException ex) {
+            LOGGER.warn("Cannot register metrics of {}.{} to the MBean server: {}",
+                    new Object[] {methodMetrics.getRepository(), methodMetrics.getMethod(), ex.getMessage()});
+        }
+    }
+
+    protected static ObjectName createObjectName(MethodMetrics methodMetrics) throws JMException {
+        return new ObjectName(OBJECT_NAME_DOMAIN + ":type=" + OBJECT_NAME_TYPE
+                + ",repository=" + methodMetrics.getRepository()
+                + ",method=" + ObjectName.quote(methodMetrics.getMethod())
+        );
+    }
+
+    /**
+     * Returns the metrics of every registered method ordered by repository and method.
+     */
+    public List<MethodMetrics> getMethodMetrics() {
+        List<MethodMetrics> sorted = new ArrayList<MethodMetrics>(metrics.values());
+
+        Collections.sort(sorted, new Comparator<MethodMetrics>() {
+            @Override
+            public int compare(MethodMetrics first, MethodMetrics second) {
+                int byRepository = first.getRepository().compareTo(second.getRepository());
+                if (byRepository != 0) {
+                    return byRepository;
+                }
+                return first.getMethod().compareTo(second.getMethod());
+            }
+        });
+
+        return sorted;
+    }
+
+    /**
+     * Unregisters the metrics from the MBean server.
+     */
+    public void shutdown() {
+        for (ObjectName name: registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(name);
+            }
+            catch (JMException ex) {
+                LOGGER.warn("Cannot unregister MBean {}: {}", name, ex.getMessage());
+            }
+        }
+        registeredNames.clear();
+    }
+}
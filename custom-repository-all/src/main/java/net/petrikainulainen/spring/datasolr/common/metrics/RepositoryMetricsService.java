@@ -0,0 +1,17 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import net.petrikainulainen.spring.datasolr.common.dto.RepositoryMethodMetricsDTO;
+
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public interface RepositoryMetricsService {
+
+    /**
+     * Returns the metrics of the methods of the Solr and JPA repositories.
+     * @return  The metrics ordered by repository and method.
+     */
+    public List<RepositoryMethodMetricsDTO> getRepositoryMetrics();
+}
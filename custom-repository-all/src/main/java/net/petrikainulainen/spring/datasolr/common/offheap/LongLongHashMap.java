@@ -0,0 +1,209 @@
+package net.petrikainulainen.spring.datasolr.common.offheap;
+
+/**
+ * An open addressing hash map whose keys and values are primitive longs. The entries are kept in
+ * two long arrays, so adding and looking up an entry does not create any objects. The key zero marks
+ * an empty slot and cannot be used. This class is not thread-safe.
+ * @author Petri Kainulainen
+ */
+class LongLongHashMap {
+
+    static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final long EMPTY_KEY = 0L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    LongLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Returns the value of the key or {@link #NO_VALUE} if the map does not contain the key.
+     */
+    long get(long key) {
+        checkKey(key);
+
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return NO_VALUE;
+    }
+
+    /**
+     * Associates the value with the key.
+     * @return  The previous value of the key or {@link #NO_VALUE}.
+     */
+    long put(long key, long value) {
+        checkKey(key);
+
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes the key from the map.
+     * @return  The removed value or {@link #NO_VALUE}.
+     */
+    long remove(long key) {
+        checkKey(key);
+
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                long previous = values[slot];
+                removeSlot(slot);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes all keys whose value is the given value.
+     * @return  The number of removed keys.
+     */
+    int removeAllWithValue(long value) {
+        int removed = 0;
+
+        int slot = 0;
+        while (slot < keys.length) {
+            if (keys[slot] != EMPTY_KEY && values[slot] == value) {
+                //An entry from a later slot can be shifted to this slot, so it is checked again.
+                removeSlot(slot);
+                removed++;
+            }
+            else {
+                slot++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes all keys whose value is smaller than the given limit.
+     * @return  The number of removed keys.
+     */
+    int removeAllWithValueBelow(long limit) {
+        int removed = 0;
+
+        int slot = 0;
+        while (slot < keys.length) {
+            if (keys[slot] != EMPTY_KEY && values[slot] < limit) {
+                removeSlot(slot);
+                removed++;
+            }
+            else {
+                slot++;
+            }
+        }
+
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes the entry with backward shift deletion. The entries which follow the removed entry
+     * in the same probe sequence are moved backwards, so no tombstones are needed.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int current = (gap + 1) & mask;
+
+        while (keys[current] != EMPTY_KEY) {
+            int home = slotOf(keys[current]);
+            //The entry can fill the gap if its home slot is not between the gap and the current slot.
+            if (((current - home) & mask) >= ((current - gap) & mask)) {
+                keys[gap] = keys[current];
+                values[gap] = values[current];
+                gap = current;
+            }
+            current = (current + 1) & mask;
+        }
+
+        keys[gap] = EMPTY_KEY;
+        values[gap] = 0L;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int index = 0; index < oldKeys.length; index++) {
+            long key = oldKeys[index];
+            if (key != EMPTY_KEY) {
+                int slot = slotOf(key);
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[index];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (capacity / 4) * 3;
+        size = 0;
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while ((capacity / 4) * 3 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("The key zero is reserved for empty slots");
+        }
+    }
+}
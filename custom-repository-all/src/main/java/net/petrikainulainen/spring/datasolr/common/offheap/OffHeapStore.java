@@ -0,0 +1,290 @@
+package net.petrikainulainen.spring.datasolr.common.offheap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores versioned byte arrays outside of the Java heap. The values are appended to a single direct
+ * buffer and located with a primitive hash map which maps a key to the offset of its latest record.
+ * Replacing or removing a value only frees the old record. When the end of the buffer is reached,
+ * the live records are moved to the beginning of the buffer and the freed space is reused.
+ * <p>
+ * A removed key is remembered until the next compaction, so a value which was read before it was removed
+ * cannot be put back with {@link #putIfAbsent(long, long, byte[])}. If the value does not fit into the buffer
+ * even after compaction, it is not stored, but its version is remembered. A value whose version is older
+ * than the version of the latest value which was stored or dropped is never stored, which means that a stale
+ * value cannot overwrite a newer value even if it is put after the newer value.
+ * </p>
+ * <p>
+ * Like removed keys, the versions of dropped values are only needed while the stale values which were read
+ * before them can still be put. They are forgotten at the next compaction, or when more than
+ * {@link #MAX_DROPPED_VERSION_COUNT} of them are remembered, so that a full buffer which drops every new
+ * key cannot grow the index without a limit.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class OffHeapStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapStore.class);
+
+    //A record consists of the key, the version and the length of the value, followed by the value.
+    protected static final int RECORD_HEADER_SIZE = 8 + 8 + 4;
+
+    private static final int EXPECTED_KEY_COUNT = 1024;
+
+    private static final long REMOVED = -1L;
+
+    //The index entry of a dropped value contains its version encoded as a number which is smaller than REMOVED.
+    private static final long DROPPED_VERSION_OFFSET = -2L;
+
+    protected static final int MAX_DROPPED_VERSION_COUNT = EXPECTED_KEY_COUNT;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ByteBuffer buffer;
+
+    private final LongLongHashMap index = new LongLongHashMap(EXPECTED_KEY_COUNT);
+
+    private int end = 0;
+    private int freedBytes = 0;
+    private int valueCount = 0;
+    private int droppedVersionCount = 0;
+
+    /**
+     * Creates a new store.
+     * @param capacity  The size of the direct buffer in bytes.
+     */
+    public OffHeapStore(int capacity) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Returns a copy of the value of the key or null if the store does not contain the key.
+     */
+    public byte[] get(long key) {
+        lock.readLock().lock();
+        try {
+            long offset = index.get(key);
+            if (!isLive(offset)) {
+                return null;
+            }
+
+            ByteBuffer record = buffer.duplicate();
+            record.position((int) offset + 16);
+            byte[] value = new byte[record.getInt()];
+            record.get(value);
+
+            return value;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the value unless a newer version of it has been stored or dropped.
+     * @return  true if the value was stored, false otherwise.
+     */
+    public boolean put(long key, long version, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(key);
+            if (isNewerVersionKnown(offset, version)) {
+                return false;
+            }
+            return write(key, version, value, offset);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the value if the store does not contain the key, the key has not been removed recently,
+     * and no newer version of the value has been dropped.
+     * @return  true if the value was stored, false otherwise.
+     */
+    public boolean putIfAbsent(long key, long version, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(key);
+            if (isLive(offset) || offset == REMOVED || isNewerVersionKnown(offset, version)) {
+                return false;
+            }
+            return write(key, version, value, offset);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the value of the key.
+     */
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            long offset = index.put(key, REMOVED);
+            if (isLive(offset)) {
+                free(offset);
+            }
+            else if (isDropped(offset)) {
+                droppedVersionCount--;
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return valueCount;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes which are used by the live records.
+     */
+    public int getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return end - freedBytes;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean write(long key, long version, byte[] value, long previousOffset) {
+        if (isLive(previousOffset)) {
+            free(previousOffset);
+            index.remove(key);
+        }
+
+        int recordSize = RECORD_HEADER_SIZE + value.length;
+        if (end + recordSize > buffer.capacity() && freedBytes > 0) {
+            compact();
+        }
+
+        //The compaction may have forgotten the dropped version of the key.
+        boolean wasDropped = isDropped(index.get(key));
+
+        if (end + recordSize > buffer.capacity()) {
+            LOGGER.debug("No room for a value of {} bytes with key: {}", value.length, key);
+            index.put(key, DROPPED_VERSION_OFFSET - version);
+            if (!wasDropped && ++droppedVersionCount > MAX_DROPPED_VERSION_COUNT) {
+                forgetDroppedVersions();
+            }
+            return false;
+        }
+
+        if (wasDropped) {
+            droppedVersionCount--;
+        }
+
+        ByteBuffer record = buffer.duplicate();
+        record.position(end);
+        record.putLong(key);
+        record.putLong(version);
+        record.putInt(value.length);
+        record.put(value);
+
+        index.put(key, end);
+        end += recordSize;
+        valueCount++;
+
+        return true;
+    }
+
+    private void free(long offset) {
+        freedBytes += RECORD_HEADER_SIZE + buffer.getInt((int) offset + 16);
+        valueCount--;
+    }
+
+    /**
+     * Moves the live records to the beginning of the buffer in their current order and forgets the
+     * removed keys and the versions of the dropped values.
+     */
+    private void compact() {
+        LOGGER.debug("Compacting off-heap store. Freeing {} bytes", freedBytes);
+
+        int readPosition = 0;
+        int writePosition = 0;
+
+        while (readPosition < end) {
+            long key = buffer.getLong(readPosition);
+            int recordSize = RECORD_HEADER_SIZE + buffer.getInt(readPosition + 16);
+
+            if (index.get(key) == readPosition) {
+                if (writePosition != readPosition) {
+                    moveRecord(readPosition, writePosition, recordSize);
+                    index.put(key, writePosition);
+                }
+                writePosition += recordSize;
+            }
+
+            readPosition += recordSize;
+        }
+
+        end = writePosition;
+        freedBytes = 0;
+
+        index.removeAllWithValue(REMOVED);
+        forgetDroppedVersions();
+    }
+
+    private void forgetDroppedVersions() {
+        LOGGER.debug("Forgetting {} versions of dropped values", droppedVersionCount);
+
+        //The index entries of the dropped values are the only entries which are smaller than REMOVED.
+        index.removeAllWithValueBelow(REMOVED);
+        droppedVersionCount = 0;
+    }
+
+    private void moveRecord(int from, int to, int recordSize) {
+        byte[] record = new byte[recordSize];
+
+        ByteBuffer source = buffer.duplicate();
+        source.position(from);
+        source.get(record);
+
+        ByteBuffer target = buffer.duplicate();
+        target.position(to);
+        target.put(record);
+    }
+
+    private long versionAt(long offset) {
+        return buffer.getLong((int) offset + 8);
+    }
+
+    private boolean isNewerVersionKnown(long offset, long version) {
+        if (isLive(offset)) {
+            return versionAt(offset) > version;
+        }
+        if (isDropped(offset)) {
+            return DROPPED_VERSION_OFFSET - offset > version;
+        }
+        return false;
+    }
+
+    private static boolean isDropped(long offset) {
+        return offset < REMOVED && offset != LongLongHashMap.NO_VALUE;
+    }
+
+    private static boolean isLive(long offset) {
+        return offset >= 0;
+    }
+}
@@ -0,0 +1,89 @@
+package net.petrikainulainen.spring.datasolr.common.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Count-Min sketch which estimates the sums of values added with string keys in a fixed
+ * amount of memory. An estimate is never smaller than the real sum, and it is larger only if
+ * the key collides with other keys on every row of the sketch.
+ * <p>
+ * The counters are kept in an atomic long array, so values can be added concurrently without locking.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class CountMinSketch {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray counters;
+
+    private final int width;
+
+    private final int depth;
+
+    /**
+     * Creates a new sketch.
+     * @param width The number of counters on each row. The error of an estimate is proportional to the total sum divided by the width.
+     * @param depth The number of rows. Each row lowers the probability that the error exceeds its bound.
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("The width and depth must be positive");
+        }
+
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * Adds the value to the sum of the key.
+     * @return  The estimated sum of the key after the value has been added.
+     */
+    public long add(String key, long value) {
+        long hash = hash(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, hash1, hash2), value));
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Returns the estimated sum of the key.
+     */
+    public long estimate(String key) {
+        long hash = hash(key);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash1, hash2)));
+        }
+
+        return estimate;
+    }
+
+    private int index(int row, int hash1, int hash2) {
+        int combined = hash1 + (row + 1) * hash2;
+        return row * width + (combined & Integer.MAX_VALUE) % width;
+    }
+
+    /**
+     * Calculates the 64-bit FNV-1a hash of the characters of the key.
+     */
+    private static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int index = 0; index < key.length(); index++) {
+            hash ^= key.charAt(index);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
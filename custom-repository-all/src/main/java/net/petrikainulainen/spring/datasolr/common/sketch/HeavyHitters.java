@@ -0,0 +1,157 @@
+package net.petrikainulainen.spring.datasolr.common.sketch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the most frequent keys of a stream in bounded memory. The occurrences of all keys are
+ * counted with a Count-Min sketch, and the keys whose estimated count exceeds the smallest count
+ * of the current top keys are kept as candidates.
+ * <p>
+ * Adding a key does not lock. When there are twice as many candidates as tracked keys, the
+ * thread which notices it first hands the pruning of the candidates over to the given executor,
+ * so the threads which add keys never sort the candidates. Only one pruning is scheduled at a time.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class HeavyHitters {
+
+    private static final Comparator<Map.Entry<String, Long>> BY_COUNT_DESCENDING = new Comparator<Map.Entry<String, Long>>() {
+        @Override
+        public int compare(Map.Entry<String, Long> first, Map.Entry<String, Long> second) {
+            return second.getValue().compareTo(first.getValue());
+        }
+    };
+
+    private final CountMinSketch sketch;
+
+    private final Map<String, Long> candidates = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicInteger candidateCount = new AtomicInteger();
+
+    private final AtomicBoolean pruning = new AtomicBoolean();
+
+    private final int keyCount;
+
+    private final Executor pruneExecutor;
+
+    private final Runnable pruneTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                prune();
+            }
+            finally {
+                pruning.set(false);
+            }
+        }
+    };
+
+    private volatile long threshold = 0;
+
+    /**
+     * Creates a new tracker.
+     * @param keyCount  The number of tracked keys.
+     * @param sketchWidth   The width of the Count-Min sketch.
+     * @param sketchDepth   The depth of the Count-Min sketch.
+     * @param pruneExecutor The executor which prunes the candidates.
+     */
+    public HeavyHitters(int keyCount, int sketchWidth, int sketchDepth, Executor pruneExecutor) {
+        this.keyCount = keyCount;
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        this.pruneExecutor = pruneExecutor;
+    }
+
+    /**
+     * Counts an occurrence of the key.
+     * @return  The estimated number of occurrences of the key.
+     */
+    public long add(String key) {
+        long estimate = sketch.add(key, 1);
+
+        if (estimate > threshold) {
+            if (candidates.put(key, estimate) == null && candidateCount.incrementAndGet() > 2 * keyCount) {
+                schedulePrune();
+            }
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the key.
+     */
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * Returns the most frequent keys and their estimated counts ordered by the count.
+     */
+    public Map<String, Long> getTop() {
+        List<Map.Entry<String, Long>> sorted = sortCandidates();
+
+        Map<String, Long> top = new LinkedHashMap<String, Long>();
+        for (int index = 0; index < sorted.size() && index < keyCount; index++) {
+            top.put(sorted.get(index).getKey(), sorted.get(index).getValue());
+        }
+
+        return top;
+    }
+
+    /**
+     * If the executor rejects the pruning, the next key which is added as a candidate tries again.
+     */
+    private void schedulePrune() {
+        if (!pruning.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            pruneExecutor.execute(pruneTask);
+        }
+        catch (RejectedExecutionException ex) {
+            pruning.set(false);
+        }
+    }
+
+    private void prune() {
+        List<Map.Entry<String, Long>> sorted = sortCandidates();
+        if (sorted.size() <= keyCount) {
+            return;
+        }
+
+        threshold = sorted.get(keyCount - 1).getValue();
+
+        for (Map.Entry<String, Long> removed: sorted.subList(keyCount, sorted.size())) {
+            if (candidates.remove(removed.getKey()) != null) {
+                candidateCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Sorts the candidates by their current estimates. The estimate stored with a candidate
+     * can be older than the estimate of the sketch.
+     */
+    private List<Map.Entry<String, Long>> sortCandidates() {
+        Map<String, Long> estimates = new LinkedHashMap<String, Long>();
+        for (String candidate: candidates.keySet()) {
+            estimates.put(candidate, sketch.estimate(candidate));
+        }
+
+        List<Map.Entry<String, Long>> sorted = new ArrayList<Map.Entry<String, Long>>(estimates.entrySet());
+        Collections.sort(sorted, BY_COUNT_DESCENDING);
+
+        return sorted;
+    }
+}
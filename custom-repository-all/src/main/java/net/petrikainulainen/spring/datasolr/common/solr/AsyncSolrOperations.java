@@ -0,0 +1,69 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.solr.core.query.Query;
+import org.springframework.data.solr.core.query.SolrDataQuery;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Executes Solr operations asynchronously. Each method returns immediately and the result
+ * of the operation can be obtained from the returned {@link Future}. This allows us to issue
+ * independent Solr requests in parallel.
+ * @author Petri Kainulainen
+ */
+public interface AsyncSolrOperations {
+
+    /**
+     * Executes the given query.
+     * @param query The executed query.
+     * @param clazz The type of the returned documents.
+     * @return  A future which returns the found page of documents.
+     */
+    public <T> Future<Page<T>> queryForPage(Query query, Class<T> clazz);
+
+    /**
+     * Counts the number of documents which match with the given query.
+     * @param query The query which is used to count the documents.
+     * @return  A future which returns the document count.
+     */
+    public Future<Long> count(SolrDataQuery query);
+
+    /**
+     * Adds the given documents to the index.
+     * @param beans The added documents.
+     * @return  A future which returns the response of the Solr server.
+     */
+    public Future<UpdateResponse> saveBeans(Collection<?> beans);
+
+    /**
+     * Deletes the documents which match with the given query.
+     * @param query The query which selects the deleted documents.
+     * @return  A future which returns the response of the Solr server.
+     */
+    public Future<UpdateResponse> delete(SolrDataQuery query);
+
+    /**
+     * Deletes the document which has the given id.
+     * @param id    The id of the deleted document.
+     * @return  A future which returns the response of the Solr server.
+     */
+    public Future<UpdateResponse> deleteById(String id);
+
+    /**
+     * Commits the pending changes of the index.
+     * @return  A future which returns when the changes are committed.
+     */
+    public Future<Void> commit();
+
+    /**
+     * Executes a Solr bound task, for example a query method of a Solr repository, by using
+     * the same executor than the other asynchronous operations.
+     * @param task  The executed task.
+     * @return  A future which returns the result of the task.
+     */
+    public <T> Future<T> execute(Callable<T> task);
+}
@@ -0,0 +1,123 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.Query;
+import org.springframework.data.solr.core.query.SolrDataQuery;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An {@link AsyncSolrOperations} implementation which executes the operations of the given
+ * {@link SolrOperations} by using a dedicated executor.
+ * @author Petri Kainulainen
+ */
+public class AsyncSolrTemplate implements AsyncSolrOperations {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncSolrTemplate.class);
+
+    private final SolrOperations solrOperations;
+
+    private final ExecutorService executor;
+
+    public AsyncSolrTemplate(SolrOperations solrOperations, ExecutorService executor) {
+        this.solrOperations = solrOperations;
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> Future<Page<T>> queryForPage(final Query query, final Class<T> clazz) {
+        LOGGER.debug("Executing query: {} asynchronously", query);
+
+        return submit(new Callable<Page<T>>() {
+            @Override
+            public Page<T> call() throws Exception {
+                return solrOperations.queryForPage(query, clazz);
+            }
+        });
+    }
+
+    @Override
+    public Future<Long> count(final SolrDataQuery query) {
+        LOGGER.debug("Executing count query: {} asynchronously", query);
+
+        return submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return solrOperations.count(query);
+            }
+        });
+    }
+
+    @Override
+    public Future<UpdateResponse> saveBeans(final Collection<?> beans) {
+        LOGGER.debug("Saving {} documents asynchronously", beans.size());
+
+        return submit(new Callable<UpdateResponse>() {
+            @Override
+            public UpdateResponse call() throws Exception {
+                return solrOperations.saveBeans(beans);
+            }
+        });
+    }
+
+    @Override
+    public Future<UpdateResponse> delete(final SolrDataQuery query) {
+        LOGGER.debug("Deleting documents matching with query: {} asynchronously", query);
+
+        return submit(new Callable<UpdateResponse>() {
+            @Override
+            public UpdateResponse call() throws Exception {
+                return solrOperations.delete(query);
+            }
+        });
+    }
+
+    @Override
+    public Future<UpdateResponse> deleteById(final String id) {
+        LOGGER.debug("Deleting document with id: {} asynchronously", id);
+
+        return submit(new Callable<UpdateResponse>() {
+            @Override
+            public UpdateResponse call() throws Exception {
+                return solrOperations.deleteById(id);
+            }
+        });
+    }
+
+    @Override
+    public Future<Void> commit() {
+        LOGGER.debug("Committing changes asynchronously");
+
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                solrOperations.commit();
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public <T> Future<T> execute(Callable<T> task) {
+        LOGGER.debug("Executing Solr task: {} asynchronously", task);
+        return submit(task);
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        }
+        catch (RejectedExecutionException ex) {
+            throw new TaskRejectedException("Solr executor did not accept task: " + task, ex);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SolrServer} which loads the actual server in a background thread, so that loading a
+ * Solr core does not block the startup of the application context. The requests which are sent
+ * before the server has been loaded wait until it is ready, or until the request timeout runs out.
+ * <p>
+ * The endpoints which should fail fast instead of waiting can check the readiness of the server
+ * by calling {@link #isReady(SolrServer)}.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class BackgroundSolrServer extends SolrServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundSolrServer.class);
+
+    private static final String LOADER_THREAD_NAME = "solr-server-loader";
+
+    private final Callable<SolrServer> loader;
+
+    private final long requestTimeout;
+
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    private volatile SolrServer server;
+
+    private volatile Exception loadError;
+
+    /**
+     * Creates a new server.
+     * @param loader    Creates the actual server.
+     * @param requestTimeout    How long a request waits for the server to be loaded, in milliseconds.
+     */
+    public BackgroundSolrServer(Callable<SolrServer> loader, long requestTimeout) {
+        this.loader = loader;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Starts loading the actual server.
+     */
+    public void start() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        }, LOADER_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void load() {
+        LOGGER.info("Loading Solr server in the background");
+        long startTime = System.currentTimeMillis();
+
+        try {
+            server = loader.call();
+            LOGGER.info("Loaded Solr server in {} ms", System.currentTimeMillis() - startTime);
+        }
+        catch (Exception ex) {
+            LOGGER.error("Loading Solr server failed", ex);
+            loadError = ex;
+        }
+        finally {
+            loaded.countDown();
+        }
+    }
+
+    /**
+     * Returns true if the actual server has been loaded.
+     */
+    public boolean isReady() {
+        return server != null;
+    }
+
+    /**
+     * Waits until the actual server has been loaded, or until its loading has failed.
+     * @return  true if the server was loaded within the timeout.
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        loaded.await(timeout, unit);
+        return isReady();
+    }
+
+    /**
+     * Returns true if the given server is ready to serve requests. Only a {@link BackgroundSolrServer}
+     * can be unready, other servers are always considered to be ready.
+     */
+    public static boolean isReady(SolrServer solrServer) {
+        return !(solrServer instanceof BackgroundSolrServer) || ((BackgroundSolrServer) solrServer).isReady();
+    }
+
+    /**
+     * Waits until the given server is ready to serve requests.
+     * @return  true if the server is ready.
+     * @see #isReady(SolrServer)
+     */
+    public static boolean awaitReady(SolrServer solrServer, long timeout, TimeUnit unit) throws InterruptedException {
+        return !(solrServer instanceof BackgroundSolrServer) || ((BackgroundSolrServer) solrServer).awaitReady(timeout, unit);
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request) throws SolrServerException, IOException {
+        return getServer().request(request);
+    }
+
+    private SolrServer getServer() throws SolrServerException {
+        try {
+            if (!loaded.await(requestTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SolrServerException("Solr server was not loaded within " + requestTimeout + " ms");
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting for the Solr server to be loaded", ex);
+        }
+
+        if (server == null) {
+            throw new SolrServerException("Loading Solr server failed", loadError);
+        }
+
+        return server;
+    }
+
+    /**
+     * Shuts down the actual server. If the server is still being loaded, waits for the request
+     * timeout so that the loaded server can be shut down as well.
+     */
+    @Override
+    public void shutdown() {
+        try {
+            loaded.await(requestTimeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.springframework.data.solr.server.support.EmbeddedSolrServerFactoryBean;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Loads the embedded Solr server which uses the given Solr home directory. This is used together
+ * with {@link BackgroundSolrServer}, because a factory bean would be initialized by the Spring
+ * container during the startup of the application context.
+ * @author Petri Kainulainen
+ */
+public class EmbeddedSolrServerLoader implements Callable<SolrServer> {
+
+    private final String solrHome;
+
+    public EmbeddedSolrServerLoader(String solrHome) {
+        this.solrHome = solrHome;
+    }
+
+    @Override
+    public SolrServer call() throws Exception {
+        EmbeddedSolrServerFactoryBean factory = new EmbeddedSolrServerFactoryBean();
+
+        factory.setSolrHome(solrHome);
+        factory.afterPropertiesSet();
+
+        return factory.getObject();
+    }
+}
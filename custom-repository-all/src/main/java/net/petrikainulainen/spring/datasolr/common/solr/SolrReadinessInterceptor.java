@@ -0,0 +1,58 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects the requests with the status code 503 (Service Unavailable) while the Solr server is
+ * still being loaded or the search caches are still being warmed at startup, so that search
+ * requests fail fast instead of occupying request threads.
+ * @author Petri Kainulainen
+ */
+public class SolrReadinessInterceptor extends HandlerInterceptorAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrReadinessInterceptor.class);
+
+    protected static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    @Resource
+    private SolrServer solrServer;
+
+    @Autowired(required = false)
+    private StartupWarming startupWarming;
+
+    private final int retryAfterSeconds;
+
+    /**
+     * Creates a new interceptor.
+     * @param retryAfterSeconds The number of seconds after which the client should retry a rejected request.
+     */
+    public SolrReadinessInterceptor(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (BackgroundSolrServer.isReady(solrServer) && isStartupWarmingDone()) {
+            return true;
+        }
+
+        LOGGER.debug("Search index is not ready. Rejecting request: {}", request.getRequestURI());
+
+        response.setHeader(HEADER_RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Search index is not ready");
+
+        return false;
+    }
+
+    private boolean isStartupWarmingDone() {
+        return startupWarming == null || startupWarming.isStartupWarmingDone();
+    }
+}
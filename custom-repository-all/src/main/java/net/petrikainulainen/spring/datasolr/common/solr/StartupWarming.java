@@ -0,0 +1,13 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+/**
+ * Tells whether the caches of the search index have been warmed after the application was started.
+ * @author Petri Kainulainen
+ */
+public interface StartupWarming {
+
+    /**
+     * Returns true if the startup warming has finished or it has run out of its time budget.
+     */
+    public boolean isStartupWarmingDone();
+}
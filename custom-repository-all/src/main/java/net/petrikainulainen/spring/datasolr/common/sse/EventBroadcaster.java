@@ -0,0 +1,249 @@
+package net.petrikainulainen.spring.datasolr.common.sse;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes events to clients as Server-Sent Events. Each published event is serialized once and
+ * copied to the bounded buffers of the subscribers. The buffers are written to the responses by
+ * a small shared thread pool, so open event streams do not occupy request threads. A subscriber
+ * whose buffer is full is disconnected; the client reconnects and resumes from its last event id.
+ * <p>
+ * The latest events are kept in memory, so a client which sends the Last-Event-ID header when it
+ * reconnects receives the events it missed. If the missed events are no longer available, the client
+ * receives a reset event and must reload its state.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class EventBroadcaster {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventBroadcaster.class);
+
+    protected static final String CONTENT_TYPE_EVENT_STREAM = "text/event-stream;charset=UTF-8";
+
+    protected static final String EVENT_NAME_RESET = "reset";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(UTF8);
+
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String NO_CACHE = "no-cache";
+
+    private static final String THREAD_NAME_PREFIX = "event-stream-";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Object lock = new Object();
+
+    private final Deque<Event> history = new ArrayDeque<Event>();
+
+    private final Set<EventSubscriber> subscribers = Collections.newSetFromMap(new ConcurrentHashMap<EventSubscriber, Boolean>());
+
+    private final ScheduledExecutorService executor;
+
+    private final int bufferSize;
+
+    private final int historySize;
+
+    private long lastEventId = 0;
+
+    /**
+     * Creates a new broadcaster.
+     * @param threadCount   The number of threads which write events to the responses.
+     * @param bufferSize    The maximum number of events which are waiting to be written to a single client.
+     * @param historySize   The number of latest events which can be resent to reconnecting clients.
+     * @param heartbeatIntervalMillis   The interval of the comments which detect closed connections.
+     */
+    public EventBroadcaster(int threadCount, int bufferSize, int historySize, long heartbeatIntervalMillis) {
+        this.bufferSize = bufferSize;
+        this.historySize = historySize;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newScheduledThreadPool(threadCount, threadFactory);
+
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sendHeartbeat();
+            }
+        }, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens an event stream to the response of the given asynchronous request.
+     * @param asyncContext  The context of the started asynchronous request.
+     * @param lastEventId   The id of the last event received by the client. If this is null, no events are resent.
+     */
+    public void subscribe(AsyncContext asyncContext, Long lastEventId) {
+        LOGGER.debug("Adding a new subscriber with last event id: {}", lastEventId);
+
+        asyncContext.setTimeout(0);
+
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        response.setContentType(CONTENT_TYPE_EVENT_STREAM);
+        response.setHeader(HEADER_CACHE_CONTROL, NO_CACHE);
+
+        final EventSubscriber subscriber = new EventSubscriber(asyncContext, executor, bufferSize);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                unsubscribe(subscriber);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                unsubscribe(subscriber);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                unsubscribe(subscriber);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+
+            }
+        });
+
+        synchronized (lock) {
+            for (byte[] frame: getMissedFrames(lastEventId)) {
+                subscriber.offer(frame);
+            }
+
+            //Commits the response, so the client knows that the stream is open.
+            subscriber.offer(HEARTBEAT);
+            subscribers.add(subscriber);
+        }
+    }
+
+    private List<byte[]> getMissedFrames(Long clientLastEventId) {
+        List<byte[]> frames = new ArrayList<byte[]>();
+
+        if (clientLastEventId == null || clientLastEventId == lastEventId) {
+            return frames;
+        }
+
+        Event oldest = history.peekFirst();
+        boolean missedEventsAvailable = clientLastEventId < lastEventId
+                && oldest != null
+                && oldest.id <= clientLastEventId + 1
+                && lastEventId - clientLastEventId < bufferSize;
+
+        if (!missedEventsAvailable) {
+            LOGGER.debug("Events after id: {} are not available. Sending reset event.", clientLastEventId);
+            frames.add(createFrame(lastEventId, EVENT_NAME_RESET, "{}"));
+            return frames;
+        }
+
+        for (Event event: history) {
+            if (event.id > clientLastEventId) {
+                frames.add(event.frame);
+            }
+        }
+
+        return frames;
+    }
+
+    /**
+     * Sends an event to all subscribers.
+     * @param eventName The name of the event.
+     * @param data  The object which is sent as JSON.
+     */
+    public void publish(String eventName, Object data) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        }
+        catch (IOException ex) {
+            LOGGER.error("Cannot serialize the data of event: " + eventName, ex);
+            return;
+        }
+
+        synchronized (lock) {
+            lastEventId++;
+            Event event = new Event(lastEventId, createFrame(lastEventId, eventName, json));
+            LOGGER.debug("Publishing event {} with id: {} to {} subscribers", new Object[] {eventName, lastEventId, subscribers.size()});
+
+            history.addLast(event);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+
+            broadcast(event.frame);
+        }
+    }
+
+    private void sendHeartbeat() {
+        broadcast(HEARTBEAT);
+    }
+
+    private void broadcast(byte[] frame) {
+        for (EventSubscriber subscriber: subscribers) {
+            if (!subscriber.offer(frame)) {
+                LOGGER.debug("Subscriber cannot keep up. Disconnecting it.");
+                subscriber.close();
+                unsubscribe(subscriber);
+            }
+        }
+    }
+
+    private void unsubscribe(EventSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private byte[] createFrame(long id, String eventName, String json) {
+        return ("id: " + id + "\nevent: " + eventName + "\ndata: " + json + "\n\n").getBytes(UTF8);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Closes all event streams and stops the writer threads.
+     */
+    public void shutdown() {
+        LOGGER.debug("Closing {} event streams", subscribers.size());
+
+        for (EventSubscriber subscriber: subscribers) {
+            subscriber.close();
+        }
+        subscribers.clear();
+
+        executor.shutdownNow();
+    }
+
+    private static class Event {
+
+        private final long id;
+
+        private final byte[] frame;
+
+        private Event(long id, byte[] frame) {
+            this.id = id;
+            this.frame = frame;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package net.petrikainulainen.spring.datasolr.common.sse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An open event stream. Events are put into a bounded buffer by the publishing thread and written
+ * to the response by a thread of the shared executor, so a slow client never blocks the publisher.
+ * At most one write task of a subscriber is scheduled at the same time.
+ * @author Petri Kainulainen
+ */
+class EventSubscriber implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSubscriber.class);
+
+    private final AsyncContext asyncContext;
+
+    private final Executor executor;
+
+    private final BlockingQueue<byte[]> buffer;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    EventSubscriber(AsyncContext asyncContext, Executor executor, int bufferSize) {
+        this.asyncContext = asyncContext;
+        this.executor = executor;
+        this.buffer = new ArrayBlockingQueue<byte[]>(bufferSize);
+    }
+
+    /**
+     * Adds an event to the buffer of this subscriber.
+     * @param frame The event in the event stream format.
+     * @return  false if the buffer is full or the subscriber is closed, true otherwise.
+     */
+    boolean offer(byte[] frame) {
+        if (closed.get() || !buffer.offer(frame)) {
+            return false;
+        }
+
+        schedule();
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Closes the event stream. The buffered events are discarded.
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            LOGGER.debug("Closing event stream");
+            buffer.clear();
+
+            try {
+                asyncContext.complete();
+            }
+            catch (IllegalStateException ex) {
+                LOGGER.debug("Event stream was already completed", ex);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+
+            byte[] frame = buffer.poll();
+            while (frame != null && !closed.get()) {
+                out.write(frame);
+                frame = buffer.poll();
+            }
+
+            out.flush();
+        }
+        catch (IOException ex) {
+            LOGGER.debug("Cannot write to event stream. Closing it.", ex);
+            close();
+        }
+        catch (IllegalStateException ex) {
+            LOGGER.debug("Event stream is no longer available. Closing it.", ex);
+            close();
+        }
+        finally {
+            scheduled.set(false);
+        }
+
+        if (!buffer.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (!closed.get() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            }
+            catch (RejectedExecutionException ex) {
+                LOGGER.debug("Cannot schedule a write to event stream", ex);
+                scheduled.set(false);
+                close();
+            }
+        }
+    }
+}
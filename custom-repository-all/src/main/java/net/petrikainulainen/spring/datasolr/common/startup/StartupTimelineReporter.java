@@ -0,0 +1,191 @@
+package net.petrikainulainen.spring.datasolr.common.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the creation of each bean takes, and writes a report of the slowest beans to
+ * the log when the application context has been refreshed.
+ * <p>
+ * The creation of a bean starts when it is instantiated, or when its bean definition is post
+ * processed if the bean is created by a factory method, and ends when it has been initialized.
+ * The own time of a bean does not contain the time spent creating the beans it depends on.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class StartupTimelineReporter extends InstantiationAwareBeanPostProcessorAdapter
+        implements MergedBeanDefinitionPostProcessor, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimelineReporter.class);
+
+    private final long startTime = System.nanoTime();
+
+    private final int reportedBeanCount;
+
+    private final ThreadLocal<LinkedList<BeanTiming>> creationStack = new ThreadLocal<LinkedList<BeanTiming>>() {
+        @Override
+        protected LinkedList<BeanTiming> initialValue() {
+            return new LinkedList<BeanTiming>();
+        }
+    };
+
+    private final ConcurrentLinkedQueue<BeanTiming> timeline = new ConcurrentLinkedQueue<BeanTiming>();
+
+    /**
+     * Creates a new reporter.
+     * @param reportedBeanCount The number of the slowest beans which are written to the report.
+     */
+    public StartupTimelineReporter(int reportedBeanCount) {
+        this.reportedBeanCount = reportedBeanCount;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        creationStarted(beanName);
+        return null;
+    }
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+        creationStarted(beanName);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        creationFinished(beanName);
+        return bean;
+    }
+
+    private void creationStarted(String beanName) {
+        LinkedList<BeanTiming> stack = creationStack.get();
+        if (beanName != null && (stack.isEmpty() || !beanName.equals(stack.getFirst().beanName))) {
+            stack.addFirst(new BeanTiming(beanName, System.nanoTime()));
+        }
+    }
+
+    private void creationFinished(String beanName) {
+        LinkedList<BeanTiming> stack = creationStack.get();
+
+        //The bean is not on the stack if it was created by a factory bean, or if it was created before this post processor.
+        if (beanName == null || !containsBean(stack, beanName)) {
+            return;
+        }
+
+        //The beans above the finished bean have failed, because their creation was never finished.
+        BeanTiming finished = stack.removeFirst();
+        while (!finished.beanName.equals(beanName)) {
+            finished = stack.removeFirst();
+        }
+
+        finished.totalTime = System.nanoTime() - finished.startTime;
+        if (!stack.isEmpty()) {
+            stack.getFirst().dependencyTime += finished.totalTime;
+        }
+
+        timeline.add(finished);
+    }
+
+    private boolean containsBean(List<BeanTiming> stack, String beanName) {
+        for (BeanTiming timing: stack) {
+            if (timing.beanName.equals(beanName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        LOGGER.info(createReport(event.getApplicationContext().getDisplayName()));
+    }
+
+    /**
+     * Returns the created beans ordered by their own creation time, the slowest bean first.
+     */
+    protected List<BeanTiming> getSlowestBeans() {
+        List<BeanTiming> beans = new ArrayList<BeanTiming>(timeline);
+
+        Collections.sort(beans, new Comparator<BeanTiming>() {
+            @Override
+            public int compare(BeanTiming first, BeanTiming second) {
+                long firstTime = first.getOwnTime();
+                long secondTime = second.getOwnTime();
+                return firstTime < secondTime ? 1 : firstTime == secondTime ? 0 : -1;
+            }
+        });
+
+        return beans;
+    }
+
+    private String createReport(String contextName) {
+        StringBuilder report = new StringBuilder();
+
+        report.append(String.format("Started %s in %d ms. The slowest beans (own ms / total ms):",
+                contextName,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime))
+        );
+
+        Iterator<BeanTiming> beans = getSlowestBeans().iterator();
+        for (int index = 0; index < reportedBeanCount && beans.hasNext(); index++) {
+            BeanTiming bean = beans.next();
+            report.append(String.format("%n%8d %8d  %s",
+                    TimeUnit.NANOSECONDS.toMillis(bean.getOwnTime()),
+                    TimeUnit.NANOSECONDS.toMillis(bean.totalTime),
+                    bean.beanName)
+            );
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * The creation time of a single bean.
+     */
+    protected static class BeanTiming {
+
+        private final String beanName;
+
+        private final long startTime;
+
+        private long dependencyTime;
+
+        private long totalTime;
+
+        private BeanTiming(String beanName, long startTime) {
+            this.beanName = beanName;
+            this.startTime = startTime;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        /**
+         * Returns the creation time of the bean in nanoseconds without the creation time of its dependencies.
+         */
+        public long getOwnTime() {
+            return totalTime - dependencyTime;
+        }
+
+        /**
+         * Returns the creation time of the bean in nanoseconds including the creation time of its dependencies.
+         */
+        public long getTotalTime() {
+            return totalTime;
+        }
+    }
+}
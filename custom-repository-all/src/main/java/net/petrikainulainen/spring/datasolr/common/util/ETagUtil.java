@@ -0,0 +1,108 @@
+package net.petrikainulainen.spring.datasolr.common.util;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.Charset;
+
+/**
+ * Builds strong ETags and evaluates the If-None-Match request header against them.
+ * The ETag of a single entity is derived from its id and version, and the ETag of a list
+ * is a hash of the states of its items.
+ * @author Petri Kainulainen
+ */
+public final class ETagUtil {
+
+    protected static final String ANY = "*";
+    protected static final String WEAK_PREFIX = "W/";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final char ITEM_SEPARATOR = '\n';
+
+    private ETagUtil() {
+
+    }
+
+    /**
+     * Creates the ETag of an entity.
+     * @param id    The id of the entity.
+     * @param version   The version of the entity.
+     * @return  The quoted ETag.
+     */
+    public static String fromVersion(Object id, long version) {
+        return quote(itemState(id, version));
+    }
+
+    /**
+     * Returns the state of a list item.
+     * @param id    The id of the item.
+     * @param state The value which changes when the item changes, e.g. the version of an entity.
+     * @return  The state of the item.
+     */
+    public static String itemState(Object id, Object state) {
+        return id + "-" + state;
+    }
+
+    /**
+     * Creates the ETag of a list by hashing the states of its items.
+     * @param itemStates    The states of the list items in list order. A state must change when
+     *                      the item changes, e.g. the id and the version of an entity.
+     * @return  The quoted ETag.
+     */
+    public static String fromItemStates(Iterable<String> itemStates) {
+        StringBuilder content = new StringBuilder();
+
+        for (String itemState: itemStates) {
+            content.append(itemState).append(ITEM_SEPARATOR);
+        }
+
+        return quote(DigestUtils.md5DigestAsHex(content.toString().getBytes(UTF8)));
+    }
+
+    /**
+     * Creates the ETag of a representation of a resource. The representations which are sent in
+     * different formats have different bodies, so they must have different ETags.
+     * @param eTag  The quoted ETag of the resource.
+     * @param representation    The name of the representation, e.g. the name of the format.
+     * @return  The quoted ETag of the representation.
+     */
+    public static String forRepresentation(String eTag, String representation) {
+        return quote(eTag.substring(1, eTag.length() - 1) + "-" + representation);
+    }
+
+    /**
+     * Checks if the value of the If-None-Match header matches with the given ETag.
+     * Weak comparison is used as required by RFC 2616.
+     * @param ifNoneMatch   The value of the If-None-Match header. Can be null.
+     * @param eTag  The current ETag of the resource.
+     * @return  true if the client has the current representation of the resource, false otherwise.
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+
+        for (String candidate: StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+            String trimmed = candidate.trim();
+
+            if (trimmed.equals(ANY)) {
+                return true;
+            }
+
+            if (trimmed.startsWith(WEAK_PREFIX)) {
+                trimmed = trimmed.substring(WEAK_PREFIX.length());
+            }
+
+            if (trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
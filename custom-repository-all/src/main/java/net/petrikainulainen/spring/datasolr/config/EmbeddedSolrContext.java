@@ -1,5 +1,9 @@
 package net.petrikainulainen.spring.datasolr.config;
 
+import net.petrikainulainen.spring.datasolr.common.async.InstrumentedThreadPoolExecutor;
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrTemplate;
+import net.petrikainulainen.spring.datasolr.common.solr.BackgroundSolrServer;
+import net.petrikainulainen.spring.datasolr.common.solr.EmbeddedSolrServerLoader;
 import net.petrikainulainen.spring.datasolr.todo.repository.solr.CustomSolrRepositoryFactoryBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,7 +11,6 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.data.solr.core.SolrTemplate;
 import org.springframework.data.solr.repository.config.EnableSolrRepositories;
-import org.springframework.data.solr.server.support.EmbeddedSolrServerFactoryBean;
 
 import javax.annotation.Resource;
 
@@ -24,20 +27,36 @@ public class EmbeddedSolrContext {
 
     private static final String PROPERTY_NAME_SOLR_SOLR_HOME = "solr.solr.home";
 
+    private static final long SOLR_SERVER_REQUEST_TIMEOUT = 60000L;
+
+    private static final int SOLR_EXECUTOR_POOL_SIZE = 16;
+    private static final int SOLR_EXECUTOR_QUEUE_CAPACITY = 500;
+    private static final String SOLR_EXECUTOR_THREAD_NAME_PREFIX = "solr-";
+
     @Resource
     private Environment environment;
 
-    @Bean
-    public EmbeddedSolrServerFactoryBean solrServerFactoryBean() {
-        EmbeddedSolrServerFactoryBean factory = new EmbeddedSolrServerFactoryBean();
+    /**
+     * Loads the Solr core in the background, so that it does not block the startup of the application.
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public BackgroundSolrServer solrServer() {
+        EmbeddedSolrServerLoader loader = new EmbeddedSolrServerLoader(environment.getRequiredProperty(PROPERTY_NAME_SOLR_SOLR_HOME));
+        return new BackgroundSolrServer(loader, SOLR_SERVER_REQUEST_TIMEOUT);
+    }
 
-        factory.setSolrHome(environment.getRequiredProperty(PROPERTY_NAME_SOLR_SOLR_HOME));
+    @Bean
+    public SolrTemplate solrTemplate() throws Exception {
+        return new SolrTemplate(solrServer());
+    }
 
-        return factory;
+    @Bean(destroyMethod = "shutdown")
+    public InstrumentedThreadPoolExecutor solrExecutor() {
+        return new InstrumentedThreadPoolExecutor(SOLR_EXECUTOR_POOL_SIZE, SOLR_EXECUTOR_QUEUE_CAPACITY, SOLR_EXECUTOR_THREAD_NAME_PREFIX);
     }
 
     @Bean
-    public SolrTemplate solrTemplate() throws Exception {
-        return new SolrTemplate(solrServerFactoryBean().getObject());
+    public AsyncSolrTemplate asyncSolrTemplate() throws Exception {
+        return new AsyncSolrTemplate(solrTemplate(), solrExecutor());
     }
 }
@@ -26,10 +26,17 @@ public class ExampleApplicationConfig implements WebApplicationInitializer {
 
         ServletRegistration.Dynamic dispatcher = servletContext.addServlet(DISPATCHER_SERVLET_NAME, new DispatcherServlet(rootContext));
         dispatcher.setLoadOnStartup(1);
+        dispatcher.setAsyncSupported(true);
         dispatcher.addMapping(DISPATCHER_SERVLET_MAPPING);
 
+        FilterRegistration.Dynamic gzip = servletContext.addFilter("gzipResponseFilter", new DelegatingFilterProxy());
+        gzip.setAsyncSupported(true);
+        EnumSet<DispatcherType> gzipDispatcherTypes = EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        gzip.addMappingForUrlPatterns(gzipDispatcherTypes, true, "/api/*");
+
         FilterRegistration.Dynamic security = servletContext.addFilter("springSecurityFilterChain", new DelegatingFilterProxy());
-        EnumSet<DispatcherType> securityDispatcherTypes = EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD);
+        security.setAsyncSupported(true);
+        EnumSet<DispatcherType> securityDispatcherTypes = EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD, DispatcherType.ASYNC);
         security.addMappingForUrlPatterns(securityDispatcherTypes, true, "/*");
 
         servletContext.addListener(new ContextLoaderListener(rootContext));
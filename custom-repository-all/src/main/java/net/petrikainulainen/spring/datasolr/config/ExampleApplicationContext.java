@@ -1,22 +1,44 @@
 package net.petrikainulainen.spring.datasolr.config;
 
+import net.petrikainulainen.spring.datasolr.common.async.TimeoutCallableProcessingInterceptor;
+import net.petrikainulainen.spring.datasolr.common.http.GzipResponseFilter;
+import net.petrikainulainen.spring.datasolr.common.http.SmileHttpMessageConverter;
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsRegistry;
+import net.petrikainulainen.spring.datasolr.common.solr.SolrReadinessInterceptor;
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
+import net.petrikainulainen.spring.datasolr.common.startup.StartupTimelineReporter;
+import net.petrikainulainen.spring.datasolr.security.util.SecurityContextCallableProcessingInterceptor;
+import net.petrikainulainen.spring.datasolr.todo.service.RecentTodoBuffer;
+import net.petrikainulainen.spring.datasolr.todo.service.SearchCacheWarmer;
+import net.petrikainulainen.spring.datasolr.todo.service.SearchTermTracker;
+import net.petrikainulainen.spring.datasolr.todo.service.TodoIdFilter;
+import net.petrikainulainen.spring.datasolr.todo.service.TodoSnapshotStore;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.*;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
 import org.springframework.data.web.PageableArgumentResolver;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.DefaultServletHandlerConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.springframework.web.servlet.mvc.method.annotation.ServletWebArgumentResolverAdapter;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import javax.annotation.Resource;
 import java.util.List;
 
 /**
@@ -41,12 +63,88 @@ public class ExampleApplicationContext extends WebMvcConfigurerAdapter {
     private static final String VIEW_RESOLVER_PREFIX = "/WEB-INF/jsp/";
     private static final String VIEW_RESOLVER_SUFFIX = ".jsp";
 
+    private static final long ASYNC_REQUEST_DEFAULT_TIMEOUT = 30000L;
+
+    private static final int TODO_EVENT_THREAD_COUNT = 2;
+    private static final int TODO_EVENT_BUFFER_SIZE = 256;
+    private static final int TODO_EVENT_HISTORY_SIZE = 1000;
+    private static final long TODO_EVENT_HEARTBEAT_INTERVAL = 20000L;
+
+    private static final int RECENT_TODO_COUNT = 50;
+    private static final int RECENT_TODO_RESERVE = 50;
+
+    private static final String SOLR_READINESS_PATH_PATTERN = "/api/todo/search/**";
+    private static final int SOLR_READINESS_RETRY_AFTER_SECONDS = 5;
+
+    private static final int STARTUP_TIMELINE_REPORTED_BEAN_COUNT = 20;
+
+    private static final int SEARCH_TERM_TRACKER_TERM_COUNT = 20;
+    private static final int SEARCH_TERM_TRACKER_SKETCH_WIDTH = 4096;
+    private static final int SEARCH_TERM_TRACKER_SKETCH_DEPTH = 4;
+
+    private static final long SEARCH_WARMER_MIN_INTERVAL = 60000L;
+
+    private static final int TODO_ID_FILTER_EXPECTED_ID_COUNT = 1000000;
+    private static final double TODO_ID_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final long TODO_ID_FILTER_NEGATIVE_CACHE_TTL = 5000L;
+    private static final int TODO_ID_FILTER_NEGATIVE_CACHE_SIZE = 10000;
+    private static final long TODO_ID_FILTER_REBUILD_INTERVAL = 3600000L;
+
+    private static final String PROPERTY_NAME_HTTP_GZIP_MIN_SIZE = "http.gzip.min.size";
+    private static final String PROPERTY_NAME_SEARCH_WARMER_ENABLED = "search.warmer.enabled";
+    private static final String PROPERTY_NAME_SEARCH_WARMER_JIT_ITERATIONS = "search.warmer.jit.iterations";
+    private static final String PROPERTY_NAME_SEARCH_WARMER_TERMS_FILE = "search.warmer.terms.file";
+    private static final String PROPERTY_NAME_SEARCH_WARMER_THREAD_COUNT = "search.warmer.thread.count";
+    private static final String PROPERTY_NAME_SEARCH_WARMER_TIME_BUDGET = "search.warmer.time.budget";
+    private static final String PROPERTY_NAME_TODO_ID_FILTER_ENABLED = "todo.id.filter.enabled";
+    private static final String PROPERTY_NAME_TODO_SNAPSHOT_STORE_CAPACITY = "todo.snapshot.store.capacity";
+
+    private static final int SEARCH_EXECUTOR_CORE_POOL_SIZE = 8;
+    private static final int SEARCH_EXECUTOR_MAX_POOL_SIZE = 32;
+    private static final int SEARCH_EXECUTOR_QUEUE_CAPACITY = 200;
+    private static final String SEARCH_EXECUTOR_THREAD_NAME_PREFIX = "todo-search-";
+
+    private static final int WRITE_EXECUTOR_CORE_POOL_SIZE = 4;
+    private static final int WRITE_EXECUTOR_MAX_POOL_SIZE = 16;
+    private static final int WRITE_EXECUTOR_QUEUE_CAPACITY = 100;
+    private static final String WRITE_EXECUTOR_THREAD_NAME_PREFIX = "todo-write-";
+
+    @Resource
+    private Environment environment;
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
         PageableArgumentResolver pageableArgumentResolver = new PageableArgumentResolver();
         argumentResolvers.add(new ServletWebArgumentResolverAdapter(pageableArgumentResolver));
     }
 
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(ASYNC_REQUEST_DEFAULT_TIMEOUT);
+        configurer.setTaskExecutor(searchTaskExecutor());
+        configurer.registerCallableInterceptors(
+                new SecurityContextCallableProcessingInterceptor(),
+                new TimeoutCallableProcessingInterceptor()
+        );
+    }
+
+    /**
+     * JSON is registered before Smile, so JSON is used unless the client explicitly asks for Smile.
+     */
+    @Override
+    public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ByteArrayHttpMessageConverter());
+        converters.add(new StringHttpMessageConverter());
+        converters.add(new ResourceHttpMessageConverter());
+        converters.add(new MappingJacksonHttpMessageConverter());
+        converters.add(new SmileHttpMessageConverter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(solrReadinessInterceptor()).addPathPatterns(SOLR_READINESS_PATH_PATTERN);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/static/**").addResourceLocations("/static/");
@@ -57,6 +155,50 @@ public class ExampleApplicationContext extends WebMvcConfigurerAdapter {
         configurer.enable();
     }
 
+    /**
+     * Writes the slowest beans to the log when the application context has been started. This
+     * method is static, so that creating the post processor does not create this configuration class.
+     */
+    @Bean
+    public static StartupTimelineReporter startupTimelineReporter() {
+        return new StartupTimelineReporter(STARTUP_TIMELINE_REPORTED_BEAN_COUNT);
+    }
+
+    /**
+     * Rejects search requests with 503 until the Solr server has been loaded and the search
+     * caches have been warmed.
+     */
+    @Bean
+    public SolrReadinessInterceptor solrReadinessInterceptor() {
+        return new SolrReadinessInterceptor(SOLR_READINESS_RETRY_AFTER_SECONDS);
+    }
+
+    /**
+     * Pushes the changes of to-do entries to the open event streams.
+    @Bean(destroyMethod = "shutdown")
+    public EventBroadcaster todoEventBroadcaster() {
+        return new EventBroadcaster(TODO_EVENT_THREAD_COUNT,
+                TODO_EVENT_BUFFER_SIZE,
+                TODO_EVENT_HISTORY_SIZE,
+                TODO_EVENT_HEARTBEAT_INTERVAL
+        );
+    }
+
+    /**
+     * Collects the metrics of the Solr and JPA repositories and registers them to the MBean server.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public RepositoryMetricsRegistry repositoryMetricsRegistry() {
+        return new RepositoryMetricsRegistry();
+    }
+
+    @Bean
+    public GzipResponseFilter gzipResponseFilter() {
+        GzipResponseFilter filter = new GzipResponseFilter();
+        filter.setMinSize(environment.getRequiredProperty(PROPERTY_NAME_HTTP_GZIP_MIN_SIZE, Integer.class));
+        return filter;
+    }
+
     @Bean
     public MessageSource messageSource() {
         ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
@@ -77,6 +219,81 @@ public class ExampleApplicationContext extends WebMvcConfigurerAdapter {
         return properties;
     }
 
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public RecentTodoBuffer recentTodoBuffer() {
+        return new RecentTodoBuffer(RECENT_TODO_COUNT, RECENT_TODO_RESERVE);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public TodoIdFilter todoIdFilter() {
+        return new TodoIdFilter(environment.getRequiredProperty(PROPERTY_NAME_TODO_ID_FILTER_ENABLED, Boolean.class),
+                TODO_ID_FILTER_EXPECTED_ID_COUNT,
+                TODO_ID_FILTER_FALSE_POSITIVE_PROBABILITY,
+                TODO_ID_FILTER_NEGATIVE_CACHE_TTL,
+                TODO_ID_FILTER_NEGATIVE_CACHE_SIZE,
+                TODO_ID_FILTER_REBUILD_INTERVAL
+        );
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public SearchCacheWarmer searchCacheWarmer() {
+        return new SearchCacheWarmer(environment.getRequiredProperty(PROPERTY_NAME_SEARCH_WARMER_ENABLED, Boolean.class),
+                environment.getProperty(PROPERTY_NAME_SEARCH_WARMER_TERMS_FILE, ""),
+                environment.getRequiredProperty(PROPERTY_NAME_SEARCH_WARMER_TIME_BUDGET, Long.class),
+                environment.getRequiredProperty(PROPERTY_NAME_SEARCH_WARMER_THREAD_COUNT, Integer.class),
+                environment.getRequiredProperty(PROPERTY_NAME_SEARCH_WARMER_JIT_ITERATIONS, Integer.class),
+                SEARCH_WARMER_MIN_INTERVAL
+        );
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SearchTermTracker searchTermTracker() {
+        return new SearchTermTracker(SEARCH_TERM_TRACKER_TERM_COUNT,
+                SEARCH_TERM_TRACKER_SKETCH_WIDTH,
+                SEARCH_TERM_TRACKER_SKETCH_DEPTH
+        );
+    }
+
+    @Bean
+    public TodoSnapshotStore todoSnapshotStore() {
+        return new TodoSnapshotStore(environment.getRequiredProperty(PROPERTY_NAME_TODO_SNAPSHOT_STORE_CAPACITY, Integer.class));
+    }
+
+    /**
+     * Executes the asynchronous search and count requests which are waiting for Solr.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchTaskExecutor() {
+        return createTaskExecutor(SEARCH_EXECUTOR_CORE_POOL_SIZE,
+                SEARCH_EXECUTOR_MAX_POOL_SIZE,
+                SEARCH_EXECUTOR_QUEUE_CAPACITY,
+                SEARCH_EXECUTOR_THREAD_NAME_PREFIX
+        );
+    }
+
+    /**
+     * Executes the asynchronous requests which add, update or delete to-do entries.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor writeTaskExecutor() {
+        return createTaskExecutor(WRITE_EXECUTOR_CORE_POOL_SIZE,
+                WRITE_EXECUTOR_MAX_POOL_SIZE,
+                WRITE_EXECUTOR_QUEUE_CAPACITY,
+                WRITE_EXECUTOR_THREAD_NAME_PREFIX
+        );
+    }
+
+    private ThreadPoolTaskExecutor createTaskExecutor(int corePoolSize, int maxPoolSize, int queueCapacity, String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+
+        return executor;
+    }
+
     @Bean
     public ViewResolver viewResolver() {
         InternalResourceViewResolver viewResolver = new InternalResourceViewResolver();
@@ -1,5 +1,7 @@
 package net.petrikainulainen.spring.datasolr.config;
 
+import net.petrikainulainen.spring.datasolr.common.async.InstrumentedThreadPoolExecutor;
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrTemplate;
 import net.petrikainulainen.spring.datasolr.todo.repository.solr.CustomSolrRepositoryFactoryBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,6 +26,10 @@ public class HttpSolrContext {
 
     private static final String PROPERTY_NAME_SOLR_SERVER_URL = "solr.server.url";
 
+    private static final int SOLR_EXECUTOR_POOL_SIZE = 16;
+    private static final int SOLR_EXECUTOR_QUEUE_CAPACITY = 500;
+    private static final String SOLR_EXECUTOR_THREAD_NAME_PREFIX = "solr-";
+
     @Resource
     private Environment environment;
 
@@ -40,4 +46,14 @@ public class HttpSolrContext {
     public SolrTemplate solrTemplate() throws Exception {
         return new SolrTemplate(solrServerFactoryBean().getObject());
     }
+
+    @Bean(destroyMethod = "shutdown")
+    public InstrumentedThreadPoolExecutor solrExecutor() {
+        return new InstrumentedThreadPoolExecutor(SOLR_EXECUTOR_POOL_SIZE, SOLR_EXECUTOR_QUEUE_CAPACITY, SOLR_EXECUTOR_THREAD_NAME_PREFIX);
+    }
+
+    @Bean
+    public AsyncSolrTemplate asyncSolrTemplate() throws Exception {
+        return new AsyncSolrTemplate(solrTemplate(), solrExecutor());
+    }
 }
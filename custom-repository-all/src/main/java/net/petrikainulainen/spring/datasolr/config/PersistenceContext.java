@@ -1,17 +1,25 @@
 package net.petrikainulainen.spring.datasolr.config;
 
 import com.jolbox.bonecp.BoneCPDataSource;
+import net.petrikainulainen.spring.datasolr.common.datasource.ReplicaDataSourceFactory;
+import net.petrikainulainen.spring.datasolr.common.datasource.ReplicaLagGuard;
+import net.petrikainulainen.spring.datasolr.common.datasource.ReplicationRoutingDataSource;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.CustomJpaRepositoryFactoryBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Resource;
 import javax.sql.DataSource;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -19,27 +27,70 @@ import java.util.Properties;
  */
 @Configuration
 @EnableTransactionManagement
-@EnableJpaRepositories(basePackages = "net.petrikainulainen.spring.datasolr.todo.repository.jpa")
+@EnableJpaRepositories(
+        basePackages = "net.petrikainulainen.spring.datasolr.todo.repository.jpa",
+        repositoryFactoryBeanClass = CustomJpaRepositoryFactoryBean.class
+)
 public class PersistenceContext {
 
     protected static final String PROPERTY_NAME_DATABASE_DRIVER = "db.driver";
     protected static final String PROPERTY_NAME_DATABASE_PASSWORD = "db.password";
     protected static final String PROPERTY_NAME_DATABASE_URL = "db.url";
     protected static final String PROPERTY_NAME_DATABASE_USERNAME = "db.username";
+    protected static final String PROPERTY_NAME_DATABASE_REPLICA_URLS = "db.replica.urls";
+    protected static final String PROPERTY_NAME_DATABASE_REPLICA_LAG_CHECK_INTERVAL = "db.replica.lag.check.interval";
+    protected static final String PROPERTY_NAME_DATABASE_REPLICA_LAG_MAX_SECONDS = "db.replica.lag.max.seconds";
+    protected static final String PROPERTY_NAME_DATABASE_REPLICA_LAG_QUERY = "db.replica.lag.query";
 
+    private static final String PROPERTY_NAME_HIBERNATE_CACHE_REGION_FACTORY = "hibernate.cache.region.factory_class";
+    private static final String PROPERTY_NAME_HIBERNATE_CACHE_USE_SECOND_LEVEL_CACHE = "hibernate.cache.use_second_level_cache";
     private static final String PROPERTY_NAME_HIBERNATE_DIALECT = "hibernate.dialect";
     private static final String PROPERTY_NAME_HIBERNATE_FORMAT_SQL = "hibernate.format_sql";
+    private static final String PROPERTY_NAME_HIBERNATE_GENERATE_STATISTICS = "hibernate.generate_statistics";
     private static final String PROPERTY_NAME_HIBERNATE_HBM2DDL_AUTO = "hibernate.hbm2ddl.auto";
     private static final String PROPERTY_NAME_HIBERNATE_NAMING_STRATEGY = "hibernate.ejb.naming_strategy";
     private static final String PROPERTY_NAME_HIBERNATE_SHOW_SQL = "hibernate.show_sql";
 
+    private static final String PROPERTY_NAME_JPA_SHARED_CACHE_MODE = "javax.persistence.sharedCache.mode";
+
+    private static final String JPA_SHARED_CACHE_MODE = "ENABLE_SELECTIVE";
+
     private static final String PROPERTY_PACKAGES_TO_SCAN = "net.petrikainulainen.spring.datasolr.todo.model";
 
     @Resource
     private Environment environment;
 
+    /**
+     * The statements are executed through a lazy connection proxy so that the routing data
+     * source sees the read-only flag of the current transaction.
+     */
     @Bean
     public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(routingDataSource());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ReplicationRoutingDataSource routingDataSource() {
+        List<DataSource> replicas = ReplicaDataSourceFactory.createReplicas(
+                environment.getRequiredProperty(PROPERTY_NAME_DATABASE_DRIVER),
+                environment.getRequiredProperty(PROPERTY_NAME_DATABASE_REPLICA_URLS),
+                environment.getRequiredProperty(PROPERTY_NAME_DATABASE_USERNAME),
+                environment.getRequiredProperty(PROPERTY_NAME_DATABASE_PASSWORD)
+        );
+
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource(primaryDataSource(), replicas);
+
+        routingDataSource.setLagGuard(new ReplicaLagGuard(
+                environment.getRequiredProperty(PROPERTY_NAME_DATABASE_REPLICA_LAG_QUERY),
+                environment.getRequiredProperty(PROPERTY_NAME_DATABASE_REPLICA_LAG_MAX_SECONDS, Long.class)
+        ));
+        routingDataSource.setLagCheckIntervalMillis(environment.getRequiredProperty(PROPERTY_NAME_DATABASE_REPLICA_LAG_CHECK_INTERVAL, Long.class));
+
+        return routingDataSource;
+    }
+
+    @Bean
+    public DataSource primaryDataSource() {
         BoneCPDataSource dataSource = new BoneCPDataSource();
 
         dataSource.setDriverClass(environment.getRequiredProperty(PROPERTY_NAME_DATABASE_DRIVER));
@@ -59,6 +110,19 @@ public class PersistenceContext {
         return transactionManager;
     }
 
+    /**
+     * Executes reads in a new read-write transaction, which means that they are sent to the
+     * primary database. This is used when a read must not be answered by a lagging replica.
+     */
+    @Bean
+    public TransactionTemplate primaryReadTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager());
+
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        return transactionTemplate;
+    }
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
@@ -74,6 +138,12 @@ public class PersistenceContext {
         jpaProperties.put(PROPERTY_NAME_HIBERNATE_NAMING_STRATEGY, environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_NAMING_STRATEGY));
         jpaProperties.put(PROPERTY_NAME_HIBERNATE_SHOW_SQL, environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_SHOW_SQL));
 
+        //Only entities annotated with @Cacheable are stored to the second-level cache
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_CACHE_USE_SECOND_LEVEL_CACHE, environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_CACHE_USE_SECOND_LEVEL_CACHE));
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_CACHE_REGION_FACTORY, environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_CACHE_REGION_FACTORY));
+        jpaProperties.put(PROPERTY_NAME_HIBERNATE_GENERATE_STATISTICS, environment.getRequiredProperty(PROPERTY_NAME_HIBERNATE_GENERATE_STATISTICS));
+        jpaProperties.put(PROPERTY_NAME_JPA_SHARED_CACHE_MODE, JPA_SHARED_CACHE_MODE);
+
         entityManagerFactoryBean.setJpaProperties(jpaProperties);
 
         return entityManagerFactoryBean;
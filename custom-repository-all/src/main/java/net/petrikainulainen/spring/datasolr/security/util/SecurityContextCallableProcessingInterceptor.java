@@ -0,0 +1,47 @@
+package net.petrikainulainen.spring.datasolr.security.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Propagates the security context of the request thread to the thread which executes the
+ * {@link Callable} of an asynchronous request. This is required because the @PreAuthorize
+ * annotations of the service layer are evaluated in the executor thread.
+ * @author Petri Kainulainen
+ */
+public class SecurityContextCallableProcessingInterceptor extends CallableProcessingInterceptorAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecurityContextCallableProcessingInterceptor.class);
+
+    protected static final String REQUEST_ATTRIBUTE_SECURITY_CONTEXT = SecurityContextCallableProcessingInterceptor.class.getName() + ".SECURITY_CONTEXT";
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) throws Exception {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        LOGGER.debug("Storing security context: {} for asynchronous processing", securityContext);
+        request.setAttribute(REQUEST_ATTRIBUTE_SECURITY_CONTEXT, securityContext, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) throws Exception {
+        SecurityContext securityContext = (SecurityContext) request.getAttribute(REQUEST_ATTRIBUTE_SECURITY_CONTEXT, RequestAttributes.SCOPE_REQUEST);
+        LOGGER.debug("Restoring security context: {}", securityContext);
+
+        if (securityContext != null) {
+            SecurityContextHolder.setContext(securityContext);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) throws Exception {
+        LOGGER.debug("Clearing security context of the executor thread");
+        SecurityContextHolder.clearContext();
+    }
+}
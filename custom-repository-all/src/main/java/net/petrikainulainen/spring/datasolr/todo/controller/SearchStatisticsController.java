@@ -0,0 +1,31 @@
+package net.petrikainulainen.spring.datasolr.todo.controller;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
+import net.petrikainulainen.spring.datasolr.todo.service.TodoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.annotation.Resource;
+
+/**
+ * @author Petri Kainulainen
+ */
+@Controller
+public class SearchStatisticsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchStatisticsController.class);
+
+    @Resource
+    private TodoService service;
+
+    @RequestMapping(value = "/api/statistics/search", method = RequestMethod.GET)
+    @ResponseBody
+    public SearchTermStatisticsDTO getSearchTermStatistics() {
+        LOGGER.debug("Getting search term statistics.");
+        return service.getSearchTermStatistics();
+    }
+}
@@ -1,28 +1,57 @@
 package net.petrikainulainen.spring.datasolr.todo.controller;
 
+import net.petrikainulainen.spring.datasolr.common.exception.RequestTimeoutException;
+import net.petrikainulainen.spring.datasolr.common.http.SmileHttpMessageConverter;
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
+import net.petrikainulainen.spring.datasolr.common.util.ETagUtil;
 import net.petrikainulainen.spring.datasolr.common.util.LocaleContextHolderWrapper;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import net.petrikainulainen.spring.datasolr.todo.dto.ChangeFeedDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.FormValidationErrorDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.MultiGetResultDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchResultPageDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
 import net.petrikainulainen.spring.datasolr.todo.exception.FormValidationError;
+import net.petrikainulainen.spring.datasolr.todo.exception.InvalidChangeTokenException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TodoConflictException;
 import net.petrikainulainen.spring.datasolr.todo.exception.TodoNotFoundException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TooManyIdsException;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoCallback;
 import net.petrikainulainen.spring.datasolr.todo.service.TodoService;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.Validator;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * @author Petri Kainulainen
@@ -34,6 +63,34 @@ public class TodoController {
 
     protected static final String OBJECT_NAME_TODO = "todo";
 
+    protected static final String FIELD_NAME_VERSION = "version";
+    protected static final String ERROR_CODE_VERSION_MISSING = "NotNull.todo.version";
+
+    protected static final String CONTENT_TYPE_JSON = "application/json;charset=UTF-8";
+
+    protected static final String REQUEST_HEADER_IF_NONE_MATCH = "If-None-Match";
+    protected static final String REQUEST_HEADER_LAST_EVENT_ID = "Last-Event-ID";
+
+    protected static final String REQUEST_PARAM_IDS = "ids";
+    protected static final String REQUEST_PARAM_SINCE = "since";
+    protected static final String REQUEST_PARAM_LAST_ID = "lastId";
+    protected static final String REQUEST_PARAM_PAGE_SIZE = "pageSize";
+
+    protected static final String CHANGE_FEED_DEFAULT_PAGE_SIZE = "100";
+
+    protected static final long SEARCH_TIMEOUT = 10000L;
+    protected static final long WRITE_TIMEOUT = 15000L;
+
+    protected static final String REQUEST_HEADER_ACCEPT = "Accept";
+
+    protected static final String RESPONSE_HEADER_VARY = "Vary";
+
+    protected static final String REPRESENTATION_SMILE = "smile";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectMapper smileObjectMapper = new ObjectMapper(new SmileFactory());
+
     @Resource
     private TodoService service;
 
@@ -46,89 +103,301 @@ public class TodoController {
     @Resource
     private Validator validator;
 
+    @Resource
+    private AsyncTaskExecutor searchTaskExecutor;
+
+    @Resource
+    private AsyncTaskExecutor writeTaskExecutor;
+
 
     @RequestMapping(value = "/api/todo", method = RequestMethod.POST)
     @ResponseBody
-    public TodoDTO add(@RequestBody TodoDTO dto) throws FormValidationError {
+    public WebAsyncTask<TodoDTO> add(@RequestBody final TodoDTO dto) throws FormValidationError {
         LOGGER.debug("Adding a new to-do entry with information: {}", dto);
 
         validate(OBJECT_NAME_TODO, dto);
 
-        Todo added = service.add(dto);
-        LOGGER.debug("Added a to-do entry with information: {}", added);
+        return new WebAsyncTask<TodoDTO>(WRITE_TIMEOUT, writeTaskExecutor, new Callable<TodoDTO>() {
+            @Override
+            public TodoDTO call() throws Exception {
+                Todo added = service.add(dto);
+                LOGGER.debug("Added a to-do entry with information: {}", added);
 
-       return createDTO(added);
+                return createDTO(added);
+            }
+        });
     }
 
     @RequestMapping(value = "/api/todo/search/count/{searchTerm}", method = RequestMethod.GET)
     @ResponseBody
-    public long countSearchResults(@PathVariable("searchTerm") String searchTerm) {
+    public WebAsyncTask<Long> countSearchResults(@PathVariable("searchTerm") final String searchTerm) {
         LOGGER.debug("Finding search result count for search term: {}", searchTerm);
-        return service.countSearchResults(searchTerm);
+
+        return new WebAsyncTask<Long>(SEARCH_TIMEOUT, searchTaskExecutor, new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return service.countSearchResults(searchTerm);
+            }
+        });
     }
 
     @RequestMapping(value = "/api/todo/{id}", method = RequestMethod.DELETE)
-    @ResponseBody
-    public TodoDTO deleteById(@PathVariable("id") Long id) throws TodoNotFoundException {
+    public WebAsyncTask<ResponseEntity<Void>> deleteById(@PathVariable("id") final Long id) {
         LOGGER.debug("Deleting a to-do entry with id: {}", id);
 
-        Todo deleted = service.deleteById(id);
-        LOGGER.debug("Deleted to-do entry with information: {}", deleted);
+        return new WebAsyncTask<ResponseEntity<Void>>(WRITE_TIMEOUT, writeTaskExecutor, new Callable<ResponseEntity<Void>>() {
+            @Override
+            public ResponseEntity<Void> call() throws Exception {
+                service.deleteById(id);
+                LOGGER.debug("Deleted to-do entry with id: {}", id);
 
-        return createDTO(deleted);
+                return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+            }
+        });
     }
 
+    /**
+     * Writes all to-do entries to the response as a JSON array. The entries are serialized
+     * one by one while they are read from the database, so the whole result set is never
+     * kept in memory. If the client asks for Smile, the array is written in the Smile format.
+     */
     @RequestMapping(value = "/api/todo", method = RequestMethod.GET)
-    @ResponseBody
-    public List<TodoDTO> findAll() {
+    public void findAll(@RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) String accept,
+                        HttpServletResponse response) throws IOException {
         LOGGER.debug("Finding all todo entries.");
 
-        List<Todo> models = service.findAll();
-        LOGGER.debug("Found {} to-do entries.", models.size());
+        ObjectMapper mapper = objectMapper;
+        response.addHeader(RESPONSE_HEADER_VARY, REQUEST_HEADER_ACCEPT);
+
+        if (SmileHttpMessageConverter.isRequested(accept)) {
+            response.setContentType(SmileHttpMessageConverter.MEDIA_TYPE_SMILE_VALUE);
+            mapper = smileObjectMapper;
+        }
+        else {
+            response.setContentType(CONTENT_TYPE_JSON);
+        }
+
+        final JsonGenerator generator = mapper.getJsonFactory().createJsonGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+        generator.writeStartArray();
+
+        service.processAll(new TodoCallback() {
+            @Override
+            public void process(TodoDTO todoEntry) throws IOException {
+                generator.writeObject(todoEntry);
+            }
+        });
 
-        return createDTOs(models);
+        generator.writeEndArray();
+        generator.close();
     }
 
-    private List<TodoDTO> createDTOs(List<Todo> models) {
-        List<TodoDTO> dtos = new ArrayList<TodoDTO>();
+    /**
+     * Returns the to-do entries which have been created, modified or deleted after the position
+     * identified by the given change token. The next token is returned with the changes.
+     */
+    @RequestMapping(value = "/api/todo/changes", method = RequestMethod.GET)
+    @ResponseBody
+    public ChangeFeedDTO findChanges(@RequestParam(value = REQUEST_PARAM_SINCE, required = false) String since,
+                                     @RequestParam(value = REQUEST_PARAM_PAGE_SIZE, defaultValue = CHANGE_FEED_DEFAULT_PAGE_SIZE) int pageSize) throws InvalidChangeTokenException {
+        LOGGER.debug("Finding {} changes after change token: {}", pageSize, since);
+
+        ChangeFeedDTO changes = service.findChanges(since, pageSize);
+        LOGGER.debug("Found {} changes.", changes.getChanges().size());
+
+        return changes;
+    }
+
+    /**
+     * Returns the latest to-do entries. The to-do entries are read from memory, so this
+     * does not query the database or the search index.
+     */
+    @RequestMapping(value = "/api/todo/latest", method = RequestMethod.GET)
+    public ResponseEntity<List<TodoDTO>> findLatest(@RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) String accept,
+                                                    @RequestHeader(value = REQUEST_HEADER_IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        LOGGER.debug("Finding the latest todo entries");
+
+        List<TodoDTO> found = service.findLatest();
+        LOGGER.debug("Found {} to-do entries.", found.size());
+
+        return createConditionalResponse(found, ETagUtil.fromItemStates(createVersionStates(found)), accept, ifNoneMatch);
+    }
+
+    @RequestMapping(value = "/api/todo", method = RequestMethod.GET, params = REQUEST_PARAM_PAGE_SIZE)
+    public ResponseEntity<List<TodoDTO>> findPage(@RequestParam(value = REQUEST_PARAM_LAST_ID, required = false) Long lastId,
+                                                  @RequestParam(REQUEST_PARAM_PAGE_SIZE) int pageSize,
+                                                  @RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) String accept,
+                                                  @RequestHeader(value = REQUEST_HEADER_IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        LOGGER.debug("Finding a page of {} todo entries after id: {}", pageSize, lastId);
+
+        List<TodoDTO> found = service.findAll(lastId, pageSize);
+        LOGGER.debug("Found {} to-do entries.", found.size());
+
+        return createConditionalResponse(found, ETagUtil.fromItemStates(createVersionStates(found)), accept, ifNoneMatch);
+    }
 
-        for (Todo model: models) {
-            dtos.add(createDTO(model));
+    /**
+     * Finds the to-do entries which ids are given as a comma separated list. The found
+     * to-do entries are returned in the requested order, and the ids which were not found
+     * are listed separately. A request which has too many ids is answered with 400.
+     */
+    @RequestMapping(value = "/api/todo", method = RequestMethod.GET, params = REQUEST_PARAM_IDS)
+    public ResponseEntity<MultiGetResultDTO> findByIds(@RequestParam(REQUEST_PARAM_IDS) List<Long> ids,
+                                                       @RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) String accept,
+                                                       @RequestHeader(value = REQUEST_HEADER_IF_NONE_MATCH, required = false) String ifNoneMatch) throws TooManyIdsException {
+        LOGGER.debug("Finding to-do entries with ids: {}", ids);
+
+        List<TodoDTO> found = service.findByIds(ids);
+        LOGGER.debug("Found {} to-do entries.", found.size());
+
+        List<Long> missingIds = findMissingIds(ids, found);
+
+        List<String> states = createVersionStates(found);
+        for (Long missingId: missingIds) {
+            states.add(missingId.toString());
         }
 
-        return dtos;
+        return createConditionalResponse(new MultiGetResultDTO(found, missingIds), ETagUtil.fromItemStates(states), accept, ifNoneMatch);
     }
 
+    private List<Long> findMissingIds(List<Long> requestedIds, List<TodoDTO> found) {
+        Set<Long> foundIds = new HashSet<Long>();
+        for (TodoDTO dto: found) {
+            foundIds.add(dto.getId());
+        }
+
+        Set<Long> missingIds = new LinkedHashSet<Long>();
+        for (Long id: requestedIds) {
+            if (!foundIds.contains(id)) {
+                missingIds.add(id);
+            }
+        }
+
+        return new ArrayList<Long>(missingIds);
+    }
+
+    /**
+     * Finds a to-do entry. If the client sends an ETag, it is compared with an ETag built from
+     * the current version of the to-do entry, and the to-do entry is read only if it has changed.
+     */
     @RequestMapping(value = "/api/todo/{id}", method = RequestMethod.GET)
-    @ResponseBody
-    public TodoDTO findById(@PathVariable("id") Long id) throws TodoNotFoundException {
+    public ResponseEntity<TodoDTO> findById(@PathVariable("id") Long id,
+                                            @RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) String accept,
+                                            @RequestHeader(value = REQUEST_HEADER_IF_NONE_MATCH, required = false) String ifNoneMatch) throws TodoNotFoundException {
         LOGGER.debug("Finding to-do entry with id: {}", id);
 
+        if (ifNoneMatch != null) {
+            String currentETag = createRepresentationETag(ETagUtil.fromVersion(id, service.findVersionById(id)), accept);
+
+            if (ETagUtil.matches(ifNoneMatch, currentETag)) {
+                LOGGER.debug("To-do entry with id: {} has not been modified", id);
+                return createNotModifiedResponse(currentETag);
+            }
+        }
+
         Todo found = service.findById(id);
         LOGGER.debug("Found to-do entry with information: {}", found);
 
-        return createDTO(found);
+        return createConditionalResponse(createDTO(found), ETagUtil.fromVersion(id, found.getVersion()), accept, ifNoneMatch);
+    }
+
+    /**
+     * Opens a Server-Sent Events stream which sends an event when a to-do entry is added,
+     * updated or deleted. The request is put into asynchronous mode only after the user has been
+     * authorized, and the request thread is released as soon as the stream is opened. The response
+     * is a method parameter, so the dispatcher servlet knows that the response is handled here and
+     * does not try to render a view.
+     */
+    @RequestMapping(value = "/api/todo/events", method = RequestMethod.GET)
+    public void subscribeToChanges(@RequestHeader(value = REQUEST_HEADER_LAST_EVENT_ID, required = false) Long lastEventId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) {
+        LOGGER.debug("Opening a to-do event stream after event: {}", lastEventId);
+        EventBroadcaster broadcaster = service.getChangeBroadcaster();
+        broadcaster.subscribe(request.startAsync(request, response), lastEventId);
     }
 
     @RequestMapping(value = "/api/todo/{id}", method = RequestMethod.PUT)
     @ResponseBody
-    public TodoDTO update(@RequestBody TodoDTO dto, @PathVariable("id") Long todoId) throws TodoNotFoundException, FormValidationError {
+    public WebAsyncTask<TodoDTO> update(@RequestBody final TodoDTO dto, @PathVariable("id") Long todoId) throws FormValidationError {
         LOGGER.debug("Updating a to-do entry with information: {}", dto);
 
         validate(OBJECT_NAME_TODO, dto);
+        validateVersion(OBJECT_NAME_TODO, dto);
+
+        return new WebAsyncTask<TodoDTO>(WRITE_TIMEOUT, writeTaskExecutor, new Callable<TodoDTO>() {
+            @Override
+            public TodoDTO call() throws Exception {
+                Todo updated = service.update(dto);
+                LOGGER.debug("Updated the information of a to-entry to: {}", updated);
+
+                return createDTO(updated);
+            }
+        });
+    }
+
+    private List<String> createVersionStates(List<TodoDTO> dtos) {
+        List<String> states = new ArrayList<String>(dtos.size());
+
+        for (TodoDTO dto: dtos) {
+            states.add(ETagUtil.itemState(dto.getId(), dto.getVersion()));
+        }
+
+        return states;
+    }
+
+    private List<String> createSearchResultStates(List<TodoDTO> dtos) {
+        List<String> states = new ArrayList<String>(dtos.size());
+
+        for (TodoDTO dto: dtos) {
+            states.add(ETagUtil.itemState(dto.getId(), dto.getTitle()));
+        }
+
+        return states;
+    }
+
+    /**
+     * Creates a response whose ETag identifies the requested representation. JSON and Smile
+     * responses have different bodies, so they must not share an ETag, and the Vary header
+     * tells caches that the representation depends on the Accept header.
+     */
+    private <T> ResponseEntity<T> createConditionalResponse(T body, String eTag, String accept, String ifNoneMatch) {
+        String representationETag = createRepresentationETag(eTag, accept);
+
+        if (ETagUtil.matches(ifNoneMatch, representationETag)) {
+            LOGGER.debug("Response with ETag: {} has not been modified", representationETag);
+            return createNotModifiedResponse(representationETag);
+        }
+
+        return new ResponseEntity<T>(body, createConditionalHeaders(representationETag), HttpStatus.OK);
+    }
+
+    private <T> ResponseEntity<T> createNotModifiedResponse(String eTag) {
+        return new ResponseEntity<T>(createConditionalHeaders(eTag), HttpStatus.NOT_MODIFIED);
+    }
+
+    private HttpHeaders createConditionalHeaders(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.set(RESPONSE_HEADER_VARY, REQUEST_HEADER_ACCEPT);
+
+        return headers;
+    }
 
-        Todo updated = service.update(dto);
-        LOGGER.debug("Updated the information of a to-entry to: {}", updated);
+    protected static String createRepresentationETag(String eTag, String accept) {
+        if (SmileHttpMessageConverter.isRequested(accept)) {
+            return ETagUtil.forRepresentation(eTag, REPRESENTATION_SMILE);
+        }
 
-        return createDTO(updated);
+        return eTag;
     }
 
-    private TodoDTO createDTO(Todo model) {
+    protected static TodoDTO createDTO(Todo model) {
         TodoDTO dto = new TodoDTO();
 
         dto.setId(model.getId());
         dto.setDescription(model.getDescription());
         dto.setTitle(model.getTitle());
+        dto.setVersion(model.getVersion());
 
         return dto;
     }
@@ -145,6 +414,19 @@ public class TodoController {
         }
     }
 
+    /**
+     * Updates are conditional on the version of the to-do entry, so the client must
+     * send the version it has read.
+     */
+    private void validateVersion(String objectName, TodoDTO validated) throws FormValidationError {
+        if (validated.getVersion() == null) {
+            LOGGER.debug("Version of the updated to-do entry is missing");
+
+            FieldError versionError = new FieldError(objectName, FIELD_NAME_VERSION, null, false, new String[] {ERROR_CODE_VERSION_MISSING}, null, null);
+            throw new FormValidationError(Arrays.asList(versionError));
+        }
+    }
+
     @ExceptionHandler(FormValidationError.class)
     @ResponseBody
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -184,17 +466,48 @@ public class TodoController {
     }
 
     @RequestMapping(value = "/api/todo/search/{searchTerm}", method = RequestMethod.GET)
-    @ResponseBody
-    public List<TodoDTO> search(@PathVariable("searchTerm") String searchTerm, Pageable page) {
+    public WebAsyncTask<ResponseEntity<List<TodoDTO>>> search(@PathVariable("searchTerm") final String searchTerm,
+                                                              final Pageable page,
+                                                              @RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) final String accept,
+                                                              @RequestHeader(value = REQUEST_HEADER_IF_NONE_MATCH, required = false) final String ifNoneMatch) {
         LOGGER.debug("Search todo entries with search term: {} and page: {}", searchTerm, page);
 
-        List<TodoDocument> todoEntries = service.search(searchTerm, page);
-        LOGGER.debug("Found {} todo entries", todoEntries.size());
+        return new WebAsyncTask<ResponseEntity<List<TodoDTO>>>(SEARCH_TIMEOUT, searchTaskExecutor, new Callable<ResponseEntity<List<TodoDTO>>>() {
+            @Override
+            public ResponseEntity<List<TodoDTO>> call() throws Exception {
+                List<TodoDocument> todoEntries = service.search(searchTerm, page);
+                LOGGER.debug("Found {} todo entries", todoEntries.size());
+
+                List<TodoDTO> results = createSearchResultDTOs(todoEntries);
+                return createConditionalResponse(results, ETagUtil.fromItemStates(createSearchResultStates(results)), accept, ifNoneMatch);
+            }
+        });
+    }
+
+    @RequestMapping(value = "/api/todo/search/page/{searchTerm}", method = RequestMethod.GET)
+    public WebAsyncTask<ResponseEntity<SearchResultPageDTO>> searchPage(@PathVariable("searchTerm") final String searchTerm,
+                                                                        final Pageable page,
+                                                                        @RequestHeader(value = REQUEST_HEADER_ACCEPT, required = false) final String accept,
+                                                                        @RequestHeader(value = REQUEST_HEADER_IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        LOGGER.debug("Search a page of todo entries with search term: {} and page: {}", searchTerm, page);
+
+        return new WebAsyncTask<ResponseEntity<SearchResultPageDTO>>(SEARCH_TIMEOUT, searchTaskExecutor, new Callable<ResponseEntity<SearchResultPageDTO>>() {
+            @Override
+            public ResponseEntity<SearchResultPageDTO> call() throws Exception {
+                Page<TodoDocument> resultPage = service.searchPage(searchTerm, page);
+                LOGGER.debug("Found {} todo entries. Total result count is {}", resultPage.getNumberOfElements(), resultPage.getTotalElements());
+
+                List<TodoDTO> results = createSearchResultDTOs(resultPage.getContent());
+
+                List<String> states = createSearchResultStates(results);
+                states.add(Long.toString(resultPage.getTotalElements()));
 
-        return createSearchResultDTOs(todoEntries);
+                return createConditionalResponse(new SearchResultPageDTO(results, resultPage.getTotalElements()), ETagUtil.fromItemStates(states), accept, ifNoneMatch);
+            }
+        });
     }
 
-    private List<TodoDTO> createSearchResultDTOs(List<TodoDocument> todoEntries) {
+    protected static List<TodoDTO> createSearchResultDTOs(List<TodoDocument> todoEntries) {
         List<TodoDTO> dtos = new ArrayList<TodoDTO>();
 
         for (TodoDocument entry: todoEntries) {
@@ -209,9 +522,39 @@ public class TodoController {
         return dtos;
     }
 
+    @ExceptionHandler(InvalidChangeTokenException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void handleInvalidChangeTokenException(InvalidChangeTokenException ex) {
+        LOGGER.debug("handling invalid change token: {}", ex.getMessage());
+    }
+
+    @ExceptionHandler(TooManyIdsException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void handleTooManyIdsException(TooManyIdsException ex) {
+        LOGGER.debug("handling too many ids: {}", ex.getMessage());
+    }
+
     @ExceptionHandler(TodoNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public void handleTodoNotFoundException(TodoNotFoundException ex) {
         LOGGER.debug("handling 404 error on a todo entry");
     }
+
+    @ExceptionHandler(TodoConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void handleTodoConflictException(TodoConflictException ex) {
+        LOGGER.debug("handling 409 error on a todo entry: {}", ex.getMessage());
+    }
+
+    @ExceptionHandler(RequestTimeoutException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleRequestTimeoutException(RequestTimeoutException ex) {
+        LOGGER.debug("handling timeout of an asynchronous request: {}", ex.getMessage());
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleTaskRejectedException(TaskRejectedException ex) {
+        LOGGER.debug("handling rejected asynchronous request: {}", ex.getMessage());
+    }
 }
@@ -0,0 +1,50 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ChangeFeedDTO {
+
+    private List<TodoChangeDTO> changes;
+
+    private String nextToken;
+
+    private boolean hasMore;
+
+    public ChangeFeedDTO() {
+
+    }
+
+    public ChangeFeedDTO(List<TodoChangeDTO> changes, String nextToken, boolean hasMore) {
+        this.changes = changes;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+    }
+
+    public List<TodoChangeDTO> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return  The token which is passed as the since parameter of the next request.
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * @return  true if more changes can be fetched immediately with the next token.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,37 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class MultiGetResultDTO {
+
+    private List<TodoDTO> results;
+
+    private List<Long> missingIds;
+
+    public MultiGetResultDTO() {
+
+    }
+
+    public MultiGetResultDTO(List<TodoDTO> results, List<Long> missingIds) {
+        this.results = results;
+        this.missingIds = missingIds;
+    }
+
+    public List<TodoDTO> getResults() {
+        return results;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
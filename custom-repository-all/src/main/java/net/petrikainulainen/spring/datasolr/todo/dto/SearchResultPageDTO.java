@@ -0,0 +1,37 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SearchResultPageDTO {
+
+    private List<TodoDTO> results;
+
+    private long totalCount;
+
+    public SearchResultPageDTO() {
+
+    }
+
+    public SearchResultPageDTO(List<TodoDTO> results, long totalCount) {
+        this.results = results;
+        this.totalCount = totalCount;
+    }
+
+    public List<TodoDTO> getResults() {
+        return results;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
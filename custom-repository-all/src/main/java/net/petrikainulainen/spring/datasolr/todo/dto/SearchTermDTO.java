@@ -0,0 +1,48 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SearchTermDTO {
+
+    private String term;
+
+    private long count;
+
+    private long averageLatencyMicros;
+
+    public SearchTermDTO() {
+
+    }
+
+    public SearchTermDTO(String term, long count, long averageLatencyMicros) {
+        this.term = term;
+        this.count = count;
+        this.averageLatencyMicros = averageLatencyMicros;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    /**
+     * @return  The estimated number of searches. The estimate can be larger than the real count but never smaller.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return  The estimated average latency of the searches in microseconds.
+     */
+    public long getAverageLatencyMicros() {
+        return averageLatencyMicros;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,51 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SearchTermStatisticsDTO {
+
+    private long searchCount;
+
+    private long zeroResultSearchCount;
+
+    private List<SearchTermDTO> topTerms;
+
+    private List<SearchTermDTO> topZeroResultTerms;
+
+    public SearchTermStatisticsDTO() {
+
+    }
+
+    public SearchTermStatisticsDTO(long searchCount, long zeroResultSearchCount, List<SearchTermDTO> topTerms, List<SearchTermDTO> topZeroResultTerms) {
+        this.searchCount = searchCount;
+        this.zeroResultSearchCount = zeroResultSearchCount;
+        this.topTerms = topTerms;
+        this.topZeroResultTerms = topZeroResultTerms;
+    }
+
+    public long getSearchCount() {
+        return searchCount;
+    }
+
+    public long getZeroResultSearchCount() {
+        return zeroResultSearchCount;
+    }
+
+    public List<SearchTermDTO> getTopTerms() {
+        return topTerms;
+    }
+
+    public List<SearchTermDTO> getTopZeroResultTerms() {
+        return topZeroResultTerms;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
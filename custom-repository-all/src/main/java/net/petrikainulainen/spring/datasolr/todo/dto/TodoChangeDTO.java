@@ -0,0 +1,63 @@
+package net.petrikainulainen.spring.datasolr.todo.dto;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TodoChangeDTO {
+
+    public enum Type {
+        CREATED,
+        MODIFIED,
+        DELETED
+    }
+
+    private Type type;
+
+    private Long id;
+
+    private long time;
+
+    private TodoDTO todo;
+
+    public TodoChangeDTO() {
+
+    }
+
+    public TodoChangeDTO(Type type, Long id, long time, TodoDTO todo) {
+        this.type = type;
+        this.id = id;
+        this.time = time;
+        this.todo = todo;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return  The time of the change in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return  The current state of the to-do entry or null if the to-do entry was deleted.
+     */
+    @JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+    public TodoDTO getTodo() {
+        return todo;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
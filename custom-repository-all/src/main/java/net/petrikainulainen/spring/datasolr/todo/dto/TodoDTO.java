@@ -2,6 +2,7 @@ package net.petrikainulainen.spring.datasolr.todo.dto;
 
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.NotEmpty;
 
@@ -19,10 +20,23 @@ public class TodoDTO {
     @Length(max = Todo.MAX_LENGTH_TITLE)
     private String title;
 
+    private Long version;
+
     public TodoDTO() {
 
     }
 
+    /**
+     * This constructor is used by JPQL constructor expressions which read the listed
+     * to-do entries without creating managed entities.
+     */
+    public TodoDTO(Long id, String description, String title, Long version) {
+        this.id = id;
+        this.description = description;
+        this.title = title;
+        this.version = version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -47,6 +61,19 @@ public class TodoDTO {
         this.title = title;
     }
 
+    /**
+     * Returns the version of the to-do entry. Search results read from the index don't
+     * have a version, and it is left out of the JSON document in that case.
+     */
+    @JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -0,0 +1,12 @@
+package net.petrikainulainen.spring.datasolr.todo.exception;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class InvalidChangeTokenException extends Exception {
+
+    public InvalidChangeTokenException(String message) {
+        super(message);
+    }
+
+}
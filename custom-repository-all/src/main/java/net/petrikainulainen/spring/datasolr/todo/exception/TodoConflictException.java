@@ -0,0 +1,12 @@
+package net.petrikainulainen.spring.datasolr.todo.exception;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TodoConflictException extends Exception {
+
+    public TodoConflictException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,12 @@
+package net.petrikainulainen.spring.datasolr.todo.exception;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TooManyIdsException extends Exception {
+
+    public TooManyIdsException(String message) {
+        super(message);
+    }
+
+}
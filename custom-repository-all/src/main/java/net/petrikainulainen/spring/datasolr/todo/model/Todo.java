@@ -1,6 +1,9 @@
 package net.petrikainulainen.spring.datasolr.todo.model;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Index;
 import org.hibernate.annotations.Type;
 import org.joda.time.DateTime;
 
@@ -11,8 +14,16 @@ import javax.persistence.*;
  */
 @Entity
 @Table(name="todos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Todo.CACHE_REGION)
+@org.hibernate.annotations.Table(appliesTo = "todos", indexes = {
+        @Index(name = "idx_todos_creation_time_id", columnNames = {"creation_time", "id"}),
+        @Index(name = "idx_todos_modification_time_id", columnNames = {"modification_time", "id"})
+})
 public class Todo {
 
+    public static final String CACHE_REGION = "net.petrikainulainen.spring.datasolr.todo.model.Todo";
+
     public static final int MAX_LENGTH_DESCRIPTION = 500;
     public static final int MAX_LENGTH_TITLE = 100;
 
@@ -103,6 +114,25 @@ public class Todo {
             built.description = description;
             return this;
         }
+
+        /**
+         * Sets the id of an existing to-do entry. This is used when the state of an existing
+         * to-do entry is known without reading it from the database.
+         */
+        public Builder id(Long id) {
+            built.id = id;
+            return this;
+        }
+
+        public Builder modificationTime(DateTime modificationTime) {
+            built.modificationTime = modificationTime;
+            return this;
+        }
+
+        public Builder version(long version) {
+            built.version = version;
+            return this;
+        }
     }
 
     @Override
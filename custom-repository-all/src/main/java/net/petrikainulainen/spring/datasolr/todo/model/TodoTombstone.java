@@ -0,0 +1,54 @@
+package net.petrikainulainen.spring.datasolr.todo.model;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.hibernate.annotations.Index;
+import org.hibernate.annotations.Type;
+import org.joda.time.DateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Records the deletion of a to-do entry, so that the change feed can tell its consumers
+ * which to-do entries have been deleted.
+ * @author Petri Kainulainen
+ */
+@Entity
+@Table(name = "todo_tombstones")
+@org.hibernate.annotations.Table(appliesTo = "todo_tombstones", indexes = {
+        @Index(name = "idx_todo_tombstones_deletion_time_todo_id", columnNames = {"deletion_time", "todo_id"})
+})
+public class TodoTombstone {
+
+    @Id
+    @Column(name = "todo_id")
+    private Long todoId;
+
+    @Column(name = "deletion_time", nullable = false)
+    @Type(type="org.jadira.usertype.dateandtime.joda.PersistentDateTime")
+    private DateTime deletionTime;
+
+    public TodoTombstone() {
+
+    }
+
+    public TodoTombstone(Long todoId, DateTime deletionTime) {
+        this.todoId = todoId;
+        this.deletionTime = deletionTime;
+    }
+
+    public Long getTodoId() {
+        return todoId;
+    }
+
+    public DateTime getDeletionTime() {
+        return deletionTime;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,41 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.jpa;
+
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsPostProcessor;
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+
+/**
+ * Creates the JPA repositories. If the application context contains a {@link RepositoryMetricsRegistry},
+ * the calls of the repository methods are recorded to it.
+ * @author Petri Kainulainen
+ */
+public class CustomJpaRepositoryFactoryBean<R extends Repository<T, ID>, T, ID extends Serializable> extends JpaRepositoryFactoryBean<R, T, ID> {
+
+    private RepositoryMetricsRegistry repositoryMetricsRegistry;
+
+    /**
+     * The registry is optional, so that the repositories can be used in application contexts
+     * which do not collect metrics.
+     */
+    @Autowired(required = false)
+    public void setRepositoryMetricsRegistry(RepositoryMetricsRegistry repositoryMetricsRegistry) {
+        this.repositoryMetricsRegistry = repositoryMetricsRegistry;
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        RepositoryFactorySupport factory = super.createRepositoryFactory(entityManager);
+
+        if (repositoryMetricsRegistry != null) {
+            factory.addRepositoryProxyPostProcessor(new RepositoryMetricsPostProcessor(repositoryMetricsRegistry));
+        }
+
+        return factory;
+    }
+}
@@ -0,0 +1,18 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.jpa;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+
+import java.io.IOException;
+
+/**
+ * @author Petri Kainulainen
+ */
+public interface TodoCallback {
+
+    /**
+     * Processes a single to-do entry.
+     * @param todoEntry The processed to-do entry.
+     * @throws IOException  If the to-do entry cannot be processed.
+     */
+    public void process(TodoDTO todoEntry) throws IOException;
+}
@@ -1,10 +1,85 @@
 package net.petrikainulainen.spring.datasolr.todo.repository.jpa;
 
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.joda.time.DateTime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Petri Kainulainen
  */
-public interface TodoRepository extends JpaRepository<Todo, Long> {
+public interface TodoRepository extends JpaRepository<Todo, Long>, TodoRepositoryCustom {
+
+    public static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+
+    public static final String TODO_DTO_CONSTRUCTOR = "new net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO(t.id, t.description, t.title, t.version)";
+
+    /**
+     * Finds the to-do entries which id is greater than the given id. This is used to implement
+     * keyset pagination: the size and sort order of the returned list are taken from the given
+     * page request and its offset must always be zero. The to-do entries are read straight
+     * into DTOs, so no managed entities are created.
+     * @param id    The id of the last to-do entry of the previous page.
+     * @param page  The page request which specifies the page size and sort order.
+     * @return  The found to-do entries.
+     */
+    @Query("SELECT " + TODO_DTO_CONSTRUCTOR + " FROM Todo t WHERE t.id > :id")
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    public List<TodoDTO> findDTOsByIdGreaterThan(@Param("id") Long id, Pageable page);
+
+    /**
+     * Finds the ids of the to-do entries which id is greater than the given id. The size and
+     * sort order of the returned list are taken from the given page request and its offset
+     * must always be zero.
+     * @param id    The last id of the previous page.
+     * @param page  The page request which specifies the page size and sort order.
+     * @return  The found ids.
+     */
+    @Query("SELECT t.id FROM Todo t WHERE t.id > :id")
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    public List<Long> findIdsByIdGreaterThan(@Param("id") Long id, Pageable page);
+
+    /**
+     * Finds the to-do entries which id is found from the given collection by using a single
+     * IN query. The to-do entries are read straight into DTOs, so no managed entities are
+     * created. The order of the returned list is not specified.
+     * @param ids   The ids of the wanted to-do entries.
+     * @return  The found to-do entries.
+     */
+    @Query("SELECT " + TODO_DTO_CONSTRUCTOR + " FROM Todo t WHERE t.id IN :ids")
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    public List<TodoDTO> findDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds the to-do entries which come after the given position when the to-do entries are
+     * ordered by modification time and id. To-do entries modified at or after the given upper
+     * bound are left out.
+     * @param time  The modification time of the position.
+     * @param id    The id of the position.
+     * @param until The upper bound of the modification time.
+     * @param page  The page request which specifies the page size and sort order.
+     * @return  The found to-do entries.
+     */
+    @Query("SELECT t FROM Todo t WHERE (t.modificationTime > :time OR (t.modificationTime = :time AND t.id > :id)) AND t.modificationTime < :until")
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    public List<Todo> findModifiedAfter(@Param("time") DateTime time,
+                                        @Param("id") Long id,
+                                        @Param("until") DateTime until,
+                                        Pageable page);
+
+    /**
+     * Finds the version of a to-do entry without loading the to-do entry.
+     * @param id    The id of the to-do entry.
+     * @return  The version of the to-do entry or null if no to-do entry is found with the given id.
+     */
+    @Query("SELECT t.version FROM Todo t WHERE t.id = :id")
+    public Long findVersionById(@Param("id") Long id);
 }
@@ -0,0 +1,41 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.jpa;
+
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+
+/**
+ * @author Petri Kainulainen
+ */
+public interface TodoRepositoryCustom {
+
+    /**
+     * Iterates through all to-do entries in ascending id order and passes each entry to the given
+     * callback. The entries are read by using a forward only cursor straight into DTOs, so no
+     * managed entities are created and the memory use does not grow with the number of entries.
+     * @param callback  The callback which processes the found to-do entries.
+     * @throws IOException  If the callback cannot process a to-do entry.
+     */
+    public void scrollAll(TodoCallback callback) throws IOException;
+
+    /**
+     * Updates the information of a to-do entry with a single statement if its version
+     * matches with the given version. The version of the to-do entry is incremented by one.
+     * Only the updated to-do entry is evicted from the second-level cache.
+     * @param id    The id of the updated to-do entry.
+     * @param version   The expected version of the updated to-do entry.
+     * @param description   The new description.
+     * @param title The new title.
+     * @param modificationTime  The new modification time.
+     * @return  The number of updated rows. This is zero if the to-do entry is not found or its version has changed.
+     */
+    public int updateByIdAndVersion(Long id, long version, String description, String title, DateTime modificationTime);
+
+    /**
+     * Deletes a to-do entry with a single statement. Only the deleted to-do entry is evicted
+     * from the second-level cache.
+     * @param id    The id of the deleted to-do entry.
+     * @return  The number of deleted rows. This is zero if the to-do entry is not found.
+     */
+    public int removeById(Long id);
+}
@@ -0,0 +1,150 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.jpa;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * The updates and deletes are run as plain JDBC statements. A JPQL bulk statement would make
+ * Hibernate evict the whole to-do entry region from the second-level cache on every write, so
+ * the statements bypass Hibernate and only the changed to-do entry is evicted. The eviction is
+ * repeated after the transaction has been completed, because a concurrent transaction can cache
+ * the old state of the to-do entry before the change is committed.
+ * @author Petri Kainulainen
+ */
+public class TodoRepositoryImpl implements TodoRepositoryCustom {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TodoRepositoryImpl.class);
+
+    protected static final int BATCH_SIZE = 100;
+
+    private static final String QUERY_FIND_ALL_ORDER_BY_ID = "SELECT " + TodoRepository.TODO_DTO_CONSTRUCTOR + " FROM Todo t ORDER BY t.id ASC";
+
+    private static final String SQL_UPDATE_BY_ID_AND_VERSION = "UPDATE todos SET description = ?, title = ?, modification_time = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String SQL_DELETE_BY_ID = "DELETE FROM todos WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void scrollAll(TodoCallback callback) throws IOException {
+        LOGGER.debug("Scrolling through all to-do entries");
+
+        Session session = entityManager.unwrap(Session.class);
+
+        ScrollableResults results = session.createQuery(QUERY_FIND_ALL_ORDER_BY_ID)
+                .setReadOnly(true)
+                .setFetchSize(BATCH_SIZE)
+                .setCacheable(false)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            int processed = 0;
+
+            while (results.next()) {
+                TodoDTO todoEntry = (TodoDTO) results.get(0);
+                callback.process(todoEntry);
+                processed++;
+            }
+
+            LOGGER.debug("Processed {} to-do entries", processed);
+        }
+        finally {
+            results.close();
+        }
+    }
+
+    @Override
+    public int updateByIdAndVersion(final Long id,
+                                    final long version,
+                                    final String description,
+                                    final String title,
+                                    final DateTime modificationTime) {
+        LOGGER.debug("Updating to-do entry with id: {} and version: {}", id, version);
+
+        int updatedCount = executeUpdate(new ReturningWork<Integer>() {
+            @Override
+            public Integer execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(SQL_UPDATE_BY_ID_AND_VERSION);
+                try {
+                    statement.setString(1, description);
+                    statement.setString(2, title);
+                    statement.setTimestamp(3, new Timestamp(modificationTime.getMillis()));
+                    statement.setLong(4, id);
+                    statement.setLong(5, version);
+                    return statement.executeUpdate();
+                }
+                finally {
+                    statement.close();
+                }
+            }
+        });
+
+        evictFromCache(id);
+        return updatedCount;
+    }
+
+    @Override
+    public int removeById(final Long id) {
+        LOGGER.debug("Deleting to-do entry with id: {}", id);
+
+        int deletedCount = executeUpdate(new ReturningWork<Integer>() {
+            @Override
+            public Integer execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(SQL_DELETE_BY_ID);
+                try {
+                    statement.setLong(1, id);
+                    return statement.executeUpdate();
+                }
+                finally {
+                    statement.close();
+                }
+            }
+        });
+
+        evictFromCache(id);
+        return deletedCount;
+    }
+
+    /**
+     * Flushes the pending changes first, because Hibernate does not flush them before the
+     * statement like it does before a JPQL statement.
+     */
+    private int executeUpdate(ReturningWork<Integer> work) {
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        return session.doReturningWork(work);
+    }
+
+    private void evictFromCache(final Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Todo.class, id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    entityManager.getEntityManagerFactory().getCache().evict(Todo.class, id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package net.petrikainulainen.spring.datasolr.todo.repository.jpa;
+
+import net.petrikainulainen.spring.datasolr.todo.model.TodoTombstone;
+import org.joda.time.DateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+
+/**
+ * @author Petri Kainulainen
+ */
+public interface TodoTombstoneRepository extends JpaRepository<TodoTombstone, Long> {
+
+    /**
+     * Finds the tombstones which come after the given position when the tombstones are ordered
+     * by deletion time and to-do entry id. Tombstones deleted at or after the given upper bound
+     * are left out.
+     * @param time  The deletion time of the position.
+     * @param todoId    The to-do entry id of the position.
+     * @param until The upper bound of the deletion time.
+     * @param page  The page request which specifies the page size and sort order.
+     * @return  The found tombstones.
+     */
+    @Query("SELECT t FROM TodoTombstone t WHERE (t.deletionTime > :time OR (t.deletionTime = :time AND t.todoId > :todoId)) AND t.deletionTime < :until")
+    @QueryHints(@QueryHint(name = TodoRepository.HINT_READ_ONLY, value = "true"))
+    public List<TodoTombstone> findDeletedAfter(@Param("time") DateTime time,
+                                                @Param("todoId") Long todoId,
+                                                @Param("until") DateTime until,
+                                                Pageable page);
+}
@@ -2,15 +2,28 @@ package net.petrikainulainen.spring.datasolr.todo.repository.solr;
 
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.solr.core.SolrCallback;
 import org.springframework.data.solr.core.SolrOperations;
 import org.springframework.data.solr.core.query.Criteria;
-import org.springframework.data.solr.core.query.PartialUpdate;
 import org.springframework.data.solr.core.query.SimpleQuery;
 import org.springframework.data.solr.repository.support.SimpleSolrRepository;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Petri Kainulainen
@@ -19,6 +32,14 @@ public class CustomBaseRepositoryImpl<T, ID extends Serializable> extends Simple
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CustomBaseRepositoryImpl.class);
 
+    protected static final int COMMIT_WITHIN_MILLIS = 1000;
+
+    protected static final String PARAM_IDS = "ids";
+    protected static final String REQUEST_HANDLER_REAL_TIME_GET = "/get";
+
+    private static final String ATOMIC_UPDATE_SET = "set";
+    private static final String ID_SEPARATOR = ",";
+
     public CustomBaseRepositoryImpl(SolrOperations solrOperations, Class<T> entityClass) {
         super(solrOperations, entityClass);
     }
@@ -26,15 +47,22 @@ public class CustomBaseRepositoryImpl<T, ID extends Serializable> extends Simple
     @Override
     public long count(String searchTerm) {
         LOGGER.debug("Finding count for search term: {}", searchTerm);
+        return getSolrOperations().count(createSearchQuery(searchTerm));
+    }
 
+    /**
+     * Creates a query which finds the documents whose title or description contains
+     * at least one word of the given search term.
+     * @param searchTerm    The used search term.
+     * @return  The created query.
+     */
+    public static SimpleQuery createSearchQuery(String searchTerm) {
         String[] words = searchTerm.split(" ");
         Criteria conditions = createSearchConditions(words);
-        SimpleQuery countQuery = new SimpleQuery(conditions);
-
-        return getSolrOperations().count(countQuery);
+        return new SimpleQuery(conditions);
     }
 
-    private Criteria createSearchConditions(String[] words) {
+    protected static Criteria createSearchConditions(String[] words) {
         Criteria conditions = null;
 
         for (String word: words) {
@@ -51,16 +79,94 @@ public class CustomBaseRepositoryImpl<T, ID extends Serializable> extends Simple
         return conditions;
     }
 
+    /**
+     * Finds the document by using the real-time get handler of Solr. This means that
+     * the returned document can contain changes which are not committed yet.
+     */
+    @Override
+    public T findOne(ID id) {
+        LOGGER.debug("Getting document with id: {} by using real-time get", id);
+
+        List<T> found = getRealTime(Collections.singletonList(id));
+        if (found.isEmpty()) {
+            return null;
+        }
+
+        return found.get(0);
+    }
+
+    /**
+     * Finds the documents by using the real-time get handler of Solr. This means that
+     * the returned documents can contain changes which are not committed yet.
+     */
+    @Override
+    public Iterable<T> findAll(Iterable<ID> ids) {
+        LOGGER.debug("Getting documents with ids: {} by using real-time get", ids);
+        return getRealTime(ids);
+    }
+
+    private List<T> getRealTime(Iterable<ID> ids) {
+        String joinedIds = joinIds(ids);
+        if (joinedIds.isEmpty()) {
+            return new ArrayList<T>();
+        }
+
+        final SolrQuery query = new SolrQuery();
+        query.setRequestHandler(REQUEST_HANDLER_REAL_TIME_GET);
+        query.set(PARAM_IDS, joinedIds);
+
+        QueryResponse response = getSolrOperations().execute(new SolrCallback<QueryResponse>() {
+            @Override
+            public QueryResponse doInSolr(SolrServer solrServer) throws SolrServerException, IOException {
+                return solrServer.query(query);
+            }
+        });
+
+        return response.getBeans(getEntityClass());
+    }
+
+    private String joinIds(Iterable<ID> ids) {
+        StringBuilder joined = new StringBuilder();
+
+        for (ID id: ids) {
+            if (joined.length() > 0) {
+                joined.append(ID_SEPARATOR);
+            }
+            joined.append(id.toString());
+        }
+
+        return joined.toString();
+    }
+
+    /**
+     * Performs an atomic update without an explicit commit. Solr commits the change within
+     * {@link #COMMIT_WITHIN_MILLIS} milliseconds and until then the updated document is
+     * available through the real-time get handler.
+     */
     @Override
     public void update(Todo todoEntry) {
         LOGGER.debug("Performing partial update for todo entry: {}", todoEntry);
 
-        PartialUpdate update = new PartialUpdate(TodoDocument.FIELD_ID, todoEntry.getId().toString());
+        final SolrInputDocument update = new SolrInputDocument();
 
-        update.add(TodoDocument.FIELD_DESCRIPTION, todoEntry.getDescription());
-        update.add(TodoDocument.FIELD_TITLE, todoEntry.getTitle());
+        update.addField(TodoDocument.FIELD_ID, todoEntry.getId().toString());
+        update.addField(TodoDocument.FIELD_DESCRIPTION, createSetOperation(todoEntry.getDescription()));
+        update.addField(TodoDocument.FIELD_TITLE, createSetOperation(todoEntry.getTitle()));
+
+        getSolrOperations().execute(new SolrCallback<UpdateResponse>() {
+            @Override
+            public UpdateResponse doInSolr(SolrServer solrServer) throws SolrServerException, IOException {
+                UpdateRequest request = new UpdateRequest();
+                request.add(update);
+                request.setCommitWithin(COMMIT_WITHIN_MILLIS);
+                return request.process(solrServer);
+            }
+        });
+    }
 
-        getSolrOperations().saveBean(update);
-        getSolrOperations().commit();
+    private Map<String, Object> createSetOperation(Object value) {
+        Map<String, Object> operation = new HashMap<String, Object>();
+        operation.put(ATOMIC_UPDATE_SET, value);
+        return operation;
     }
 }
@@ -1,5 +1,8 @@
 package net.petrikainulainen.spring.datasolr.todo.repository.solr;
 
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsPostProcessor;
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.repository.core.RepositoryMetadata;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
 import org.springframework.data.solr.core.SolrOperations;
@@ -9,13 +12,33 @@ import org.springframework.data.solr.repository.support.SolrRepositoryFactoryBea
 import java.io.Serializable;
 
 /**
+ * Creates the Solr repositories which use {@link CustomBaseRepositoryImpl} as their base class.
+ * If the application context contains a {@link RepositoryMetricsRegistry}, the calls of the
+ * repository methods are recorded to it.
  * @author Petri Kainulainen
  */
 public class CustomSolrRepositoryFactoryBean extends SolrRepositoryFactoryBean {
 
+    private RepositoryMetricsRegistry repositoryMetricsRegistry;
+
+    /**
+     * The registry is optional, so that the repositories can be used in application contexts
+     * which do not collect metrics.
+     */
+    @Autowired(required = false)
+    public void setRepositoryMetricsRegistry(RepositoryMetricsRegistry repositoryMetricsRegistry) {
+        this.repositoryMetricsRegistry = repositoryMetricsRegistry;
+    }
+
     @Override
     protected RepositoryFactorySupport doCreateRepositoryFactory() {
-        return new CustomSolrRepositoryFactory(getSolrOperations());
+        RepositoryFactorySupport factory = new CustomSolrRepositoryFactory(getSolrOperations());
+
+        if (repositoryMetricsRegistry != null) {
+            factory.addRepositoryProxyPostProcessor(new RepositoryMetricsPostProcessor(repositoryMetricsRegistry));
+        }
+
+        return factory;
     }
 
     private static class CustomSolrRepositoryFactory<T, ID extends Serializable> extends SolrRepositoryFactory {
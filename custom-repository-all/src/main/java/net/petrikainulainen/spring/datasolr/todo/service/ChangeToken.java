@@ -0,0 +1,71 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.exception.InvalidChangeTokenException;
+
+/**
+ * A position in the change feed. The changes are ordered by their time and the id of the
+ * changed to-do entry, so the position is identified by the time and id of the last change
+ * returned to the client. The token format is {@code <time in milliseconds>-<id>}.
+ * @author Petri Kainulainen
+ */
+final class ChangeToken {
+
+    static final ChangeToken START = new ChangeToken(0L, 0L);
+
+    private static final char SEPARATOR = '-';
+
+    private final long time;
+
+    private final long id;
+
+    ChangeToken(long time, long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    /**
+     * Parses a change token.
+     * @param token The token. If this is null or empty, the start of the change feed is returned.
+     * @return  The parsed position.
+     * @throws InvalidChangeTokenException  If the token is not valid.
+     */
+    static ChangeToken parse(String token) throws InvalidChangeTokenException {
+        if (token == null || token.isEmpty()) {
+            return START;
+        }
+
+        int separatorIndex = token.indexOf(SEPARATOR);
+        if (separatorIndex < 1) {
+            throw new InvalidChangeTokenException("Invalid change token: " + token);
+        }
+
+        try {
+            long time = Long.parseLong(token.substring(0, separatorIndex));
+            long id = Long.parseLong(token.substring(separatorIndex + 1));
+
+            return new ChangeToken(time, id);
+        }
+        catch (NumberFormatException ex) {
+            throw new InvalidChangeTokenException("Invalid change token: " + token);
+        }
+    }
+
+    long getTime() {
+        return time;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    /**
+     * @return  true if a change with the given time and id comes before the change with the other time and id.
+     */
+    static boolean isBefore(long time, long id, long otherTime, long otherId) {
+        return time < otherTime || (time == otherTime && id < otherId);
+    }
+
+    String format() {
+        return Long.toString(time) + SEPARATOR + id;
+    }
+}
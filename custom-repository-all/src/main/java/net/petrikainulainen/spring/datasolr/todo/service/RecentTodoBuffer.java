@@ -0,0 +1,312 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the latest to-do entries in memory ordered by their creation time, so that the list of
+ * the latest to-do entries can be read without a database query. The entries are kept in a
+ * concurrent skip list, so reading the list does not block writers.
+ * <p>
+ * The buffer keeps a number of older to-do entries in reserve. When one of the latest to-do
+ * entries is deleted, the next entry from the reserve takes its place. When the reserve has been
+ * used up and the buffer has fewer entries than the number of returned to-do entries, the buffer
+ * is refilled from the database in a background thread. The to-do entries which are removed
+ * while the refill is running are not added back by it.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class RecentTodoBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecentTodoBuffer.class);
+
+    private static final String PROPERTY_NAME_CREATION_TIME = "creationTime";
+    private static final String PROPERTY_NAME_ID = "id";
+
+    private static final String THREAD_NAME = "recent-todo-buffer";
+
+    @Resource
+    private TodoRepository repository;
+
+    private final Object lock = new Object();
+
+    private final ConcurrentSkipListMap<Position, TodoDTO> entries = new ConcurrentSkipListMap<Position, TodoDTO>();
+
+    private final ConcurrentMap<Long, Position> positionsById = new ConcurrentHashMap<Long, Position>();
+
+    private final AtomicInteger entryCount = new AtomicInteger();
+
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+    private Set<Long> idsRemovedDuringRefill;
+
+    /**
+     * Tells that the buffer contains every to-do entry which is found from the database,
+     * so a buffer which has fewer entries than the returned size cannot be refilled.
+     */
+    private volatile boolean complete;
+
+    private ExecutorService refillExecutor;
+
+    private final int size;
+
+    private final int capacity;
+
+    /**
+     * Creates a new buffer.
+     * @param size      The number of returned to-do entries.
+     * @param reserve   The number of older to-do entries which replace the deleted to-do entries.
+     */
+    public RecentTodoBuffer(int size, int reserve) {
+        this.size = size;
+        this.capacity = size + reserve;
+    }
+
+    /**
+     * Starts the thread which refills the buffer.
+     */
+    public void start() {
+        refillExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public void shutdown() {
+        if (refillExecutor != null) {
+            refillExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the maximum number of to-do entries which are kept in the buffer.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the latest to-do entries. The latest to-do entry is the first entry of the list.
+     */
+    public List<TodoDTO> findLatest() {
+        List<TodoDTO> latest = new ArrayList<TodoDTO>(size);
+
+        Iterator<TodoDTO> iterator = entries.values().iterator();
+        while (iterator.hasNext() && latest.size() < size) {
+            latest.add(iterator.next());
+        }
+
+        return latest;
+    }
+
+    /**
+     * Replaces the content of the buffer with the given to-do entries.
+     */
+    public void load(List<Todo> todos) {
+        LOGGER.debug("Loading {} to-do entries", todos.size());
+
+        entries.clear();
+        positionsById.clear();
+        entryCount.set(0);
+
+        for (Todo todo: todos) {
+            add(todo);
+        }
+        complete = todos.size() < capacity;
+    }
+
+    /**
+     * Adds a new to-do entry to the buffer. The oldest to-do entry is removed if the buffer is full.
+     */
+    public void add(Todo todo) {
+        Position position = new Position(todo.getCreationTime().getMillis(), todo.getId());
+
+        //A to-do entry which is older than the oldest entry of a full buffer is not added.
+        Map.Entry<Position, TodoDTO> oldest = entries.lastEntry();
+        if (entryCount.get() >= capacity && oldest != null && position.compareTo(oldest.getKey()) > 0) {
+            complete = false;
+            return;
+        }
+
+        positionsById.put(todo.getId(), position);
+        if (entries.put(position, createDTO(todo)) == null) {
+            entryCount.incrementAndGet();
+        }
+
+        while (entryCount.get() > capacity) {
+            Map.Entry<Position, TodoDTO> removed = entries.pollLastEntry();
+            if (removed == null) {
+                break;
+            }
+            positionsById.remove(removed.getKey().id, removed.getKey());
+            entryCount.decrementAndGet();
+            complete = false;
+        }
+    }
+
+    /**
+     * Replaces the to-do entry if it is found from the buffer and the buffer does not contain
+     * a newer version of it.
+     */
+    public void update(Todo todo) {
+        Position position = positionsById.get(todo.getId());
+        if (position == null) {
+            return;
+        }
+
+        TodoDTO updated = createDTO(todo);
+        while (true) {
+            TodoDTO current = entries.get(position);
+            if (current == null || current.getVersion() >= updated.getVersion()) {
+                return;
+            }
+            if (entries.replace(position, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the to-do entry from the buffer. If the buffer has fewer to-do entries than the
+     * number of returned to-do entries after that, a refill is started in the background.
+     */
+    public void remove(Long id) {
+        synchronized (lock) {
+            if (idsRemovedDuringRefill != null) {
+                idsRemovedDuringRefill.add(id);
+            }
+        }
+
+        Position position = positionsById.remove(id);
+        if (position != null && entries.remove(position) != null) {
+            entryCount.decrementAndGet();
+        }
+
+        if (entryCount.get() < size && !complete) {
+            scheduleRefill();
+        }
+    }
+
+    private void scheduleRefill() {
+        if (refillExecutor == null || !refillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        refillExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refill();
+                }
+                catch (RuntimeException ex) {
+                    LOGGER.error("Refilling the recent to-do entries failed", ex);
+                }
+                finally {
+                    refillScheduled.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the latest to-do entries from the database and adds the ones which are not found
+     * from the buffer. The entries of the buffer are not replaced, because they can be newer
+     * than the ones which were read from the database.
+     */
+    public void refill() {
+        LOGGER.debug("Refilling the recent to-do entries");
+
+        synchronized (lock) {
+            idsRemovedDuringRefill = new HashSet<Long>();
+        }
+
+        try {
+            List<Todo> latest = repository.findAll(
+                    new PageRequest(0, capacity, Sort.Direction.DESC, PROPERTY_NAME_CREATION_TIME, PROPERTY_NAME_ID)
+            ).getContent();
+
+            synchronized (lock) {
+                for (Todo todo: latest) {
+                    if (!idsRemovedDuringRefill.contains(todo.getId()) && !positionsById.containsKey(todo.getId())) {
+                        add(todo);
+                    }
+                }
+                complete = latest.size() < capacity;
+            }
+        }
+        finally {
+            synchronized (lock) {
+                idsRemovedDuringRefill = null;
+            }
+        }
+    }
+
+    private TodoDTO createDTO(Todo todo) {
+        return new TodoDTO(todo.getId(), todo.getDescription(), todo.getTitle(), todo.getVersion());
+    }
+
+    /**
+     * Orders the to-do entries from the latest to the oldest. The id is used as a tie-breaker.
+     */
+    private static class Position implements Comparable<Position> {
+
+        private final long creationTime;
+
+        private final long id;
+
+        private Position(long creationTime, long id) {
+            this.creationTime = creationTime;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            if (creationTime != other.creationTime) {
+                return creationTime > other.creationTime ? -1 : 1;
+            }
+            if (id != other.id) {
+                return id > other.id ? -1 : 1;
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Position)) {
+                return false;
+            }
+            Position position = (Position) other;
+            return creationTime == position.creationTime && id == position.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (creationTime ^ (creationTime >>> 32)) * 31 + (int) (id ^ (id >>> 32));
+        }
+    }
+}
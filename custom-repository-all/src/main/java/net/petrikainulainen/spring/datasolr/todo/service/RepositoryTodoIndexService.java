@@ -1,18 +1,29 @@
 package net.petrikainulainen.spring.datasolr.todo.service;
 
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrOperations;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.repository.solr.CustomBaseRepositoryImpl;
 import net.petrikainulainen.spring.datasolr.todo.repository.solr.TodoDocumentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static net.petrikainulainen.spring.datasolr.common.async.Futures.createDeadline;
+import static net.petrikainulainen.spring.datasolr.common.async.Futures.getResult;
+import static net.petrikainulainen.spring.datasolr.common.async.Futures.getResultBefore;
 
 /**
  * @author Petri Kainulainen
@@ -26,12 +37,28 @@ public class RepositoryTodoIndexService implements TodoIndexService {
     protected static final String QUERY_METHOD_NAMED_QUERY = "namedQuery";
     protected static final String QUERY_METHOD_QUERY_ANNOTATION = "queryAnnotation";
 
+    protected static final long SOLR_OPERATION_TIMEOUT = 10000L;
+
+    /**
+     * The time which is shared by the queries of a result page. It is shorter than the search
+     * timeout of the controller, so that the queries are cancelled before the request times out.
+     */
+    protected static final long SEARCH_PAGE_TIMEOUT = 9000L;
+
     @Resource
     private TodoDocumentRepository repository;
 
+    @Resource
+    private AsyncSolrOperations asyncSolrTemplate;
+
     @Value("${solr.repository.query.method.type}")
     private String queryMethodType;
 
+    /**
+     * Saves and commits the document on the Solr executor, which bounds the number of concurrent
+     * index updates together with the queries. The method waits for the commit, so the document
+     * can be found when it returns.
+     */
     @Transactional
     @Override
     public void addToIndex(Todo todoEntry) {
@@ -42,7 +69,8 @@ public class RepositoryTodoIndexService implements TodoIndexService {
 
         LOGGER.debug("Saving document with information: {}", document);
 
-        repository.save(document);
+        getResult(asyncSolrTemplate.saveBeans(Collections.singletonList(document)), SOLR_OPERATION_TIMEOUT);
+        getResult(asyncSolrTemplate.commit(), SOLR_OPERATION_TIMEOUT);
     }
 
     @Override
@@ -55,7 +83,9 @@ public class RepositoryTodoIndexService implements TodoIndexService {
     @Override
     public void deleteFromIndex(Long id) {
         LOGGER.debug("Deleting an existing document with id: {}", id);
-        repository.delete(id.toString());
+
+        getResult(asyncSolrTemplate.deleteById(id.toString()), SOLR_OPERATION_TIMEOUT);
+        getResult(asyncSolrTemplate.commit(), SOLR_OPERATION_TIMEOUT);
     }
 
     @Override
@@ -64,6 +94,47 @@ public class RepositoryTodoIndexService implements TodoIndexService {
         return findDocuments(searchTerm, page);
     }
 
+    /**
+     * Executes the search query and the count query in parallel, which means that the
+     * latency of this method is the latency of the slower query. Both queries must finish
+     * within {@link #SEARCH_PAGE_TIMEOUT} milliseconds. If the search query fails or times out,
+     * or the count query cannot be submitted, the other query is cancelled so that it does not
+     * occupy a Solr thread.
+     */
+    @Override
+    public Page<TodoDocument> searchPage(final String searchTerm, final Pageable page) {
+        LOGGER.debug("Searching a page of documents with search term: {} and page: {}", searchTerm, page);
+
+        long deadline = createDeadline(SEARCH_PAGE_TIMEOUT);
+
+        Future<List<TodoDocument>> documents = asyncSolrTemplate.execute(new Callable<List<TodoDocument>>() {
+            @Override
+            public List<TodoDocument> call() throws Exception {
+                return findDocuments(searchTerm, page);
+            }
+        });
+
+        Future<Long> count;
+        try {
+            count = asyncSolrTemplate.count(CustomBaseRepositoryImpl.createSearchQuery(searchTerm));
+        }
+        catch (RuntimeException ex) {
+            documents.cancel(true);
+            throw ex;
+        }
+
+        List<TodoDocument> found;
+        try {
+            found = getResultBefore(documents, deadline);
+        }
+        catch (RuntimeException ex) {
+            count.cancel(true);
+            throw ex;
+        }
+
+        return new PageImpl<TodoDocument>(found, page, getResultBefore(count, deadline));
+    }
+
     @Transactional
     @Override
     public void update(Todo todoEntry) {
@@ -1,19 +1,46 @@
 package net.petrikainulainen.spring.datasolr.todo.service;
 
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import net.petrikainulainen.spring.datasolr.todo.dto.ChangeFeedDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoChangeDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.exception.InvalidChangeTokenException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TodoConflictException;
 import net.petrikainulainen.spring.datasolr.todo.exception.TodoNotFoundException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TooManyIdsException;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.model.TodoTombstone;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoCallback;
 import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoRepository;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoTombstoneRepository;
+import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Petri Kainulainen
@@ -23,12 +50,59 @@ public class RepositoryTodoService implements TodoService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryTodoService.class);
 
+    protected static final long FIRST_PAGE_LAST_ID = 0L;
+    protected static final int MAX_PAGE_SIZE = 100;
+    protected static final int MAX_IDS_PER_QUERY = 500;
+
+    protected static final int MAX_IDS_PER_REQUEST = 1000;
+
+    /**
+     * A transaction can commit after a transaction which started later has committed, so
+     * the latest changes are returned only after they are old enough to be stable. The change
+     * feed is read from the primary database, so the replication lag is not part of this window.
+     */
+    protected static final long CHANGE_FEED_SETTLE_MILLIS = 2000L;
+
+    protected static final String EVENT_NAME_ADDED = "added";
+    protected static final String EVENT_NAME_DELETED = "deleted";
+    protected static final String EVENT_NAME_UPDATED = "updated";
+
+    private static final String PROPERTY_NAME_CREATION_TIME = "creationTime";
+    private static final String PROPERTY_NAME_DELETION_TIME = "deletionTime";
+    private static final String PROPERTY_NAME_ID = "id";
+    private static final String PROPERTY_NAME_MODIFICATION_TIME = "modificationTime";
+    private static final String PROPERTY_NAME_TODO_ID = "todoId";
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    private EventBroadcaster todoEventBroadcaster;
+
+    @Resource
+    private TodoIdFilter idFilter;
+
     @Resource
     private TodoIndexService indexService;
 
+    @Resource
+    private RecentTodoBuffer recentTodos;
+
+    @Resource
+    private SearchTermTracker searchTermTracker;
+
     @Resource
     private TodoRepository repository;
 
+    @Resource
+    private TodoSnapshotStore snapshotStore;
+
+    @Resource
+    private TodoTombstoneRepository tombstoneRepository;
+
+    @Resource
+    private TransactionTemplate primaryReadTransactionTemplate;
+
     @PreAuthorize("hasPermission('Todo', 'add')")
     @Transactional
     @Override
@@ -40,8 +114,28 @@ public class RepositoryTodoService implements TodoService {
                 .build();
 
         Todo persisted = repository.save(model);
+        final Long id = persisted.getId();
+        idFilter.added(id);
+        runAfterCompletion(new Runnable() {
+            @Override
+            public void run() {
+                idFilter.completed(id);
+            }
+        });
         indexService.addToIndex(persisted);
 
+        final Todo persistedTodo = persisted;
+        final TodoDTO snapshot = createDTO(persisted);
+        runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                snapshotStore.put(snapshot);
+                recentTodos.add(persistedTodo);
+                eventPublisher.publishEvent(new TodoIndexChangedEvent(persistedTodo.getId()));
+            }
+        });
+        publishAfterCommit(EVENT_NAME_ADDED, snapshot);
+
         return persisted;
     }
 
@@ -55,24 +149,219 @@ public class RepositoryTodoService implements TodoService {
     @PreAuthorize("hasPermission('Todo', 'delete')")
     @Transactional(rollbackFor = {TodoNotFoundException.class})
     @Override
-    public Todo deleteById(Long id) throws TodoNotFoundException {
+    public void deleteById(final Long id) throws TodoNotFoundException {
         LOGGER.debug("Deleting a to-do entry with id: {}", id);
 
-        Todo deleted = findById(id);
-        LOGGER.debug("Deleting to-do entry: {}", deleted);
+        checkMayExist(id);
+
+        int deletedCount = repository.removeById(id);
+        LOGGER.debug("Deleted {} to-do entries", deletedCount);
+
+        if (deletedCount == 0) {
+            idFilter.missing(id);
+            throw new TodoNotFoundException("No to-entry found with id: " + id);
+        }
+
+        tombstoneRepository.save(new TodoTombstone(id, DateTime.now()));
 
-        repository.delete(deleted);
         indexService.deleteFromIndex(id);
 
-        return deleted;
+        runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                snapshotStore.remove(id);
+                recentTodos.remove(id);
+                idFilter.missing(id);
+                eventPublisher.publishEvent(new TodoIndexChangedEvent(id));
+            }
+        });
+        publishAfterCommit(EVENT_NAME_DELETED, Collections.singletonMap(PROPERTY_NAME_ID, id));
+    }
+
+    @PreAuthorize("hasPermission('Todo', 'list')")
+    @Override
+    public List<TodoDTO> findLatest() {
+        LOGGER.debug("Finding the latest to-do entries");
+        return recentTodos.findLatest();
+    }
+
+    /**
+     * Loads the latest to-do entries from the database when the application is started. After that
+     * the recent to-do entries are maintained by the methods which modify to-do entries.
+     */
+    @PostConstruct
+    public void loadRecentTodos() {
+        LOGGER.debug("Loading the latest {} to-do entries", recentTodos.getCapacity());
+
+        Page<Todo> latest = repository.findAll(
+                new PageRequest(0, recentTodos.getCapacity(), Sort.Direction.DESC, PROPERTY_NAME_CREATION_TIME, PROPERTY_NAME_ID)
+        );
+        recentTodos.load(latest.getContent());
     }
 
     @PreAuthorize("hasPermission('Todo', 'list')")
     @Transactional(readOnly = true)
     @Override
-    public List<Todo> findAll() {
-        LOGGER.debug("Finding all to-do entries");
-        return repository.findAll();
+    public List<TodoDTO> findAll(Long lastId, int pageSize) {
+        LOGGER.debug("Finding a page of {} to-do entries after id: {}", pageSize, lastId);
+
+        if (lastId == null) {
+            lastId = FIRST_PAGE_LAST_ID;
+        }
+
+        PageRequest page = new PageRequest(0, limitPageSize(pageSize), Sort.Direction.ASC, PROPERTY_NAME_ID);
+        return repository.findDTOsByIdGreaterThan(lastId, page);
+    }
+
+    private int limitPageSize(int pageSize) {
+        if (pageSize < 1) {
+            return 1;
+        }
+
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Reads the changes from the primary database. A replica can lag behind the primary for longer
+     * than the settle window, and a client which got a change token from a lagging replica would
+     * never see the changes which the replica had not applied yet. That is why this transaction
+     * is not read-only, which would route it to a replica.
+     */
+    @PreAuthorize("hasPermission('Todo', 'list')")
+    @Transactional(rollbackFor = {InvalidChangeTokenException.class})
+    @Override
+    public ChangeFeedDTO findChanges(String since, int pageSize) throws InvalidChangeTokenException {
+        LOGGER.debug("Finding {} changes after change token: {}", pageSize, since);
+
+        ChangeToken position = ChangeToken.parse(since);
+        int limitedPageSize = limitPageSize(pageSize);
+
+        DateTime time = new DateTime(position.getTime());
+        DateTime until = DateTime.now().minus(CHANGE_FEED_SETTLE_MILLIS);
+
+        List<Todo> modified = repository.findModifiedAfter(time,
+                position.getId(),
+                until,
+                new PageRequest(0, limitedPageSize, Sort.Direction.ASC, PROPERTY_NAME_MODIFICATION_TIME, PROPERTY_NAME_ID)
+        );
+        List<TodoTombstone> deleted = tombstoneRepository.findDeletedAfter(time,
+                position.getId(),
+                until,
+                new PageRequest(0, limitedPageSize, Sort.Direction.ASC, PROPERTY_NAME_DELETION_TIME, PROPERTY_NAME_TODO_ID)
+        );
+        LOGGER.debug("Found {} modified and {} deleted to-do entries", modified.size(), deleted.size());
+
+        List<TodoChangeDTO> changes = mergeChanges(modified, deleted, limitedPageSize);
+
+        boolean hasMore = modified.size() == limitedPageSize
+                || deleted.size() == limitedPageSize
+                || modified.size() + deleted.size() > limitedPageSize;
+
+        String nextToken = position.format();
+        if (!changes.isEmpty()) {
+            TodoChangeDTO last = changes.get(changes.size() - 1);
+            nextToken = new ChangeToken(last.getTime(), last.getId()).format();
+        }
+
+        return new ChangeFeedDTO(changes, nextToken, hasMore);
+    }
+
+    /**
+     * Merges the ordered lists of modified to-do entries and tombstones into one ordered list
+     * which contains at most the given number of changes.
+     */
+    private List<TodoChangeDTO> mergeChanges(List<Todo> modified, List<TodoTombstone> deleted, int maxSize) {
+        List<TodoChangeDTO> changes = new ArrayList<TodoChangeDTO>(maxSize);
+
+        int modifiedIndex = 0;
+        int deletedIndex = 0;
+
+        while (changes.size() < maxSize && (modifiedIndex < modified.size() || deletedIndex < deleted.size())) {
+            boolean takeModified = deletedIndex == deleted.size();
+
+            if (!takeModified && modifiedIndex < modified.size()) {
+                Todo todo = modified.get(modifiedIndex);
+                TodoTombstone tombstone = deleted.get(deletedIndex);
+
+                takeModified = ChangeToken.isBefore(todo.getModificationTime().getMillis(), todo.getId(),
+                        tombstone.getDeletionTime().getMillis(), tombstone.getTodoId());
+            }
+
+            if (takeModified) {
+                changes.add(createChange(modified.get(modifiedIndex++)));
+            }
+            else {
+                TodoTombstone tombstone = deleted.get(deletedIndex++);
+                changes.add(new TodoChangeDTO(TodoChangeDTO.Type.DELETED, tombstone.getTodoId(), tombstone.getDeletionTime().getMillis(), null));
+            }
+        }
+
+        return changes;
+    }
+
+    private TodoChangeDTO createChange(Todo todo) {
+        long modificationTime = todo.getModificationTime().getMillis();
+
+        TodoChangeDTO.Type type = TodoChangeDTO.Type.MODIFIED;
+        if (todo.getCreationTime().getMillis() == modificationTime) {
+            type = TodoChangeDTO.Type.CREATED;
+        }
+
+        return new TodoChangeDTO(type, todo.getId(), modificationTime, createDTO(todo));
+    }
+
+    @PreAuthorize("hasPermission('Todo', 'list')")
+    @Transactional(readOnly = true)
+    @Override
+    public void processAll(TodoCallback callback) throws IOException {
+        LOGGER.debug("Processing all to-do entries");
+        repository.scrollAll(callback);
+    }
+
+    @PreAuthorize("hasPermission('Todo', 'find')")
+    @Transactional(readOnly = true)
+    @Override
+    public List<TodoDTO> findByIds(List<Long> ids) throws TooManyIdsException {
+        LOGGER.debug("Finding to-do entries with ids: {}", ids);
+
+        if (ids.size() > MAX_IDS_PER_REQUEST) {
+            throw new TooManyIdsException("Cannot find more than " + MAX_IDS_PER_REQUEST + " to-do entries at once. Got " + ids.size() + " ids");
+        }
+
+        List<Long> uniqueIds = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+        Map<Long, TodoDTO> foundById = new HashMap<Long, TodoDTO>();
+
+        List<Long> missingIds = new ArrayList<Long>();
+        for (Long id: uniqueIds) {
+            TodoDTO snapshot = snapshotStore.find(id);
+            if (snapshot != null) {
+                foundById.put(id, snapshot);
+            }
+            else {
+                missingIds.add(id);
+            }
+        }
+
+        //Large id lists are split into several queries so that the IN list stays reasonably short
+        for (int start = 0; start < missingIds.size(); start += MAX_IDS_PER_QUERY) {
+            int end = Math.min(start + MAX_IDS_PER_QUERY, missingIds.size());
+            for (TodoDTO found: repository.findDTOsByIdIn(missingIds.subList(start, end))) {
+                foundById.put(found.getId(), found);
+                snapshotStore.putIfAbsent(found);
+            }
+        }
+
+        List<TodoDTO> ordered = new ArrayList<TodoDTO>(foundById.size());
+        for (Long id: uniqueIds) {
+            TodoDTO found = foundById.get(id);
+            if (found != null) {
+                ordered.add(found);
+            }
+        }
+
+        LOGGER.debug("Found {} to-do entries", ordered.size());
+
+        return ordered;
     }
 
     @PreAuthorize("hasPermission('Todo', 'find')")
@@ -81,36 +370,235 @@ public class RepositoryTodoService implements TodoService {
     public Todo findById(Long id) throws TodoNotFoundException {
         LOGGER.debug("Finding a to-do entry with id: {}", id);
 
+        checkMayExist(id);
+
+        TodoDTO snapshot = snapshotStore.find(id);
+        if (snapshot != null) {
+            LOGGER.debug("Found snapshot: {}", snapshot);
+            return createModel(snapshot);
+        }
+
         Todo found = repository.findOne(id);
         LOGGER.debug("Found to-do entry: {}", found);
 
         if (found == null) {
+            found = findOneFromPrimary(id);
+        }
+
+        if (found == null) {
+            idFilter.missing(id);
             throw new TodoNotFoundException("No to-entry found with id: " + id);
         }
 
+        snapshotStore.putIfAbsent(createDTO(found));
+
         return found;
     }
 
+    @PreAuthorize("hasPermission('Todo', 'find')")
+    @Transactional(readOnly = true, rollbackFor = {TodoNotFoundException.class})
+    @Override
+    public long findVersionById(Long id) throws TodoNotFoundException {
+        LOGGER.debug("Finding the version of a to-do entry with id: {}", id);
+
+        checkMayExist(id);
+
+        Long version = repository.findVersionById(id);
+        LOGGER.debug("Found version: {}", version);
+
+        if (version == null) {
+            version = findVersionFromPrimary(id);
+        }
+
+        if (version == null) {
+            idFilter.missing(id);
+            throw new TodoNotFoundException("No to-entry found with id: " + id);
+        }
+
+        return version;
+    }
+
     @PreAuthorize("hasPermission('Todo', 'update')")
-    @Transactional(rollbackFor = {TodoNotFoundException.class})
+    @Transactional(rollbackFor = {TodoConflictException.class, TodoNotFoundException.class})
     @Override
-    public Todo update(TodoDTO updated) throws TodoNotFoundException {
+    public Todo update(TodoDTO updated) throws TodoNotFoundException, TodoConflictException {
         LOGGER.debug("Updating todo entry with information: {}", updated);
 
-        Todo model = findById(updated.getId());
-        LOGGER.debug("Found a to-do entry: {}", model);
+        Long id = updated.getId();
+        checkMayExist(id);
 
-        model.update(updated.getDescription(), updated.getTitle());
+        long version = updated.getVersion();
+        DateTime modificationTime = DateTime.now();
+
+        int updatedCount = repository.updateByIdAndVersion(id, version, updated.getDescription(), updated.getTitle(), modificationTime);
+        LOGGER.debug("Updated {} to-do entries", updatedCount);
+
+        if (updatedCount == 0) {
+            //The row count cannot tell a missing to-do entry from a concurrent modification.
+            //This extra query is executed only on the failure path.
+            if (repository.exists(id)) {
+                throw new TodoConflictException("The version of to-do entry with id: " + id + " is not: " + version);
+            }
+            idFilter.missing(id);
+            throw new TodoNotFoundException("No to-entry found with id: " + id);
+        }
+
+        Todo model = Todo.getBuilder(updated.getTitle())
+                .id(id)
+                .description(updated.getDescription())
+                .modificationTime(modificationTime)
+                .version(version + 1)
+                .build();
 
         indexService.update(model);
 
+        final Todo updatedModel = model;
+        final TodoDTO snapshot = createDTO(model);
+        runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                snapshotStore.put(snapshot);
+                recentTodos.update(updatedModel);
+                eventPublisher.publishEvent(new TodoIndexChangedEvent(updatedModel.getId()));
+            }
+        });
+        publishAfterCommit(EVENT_NAME_UPDATED, snapshot);
+
         return model;
     }
 
+    @PreAuthorize("hasPermission('Todo', 'list')")
+    @Override
+    public EventBroadcaster getChangeBroadcaster() {
+        LOGGER.debug("Getting the broadcaster of to-do entry changes");
+        return todoEventBroadcaster;
+    }
+
+    /**
+     * Answers the requests of missing to-do entries without querying the database.
+     */
+    private void checkMayExist(Long id) throws TodoNotFoundException {
+        if (idFilter.isMissing(id)) {
+            LOGGER.debug("To-do entry with id: {} does not exist", id);
+            throw new TodoNotFoundException("No to-entry found with id: " + id);
+        }
+    }
+
+    /**
+     * A read-only transaction may be executed by a replica which has not yet seen a new to-do
+     * entry. The to-do entry is searched from the primary database before it is reported as
+     * missing, because the id filter remembers the missing ids.
+     */
+    private Todo findOneFromPrimary(final Long id) {
+        LOGGER.debug("Finding a to-do entry with id: {} from the primary database", id);
+
+        return primaryReadTransactionTemplate.execute(new TransactionCallback<Todo>() {
+            @Override
+            public Todo doInTransaction(TransactionStatus status) {
+                return repository.findOne(id);
+            }
+        });
+    }
+
+    private Long findVersionFromPrimary(final Long id) {
+        LOGGER.debug("Finding the version of a to-do entry with id: {} from the primary database", id);
+
+        return primaryReadTransactionTemplate.execute(new TransactionCallback<Long>() {
+            @Override
+            public Long doInTransaction(TransactionStatus status) {
+                return repository.findVersionById(id);
+            }
+        });
+    }
+
+    private TodoDTO createDTO(Todo model) {
+        return new TodoDTO(model.getId(), model.getDescription(), model.getTitle(), model.getVersion());
+    }
+
+    /**
+     * A snapshot does not contain the creation and modification times of the to-do entry,
+     * so they are not set to the returned model.
+     */
+    private Todo createModel(TodoDTO snapshot) {
+        return Todo.getBuilder(snapshot.getTitle())
+                .id(snapshot.getId())
+                .description(snapshot.getDescription())
+                .version(snapshot.getVersion())
+                .build();
+    }
+
+    /**
+     * Subscribers must not see changes which are rolled back, so the event is published
+     * only after the transaction has been committed.
+     */
+    private void publishAfterCommit(final String eventName, final Object data) {
+        runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                todoEventBroadcaster.publish(eventName, data);
+            }
+        });
+    }
+
+    private void runAfterCommit(final Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Runs the task after the current transaction has been committed or rolled back.
+     */
+    private void runAfterCompletion(final Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                task.run();
+            }
+        });
+    }
+
     @PreAuthorize("hasPermission('Todo', 'search')")
     @Override
     public List<TodoDocument> search(String searchTerm, Pageable page) {
         LOGGER.debug("Search todo entries with search term: {} and page: {}", searchTerm, page);
-        return indexService.search(searchTerm, page);
+
+        long startTime = System.nanoTime();
+        List<TodoDocument> found = indexService.search(searchTerm, page);
+        searchTermTracker.record(searchTerm, System.nanoTime() - startTime, found.isEmpty());
+
+        return found;
+    }
+
+    @PreAuthorize("hasPermission('Todo', 'search')")
+    @Override
+    public Page<TodoDocument> searchPage(String searchTerm, Pageable page) {
+        LOGGER.debug("Search a page of todo entries with search term: {} and page: {}", searchTerm, page);
+
+        long startTime = System.nanoTime();
+        Page<TodoDocument> found = indexService.searchPage(searchTerm, page);
+        searchTermTracker.record(searchTerm, System.nanoTime() - startTime, found.getTotalElements() == 0);
+
+        return found;
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Override
+    public SearchTermStatisticsDTO getSearchTermStatistics() {
+        LOGGER.debug("Getting search term statistics");
+        return searchTermTracker.getStatistics();
     }
 }
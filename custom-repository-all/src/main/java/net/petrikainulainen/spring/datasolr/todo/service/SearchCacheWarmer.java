@@ -0,0 +1,364 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.common.solr.BackgroundSolrServer;
+import net.petrikainulainen.spring.datasolr.common.solr.StartupWarming;
+import net.petrikainulainen.spring.datasolr.user.dto.SecurityRole;
+import org.apache.solr.client.solrj.SolrServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+import javax.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warms the caches of the search index by replaying the most frequent search terms. The caches
+ * are warmed when the application is started and after the search index has been changed.
+ * <p>
+ * The most frequent search terms are written to a file when the application is stopped, so that
+ * they can be replayed when the application is started again. The startup warming is run in the
+ * background as soon as the Solr server is ready, so it does not block the startup of the
+ * application context, but the application does not report ready before the startup warming has
+ * finished or its time budget has run out (see {@link #isStartupWarmingDone()}). The warmings
+ * which follow changes of the search index are run at most once per minimum interval.
+ * </p>
+ * <p>
+ * If JIT warm-up iterations are configured, the read methods of the to-do service are also
+ * called repeatedly after the startup warming, so that the request path is compiled early.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class SearchCacheWarmer implements ApplicationListener<TodoIndexChangedEvent>, StartupWarming {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchCacheWarmer.class);
+
+    protected static final int WARM_UP_PAGE_SIZE = 10;
+
+    //Gives Solr time to commit the change and open a new searcher before the caches are warmed.
+    protected static final long INDEX_CHANGE_DELAY = 2000L;
+
+    protected static final String WARM_UP_USERNAME = "search-cache-warmer";
+
+    protected static final long SOLR_SERVER_READY_TIMEOUT = 300000L;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String THREAD_NAME_PREFIX = "search-cache-warmer-";
+
+    @Resource
+    private TodoIndexService indexService;
+
+    @Resource
+    private TodoService todoService;
+
+    @Resource
+    private SearchTermTracker searchTermTracker;
+
+    @Resource
+    private SolrServer solrServer;
+
+    private final AtomicBoolean warmingScheduled = new AtomicBoolean();
+
+    private final boolean enabled;
+
+    private final String termFile;
+
+    private final long timeBudget;
+
+    private final int threadCount;
+
+    private final int jitWarmUpIterations;
+
+    private final long minInterval;
+
+    private volatile long lastWarmingTime = 0;
+
+    private ExecutorService warmingExecutor;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Future<?> startupWarming;
+
+    private volatile long startupWarmingStartTime = 0;
+
+    /**
+     * Creates a new warmer.
+     * @param enabled   If this is false, the caches are not warmed.
+     * @param termFile  The path of the file which stores the most frequent search terms between restarts. If this is empty, the terms are not stored.
+     * @param timeBudget    The maximum duration of a single warming in milliseconds.
+     * @param threadCount   The number of search terms which are replayed concurrently.
+     * @param jitWarmUpIterations   The number of times the read methods of the to-do service are called at startup.
+     * @param minInterval   The minimum interval in milliseconds between the warmings which follow changes of the search index.
+     */
+    public SearchCacheWarmer(boolean enabled, String termFile, long timeBudget, int threadCount, int jitWarmUpIterations, long minInterval) {
+        this.enabled = enabled;
+        this.termFile = termFile;
+        this.timeBudget = timeBudget;
+        this.threadCount = threadCount;
+        this.jitWarmUpIterations = jitWarmUpIterations;
+        this.minInterval = minInterval;
+    }
+
+    /**
+     * Starts replaying the search terms which were stored when the application was stopped.
+     */
+    public void start() {
+        if (!enabled) {
+            LOGGER.info("Search cache warming is disabled");
+            return;
+        }
+
+        warmingExecutor = Executors.newFixedThreadPool(threadCount, new CustomizableThreadFactory(THREAD_NAME_PREFIX));
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(THREAD_NAME_PREFIX + "scheduler-"));
+
+        startupWarming = scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                warmAtStartup();
+            }
+        });
+    }
+
+    private void warmAtStartup() {
+        try {
+            if (!BackgroundSolrServer.awaitReady(solrServer, SOLR_SERVER_READY_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Solr server is not ready. Search caches are not warmed");
+                return;
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        startupWarmingStartTime = startTime;
+
+        List<String> terms = readTerms();
+        LOGGER.info("Warming search caches with {} search terms", terms.size());
+
+        warm(terms);
+        if (jitWarmUpIterations > 0) {
+            warmUpRequestPath(terms, startTime + timeBudget);
+        }
+
+        LOGGER.info("Warmed search caches in {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Returns true if the startup warming has finished, or if it has run longer than its time
+     * budget. Returns false while the startup warming is waiting for the Solr server, because
+     * the Solr server is not ready either.
+     */
+    @Override
+    public boolean isStartupWarmingDone() {
+        Future<?> warming = startupWarming;
+        if (warming == null || warming.isDone()) {
+            return true;
+        }
+
+        long startTime = startupWarmingStartTime;
+        return startTime > 0 && System.currentTimeMillis() - startTime > timeBudget;
+    }
+
+    /**
+     * Stores the most frequent search terms and stops the warming threads.
+     */
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+
+        writeTerms(searchTermTracker.getTopTerms());
+
+        scheduler.shutdownNow();
+        warmingExecutor.shutdownNow();
+    }
+
+    @Override
+    public void onApplicationEvent(TodoIndexChangedEvent event) {
+        if (!enabled || !warmingScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        long delay = Math.max(INDEX_CHANGE_DELAY, lastWarmingTime + minInterval - System.currentTimeMillis());
+        LOGGER.debug("Search index was changed. Warming search caches in {} ms", delay);
+
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                warmingScheduled.set(false);
+                try {
+                    warm(searchTermTracker.getTopTerms());
+                }
+                catch (RuntimeException ex) {
+                    LOGGER.error("Warming search caches failed", ex);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays the search terms concurrently. The searches which have not finished when the time
+     * budget runs out are cancelled.
+     * @return  The number of replayed search terms.
+     */
+    protected int warm(List<String> terms) {
+        lastWarmingTime = System.currentTimeMillis();
+
+        if (terms.isEmpty()) {
+            return 0;
+        }
+
+        List<Callable<Void>> searches = new ArrayList<Callable<Void>>(terms.size());
+        for (final String term: terms) {
+            searches.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    indexService.search(term, new PageRequest(0, WARM_UP_PAGE_SIZE));
+                    indexService.countSearchResults(term);
+                    return null;
+                }
+            });
+        }
+
+        try {
+            int replayed = 0;
+            for (Future<Void> search: warmingExecutor.invokeAll(searches, timeBudget, TimeUnit.MILLISECONDS)) {
+                if (!search.isCancelled()) {
+                    replayed++;
+                }
+            }
+            LOGGER.debug("Replayed {} of {} search terms", replayed, terms.size());
+            return replayed;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * Calls the read methods of the to-do service as a user which has the permission to read
+     * to-do entries. The search methods are not called, because they would record the searches.
+     */
+    private void warmUpRequestPath(List<String> terms, long deadline) {
+        SecurityContext original = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(createWarmUpSecurityContext());
+
+        try {
+            for (int iteration = 0; iteration < jitWarmUpIterations && System.currentTimeMillis() < deadline; iteration++) {
+                todoService.findLatest();
+                todoService.findAll(null, WARM_UP_PAGE_SIZE);
+                for (String term: terms) {
+                    todoService.countSearchResults(term);
+                }
+            }
+        }
+        catch (RuntimeException ex) {
+            LOGGER.warn("JIT warm-up failed", ex);
+        }
+        finally {
+            SecurityContextHolder.setContext(original);
+        }
+    }
+
+    private SecurityContext createWarmUpSecurityContext() {
+        List<GrantedAuthority> authorities = Collections.<GrantedAuthority>singletonList(new SimpleGrantedAuthority(SecurityRole.ROLE_USER.name()));
+        User user = new User(WARM_UP_USERNAME, "", authorities);
+
+        SecurityContext context = new SecurityContextImpl();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(user, null, authorities));
+        return context;
+    }
+
+    private List<String> readTerms() {
+        Set<String> terms = new LinkedHashSet<String>();
+
+        if (termFile != null && !termFile.isEmpty() && new File(termFile).isFile()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(termFile), UTF8));
+                String term;
+                while ((term = reader.readLine()) != null) {
+                    if (!term.isEmpty()) {
+                        terms.add(term);
+                    }
+                }
+            }
+            catch (IOException ex) {
+                LOGGER.warn("Cannot read search terms from file: {}", termFile, ex);
+            }
+            finally {
+                close(reader);
+            }
+        }
+
+        terms.addAll(searchTermTracker.getTopTerms());
+
+        return new ArrayList<String>(terms);
+    }
+
+    private void writeTerms(List<String> terms) {
+        if (termFile == null || termFile.isEmpty() || terms.isEmpty()) {
+            return;
+        }
+
+        BufferedWriter writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(termFile), UTF8));
+            for (String term: terms) {
+                writer.write(term);
+                writer.newLine();
+            }
+            LOGGER.debug("Wrote {} search terms to file: {}", terms.size(), termFile);
+        }
+        catch (IOException ex) {
+            LOGGER.warn("Cannot write search terms to file: {}", termFile, ex);
+        }
+        finally {
+            close(writer);
+        }
+    }
+
+    private void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (IOException ex) {
+                LOGGER.warn("Cannot close file: {}", termFile, ex);
+            }
+        }
+    }
+}
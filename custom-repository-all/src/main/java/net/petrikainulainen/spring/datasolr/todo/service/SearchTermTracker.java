@@ -0,0 +1,123 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.common.sketch.CountMinSketch;
+import net.petrikainulainen.spring.datasolr.common.sketch.HeavyHitters;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the most frequent search terms, the most frequent search terms which return no results,
+ * and the average latency of the searches of each term. The memory used by the statistics does
+ * not depend on the number of different search terms, and recording a search does not lock.
+ * <p>
+ * The latencies are summed in a Count-Min sketch of their own, so the average latency of a
+ * search term is an estimate which can be too large if the term collides with slower terms.
+ * </p>
+ * <p>
+ * The candidates of the most frequent search terms are pruned by a background thread, so that
+ * the search requests which record their terms do not sort them.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class SearchTermTracker {
+
+    private static final String PRUNE_THREAD_NAME = "search-term-tracker";
+
+    private final ExecutorService pruneExecutor;
+
+    private final HeavyHitters searches;
+
+    private final HeavyHitters zeroResultSearches;
+
+    private final CountMinSketch latencySums;
+
+    private final AtomicLong searchCount = new AtomicLong();
+
+    private final AtomicLong zeroResultSearchCount = new AtomicLong();
+
+    /**
+     * Creates a new tracker.
+     * @param termCount The number of reported search terms.
+     * @param sketchWidth   The width of the Count-Min sketches.
+     * @param sketchDepth   The depth of the Count-Min sketches.
+     */
+    public SearchTermTracker(int termCount, int sketchWidth, int sketchDepth) {
+        this.pruneExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, PRUNE_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        this.searches = new HeavyHitters(termCount, sketchWidth, sketchDepth, pruneExecutor);
+        this.zeroResultSearches = new HeavyHitters(termCount, sketchWidth, sketchDepth, pruneExecutor);
+        this.latencySums = new CountMinSketch(sketchWidth, sketchDepth);
+    }
+
+    public void shutdown() {
+        pruneExecutor.shutdownNow();
+    }
+
+    /**
+     * Records a search.
+     * @param searchTerm    The used search term.
+     * @param latencyNanos  The duration of the search in nanoseconds.
+     * @param zeroResults   true if the search returned no results.
+     */
+    public void record(String searchTerm, long latencyNanos, boolean zeroResults) {
+        String term = normalize(searchTerm);
+
+        searchCount.incrementAndGet();
+        searches.add(term);
+        latencySums.add(term, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+
+        if (zeroResults) {
+            zeroResultSearchCount.incrementAndGet();
+            zeroResultSearches.add(term);
+        }
+    }
+
+    /**
+     * Returns the most frequent search terms ordered by their search count.
+     */
+    public List<String> getTopTerms() {
+        return new ArrayList<String>(searches.getTop().keySet());
+    }
+
+    public SearchTermStatisticsDTO getStatistics() {
+        return new SearchTermStatisticsDTO(searchCount.get(),
+                zeroResultSearchCount.get(),
+                createTerms(searches.getTop()),
+                createTerms(zeroResultSearches.getTop())
+        );
+    }
+
+    private List<SearchTermDTO> createTerms(Map<String, Long> counts) {
+        List<SearchTermDTO> terms = new ArrayList<SearchTermDTO>(counts.size());
+
+        for (Map.Entry<String, Long> count: counts.entrySet()) {
+            String term = count.getKey();
+            long searchCount = searches.estimate(term);
+            long averageLatency = searchCount == 0 ? 0 : latencySums.estimate(term) / searchCount;
+            terms.add(new SearchTermDTO(term, count.getValue(), averageLatency));
+        }
+
+        return terms;
+    }
+
+    private String normalize(String searchTerm) {
+        return searchTerm.trim().toLowerCase(Locale.ENGLISH);
+    }
+}
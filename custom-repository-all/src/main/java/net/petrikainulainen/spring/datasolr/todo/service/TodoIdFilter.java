@@ -0,0 +1,292 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.common.bloom.ScalableBloomFilter;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells which to-do entries do not exist without querying the database. The ids of the existing
+ * to-do entries are kept in a scalable Bloom filter, and the ids which were not found from the
+ * database are kept in a small negative cache for a short time.
+ * <p>
+ * Deleted ids cannot be removed from a Bloom filter, so the filter is rebuilt from the database
+ * periodically. Ids which are added while the filter is rebuilt are added to both filters. The ids
+ * of to-do entries whose transaction has not been completed yet are kept as pending ids, and every
+ * rebuilt filter contains them, because the rebuild cannot see uncommitted rows. The filter does
+ * not answer before it has been built for the first time.
+ * </p>
+ * <p>
+ * The ids are read from the primary database. A replica which lags behind the primary would
+ * leave out the newest ids, and the filter would claim that they do not exist until the next rebuild.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class TodoIdFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TodoIdFilter.class);
+
+    protected static final int REBUILD_BATCH_SIZE = 10000;
+
+    private static final String PROPERTY_NAME_ID = "id";
+
+    private static final String THREAD_NAME = "todo-id-filter";
+
+    @Resource
+    private TodoRepository repository;
+
+    @Resource
+    private TransactionTemplate primaryReadTransactionTemplate;
+
+    private final Object lock = new Object();
+
+    private final Map<Long, Long> missingIds = new ConcurrentHashMap<Long, Long>();
+
+    private final boolean enabled;
+
+    private final int expectedIdCount;
+
+    private final double falsePositiveProbability;
+
+    private final long negativeCacheTtl;
+
+    private final int negativeCacheSize;
+
+    private final long rebuildInterval;
+
+    private volatile ScalableBloomFilter existingIds;
+
+    private List<Long> idsAddedDuringRebuild;
+
+    private final Set<Long> pendingIds = new HashSet<Long>();
+
+    private ScheduledExecutorService rebuildExecutor;
+
+    /**
+     * Creates a new filter.
+     * @param enabled   If this is false, the filter never tells that a to-do entry does not exist.
+     * @param expectedIdCount   The number of ids which fit into the filter before it grows.
+     * @param falsePositiveProbability  The probability that the filter cannot tell that an id does not exist.
+     * @param negativeCacheTtl  The time in milliseconds for which a missing id is remembered.
+     * @param negativeCacheSize The maximum number of remembered missing ids.
+     * @param rebuildInterval   The interval in milliseconds at which the filter is rebuilt.
+     */
+    public TodoIdFilter(boolean enabled,
+                        int expectedIdCount,
+                        double falsePositiveProbability,
+                        long negativeCacheTtl,
+                        int negativeCacheSize,
+                        long rebuildInterval) {
+        this.enabled = enabled;
+        this.expectedIdCount = expectedIdCount;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.negativeCacheTtl = negativeCacheTtl;
+        this.negativeCacheSize = negativeCacheSize;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    /**
+     * Builds the filter in a background thread and schedules the periodic rebuilds.
+     */
+    public void start() {
+        if (!enabled) {
+            LOGGER.info("To-do id filter is disabled");
+            return;
+        }
+
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        rebuildExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    rebuild();
+                }
+                catch (RuntimeException ex) {
+                    LOGGER.error("Rebuilding the to-do id filter failed", ex);
+                }
+            }
+        }, 0, rebuildInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns true if the to-do entry definitely does not exist. Returns false if it may exist.
+     */
+    public boolean isMissing(Long id) {
+        if (!enabled) {
+            return false;
+        }
+
+        Long expirationTime = missingIds.get(id);
+        if (expirationTime != null) {
+            if (expirationTime > System.currentTimeMillis()) {
+                return true;
+            }
+            missingIds.remove(id);
+        }
+
+        ScalableBloomFilter filter = existingIds;
+        return filter != null && !filter.mightContain(id);
+    }
+
+    /**
+     * Adds the id of a new to-do entry. This must be called before the transaction which adds
+     * the to-do entry is committed, and {@link #completed(Long)} must be called after the
+     * transaction has been committed or rolled back.
+     */
+    public void added(Long id) {
+        if (!enabled) {
+            return;
+        }
+
+        missingIds.remove(id);
+
+        synchronized (lock) {
+            pendingIds.add(id);
+            addToFilters(id);
+        }
+    }
+
+    /**
+     * Marks the transaction which added the id as completed. The id is added again, because a
+     * rebuild which read the ids before the transaction was committed may have replaced the
+     * filter after the id was added. An id whose transaction was rolled back stays in the filter
+     * until the next rebuild, which costs only a database query.
+     */
+    public void completed(Long id) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (lock) {
+            pendingIds.remove(id);
+            addToFilters(id);
+        }
+    }
+
+    private void addToFilters(Long id) {
+        if (existingIds != null) {
+            existingIds.add(id);
+        }
+        if (idsAddedDuringRebuild != null) {
+            idsAddedDuringRebuild.add(id);
+        }
+    }
+
+    /**
+     * Remembers an id which was not found from the database or which was deleted.
+     */
+    public void missing(Long id) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        if (missingIds.size() >= negativeCacheSize) {
+            removeExpired(now);
+            if (missingIds.size() >= negativeCacheSize) {
+                return;
+            }
+        }
+
+        missingIds.put(id, now + negativeCacheTtl);
+    }
+
+    /**
+     * Builds a new filter from the ids which are found from the database and replaces the
+     * current filter with it.
+     */
+    public void rebuild() {
+        LOGGER.debug("Rebuilding to-do id filter");
+
+        synchronized (lock) {
+            idsAddedDuringRebuild = new ArrayList<Long>();
+        }
+
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(expectedIdCount, falsePositiveProbability);
+        long idCount = 0;
+
+        try {
+            Long lastId = 0L;
+            while (true) {
+                List<Long> ids = findIdsFromPrimary(lastId);
+                for (Long id: ids) {
+                    rebuilt.add(id);
+                }
+                idCount += ids.size();
+
+                if (ids.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = ids.get(ids.size() - 1);
+            }
+
+            synchronized (lock) {
+                for (Long id: idsAddedDuringRebuild) {
+                    rebuilt.add(id);
+                }
+                for (Long id: pendingIds) {
+                    rebuilt.add(id);
+                }
+                existingIds = rebuilt;
+            }
+        }
+        finally {
+            synchronized (lock) {
+                idsAddedDuringRebuild = null;
+            }
+        }
+
+        LOGGER.debug("Rebuilt to-do id filter with {} ids", idCount);
+    }
+
+    private List<Long> findIdsFromPrimary(final Long lastId) {
+        return primaryReadTransactionTemplate.execute(new TransactionCallback<List<Long>>() {
+            @Override
+            public List<Long> doInTransaction(TransactionStatus status) {
+                return repository.findIdsByIdGreaterThan(lastId,
+                        new PageRequest(0, REBUILD_BATCH_SIZE, Sort.Direction.ASC, PROPERTY_NAME_ID)
+                );
+            }
+        });
+    }
+
+    private void removeExpired(long now) {
+        for (Map.Entry<Long, Long> missingId: missingIds.entrySet()) {
+            if (missingId.getValue() <= now) {
+                missingIds.remove(missingId.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Is published after a transaction which changed the search index has been committed.
+ * @author Petri Kainulainen
+ */
+public class TodoIndexChangedEvent extends ApplicationEvent {
+
+    /**
+     * @param id    The id of the changed to-do entry.
+     */
+    public TodoIndexChangedEvent(Long id) {
+        super(id);
+    }
+
+    public Long getId() {
+        return (Long) getSource();
+    }
+}
@@ -2,6 +2,7 @@ package net.petrikainulainen.spring.datasolr.todo.service;
 
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
@@ -19,5 +20,7 @@ public interface TodoIndexService {
 
     public List<TodoDocument> search(String searchTerm, Pageable page);
 
+    public Page<TodoDocument> searchPage(String searchTerm, Pageable page);
+
     public void update(Todo todoEntry);
 }
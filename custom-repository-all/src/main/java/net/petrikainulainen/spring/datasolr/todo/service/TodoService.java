@@ -1,11 +1,20 @@
 package net.petrikainulainen.spring.datasolr.todo.service;
 
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import net.petrikainulainen.spring.datasolr.todo.dto.ChangeFeedDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.exception.InvalidChangeTokenException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TodoConflictException;
 import net.petrikainulainen.spring.datasolr.todo.exception.TodoNotFoundException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TooManyIdsException;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoCallback;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -28,18 +37,54 @@ public interface TodoService {
     public long countSearchResults(String searchTerm);
 
     /**
-     * Deletes a to-do entry.
+     * Deletes a to-do entry without reading it from the database first.
      * @param id    The id of the deleted to-do entry.
-     * @return  The deleted to-do entry.
      * @throws TodoNotFoundException    if no to-do entry is found with the given id.
      */
-    public Todo deleteById(Long id) throws TodoNotFoundException;
+    public void deleteById(Long id) throws TodoNotFoundException;
 
     /**
-     * Returns a list of to-do entries.
-     * @return
+     * Returns the latest to-do entries ordered by their creation time. The to-do entries are
+     * read from memory.
+     * @return  The latest to-do entries. The latest to-do entry is the first entry of the list.
      */
-    public List<Todo> findAll();
+    public List<TodoDTO> findLatest();
+
+    /**
+     * Returns a page of to-do entries ordered by id. The page is identified by the id of
+     * the last to-do entry of the previous page (keyset pagination).
+     * @param lastId    The id of the last to-do entry of the previous page. If this is null, the first page is returned.
+     * @param pageSize  The maximum number of returned to-do entries.
+     * @return  The list of to-do entries. If no more to-do entries are found, the method returns an empty list.
+     */
+    public List<TodoDTO> findAll(Long lastId, int pageSize);
+
+    /**
+     * Finds the to-do entries which have been created, modified or deleted after the given
+     * position of the change feed. The changes are ordered by their time and the id of the
+     * to-do entry. The changes are always read from the primary database.
+     * @param since The change token returned by the previous request. If this is null, the changes are read from the beginning.
+     * @param pageSize  The maximum number of returned changes.
+     * @return  The found changes and the token of the next request.
+     * @throws InvalidChangeTokenException  If the given change token is not valid.
+     */
+    public ChangeFeedDTO findChanges(String since, int pageSize) throws InvalidChangeTokenException;
+
+    /**
+     * Passes all to-do entries to the given callback in ascending id order without loading
+     * them into memory at the same time.
+     * @param callback  The callback which processes the to-do entries.
+     * @throws IOException  If the callback cannot process a to-do entry.
+     */
+    public void processAll(TodoCallback callback) throws IOException;
+
+    /**
+     * Finds the to-do entries which ids are given as a method parameter.
+     * @param ids   The ids of the wanted to-do entries.
+     * @return  The found to-do entries in the order of the given ids. Unknown and duplicate ids are left out.
+     * @throws TooManyIdsException  If more ids are given than can be found with a single request.
+     */
+    public List<TodoDTO> findByIds(List<Long> ids) throws TooManyIdsException;
 
     /**
      * Finds a to-do entry.
@@ -50,12 +95,31 @@ public interface TodoService {
     public Todo findById(Long id) throws TodoNotFoundException;
 
     /**
-     * Updates the information of a to-do entry.
+     * Finds the version of a to-do entry without loading the whole to-do entry.
+     * @param id    The id of the to-do entry.
+     * @return  The version of the to-do entry.
+     * @throws TodoNotFoundException    if no to-do entry is found with the given id.
+     */
+    public long findVersionById(Long id) throws TodoNotFoundException;
+
+    /**
+     * Returns the broadcaster which sends an event when a to-do entry is added, updated or deleted.
+     * The caller must be allowed to list to-do entries, so an event stream should be opened only
+     * after this method has returned.
+     * @return  The broadcaster of the to-do entry changes.
+     */
+    public EventBroadcaster getChangeBroadcaster();
+
+    /**
+     * Updates the information of a to-do entry without reading it from the database first.
+     * The update succeeds only if the version of the to-do entry matches with the version
+     * of the given DTO.
      * @param updated   The information of the updated to-do entry.
-     * @return  The updated to-do entry.
+     * @return  The updated to-do entry. Its creation time is not set.
      * @throws TodoNotFoundException    If no to-do entry is found with the given id.
+     * @throws TodoConflictException    If the to-do entry was modified after the given version was read.
      */
-    public Todo update(TodoDTO updated) throws TodoNotFoundException;
+    public Todo update(TodoDTO updated) throws TodoNotFoundException, TodoConflictException;
 
     /**
      * Searches the todo entries which title or description contains the given search term.
@@ -63,4 +127,20 @@ public interface TodoService {
      * @return The list of todo entries. If matching todo entries are not found, the method returns an empty list.
      */
     public List<TodoDocument> search(String searchTerm, Pageable page);
+
+    /**
+     * Searches the todo entries which title or description contains the given search term and
+     * returns the requested page together with the search result count.
+     * @param searchTerm    The search term.
+     * @param page  The requested page.
+     * @return  The found page of todo entries.
+     */
+    public Page<TodoDocument> searchPage(String searchTerm, Pageable page);
+
+    /**
+     * Returns the most frequent search terms, the most frequent search terms which returned
+     * no results, and the average search latencies of these terms.
+     * @return  The search term statistics.
+     */
+    public SearchTermStatisticsDTO getSearchTermStatistics();
 }
@@ -0,0 +1,131 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.common.offheap.OffHeapStore;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Keeps serialized snapshots of to-do entries in an off-heap store, so that single to-do entries can
+ * be read without a database query and without keeping the entries on the Java heap. The store is
+ * disabled when its capacity is zero.
+ * <p>
+ * A snapshot contains the version, the description and the title of a to-do entry. The description
+ * is prefixed with its length (-1 means null) and the title fills the rest of the snapshot.
+ * </p>
+ * @author Petri Kainulainen
+ */
+public class TodoSnapshotStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TodoSnapshotStore.class);
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int NULL_LENGTH = -1;
+
+    private final OffHeapStore store;
+
+    /**
+     * Creates a new snapshot store.
+     * @param capacity  The size of the off-heap buffer in bytes. Zero disables the store.
+     */
+    public TodoSnapshotStore(int capacity) {
+        if (capacity > 0) {
+            LOGGER.info("Allocating {} bytes for to-do entry snapshots", capacity);
+            this.store = new OffHeapStore(capacity);
+        }
+        else {
+            LOGGER.info("To-do entry snapshots are disabled");
+            this.store = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Returns the snapshot of the to-do entry or null if it is not found from the store.
+     */
+    public TodoDTO find(Long id) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        byte[] snapshot = store.get(id);
+        if (snapshot == null) {
+            return null;
+        }
+
+        return deserialize(id, snapshot);
+    }
+
+    /**
+     * Stores the snapshot of a new or updated to-do entry unless a newer snapshot has already been stored.
+     */
+    public void put(TodoDTO todo) {
+        if (isEnabled()) {
+            store.put(todo.getId(), todo.getVersion(), serialize(todo));
+        }
+    }
+
+    /**
+     * Stores a snapshot which was read from the database unless the to-do entry was changed or deleted
+     * after it was read. A snapshot which is older than the latest committed snapshot is never stored,
+     * so a read which finishes after a concurrent update cannot put back the old version.
+     */
+    public void putIfAbsent(TodoDTO todo) {
+        if (isEnabled()) {
+            store.putIfAbsent(todo.getId(), todo.getVersion(), serialize(todo));
+        }
+    }
+
+    /**
+     * Removes the snapshot of a deleted to-do entry.
+     */
+    public void remove(Long id) {
+        if (isEnabled()) {
+            store.remove(id);
+        }
+    }
+
+    private byte[] serialize(TodoDTO todo) {
+        byte[] description = todo.getDescription() == null ? null : todo.getDescription().getBytes(UTF8);
+        byte[] title = todo.getTitle().getBytes(UTF8);
+
+        int descriptionLength = description == null ? 0 : description.length;
+        ByteBuffer snapshot = ByteBuffer.allocate(8 + 4 + descriptionLength + title.length);
+
+        snapshot.putLong(todo.getVersion());
+        if (description == null) {
+            snapshot.putInt(NULL_LENGTH);
+        }
+        else {
+            snapshot.putInt(description.length);
+            snapshot.put(description);
+        }
+        snapshot.put(title);
+
+        return snapshot.array();
+    }
+
+    private TodoDTO deserialize(Long id, byte[] snapshot) {
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+
+        long version = buffer.getLong();
+
+        String description = null;
+        int descriptionLength = buffer.getInt();
+        if (descriptionLength != NULL_LENGTH) {
+            description = new String(snapshot, buffer.position(), descriptionLength, UTF8);
+            buffer.position(buffer.position() + descriptionLength);
+        }
+
+        String title = new String(snapshot, buffer.position(), buffer.remaining(), UTF8);
+
+        return new TodoDTO(id, description, title, version);
+    }
+}
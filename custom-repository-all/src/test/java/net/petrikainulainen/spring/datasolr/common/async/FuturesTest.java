@@ -0,0 +1,92 @@
+package net.petrikainulainen.spring.datasolr.common.async;
+
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.solr.UncategorizedSolrException;
+import org.springframework.scheduling.annotation.AsyncResult;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class FuturesTest {
+
+    private static final long TIMEOUT = 100L;
+    private static final String RESULT = "result";
+
+    @Test
+    public void getResult_FutureIsCompleted_ShouldReturnResult() {
+        String actual = Futures.getResult(new AsyncResult<String>(RESULT), TIMEOUT);
+        assertEquals(RESULT, actual);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getResult_TaskThrewRuntimeException_ShouldRethrowException() throws Exception {
+        Future<String> future = mockFuture();
+        when(future.get(TIMEOUT, TimeUnit.MILLISECONDS)).thenThrow(new ExecutionException(new IllegalStateException()));
+
+        Futures.getResult(future, TIMEOUT);
+    }
+
+    @Test(expected = UncategorizedSolrException.class)
+    public void getResult_TaskThrewCheckedException_ShouldThrowUncategorizedSolrException() throws Exception {
+        Future<String> future = mockFuture();
+        when(future.get(TIMEOUT, TimeUnit.MILLISECONDS)).thenThrow(new ExecutionException(new IOException()));
+
+        Futures.getResult(future, TIMEOUT);
+    }
+
+    @Test
+    public void getResult_Timeout_ShouldCancelTaskAndThrowException() throws Exception {
+        Future<String> future = mockFuture();
+        when(future.get(TIMEOUT, TimeUnit.MILLISECONDS)).thenThrow(new TimeoutException());
+
+        try {
+            Futures.getResult(future, TIMEOUT);
+        }
+        catch (QueryTimeoutException ex) {
+            verify(future, times(1)).cancel(true);
+            return;
+        }
+
+        throw new AssertionError("Expected QueryTimeoutException");
+    }
+
+    @Test
+    public void getResultBefore_DeadlineHasPassedButResultIsAvailable_ShouldReturnResult() {
+        long deadline = Futures.createDeadline(-TIMEOUT);
+
+        String actual = Futures.getResultBefore(new AsyncResult<String>(RESULT), deadline);
+        assertEquals(RESULT, actual);
+    }
+
+    @Test
+    public void getResultBefore_DeadlineHasPassed_ShouldCancelTaskWithoutWaiting() throws Exception {
+        Future<String> future = mockFuture();
+        when(future.get(0L, TimeUnit.MILLISECONDS)).thenThrow(new TimeoutException());
+
+        try {
+            Futures.getResultBefore(future, Futures.createDeadline(-TIMEOUT));
+        }
+        catch (QueryTimeoutException ex) {
+            verify(future, times(1)).get(0L, TimeUnit.MILLISECONDS);
+            verify(future, times(1)).cancel(true);
+            return;
+        }
+
+        throw new AssertionError("Expected QueryTimeoutException");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Future<String> mockFuture() {
+        return mock(Future.class);
+    }
+}
@@ -0,0 +1,88 @@
+package net.petrikainulainen.spring.datasolr.common.async;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class InstrumentedThreadPoolExecutorTest {
+
+    private static final int POOL_SIZE = 1;
+    private static final int QUEUE_CAPACITY = 1;
+    private static final String THREAD_NAME_PREFIX = "test-";
+
+    private InstrumentedThreadPoolExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new InstrumentedThreadPoolExecutor(POOL_SIZE, QUEUE_CAPACITY, THREAD_NAME_PREFIX);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void execute_TaskSucceedsAndFails_ShouldUpdateCounters() throws InterruptedException {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(2, executor.getSubmittedTaskCount());
+        assertEquals(1, executor.getSucceededTaskCount());
+        assertEquals(1, executor.getFailedTaskCount());
+        assertEquals(0, executor.getRejectedTaskCount());
+    }
+
+    @Test
+    public void execute_ExecutorIsSaturated_ShouldCountRejectedTask() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+
+        try {
+            executor.execute(blocking);
+            fail("Expected RejectedExecutionException");
+        }
+        catch (RejectedExecutionException ex) {
+            assertEquals(1, executor.getRejectedTaskCount());
+        }
+        finally {
+            release.countDown();
+        }
+    }
+}
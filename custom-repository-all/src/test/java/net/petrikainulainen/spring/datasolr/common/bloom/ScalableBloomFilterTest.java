@@ -0,0 +1,87 @@
+package net.petrikainulainen.spring.datasolr.common.bloom;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ScalableBloomFilterTest {
+
+    private static final int INITIAL_CAPACITY = 1000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Test
+    public void mightContain_KeyIsNotAdded_ShouldReturnFalse() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(INITIAL_CAPACITY, FALSE_POSITIVE_PROBABILITY);
+
+        assertFalse(filter.mightContain(1L));
+    }
+
+    @Test
+    public void mightContain_KeysAreAdded_ShouldReturnTrueForEveryKey() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(INITIAL_CAPACITY, FALSE_POSITIVE_PROBABILITY);
+
+        for (long key = 1; key <= 10 * INITIAL_CAPACITY; key++) {
+            filter.add(key);
+        }
+
+        for (long key = 1; key <= 10 * INITIAL_CAPACITY; key++) {
+            assertTrue(filter.mightContain(key));
+        }
+        assertEquals(10L * INITIAL_CAPACITY, filter.getKeyCount());
+    }
+
+    @Test
+    public void add_FilterIsFull_ShouldAddNewFilter() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(INITIAL_CAPACITY, FALSE_POSITIVE_PROBABILITY);
+
+        for (long key = 1; key <= INITIAL_CAPACITY; key++) {
+            filter.add(key);
+        }
+        assertEquals(1, filter.getFilterCount());
+
+        filter.add(INITIAL_CAPACITY + 1);
+        assertEquals(2, filter.getFilterCount());
+
+        //The second filter has twice the capacity of the first one.
+        for (long key = INITIAL_CAPACITY + 2; key <= 3 * INITIAL_CAPACITY; key++) {
+            filter.add(key);
+        }
+        assertEquals(2, filter.getFilterCount());
+    }
+
+    @Test
+    public void mightContain_FilterHasGrown_ShouldKeepFalsePositiveRateLow() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(INITIAL_CAPACITY, FALSE_POSITIVE_PROBABILITY);
+
+        int keyCount = 20 * INITIAL_CAPACITY;
+        for (long key = 1; key <= keyCount; key++) {
+            filter.add(key);
+        }
+
+        int falsePositives = 0;
+        int lookupCount = 100000;
+        for (long key = keyCount + 1; key <= keyCount + lookupCount; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue("False positive rate was: " + (double) falsePositives / lookupCount,
+                falsePositives < lookupCount * FALSE_POSITIVE_PROBABILITY * 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_CapacityIsZero_ShouldThrowException() {
+        new ScalableBloomFilter(0, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_FalsePositiveProbabilityIsOne_ShouldThrowException() {
+        new ScalableBloomFilter(INITIAL_CAPACITY, 1.0);
+    }
+}
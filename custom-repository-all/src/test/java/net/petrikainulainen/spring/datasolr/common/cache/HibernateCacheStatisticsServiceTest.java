@@ -0,0 +1,91 @@
+package net.petrikainulainen.spring.datasolr.common.cache;
+
+import net.petrikainulainen.spring.datasolr.common.dto.CacheStatisticsDTO;
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.hibernate.SessionFactory;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class HibernateCacheStatisticsServiceTest {
+
+    private static final long ELEMENT_COUNT = 3;
+    private static final long HIT_COUNT = 6;
+    private static final long MISS_COUNT = 2;
+    private static final long PUT_COUNT = 4;
+
+    private HibernateCacheStatisticsService service;
+
+    private Statistics statisticsMock;
+
+    @Before
+    public void setUp() {
+        service = new HibernateCacheStatisticsService();
+
+        HibernateEntityManagerFactory entityManagerFactoryMock = mock(HibernateEntityManagerFactory.class);
+        SessionFactory sessionFactoryMock = mock(SessionFactory.class);
+        statisticsMock = mock(Statistics.class);
+
+        when(entityManagerFactoryMock.getSessionFactory()).thenReturn(sessionFactoryMock);
+        when(sessionFactoryMock.getStatistics()).thenReturn(statisticsMock);
+
+        ReflectionTestUtils.setField(service, "entityManagerFactory", entityManagerFactoryMock);
+    }
+
+    @Test
+    public void getTodoCacheStatistics_StatisticsDisabled_ShouldReturnDisabledStatistics() {
+        when(statisticsMock.isStatisticsEnabled()).thenReturn(false);
+
+        CacheStatisticsDTO actual = service.getTodoCacheStatistics();
+
+        verify(statisticsMock, times(1)).isStatisticsEnabled();
+        verifyNoMoreInteractions(statisticsMock);
+
+        assertEquals(Todo.CACHE_REGION, actual.getRegion());
+        assertFalse(actual.isEnabled());
+    }
+
+    @Test
+    public void getTodoCacheStatistics_CacheRegionNotFound_ShouldReturnDisabledStatistics() {
+        when(statisticsMock.isStatisticsEnabled()).thenReturn(true);
+        when(statisticsMock.getSecondLevelCacheStatistics(Todo.CACHE_REGION)).thenReturn(null);
+
+        CacheStatisticsDTO actual = service.getTodoCacheStatistics();
+
+        assertEquals(Todo.CACHE_REGION, actual.getRegion());
+        assertFalse(actual.isEnabled());
+    }
+
+    @Test
+    public void getTodoCacheStatistics_CacheRegionFound_ShouldReturnStatistics() {
+        SecondLevelCacheStatistics regionStatisticsMock = mock(SecondLevelCacheStatistics.class);
+        when(regionStatisticsMock.getHitCount()).thenReturn(HIT_COUNT);
+        when(regionStatisticsMock.getMissCount()).thenReturn(MISS_COUNT);
+        when(regionStatisticsMock.getPutCount()).thenReturn(PUT_COUNT);
+        when(regionStatisticsMock.getElementCountInMemory()).thenReturn(ELEMENT_COUNT);
+
+        when(statisticsMock.isStatisticsEnabled()).thenReturn(true);
+        when(statisticsMock.getSecondLevelCacheStatistics(Todo.CACHE_REGION)).thenReturn(regionStatisticsMock);
+
+        CacheStatisticsDTO actual = service.getTodoCacheStatistics();
+
+        assertEquals(Todo.CACHE_REGION, actual.getRegion());
+        assertTrue(actual.isEnabled());
+        assertEquals(HIT_COUNT, actual.getHitCount());
+        assertEquals(MISS_COUNT, actual.getMissCount());
+        assertEquals(PUT_COUNT, actual.getPutCount());
+        assertEquals(ELEMENT_COUNT, actual.getElementCountInMemory());
+        assertEquals(0.75, actual.getHitRatio(), 0.0001);
+    }
+}
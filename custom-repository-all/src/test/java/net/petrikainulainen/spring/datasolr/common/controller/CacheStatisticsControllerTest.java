@@ -0,0 +1,41 @@
+package net.petrikainulainen.spring.datasolr.common.controller;
+
+import net.petrikainulainen.spring.datasolr.common.cache.CacheStatisticsService;
+import net.petrikainulainen.spring.datasolr.common.dto.CacheStatisticsDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class CacheStatisticsControllerTest {
+
+    private CacheStatisticsController controller;
+
+    private CacheStatisticsService cacheStatisticsServiceMock;
+
+    @Before
+    public void setUp() {
+        controller = new CacheStatisticsController();
+
+        cacheStatisticsServiceMock = mock(CacheStatisticsService.class);
+        ReflectionTestUtils.setField(controller, "cacheStatisticsService", cacheStatisticsServiceMock);
+    }
+
+    @Test
+    public void getTodoCacheStatistics_ShouldReturnStatistics() {
+        CacheStatisticsDTO expected = new CacheStatisticsDTO("region", true, 1, 2, 3, 4);
+        when(cacheStatisticsServiceMock.getTodoCacheStatistics()).thenReturn(expected);
+
+        CacheStatisticsDTO actual = controller.getTodoCacheStatistics();
+
+        verify(cacheStatisticsServiceMock, times(1)).getTodoCacheStatistics();
+        verifyNoMoreInteractions(cacheStatisticsServiceMock);
+
+        assertEquals(expected, actual);
+    }
+}
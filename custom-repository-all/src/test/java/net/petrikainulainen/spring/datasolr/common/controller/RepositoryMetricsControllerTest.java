@@ -0,0 +1,44 @@
+package net.petrikainulainen.spring.datasolr.common.controller;
+
+import net.petrikainulainen.spring.datasolr.common.dto.RepositoryMethodMetricsDTO;
+import net.petrikainulainen.spring.datasolr.common.metrics.RepositoryMetricsService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsControllerTest {
+
+    private RepositoryMetricsController controller;
+
+    private RepositoryMetricsService repositoryMetricsServiceMock;
+
+    @Before
+    public void setUp() {
+        controller = new RepositoryMetricsController();
+
+        repositoryMetricsServiceMock = mock(RepositoryMetricsService.class);
+        ReflectionTestUtils.setField(controller, "repositoryMetricsService", repositoryMetricsServiceMock);
+    }
+
+    @Test
+    public void getRepositoryMetrics_ShouldReturnMetrics() {
+        List<RepositoryMethodMetricsDTO> expected = Arrays.asList(new RepositoryMethodMetricsDTO());
+        when(repositoryMetricsServiceMock.getRepositoryMetrics()).thenReturn(expected);
+
+        List<RepositoryMethodMetricsDTO> actual = controller.getRepositoryMetrics();
+
+        verify(repositoryMetricsServiceMock, times(1)).getRepositoryMetrics();
+        verifyNoMoreInteractions(repositoryMetricsServiceMock);
+
+        assertEquals(expected, actual);
+    }
+}
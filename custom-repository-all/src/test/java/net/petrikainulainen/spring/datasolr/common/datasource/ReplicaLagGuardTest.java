@@ -0,0 +1,87 @@
+package net.petrikainulainen.spring.datasolr.common.datasource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ReplicaLagGuardTest {
+
+    private static final long MAX_LAG_SECONDS = 10;
+
+    private static final String LAG_QUERY = "SELECT lag";
+
+    private ReplicaLagGuard guard;
+
+    private DataSource replicaMock;
+
+    private Connection connectionMock;
+
+    private ResultSet resultSetMock;
+
+    @Before
+    public void setUp() throws SQLException {
+        guard = new ReplicaLagGuard(LAG_QUERY, MAX_LAG_SECONDS);
+
+        replicaMock = mock(DataSource.class);
+        connectionMock = mock(Connection.class);
+        Statement statementMock = mock(Statement.class);
+        resultSetMock = mock(ResultSet.class);
+
+        when(replicaMock.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.createStatement()).thenReturn(statementMock);
+        when(statementMock.executeQuery(LAG_QUERY)).thenReturn(resultSetMock);
+    }
+
+    @Test
+    public void isEnabled_LagQueryGiven_ShouldReturnTrue() {
+        assertTrue(guard.isEnabled());
+    }
+
+    @Test
+    public void isEnabled_LagQueryIsEmpty_ShouldReturnFalse() {
+        assertFalse(new ReplicaLagGuard("", MAX_LAG_SECONDS).isEnabled());
+    }
+
+    @Test
+    public void isInSync_LagIsWithinLimit_ShouldReturnTrue() throws SQLException {
+        when(resultSetMock.next()).thenReturn(true);
+        when(resultSetMock.getLong(1)).thenReturn(MAX_LAG_SECONDS);
+
+        assertTrue(guard.isInSync(replicaMock));
+        verify(connectionMock, times(1)).close();
+    }
+
+    @Test
+    public void isInSync_LagExceedsLimit_ShouldReturnFalse() throws SQLException {
+        when(resultSetMock.next()).thenReturn(true);
+        when(resultSetMock.getLong(1)).thenReturn(MAX_LAG_SECONDS + 1);
+
+        assertFalse(guard.isInSync(replicaMock));
+    }
+
+    @Test
+    public void isInSync_NoRowsReturned_ShouldReturnFalse() throws SQLException {
+        when(resultSetMock.next()).thenReturn(false);
+
+        assertFalse(guard.isInSync(replicaMock));
+    }
+
+    @Test
+    public void isInSync_ReplicaCannotBeQueried_ShouldReturnFalse() throws SQLException {
+        when(replicaMock.getConnection()).thenThrow(new SQLException());
+
+        assertFalse(guard.isInSync(replicaMock));
+    }
+}
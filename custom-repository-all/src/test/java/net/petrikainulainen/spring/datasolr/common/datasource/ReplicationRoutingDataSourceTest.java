@@ -0,0 +1,138 @@
+package net.petrikainulainen.spring.datasolr.common.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ReplicationRoutingDataSourceTest {
+
+    private static final long MAX_LAG_SECONDS = 10;
+
+    private static final String NAME_PRIMARY = "primary";
+    private static final String NAME_REPLICA = "replica";
+
+    private static final String QUERY_LAG = "SELECT lag_seconds FROM replica_lag";
+    private static final String QUERY_NAME = "SELECT name FROM database_name";
+
+    private ReplicationRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    @Before
+    public void setUp() {
+        DataSource primary = createDatabase(NAME_PRIMARY);
+        DataSource replica = createDatabase(NAME_REPLICA);
+
+        replicaJdbcTemplate = new JdbcTemplate(replica);
+        replicaJdbcTemplate.execute("CREATE TABLE replica_lag (lag_seconds BIGINT)");
+        replicaJdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+
+        routingDataSource = new ReplicationRoutingDataSource(primary, Arrays.asList(replica));
+        routingDataSource.setLagGuard(new ReplicaLagGuard(QUERY_LAG, MAX_LAG_SECONDS));
+        routingDataSource.setLagCheckIntervalMillis(Long.MAX_VALUE);
+        routingDataSource.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(routingDataSource));
+    }
+
+    private DataSource createDatabase(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE database_name (name VARCHAR(20))");
+        template.update("INSERT INTO database_name VALUES (?)", name);
+
+        return dataSource;
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        routingDataSource.shutdown();
+
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        replicaJdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void getConnection_ReadWriteTransaction_ShouldUsePrimary() {
+        assertEquals(NAME_PRIMARY, queryDatabaseName());
+    }
+
+    @Test
+    public void getConnection_ReadOnlyTransaction_ShouldUseReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(NAME_REPLICA, queryDatabaseName());
+    }
+
+    @Test
+    public void getConnection_ReadOnlyTransactionAndReplicaIsLagging_ShouldUsePrimary() {
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_seconds = ?", MAX_LAG_SECONDS + 1);
+        routingDataSource.checkReplicaLag();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(1, routingDataSource.getLaggingReplicaCount());
+        assertEquals(NAME_PRIMARY, queryDatabaseName());
+    }
+
+    @Test
+    public void getConnection_ReplicaHasCaughtUp_ShouldUseReplicaAgain() {
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_seconds = ?", MAX_LAG_SECONDS + 1);
+        routingDataSource.checkReplicaLag();
+
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_seconds = ?", MAX_LAG_SECONDS);
+        routingDataSource.checkReplicaLag();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(0, routingDataSource.getLaggingReplicaCount());
+        assertEquals(NAME_REPLICA, queryDatabaseName());
+    }
+
+    @Test
+    public void getConnection_SeveralReplicas_ShouldBalanceReadOnlyTransactions() {
+        DataSource first = createDatabase("first");
+        DataSource second = createDatabase("second");
+
+        ReplicationRoutingDataSource balanced = new ReplicationRoutingDataSource(createDatabase("balancedPrimary"), Arrays.asList(first, second));
+        balanced.afterPropertiesSet();
+        JdbcTemplate balancedTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(balanced));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        List<String> names = new ArrayList<String>();
+        for (int index = 0; index < 4; index++) {
+            names.add(balancedTemplate.queryForObject(QUERY_NAME, String.class));
+        }
+
+        assertEquals(Arrays.asList("first", "second", "first", "second"), names);
+
+        new JdbcTemplate(first).execute("DROP ALL OBJECTS");
+        new JdbcTemplate(second).execute("DROP ALL OBJECTS");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        balancedTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    private String queryDatabaseName() {
+        return jdbcTemplate.queryForObject(QUERY_NAME, String.class);
+    }
+}
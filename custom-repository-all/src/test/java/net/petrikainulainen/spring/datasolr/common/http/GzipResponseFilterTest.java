@@ -0,0 +1,213 @@
+package net.petrikainulainen.spring.datasolr.common.http;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileCopyUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class GzipResponseFilterTest {
+
+    private static final int MIN_SIZE = 16;
+
+    private static final String ETAG = "\"1-0\"";
+
+    private GzipResponseFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        filter = new GzipResponseFilter();
+        filter.setMinSize(MIN_SIZE);
+
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void doFilter_GzipNotAccepted_ShouldNotCompressResponse() throws Exception {
+        byte[] body = createBody(MIN_SIZE);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertNull(response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertTrue(Arrays.equals(body, response.getContentAsByteArray()));
+    }
+
+    @Test
+    public void doFilter_GzipIsRejectedWithZeroQuality_ShouldNotCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, "gzip;q=0, identity");
+        byte[] body = createBody(MIN_SIZE);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertNull(response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertTrue(Arrays.equals(body, response.getContentAsByteArray()));
+    }
+
+    @Test
+    public void doFilter_AnyCodingIsRejectedButGzipIsListed_ShouldCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, "*;q=0, gzip");
+        byte[] body = createBody(MIN_SIZE);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertEquals(GzipResponseFilter.ENCODING_GZIP, response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertTrue(Arrays.equals(body, decompress(response.getContentAsByteArray())));
+    }
+
+    @Test
+    public void doFilter_AnyCodingIsAcceptedButGzipIsRejected_ShouldNotCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, "*, gzip;q=0");
+        byte[] body = createBody(MIN_SIZE);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertNull(response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertTrue(Arrays.equals(body, response.getContentAsByteArray()));
+    }
+
+    @Test
+    public void doFilter_OnlyAnyCodingIsAccepted_ShouldCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, "identity;q=0.5, *;q=0.1");
+        byte[] body = createBody(MIN_SIZE);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertEquals(GzipResponseFilter.ENCODING_GZIP, response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertTrue(Arrays.equals(body, decompress(response.getContentAsByteArray())));
+    }
+
+    @Test
+    public void doFilter_ResponseIsSmallerThanMinSize_ShouldNotCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, "deflate, gzip");
+        byte[] body = createBody(MIN_SIZE - 1);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertNull(response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertEquals(GzipResponseWrapper.HEADER_ACCEPT_ENCODING, response.getHeader(GzipResponseWrapper.HEADER_VARY));
+        assertEquals(body.length, response.getContentLength());
+        assertTrue(Arrays.equals(body, response.getContentAsByteArray()));
+    }
+
+    @Test
+    public void doFilter_ResponseReachesMinSize_ShouldCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, "gzip, deflate");
+        byte[] body = createBody(MIN_SIZE * 10);
+
+        filter.doFilter(request, response, writeBody(body));
+
+        assertEquals(GzipResponseFilter.ENCODING_GZIP, response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertEquals(GzipResponseWrapper.HEADER_ACCEPT_ENCODING, response.getHeader(GzipResponseWrapper.HEADER_VARY));
+        assertTrue(Arrays.equals(body, decompress(response.getContentAsByteArray())));
+    }
+
+    @Test
+    public void doFilter_CompressedResponseHasStrongETag_ShouldWeakenETag() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, GzipResponseFilter.ENCODING_GZIP);
+        response.setHeader(GzipResponseWrapper.HEADER_ETAG, ETAG);
+
+        filter.doFilter(request, response, writeBody(createBody(MIN_SIZE)));
+
+        assertEquals("W/" + ETAG, response.getHeader(GzipResponseWrapper.HEADER_ETAG));
+    }
+
+    @Test
+    public void doFilter_BodyIsWrittenWithWriter_ShouldCompressResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, GzipResponseFilter.ENCODING_GZIP);
+        final String body = new String(createBody(MIN_SIZE * 2), "UTF-8");
+
+        filter.doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                response.setCharacterEncoding("UTF-8");
+                response.getWriter().write(body);
+            }
+        });
+
+        assertEquals(GzipResponseFilter.ENCODING_GZIP, response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertEquals(body, new String(decompress(response.getContentAsByteArray()), "UTF-8"));
+    }
+
+    @Test
+    public void doFilter_EventStream_ShouldWriteEventsUncompressedAfterFilterHasReturned() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, GzipResponseFilter.ENCODING_GZIP);
+        final ServletResponse[] streamedResponse = new ServletResponse[1];
+
+        filter.doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                response.setContentType("text/event-stream;charset=UTF-8");
+                response.getOutputStream().write(":\n\n".getBytes("UTF-8"));
+                response.getOutputStream().flush();
+                streamedResponse[0] = response;
+            }
+        });
+
+        byte[] event = createBody(MIN_SIZE * 2);
+        streamedResponse[0].getOutputStream().write(event);
+        streamedResponse[0].getOutputStream().flush();
+
+        assertNull(response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertEquals(":\n\n" + new String(event, "UTF-8"), response.getContentAsString());
+    }
+
+    @Test
+    public void doFilter_NoBody_ShouldWriteEmptyResponse() throws Exception {
+        request.addHeader(GzipResponseFilter.HEADER_ACCEPT_ENCODING, GzipResponseFilter.ENCODING_GZIP);
+
+        filter.doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            }
+        });
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertNull(response.getHeader(GzipResponseWrapper.HEADER_CONTENT_ENCODING));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private byte[] createBody(int length) {
+        byte[] body = new byte[length];
+        for (int index = 0; index < length; index++) {
+            body[index] = (byte) ('a' + index % 26);
+        }
+        return body;
+    }
+
+    private FilterChain writeBody(final byte[] body) {
+        return new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+                response.getOutputStream().flush();
+            }
+        };
+    }
+
+    private byte[] decompress(byte[] compressed) throws IOException {
+        return FileCopyUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
+}
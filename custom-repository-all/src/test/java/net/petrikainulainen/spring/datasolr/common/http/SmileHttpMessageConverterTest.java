@@ -0,0 +1,66 @@
+package net.petrikainulainen.spring.datasolr.common.http;
+
+import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SmileHttpMessageConverterTest {
+
+    @Test
+    public void canWrite_Json_ShouldReturnFalse() {
+        assertFalse(new SmileHttpMessageConverter().canWrite(TodoDTO.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void canWrite_Smile_ShouldReturnTrue() {
+        assertTrue(new SmileHttpMessageConverter().canWrite(TodoDTO.class, SmileHttpMessageConverter.MEDIA_TYPE_SMILE));
+    }
+
+    @Test
+    public void writeAndRead_ShouldReturnEqualDTO() throws Exception {
+        SmileHttpMessageConverter converter = new SmileHttpMessageConverter();
+        TodoDTO written = new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(written, SmileHttpMessageConverter.MEDIA_TYPE_SMILE, output);
+
+        TodoDTO read = (TodoDTO) converter.read(TodoDTO.class, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+        assertEquals(SmileHttpMessageConverter.MEDIA_TYPE_SMILE, output.getHeaders().getContentType());
+        assertEquals(written.getId(), read.getId());
+        assertEquals(written.getDescription(), read.getDescription());
+        assertEquals(written.getTitle(), read.getTitle());
+        assertEquals(written.getVersion(), read.getVersion());
+    }
+
+    @Test
+    public void isRequested_AcceptHeaderIsMissing_ShouldReturnFalse() {
+        assertFalse(SmileHttpMessageConverter.isRequested(null));
+    }
+
+    @Test
+    public void isRequested_Wildcard_ShouldReturnFalse() {
+        assertFalse(SmileHttpMessageConverter.isRequested("*/*"));
+        assertFalse(SmileHttpMessageConverter.isRequested("application/*"));
+    }
+
+    @Test
+    public void isRequested_SmileListed_ShouldReturnTrue() {
+        assertTrue(SmileHttpMessageConverter.isRequested("application/json;q=0.5, application/x-jackson-smile"));
+    }
+
+    @Test
+    public void isRequested_SmileHasZeroQuality_ShouldReturnFalse() {
+        assertFalse(SmileHttpMessageConverter.isRequested("application/x-jackson-smile;q=0"));
+    }
+}
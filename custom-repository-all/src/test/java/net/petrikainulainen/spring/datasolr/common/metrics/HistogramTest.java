@@ -0,0 +1,77 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class HistogramTest {
+
+    private static final int PRECISION = 3;
+
+    private Histogram histogram;
+
+    @Before
+    public void setUp() {
+        histogram = new Histogram(PRECISION);
+    }
+
+    @Test
+    public void getPercentile_NoValues_ShouldReturnZero() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0.0, histogram.getMean());
+    }
+
+    @Test
+    public void getPercentile_SmallValues_ShouldReturnExactValues() {
+        for (long value = 0; value < 8; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(8, histogram.getCount());
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(100));
+        assertEquals(3.5, histogram.getMean());
+    }
+
+    @Test
+    public void getPercentile_LargeValues_ShouldBeWithinPrecision() {
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+
+        assertWithinPrecision(50000, histogram.getPercentile(50));
+        assertWithinPrecision(99000, histogram.getPercentile(99));
+        assertEquals(100000, histogram.getPercentile(100));
+        assertEquals(100000, histogram.getMax());
+    }
+
+    @Test
+    public void getUpperBound_EveryBucket_ShouldContainValuesOfBucket() {
+        long[] values = {0, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE};
+
+        for (long value: values) {
+            int index = histogram.getIndex(value);
+
+            assertTrue(histogram.getUpperBound(index) >= value);
+            if (index > 0) {
+                assertTrue(histogram.getUpperBound(index - 1) < value);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void record_NegativeValue_ShouldThrowException() {
+        histogram.record(-1);
+    }
+
+    private void assertWithinPrecision(long expected, long actual) {
+        assertTrue(actual >= expected);
+        assertTrue(actual <= expected + expected / (1 << PRECISION));
+    }
+}
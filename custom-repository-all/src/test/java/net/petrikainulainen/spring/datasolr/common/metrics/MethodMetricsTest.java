@@ -0,0 +1,66 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class MethodMetricsTest {
+
+    private static final String REPOSITORY = "TestRepository";
+
+    @Test
+    public void getMethod_ShouldReturnSignature() throws NoSuchMethodException {
+        MethodMetrics metrics = new MethodMetrics(REPOSITORY, TestRepository.class.getMethod("search", String.class, int.class));
+
+        assertEquals(REPOSITORY, metrics.getRepository());
+        assertEquals("search(String, int)", metrics.getMethod());
+        assertTrue(metrics.isResultSizeRecorded());
+    }
+
+    @Test
+    public void isResultSizeRecorded_MethodReturnsNumberOrNothing_ShouldReturnFalse() throws NoSuchMethodException {
+        assertFalse(createMetrics("count").isResultSizeRecorded());
+        assertFalse(createMetrics("delete").isResultSizeRecorded());
+        assertFalse(createMetrics("exists").isResultSizeRecorded());
+    }
+
+    @Test
+    public void recordSuccessAndError_ShouldUpdateMetrics() throws NoSuchMethodException {
+        MethodMetrics metrics = new MethodMetrics(REPOSITORY, TestRepository.class.getMethod("search", String.class, int.class));
+
+        metrics.recordSuccess(TimeUnit.MILLISECONDS.toNanos(2), 10);
+        metrics.recordSuccess(TimeUnit.MILLISECONDS.toNanos(4), 20);
+        metrics.recordError(TimeUnit.MILLISECONDS.toNanos(6));
+
+        assertEquals(3, metrics.getCallCount());
+        assertEquals(1, metrics.getErrorCount());
+        assertEquals(6000, metrics.getMaxLatencyMicros());
+        assertEquals(4000.0, metrics.getMeanLatencyMicros());
+        assertEquals(15.0, metrics.getMeanResultSize());
+        assertEquals(20, metrics.getMaxResultSize());
+    }
+
+    private MethodMetrics createMetrics(String methodName) throws NoSuchMethodException {
+        return new MethodMetrics(REPOSITORY, TestRepository.class.getMethod(methodName));
+    }
+
+    private interface TestRepository {
+
+        public List<Object> search(String searchTerm, int page);
+
+        public long count();
+
+        public void delete();
+
+        public Boolean exists();
+    }
+}
@@ -0,0 +1,67 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import net.petrikainulainen.spring.datasolr.common.dto.RepositoryMethodMetricsDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RegistryRepositoryMetricsServiceTest {
+
+    private static final String REPOSITORY = "TestRepository";
+
+    private static final long LATENCY_MICROS = 1000;
+    private static final int RESULT_SIZE = 5;
+
+    private RegistryRepositoryMetricsService service;
+
+    private RepositoryMetricsRegistry registryMock;
+
+    @Before
+    public void setUp() {
+        service = new RegistryRepositoryMetricsService();
+
+        registryMock = mock(RepositoryMetricsRegistry.class);
+        ReflectionTestUtils.setField(service, "repositoryMetricsRegistry", registryMock);
+    }
+
+    @Test
+    public void getRepositoryMetrics_ShouldReturnMetricsOfEveryMethod() throws NoSuchMethodException {
+        Method findAll = TestRepository.class.getMethod("findAll");
+        MethodMetrics metrics = new MethodMetrics(REPOSITORY, findAll);
+        metrics.recordSuccess(TimeUnit.MICROSECONDS.toNanos(LATENCY_MICROS), RESULT_SIZE);
+        metrics.recordError(TimeUnit.MICROSECONDS.toNanos(LATENCY_MICROS));
+
+        when(registryMock.getMethodMetrics()).thenReturn(Arrays.asList(metrics));
+
+        List<RepositoryMethodMetricsDTO> actual = service.getRepositoryMetrics();
+
+        verify(registryMock, times(1)).getMethodMetrics();
+        verifyNoMoreInteractions(registryMock);
+
+        assertEquals(1, actual.size());
+
+        RepositoryMethodMetricsDTO dto = actual.get(0);
+        assertEquals(REPOSITORY, dto.getRepository());
+        assertEquals("findAll()", dto.getMethod());
+        assertEquals(2, dto.getCallCount());
+        assertEquals(1, dto.getErrorCount());
+        assertEquals(LATENCY_MICROS, dto.getMaxLatency());
+        assertEquals(RESULT_SIZE, dto.getMaxResultSize());
+    }
+
+    public interface TestRepository {
+
+        public List<Object> findAll();
+    }
+}
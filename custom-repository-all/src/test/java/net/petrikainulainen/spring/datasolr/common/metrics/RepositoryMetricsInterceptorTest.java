@@ -0,0 +1,105 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageImpl;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsInterceptorTest {
+
+    private static final String REPOSITORY = "TestRepository";
+
+    private Method findAll;
+
+    private MethodMetrics findAllMetrics;
+
+    private RepositoryMetricsInterceptor interceptor;
+
+    private MethodInvocation invocationMock;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        findAll = TestRepository.class.getMethod("findAll");
+        findAllMetrics = new MethodMetrics(REPOSITORY, findAll);
+
+        Map<Method, MethodMetrics> methodMetrics = new HashMap<Method, MethodMetrics>();
+        methodMetrics.put(findAll, findAllMetrics);
+
+        interceptor = new RepositoryMetricsInterceptor(methodMetrics);
+        invocationMock = mock(MethodInvocation.class);
+    }
+
+    @Test
+    public void invoke_CallSucceeds_ShouldRecordCallAndResultSize() throws Throwable {
+        List<Object> expected = Arrays.asList(new Object(), new Object());
+        when(invocationMock.getMethod()).thenReturn(findAll);
+        when(invocationMock.proceed()).thenReturn(expected);
+
+        Object actual = interceptor.invoke(invocationMock);
+
+        assertSame(expected, actual);
+        assertEquals(1, findAllMetrics.getCallCount());
+        assertEquals(0, findAllMetrics.getErrorCount());
+        assertEquals(2, findAllMetrics.getMaxResultSize());
+    }
+
+    @Test
+    public void invoke_CallFails_ShouldRecordErrorAndRethrowException() throws Throwable {
+        IllegalStateException expected = new IllegalStateException();
+        when(invocationMock.getMethod()).thenReturn(findAll);
+        when(invocationMock.proceed()).thenThrow(expected);
+
+        try {
+            interceptor.invoke(invocationMock);
+            fail("Expected IllegalStateException");
+        }
+        catch (IllegalStateException ex) {
+            assertSame(expected, ex);
+        }
+
+        assertEquals(1, findAllMetrics.getCallCount());
+        assertEquals(1, findAllMetrics.getErrorCount());
+        assertEquals(0, findAllMetrics.getMaxResultSize());
+    }
+
+    @Test
+    public void invoke_MethodHasNoMetrics_ShouldProceed() throws Throwable {
+        Object expected = "TestRepository";
+        when(invocationMock.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        when(invocationMock.proceed()).thenReturn(expected);
+
+        Object actual = interceptor.invoke(invocationMock);
+
+        assertSame(expected, actual);
+        assertEquals(0, findAllMetrics.getCallCount());
+    }
+
+    @Test
+    public void getResultSize_ShouldCountEntries() {
+        assertEquals(0, RepositoryMetricsInterceptor.getResultSize(null));
+        assertEquals(1, RepositoryMetricsInterceptor.getResultSize(new Object()));
+        assertEquals(3, RepositoryMetricsInterceptor.getResultSize(Arrays.asList(1, 2, 3)));
+        assertEquals(2, RepositoryMetricsInterceptor.getResultSize(new Object[2]));
+        assertEquals(2, RepositoryMetricsInterceptor.getResultSize(new PageImpl<Integer>(Arrays.asList(1, 2))));
+    }
+
+    public interface TestRepository {
+
+        public List<Object> findAll();
+    }
+}
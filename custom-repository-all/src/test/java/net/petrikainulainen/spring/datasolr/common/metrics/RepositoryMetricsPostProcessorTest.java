@@ -0,0 +1,65 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.Repository;
+
+import javax.management.MBeanServerFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsPostProcessorTest {
+
+    private RepositoryMetricsRegistry registry;
+
+    private RepositoryMetricsPostProcessor postProcessor;
+
+    @Before
+    public void setUp() {
+        registry = new RepositoryMetricsRegistry(MBeanServerFactory.newMBeanServer());
+        postProcessor = new RepositoryMetricsPostProcessor(registry);
+    }
+
+    @Test
+    public void postProcess_ShouldRecordCallsOfRepositoryMethods() {
+        ProxyFactory factory = new ProxyFactory(new TestRepositoryImpl());
+        factory.setInterfaces(new Class[] {TestRepository.class, Repository.class});
+
+        postProcessor.postProcess(factory);
+
+        TestRepository repository = (TestRepository) factory.getProxy();
+        repository.findAll();
+
+        List<MethodMetrics> actual = registry.getMethodMetrics();
+
+        assertEquals(1, actual.size());
+        assertEquals("TestRepository", actual.get(0).getRepository());
+        assertEquals(1, actual.get(0).getCallCount());
+        assertEquals(2, actual.get(0).getMaxResultSize());
+    }
+
+    @Test
+    public void getRepositoryInterface_NoRepositoryInterface_ShouldReturnNull() {
+        assertNull(RepositoryMetricsPostProcessor.getRepositoryInterface(new Class[] {Repository.class, Runnable.class}));
+    }
+
+    public interface TestRepository extends Repository<Object, Long> {
+
+        public List<Object> findAll();
+    }
+
+    private static class TestRepositoryImpl implements TestRepository {
+
+        @Override
+        public List<Object> findAll() {
+            return Arrays.asList(new Object(), new Object());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package net.petrikainulainen.spring.datasolr.common.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RepositoryMetricsRegistryTest {
+
+    private MBeanServer mBeanServer;
+
+    private RepositoryMetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        registry = new RepositoryMetricsRegistry(mBeanServer);
+    }
+
+    @Test
+    public void register_ShouldCreateAndRegisterMetricsOfEveryMethod() throws Exception {
+        Map<Method, MethodMetrics> actual = registry.register(FirstRepository.class);
+
+        assertEquals(2, actual.size());
+
+        MethodMetrics findAll = actual.get(FirstRepository.class.getMethod("findAll"));
+        assertEquals("FirstRepository", findAll.getRepository());
+        assertEquals("findAll()", findAll.getMethod());
+
+        ObjectName name = RepositoryMetricsRegistry.createObjectName(findAll);
+        assertTrue(mBeanServer.isRegistered(name));
+        assertEquals(0L, mBeanServer.getAttribute(name, "CallCount"));
+    }
+
+    @Test
+    public void register_RepositoryIsRegisteredTwice_ShouldShareMetrics() throws Exception {
+        Method findAll = FirstRepository.class.getMethod("findAll");
+
+        MethodMetrics first = registry.register(FirstRepository.class).get(findAll);
+        MethodMetrics second = registry.register(FirstRepository.class).get(findAll);
+
+        assertSame(first, second);
+        assertEquals(2, registry.getMethodMetrics().size());
+    }
+
+    @Test
+    public void register_NameIsRegisteredByOtherRegistry_ShouldCollectMetrics() throws Exception {
+        new RepositoryMetricsRegistry(mBeanServer).register(FirstRepository.class);
+
+        Map<Method, MethodMetrics> actual = registry.register(FirstRepository.class);
+
+        assertEquals(2, actual.size());
+        assertEquals(2, registry.getMethodMetrics().size());
+    }
+
+    @Test
+    public void getMethodMetrics_ShouldOrderByRepositoryAndMethod() {
+        registry.register(SecondRepository.class);
+        registry.register(FirstRepository.class);
+
+        List<MethodMetrics> actual = registry.getMethodMetrics();
+
+        assertEquals(3, actual.size());
+        assertEquals("FirstRepository.findAll()", actual.get(0).getRepository() + "." + actual.get(0).getMethod());
+        assertEquals("FirstRepository.findOne(Long)", actual.get(1).getRepository() + "." + actual.get(1).getMethod());
+        assertEquals("SecondRepository.count()", actual.get(2).getRepository() + "." + actual.get(2).getMethod());
+    }
+
+    @Test
+    public void shutdown_ShouldUnregisterMetrics() throws Exception {
+        MethodMetrics metrics = registry.register(SecondRepository.class).get(SecondRepository.class.getMethod("count"));
+
+        registry.shutdown();
+
+        assertFalse(mBeanServer.isRegistered(RepositoryMetricsRegistry.createObjectName(metrics)));
+    }
+
+    public interface FirstRepository {
+
+        public List<Object> findAll();
+
+        public Object findOne(Long id);
+    }
+
+    public interface SecondRepository {
+
+        public long count();
+    }
+}
@@ -0,0 +1,123 @@
+package net.petrikainulainen.spring.datasolr.common.offheap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class LongLongHashMapTest {
+
+    private static final long KEY = 5L;
+    private static final long VALUE = 10L;
+    private static final long VALUE_UPDATED = 20L;
+
+    private LongLongHashMap map;
+
+    @Before
+    public void setUp() {
+        map = new LongLongHashMap(4);
+    }
+
+    @Test
+    public void get_KeyIsNotFound_ShouldReturnNoValue() {
+        assertEquals(LongLongHashMap.NO_VALUE, map.get(KEY));
+    }
+
+    @Test
+    public void put_NewKey_ShouldAddEntry() {
+        long previous = map.put(KEY, VALUE);
+
+        assertEquals(LongLongHashMap.NO_VALUE, previous);
+        assertEquals(VALUE, map.get(KEY));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void put_ExistingKey_ShouldReplaceValue() {
+        map.put(KEY, VALUE);
+
+        long previous = map.put(KEY, VALUE_UPDATED);
+
+        assertEquals(VALUE, previous);
+        assertEquals(VALUE_UPDATED, map.get(KEY));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_ZeroKey_ShouldThrowException() {
+        map.put(0L, VALUE);
+    }
+
+    @Test
+    public void remove_ExistingKey_ShouldRemoveEntry() {
+        map.put(KEY, VALUE);
+
+        long removed = map.remove(KEY);
+
+        assertEquals(VALUE, removed);
+        assertEquals(LongLongHashMap.NO_VALUE, map.get(KEY));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void removeAllWithValue_ShouldRemoveOnlyMatchingEntries() {
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, key % 2 == 0 ? VALUE : VALUE_UPDATED);
+        }
+
+        int removed = map.removeAllWithValue(VALUE);
+
+        assertEquals(50, removed);
+        assertEquals(50, map.size());
+        for (long key = 1; key <= 100; key++) {
+            assertEquals(key % 2 == 0 ? LongLongHashMap.NO_VALUE : VALUE_UPDATED, map.get(key));
+        }
+    }
+
+    @Test
+    public void removeAllWithValueBelow_ShouldRemoveOnlySmallerValues() {
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, -key);
+        }
+
+        int removed = map.removeAllWithValueBelow(-50L);
+
+        assertEquals(50, removed);
+        assertEquals(50, map.size());
+        for (long key = 1; key <= 100; key++) {
+            assertEquals(key > 50 ? LongLongHashMap.NO_VALUE : -key, map.get(key));
+        }
+    }
+
+    @Test
+    public void randomOperations_ShouldMatchHashMap() {
+        Map<Long, Long> expected = new HashMap<Long, Long>();
+        Random random = new Random(42);
+
+        for (int operation = 0; operation < 100000; operation++) {
+            long key = 1 + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                assertEquals(removed == null ? LongLongHashMap.NO_VALUE : removed, map.remove(key));
+            }
+            else {
+                long value = random.nextLong() & Long.MAX_VALUE;
+                Long previous = expected.put(key, value);
+                assertEquals(previous == null ? LongLongHashMap.NO_VALUE : previous, map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 500; key++) {
+            Long value = expected.get(key);
+            assertEquals(value == null ? LongLongHashMap.NO_VALUE : value, map.get(key));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package net.petrikainulainen.spring.datasolr.common.offheap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class OffHeapStoreTest {
+
+    private static final int VALUE_SIZE = 10;
+    private static final int CAPACITY = 4 * (OffHeapStore.RECORD_HEADER_SIZE + VALUE_SIZE);
+
+    private static final long KEY = 1L;
+    private static final long VERSION = 1L;
+
+    private OffHeapStore store;
+
+    @Before
+    public void setUp() {
+        store = new OffHeapStore(CAPACITY);
+    }
+
+    @Test
+    public void get_KeyIsNotFound_ShouldReturnNull() {
+        assertNull(store.get(KEY));
+    }
+
+    @Test
+    public void put_ShouldStoreCopyOfValue() {
+        byte[] value = createValue(1);
+
+        assertTrue(store.put(KEY, VERSION, value));
+        value[0] = 0;
+
+        assertTrue(Arrays.equals(createValue(1), store.get(KEY)));
+        assertEquals(1, store.getSize());
+        assertEquals(OffHeapStore.RECORD_HEADER_SIZE + VALUE_SIZE, store.getUsedBytes());
+    }
+
+    @Test
+    public void put_NewerVersionIsStored_ShouldNotReplaceValue() {
+        store.put(KEY, VERSION + 1, createValue(2));
+
+        assertFalse(store.put(KEY, VERSION, createValue(1)));
+
+        assertTrue(Arrays.equals(createValue(2), store.get(KEY)));
+    }
+
+    @Test
+    public void putIfAbsent_KeyIsFound_ShouldNotReplaceValue() {
+        store.put(KEY, VERSION, createValue(1));
+
+        assertFalse(store.putIfAbsent(KEY, VERSION, createValue(2)));
+
+        assertTrue(Arrays.equals(createValue(1), store.get(KEY)));
+    }
+
+    @Test
+    public void putIfAbsent_KeyIsRemoved_ShouldNotStoreValue() {
+        store.put(KEY, VERSION, createValue(1));
+        store.remove(KEY);
+
+        assertFalse(store.putIfAbsent(KEY, VERSION, createValue(1)));
+
+        assertNull(store.get(KEY));
+    }
+
+    @Test
+    public void put_OlderVersionIsStored_ShouldReplaceValue() {
+        store.put(KEY, VERSION, createValue(1));
+
+        assertTrue(store.put(KEY, VERSION + 1, createValue(2)));
+
+        assertTrue(Arrays.equals(createValue(2), store.get(KEY)));
+        assertEquals(1, store.getSize());
+        assertEquals(OffHeapStore.RECORD_HEADER_SIZE + VALUE_SIZE, store.getUsedBytes());
+    }
+
+    @Test
+    public void putIfAbsent_NewerVersionWasPutWhileKeyWasAbsent_ShouldNotStoreOlderValue() {
+        //A reader loads the old version, an update commits the new version, and only then the reader caches its result.
+        store.put(KEY, VERSION + 1, createValue(2));
+
+        assertFalse(store.putIfAbsent(KEY, VERSION, createValue(1)));
+
+        assertTrue(Arrays.equals(createValue(2), store.get(KEY)));
+    }
+
+    @Test
+    public void putIfAbsent_NewerVersionWasDropped_ShouldNotStoreOlderValue() {
+        for (long key = 2; key <= 5; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+        assertFalse(store.put(KEY, VERSION + 1, createValue(2)));
+        store.remove(2L);
+
+        assertFalse(store.putIfAbsent(KEY, VERSION, createValue(1)));
+        assertFalse(store.put(KEY, VERSION, createValue(1)));
+
+        assertNull(store.get(KEY));
+    }
+
+    @Test
+    public void putIfAbsent_SameVersionWasDropped_ShouldStoreValue() {
+        for (long key = 2; key <= 5; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+        assertFalse(store.put(KEY, VERSION, createValue(1)));
+        store.remove(2L);
+
+        assertTrue(store.putIfAbsent(KEY, VERSION, createValue(1)));
+
+        assertTrue(Arrays.equals(createValue(1), store.get(KEY)));
+    }
+
+    @Test
+    public void put_CompactionForgetsDroppedVersions_ShouldAllowOlderValue() {
+        for (long key = 2; key <= 5; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+        assertFalse(store.put(KEY, VERSION + 1, createValue(2)));
+        store.remove(2L);
+        store.put(6L, VERSION, createValue(6));
+        store.remove(3L);
+
+        assertTrue(store.putIfAbsent(KEY, VERSION, createValue(1)));
+    }
+
+    @Test
+    public void put_TooManyVersionsAreDropped_ShouldForgetDroppedVersions() {
+        for (long key = 1; key <= 4; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+        for (long key = 100; key <= 100 + OffHeapStore.MAX_DROPPED_VERSION_COUNT; key++) {
+            assertFalse(store.put(key, VERSION + 1, createValue(5)));
+        }
+        store.remove(1L);
+
+        assertTrue(store.putIfAbsent(100L, VERSION, createValue(5)));
+    }
+
+    @Test
+    public void remove_ShouldFreeRecord() {
+        store.put(KEY, VERSION, createValue(1));
+
+        store.remove(KEY);
+
+        assertNull(store.get(KEY));
+        assertEquals(0, store.getSize());
+        assertEquals(0, store.getUsedBytes());
+    }
+
+    @Test
+    public void put_BufferIsFullOfFreedRecords_ShouldCompactBuffer() {
+        for (long key = 1; key <= 4; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+        store.remove(1L);
+        store.remove(3L);
+
+        assertTrue(store.put(5L, VERSION, createValue(5)));
+        assertTrue(store.put(6L, VERSION, createValue(6)));
+
+        assertNull(store.get(1L));
+        assertTrue(Arrays.equals(createValue(2), store.get(2L)));
+        assertNull(store.get(3L));
+        assertTrue(Arrays.equals(createValue(4), store.get(4L)));
+        assertTrue(Arrays.equals(createValue(5), store.get(5L)));
+        assertTrue(Arrays.equals(createValue(6), store.get(6L)));
+        assertEquals(4, store.getSize());
+    }
+
+    @Test
+    public void put_CompactionForgetsRemovedKeys_ShouldAllowPutIfAbsent() {
+        for (long key = 1; key <= 4; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+        store.remove(1L);
+        store.remove(2L);
+        store.put(5L, VERSION, createValue(5));
+
+        assertTrue(store.putIfAbsent(1L, VERSION, createValue(1)));
+    }
+
+    @Test
+    public void put_BufferIsFull_ShouldNotStoreValue() {
+        for (long key = 1; key <= 4; key++) {
+            store.put(key, VERSION, createValue((int) key));
+        }
+
+        assertFalse(store.put(5L, VERSION, createValue(5)));
+
+        assertNull(store.get(5L));
+        assertEquals(4, store.getSize());
+    }
+
+    private byte[] createValue(int fill) {
+        byte[] value = new byte[VALUE_SIZE];
+        Arrays.fill(value, (byte) fill);
+        return value;
+    }
+}
@@ -0,0 +1,61 @@
+package net.petrikainulainen.spring.datasolr.common.sketch;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class CountMinSketchTest {
+
+    private static final int WIDTH = 1024;
+    private static final int DEPTH = 4;
+
+    private static final int KEY_COUNT = 5000;
+
+    @Test
+    public void estimate_KeyIsNotAdded_ShouldReturnZero() {
+        CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+
+        assertEquals(0L, sketch.estimate("foo"));
+    }
+
+    @Test
+    public void add_ShouldReturnSumOfAddedValues() {
+        CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+
+        sketch.add("foo", 2);
+        long estimate = sketch.add("foo", 3);
+
+        assertEquals(5L, estimate);
+        assertEquals(5L, sketch.estimate("foo"));
+    }
+
+    @Test
+    public void estimate_ManyKeys_ShouldNeverUnderestimate() {
+        CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+
+        long totalSum = 0;
+        for (int key = 0; key < KEY_COUNT; key++) {
+            sketch.add("term" + key, key % 10 + 1);
+            totalSum += key % 10 + 1;
+        }
+
+        long totalError = 0;
+        for (int key = 0; key < KEY_COUNT; key++) {
+            long estimate = sketch.estimate("term" + key);
+            assertTrue(estimate >= key % 10 + 1);
+            totalError += estimate - (key % 10 + 1);
+        }
+
+        //The expected error of a single row is the total sum divided by the width.
+        assertTrue(totalError / KEY_COUNT < totalSum / WIDTH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_WidthIsZero_ShouldThrowException() {
+        new CountMinSketch(0, DEPTH);
+    }
+}
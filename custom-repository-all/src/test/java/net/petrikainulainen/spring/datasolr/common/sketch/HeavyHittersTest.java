@@ -0,0 +1,101 @@
+package net.petrikainulainen.spring.datasolr.common.sketch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class HeavyHittersTest {
+
+    private static final int KEY_COUNT = 3;
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int SKETCH_DEPTH = 4;
+
+    private static final Executor CALLER_RUNS = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    };
+
+    @Test
+    public void getTop_NoKeysAdded_ShouldReturnEmptyMap() {
+        HeavyHitters heavyHitters = new HeavyHitters(KEY_COUNT, SKETCH_WIDTH, SKETCH_DEPTH, CALLER_RUNS);
+
+        assertTrue(heavyHitters.getTop().isEmpty());
+    }
+
+    @Test
+    public void getTop_ShouldReturnMostFrequentKeysInOrder() {
+        HeavyHitters heavyHitters = new HeavyHitters(KEY_COUNT, SKETCH_WIDTH, SKETCH_DEPTH, CALLER_RUNS);
+
+        for (int round = 0; round < 100; round++) {
+            heavyHitters.add("first");
+            if (round % 2 == 0) {
+                heavyHitters.add("second");
+            }
+            if (round % 4 == 0) {
+                heavyHitters.add("third");
+            }
+            //Every rare key is added only once.
+            heavyHitters.add("rare" + round);
+        }
+
+        Map<String, Long> top = heavyHitters.getTop();
+
+        assertEquals(Arrays.asList("first", "second", "third"), new ArrayList<String>(top.keySet()));
+        assertEquals(Long.valueOf(100), top.get("first"));
+        assertEquals(Long.valueOf(50), top.get("second"));
+        assertEquals(Long.valueOf(25), top.get("third"));
+    }
+
+    @Test
+    public void getTop_FrequentKeyAppearsLate_ShouldReturnIt() {
+        HeavyHitters heavyHitters = new HeavyHitters(KEY_COUNT, SKETCH_WIDTH, SKETCH_DEPTH, CALLER_RUNS);
+
+        for (int key = 0; key < 100; key++) {
+            heavyHitters.add("early" + key);
+        }
+        for (int round = 0; round < 10; round++) {
+            heavyHitters.add("late");
+        }
+
+        Map<String, Long> top = heavyHitters.getTop();
+
+        assertEquals("late", top.keySet().iterator().next());
+        assertEquals(KEY_COUNT, top.size());
+    }
+
+    @Test
+    public void add_TooManyCandidates_ShouldScheduleOnePruning() {
+        final List<Runnable> scheduled = new ArrayList<Runnable>();
+        HeavyHitters heavyHitters = new HeavyHitters(KEY_COUNT, SKETCH_WIDTH, SKETCH_DEPTH, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                scheduled.add(task);
+            }
+        });
+
+        for (int key = 0; key < 4 * KEY_COUNT; key++) {
+            heavyHitters.add("key" + key);
+        }
+
+        assertEquals(1, scheduled.size());
+
+        scheduled.get(0).run();
+        heavyHitters.add("key" + 4 * KEY_COUNT);
+        heavyHitters.add("key0");
+
+        assertEquals(KEY_COUNT, heavyHitters.getTop().size());
+        assertEquals("key0", heavyHitters.getTop().keySet().iterator().next());
+    }
+}
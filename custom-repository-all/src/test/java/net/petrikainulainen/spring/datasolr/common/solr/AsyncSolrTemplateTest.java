@@ -0,0 +1,150 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.Criteria;
+import org.springframework.data.solr.core.query.SimpleQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class AsyncSolrTemplateTest {
+
+    private static final String ID = "1";
+    private static final long RESULT_COUNT = 3L;
+
+    private AsyncSolrTemplate template;
+
+    private ExecutorService executor;
+
+    private SolrOperations solrOperationsMock;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        solrOperationsMock = mock(SolrOperations.class);
+        template = new AsyncSolrTemplate(solrOperationsMock, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void queryForPage_ShouldReturnFoundPage() throws Exception {
+        SimpleQuery query = new SimpleQuery(new Criteria(TodoDocument.FIELD_TITLE).contains("foo"));
+        Page<TodoDocument> expected = new PageImpl<TodoDocument>(new ArrayList<TodoDocument>());
+        when(solrOperationsMock.queryForPage(query, TodoDocument.class)).thenReturn(expected);
+
+        Page<TodoDocument> actual = template.queryForPage(query, TodoDocument.class).get();
+
+        verify(solrOperationsMock, times(1)).queryForPage(query, TodoDocument.class);
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void count_ShouldReturnResultCount() throws Exception {
+        SimpleQuery query = new SimpleQuery(new Criteria(TodoDocument.FIELD_TITLE).contains("foo"));
+        when(solrOperationsMock.count(query)).thenReturn(RESULT_COUNT);
+
+        long actual = template.count(query).get();
+
+        verify(solrOperationsMock, times(1)).count(query);
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        assertEquals(RESULT_COUNT, actual);
+    }
+
+    @Test
+    public void saveBeans_ShouldSaveDocuments() throws Exception {
+        List<TodoDocument> documents = new ArrayList<TodoDocument>();
+        UpdateResponse expected = new UpdateResponse();
+        when(solrOperationsMock.saveBeans(documents)).thenReturn(expected);
+
+        UpdateResponse actual = template.saveBeans(documents).get();
+
+        verify(solrOperationsMock, times(1)).saveBeans(documents);
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void deleteById_ShouldDeleteDocument() throws Exception {
+        UpdateResponse expected = new UpdateResponse();
+        when(solrOperationsMock.deleteById(ID)).thenReturn(expected);
+
+        UpdateResponse actual = template.deleteById(ID).get();
+
+        verify(solrOperationsMock, times(1)).deleteById(ID);
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void delete_ShouldDeleteDocuments() throws Exception {
+        SimpleQuery query = new SimpleQuery(new Criteria(TodoDocument.FIELD_TITLE).contains("foo"));
+        UpdateResponse expected = new UpdateResponse();
+        when(solrOperationsMock.delete(query)).thenReturn(expected);
+
+        UpdateResponse actual = template.delete(query).get();
+
+        verify(solrOperationsMock, times(1)).delete(query);
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void commit_ShouldCommitChanges() throws Exception {
+        template.commit().get();
+
+        verify(solrOperationsMock, times(1)).commit();
+        verifyNoMoreInteractions(solrOperationsMock);
+    }
+
+    @Test
+    public void execute_ShouldReturnResultOfTask() throws Exception {
+        Long actual = template.execute(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return RESULT_COUNT;
+            }
+        }).get();
+
+        verifyZeroInteractions(solrOperationsMock);
+
+        assertEquals(Long.valueOf(RESULT_COUNT), actual);
+    }
+
+    @Test(expected = TaskRejectedException.class)
+    public void execute_ExecutorIsSaturated_ShouldThrowException() {
+        ExecutorService executorMock = mock(ExecutorService.class);
+        when(executorMock.submit(any(Callable.class))).thenThrow(new RejectedExecutionException());
+
+        template = new AsyncSolrTemplate(solrOperationsMock, executorMock);
+
+        template.deleteById(ID);
+    }
+}
@@ -0,0 +1,124 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class BackgroundSolrServerTest {
+
+    private static final long REQUEST_TIMEOUT = 5000L;
+    private static final long SHORT_REQUEST_TIMEOUT = 50L;
+
+    private SolrServer serverMock;
+
+    private SolrRequest requestMock;
+
+    @Before
+    public void setUp() {
+        serverMock = mock(SolrServer.class);
+        requestMock = mock(SolrRequest.class);
+    }
+
+    @Test
+    public void request_ServerIsLoaded_ShouldDelegateToLoadedServer() throws Exception {
+        NamedList<Object> expected = new NamedList<Object>();
+        when(serverMock.request(requestMock)).thenReturn(expected);
+
+        BackgroundSolrServer server = new BackgroundSolrServer(returnServer(), REQUEST_TIMEOUT);
+        server.start();
+
+        NamedList<Object> actual = server.request(requestMock);
+
+        assertEquals(expected, actual);
+        assertTrue(server.isReady());
+    }
+
+    @Test
+    public void request_ServerIsNotLoadedWithinTimeout_ShouldThrowException() throws Exception {
+        CountDownLatch loaderReleased = new CountDownLatch(1);
+
+        BackgroundSolrServer server = new BackgroundSolrServer(waitAndReturnServer(loaderReleased), SHORT_REQUEST_TIMEOUT);
+        server.start();
+
+        try {
+            server.request(requestMock);
+            fail("Request should have timed out");
+        }
+        catch (SolrServerException ex) {
+            assertFalse(server.isReady());
+            assertFalse(BackgroundSolrServer.isReady(server));
+        }
+        finally {
+            loaderReleased.countDown();
+        }
+
+        assertTrue(server.awaitReady(REQUEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        verifyZeroInteractions(serverMock);
+    }
+
+    @Test(expected = SolrServerException.class)
+    public void request_LoadingFails_ShouldThrowException() throws Exception {
+        BackgroundSolrServer server = new BackgroundSolrServer(new Callable<SolrServer>() {
+            @Override
+            public SolrServer call() throws Exception {
+                throw new IllegalStateException("Solr home not found");
+            }
+        }, REQUEST_TIMEOUT);
+        server.start();
+
+        assertFalse(server.awaitReady(REQUEST_TIMEOUT, TimeUnit.MILLISECONDS));
+
+        server.request(requestMock);
+    }
+
+    @Test
+    public void shutdown_ServerIsLoaded_ShouldShutdownLoadedServer() throws Exception {
+        BackgroundSolrServer server = new BackgroundSolrServer(returnServer(), REQUEST_TIMEOUT);
+        server.start();
+
+        server.shutdown();
+
+        verify(serverMock, times(1)).shutdown();
+    }
+
+    @Test
+    public void isReady_OtherServer_ShouldReturnTrue() throws Exception {
+        assertTrue(BackgroundSolrServer.isReady(serverMock));
+        assertTrue(BackgroundSolrServer.awaitReady(serverMock, 0, TimeUnit.MILLISECONDS));
+    }
+
+    private Callable<SolrServer> returnServer() {
+        return new Callable<SolrServer>() {
+            @Override
+            public SolrServer call() throws Exception {
+                return serverMock;
+            }
+        };
+    }
+
+    private Callable<SolrServer> waitAndReturnServer(final CountDownLatch released) {
+        return new Callable<SolrServer>() {
+            @Override
+            public SolrServer call() throws Exception {
+                released.await();
+                return serverMock;
+            }
+        };
+    }
+}
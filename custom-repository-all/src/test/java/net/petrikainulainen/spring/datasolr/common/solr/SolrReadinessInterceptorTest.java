@@ -0,0 +1,100 @@
+package net.petrikainulainen.spring.datasolr.common.solr;
+
+import org.apache.solr.client.solrj.SolrServer;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SolrReadinessInterceptorTest {
+
+    private static final int RETRY_AFTER_SECONDS = 5;
+    private static final long REQUEST_TIMEOUT = 5000L;
+
+    private SolrReadinessInterceptor interceptor;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        interceptor = new SolrReadinessInterceptor(RETRY_AFTER_SECONDS);
+
+        request = new MockHttpServletRequest("GET", "/api/todo/search/foo");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void preHandle_ServerIsReady_ShouldContinueProcessing() throws Exception {
+        ReflectionTestUtils.setField(interceptor, "solrServer", mock(SolrServer.class));
+
+        boolean actual = interceptor.preHandle(request, response, null);
+
+        assertTrue(actual);
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+    }
+
+    @Test
+    public void preHandle_StartupWarmingIsRunning_ShouldReturnServiceUnavailable() throws Exception {
+        StartupWarming startupWarmingMock = mock(StartupWarming.class);
+        when(startupWarmingMock.isStartupWarmingDone()).thenReturn(false);
+        ReflectionTestUtils.setField(interceptor, "solrServer", mock(SolrServer.class));
+        ReflectionTestUtils.setField(interceptor, "startupWarming", startupWarmingMock);
+
+        boolean actual = interceptor.preHandle(request, response, null);
+
+        assertFalse(actual);
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus());
+        assertEquals(String.valueOf(RETRY_AFTER_SECONDS), response.getHeader(SolrReadinessInterceptor.HEADER_RETRY_AFTER));
+    }
+
+    @Test
+    public void preHandle_StartupWarmingIsDone_ShouldContinueProcessing() throws Exception {
+        StartupWarming startupWarmingMock = mock(StartupWarming.class);
+        when(startupWarmingMock.isStartupWarmingDone()).thenReturn(true);
+        ReflectionTestUtils.setField(interceptor, "solrServer", mock(SolrServer.class));
+        ReflectionTestUtils.setField(interceptor, "startupWarming", startupWarmingMock);
+
+        assertTrue(interceptor.preHandle(request, response, null));
+    }
+
+    @Test
+    public void preHandle_ServerIsNotReady_ShouldReturnServiceUnavailable() throws Exception {
+        final CountDownLatch loaderReleased = new CountDownLatch(1);
+        BackgroundSolrServer server = new BackgroundSolrServer(new Callable<SolrServer>() {
+            @Override
+            public SolrServer call() throws Exception {
+                loaderReleased.await();
+                return mock(SolrServer.class);
+            }
+        }, REQUEST_TIMEOUT);
+        server.start();
+        ReflectionTestUtils.setField(interceptor, "solrServer", server);
+
+        try {
+            boolean actual = interceptor.preHandle(request, response, null);
+
+            assertFalse(actual);
+            assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus());
+            assertEquals(String.valueOf(RETRY_AFTER_SECONDS), response.getHeader(SolrReadinessInterceptor.HEADER_RETRY_AFTER));
+        }
+        finally {
+            loaderReleased.countDown();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package net.petrikainulainen.spring.datasolr.common.sse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class EventBroadcasterTest {
+
+    private static final int THREAD_COUNT = 1;
+    private static final int BUFFER_SIZE = 4;
+    private static final int HISTORY_SIZE = 3;
+    private static final long HEARTBEAT_INTERVAL = 60000L;
+
+    private static final long WAIT_TIMEOUT = 5000L;
+
+    private static final String EVENT_NAME = "updated";
+
+    private EventBroadcaster broadcaster;
+
+    @Before
+    public void setUp() {
+        broadcaster = new EventBroadcaster(THREAD_COUNT, BUFFER_SIZE, HISTORY_SIZE, HEARTBEAT_INTERVAL);
+    }
+
+    @After
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void subscribe_ShouldOpenEventStream() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext asyncContextMock = createAsyncContext(response);
+
+        broadcaster.subscribe(asyncContextMock, null);
+
+        verify(asyncContextMock, times(1)).setTimeout(0);
+        assertEquals(EventBroadcaster.CONTENT_TYPE_EVENT_STREAM, response.getContentType());
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    public void publish_ShouldWriteEventToSubscribers() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        broadcaster.subscribe(createAsyncContext(first), null);
+        broadcaster.subscribe(createAsyncContext(second), null);
+
+        broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", 1));
+
+        String expected = "id: 1\nevent: updated\ndata: {\"id\":1}\n\n";
+        awaitContent(first, expected);
+        awaitContent(second, expected);
+    }
+
+    @Test
+    public void subscribe_LastEventIdIsAvailable_ShouldResendMissedEvents() throws Exception {
+        broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", 1));
+        broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", 2));
+        broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", 3));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        broadcaster.subscribe(createAsyncContext(response), 1L);
+
+        awaitContent(response, "id: 3\n");
+
+        String content = response.getContentAsString();
+        assertFalse(content.contains("id: 1\n"));
+        assertTrue(content.indexOf("id: 2\n") < content.indexOf("id: 3\n"));
+    }
+
+    @Test
+    public void subscribe_MissedEventsAreNotAvailable_ShouldSendResetEvent() throws Exception {
+        for (int index = 1; index <= HISTORY_SIZE + 2; index++) {
+            broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", index));
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        broadcaster.subscribe(createAsyncContext(response), 1L);
+
+        awaitContent(response, "id: 5\nevent: " + EventBroadcaster.EVENT_NAME_RESET + "\n");
+        assertFalse(response.getContentAsString().contains("event: " + EVENT_NAME));
+    }
+
+    @Test
+    public void subscribe_LastEventIdIsNewerThanLatestEvent_ShouldSendResetEvent() throws Exception {
+        broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", 1));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        broadcaster.subscribe(createAsyncContext(response), 100L);
+
+        awaitContent(response, "event: " + EventBroadcaster.EVENT_NAME_RESET);
+    }
+
+    @Test
+    public void publish_SubscriberCannotKeepUp_ShouldDisconnectSubscriber() throws Exception {
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch releaseWrite = new CountDownLatch(1);
+
+        HttpServletResponse blockingResponse = mock(HttpServletResponse.class);
+        when(blockingResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writeStarted.countDown();
+                try {
+                    releaseWrite.await();
+                }
+                catch (InterruptedException ex) {
+                    throw new IOException(ex.getMessage());
+                }
+            }
+        });
+
+        AsyncContext slowContext = mock(AsyncContext.class);
+        when(slowContext.getResponse()).thenReturn(blockingResponse);
+
+        broadcaster.subscribe(slowContext, null);
+        writeStarted.await();
+
+        for (int index = 1; index <= BUFFER_SIZE + 1; index++) {
+            broadcaster.publish(EVENT_NAME, Collections.singletonMap("id", index));
+        }
+
+        verify(slowContext, times(1)).complete();
+        assertEquals(0, broadcaster.getSubscriberCount());
+
+        releaseWrite.countDown();
+    }
+
+    private AsyncContext createAsyncContext(HttpServletResponse response) {
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        return asyncContext;
+    }
+
+    private void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+
+        while (!response.getContentAsString().contains(expected)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Expected: " + expected + " but was: " + response.getContentAsString());
+            }
+            Thread.sleep(10);
+        }
+    }
+}
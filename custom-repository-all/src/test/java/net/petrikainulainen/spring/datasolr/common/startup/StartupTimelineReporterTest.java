@@ -0,0 +1,75 @@
+package net.petrikainulainen.spring.datasolr.common.startup;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class StartupTimelineReporterTest {
+
+    private static final int REPORTED_BEAN_COUNT = 10;
+
+    private static final String BEAN_NAME_DEPENDENCY = "dependency";
+    private static final String BEAN_NAME_FAILED = "failed";
+    private static final String BEAN_NAME_SERVICE = "service";
+
+    private StartupTimelineReporter reporter;
+
+    @Before
+    public void setUp() {
+        reporter = new StartupTimelineReporter(REPORTED_BEAN_COUNT);
+    }
+
+    @Test
+    public void getSlowestBeans_BeanHasDependency_ShouldNotCountDependencyToOwnTime() throws InterruptedException {
+        reporter.postProcessBeforeInstantiation(Object.class, BEAN_NAME_SERVICE);
+        reporter.postProcessBeforeInstantiation(Object.class, BEAN_NAME_DEPENDENCY);
+        Thread.sleep(20);
+        reporter.postProcessAfterInitialization(new Object(), BEAN_NAME_DEPENDENCY);
+        reporter.postProcessAfterInitialization(new Object(), BEAN_NAME_SERVICE);
+
+        List<StartupTimelineReporter.BeanTiming> actual = reporter.getSlowestBeans();
+
+        assertEquals(2, actual.size());
+
+        StartupTimelineReporter.BeanTiming dependency = actual.get(0);
+        StartupTimelineReporter.BeanTiming service = actual.get(1);
+
+        assertEquals(BEAN_NAME_DEPENDENCY, dependency.getBeanName());
+        assertEquals(BEAN_NAME_SERVICE, service.getBeanName());
+        assertTrue(service.getTotalTime() >= dependency.getTotalTime());
+        assertEquals(service.getTotalTime() - dependency.getTotalTime(), service.getOwnTime());
+    }
+
+    @Test
+    public void getSlowestBeans_BeanIsCreatedByFactoryMethod_ShouldStartTimingFromBeanDefinition() {
+        reporter.postProcessMergedBeanDefinition(null, Object.class, BEAN_NAME_SERVICE);
+        reporter.postProcessAfterInitialization(new Object(), BEAN_NAME_SERVICE);
+
+        //The object created by a factory bean is post processed by using the name of the factory bean.
+        reporter.postProcessAfterInitialization(new Object(), BEAN_NAME_SERVICE);
+
+        List<StartupTimelineReporter.BeanTiming> actual = reporter.getSlowestBeans();
+
+        assertEquals(1, actual.size());
+        assertEquals(BEAN_NAME_SERVICE, actual.get(0).getBeanName());
+    }
+
+    @Test
+    public void getSlowestBeans_CreationOfDependencyFails_ShouldIgnoreFailedBean() {
+        reporter.postProcessBeforeInstantiation(Object.class, BEAN_NAME_SERVICE);
+        reporter.postProcessBeforeInstantiation(Object.class, BEAN_NAME_FAILED);
+        reporter.postProcessAfterInitialization(new Object(), BEAN_NAME_SERVICE);
+
+        List<StartupTimelineReporter.BeanTiming> actual = reporter.getSlowestBeans();
+
+        assertEquals(1, actual.size());
+        assertEquals(BEAN_NAME_SERVICE, actual.get(0).getBeanName());
+    }
+}
@@ -0,0 +1,86 @@
+package net.petrikainulainen.spring.datasolr.common.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class ETagUtilTest {
+
+    private static final Long ID = 1L;
+    private static final long VERSION = 2L;
+
+    private static final String ETAG = "\"1-2\"";
+
+    @Test
+    public void fromVersion_ShouldReturnQuotedIdAndVersion() {
+        assertEquals(ETAG, ETagUtil.fromVersion(ID, VERSION));
+    }
+
+    @Test
+    public void forRepresentation_ShouldReturnQuotedETagAndRepresentation() {
+        assertEquals("\"1-2-smile\"", ETagUtil.forRepresentation(ETAG, "smile"));
+    }
+
+    @Test
+    public void fromItemStates_SameStates_ShouldReturnSameETag() {
+        String first = ETagUtil.fromItemStates(Arrays.asList("1-0", "2-0"));
+        String second = ETagUtil.fromItemStates(Arrays.asList("1-0", "2-0"));
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith("\"") && first.endsWith("\""));
+    }
+
+    @Test
+    public void fromItemStates_StateHasChanged_ShouldReturnDifferentETag() {
+        String first = ETagUtil.fromItemStates(Arrays.asList("1-0", "2-0"));
+        String second = ETagUtil.fromItemStates(Arrays.asList("1-0", "2-1"));
+
+        assertFalse(first.equals(second));
+    }
+
+    @Test
+    public void fromItemStates_OrderHasChanged_ShouldReturnDifferentETag() {
+        String first = ETagUtil.fromItemStates(Arrays.asList("1-0", "2-0"));
+        String second = ETagUtil.fromItemStates(Arrays.asList("2-0", "1-0"));
+
+        assertFalse(first.equals(second));
+    }
+
+    @Test
+    public void matches_HeaderIsMissing_ShouldReturnFalse() {
+        assertFalse(ETagUtil.matches(null, ETAG));
+        assertFalse(ETagUtil.matches("", ETAG));
+    }
+
+    @Test
+    public void matches_SameETag_ShouldReturnTrue() {
+        assertTrue(ETagUtil.matches(ETAG, ETAG));
+    }
+
+    @Test
+    public void matches_DifferentETag_ShouldReturnFalse() {
+        assertFalse(ETagUtil.matches("\"1-1\"", ETAG));
+    }
+
+    @Test
+    public void matches_ETagFoundFromList_ShouldReturnTrue() {
+        assertTrue(ETagUtil.matches("\"1-1\", " + ETAG, ETAG));
+    }
+
+    @Test
+    public void matches_WeakETag_ShouldReturnTrue() {
+        assertTrue(ETagUtil.matches(ETagUtil.WEAK_PREFIX + ETAG, ETAG));
+    }
+
+    @Test
+    public void matches_Any_ShouldReturnTrue() {
+        assertTrue(ETagUtil.matches(ETagUtil.ANY, ETAG));
+    }
+}
@@ -15,6 +15,7 @@ public class TodoTestUtil {
     public static final String DESCRIPTION_UPDATED = "updatedDescription";
     public static final String TITLE = "title";
     public static final String TITLE_UPDATED = "updatedTitle";
+    public static final Long VERSION = 0L;
 
     private static final String CHARACTER = "a";
 
@@ -0,0 +1,44 @@
+package net.petrikainulainen.spring.datasolr.todo.controller;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
+import net.petrikainulainen.spring.datasolr.todo.service.TodoService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+
+import static junit.framework.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SearchStatisticsControllerTest {
+
+    private SearchStatisticsController controller;
+
+    private TodoService serviceMock;
+
+    @Before
+    public void setUp() {
+        controller = new SearchStatisticsController();
+
+        serviceMock = mock(TodoService.class);
+        ReflectionTestUtils.setField(controller, "service", serviceMock);
+    }
+
+    @Test
+    public void getSearchTermStatistics_ShouldReturnStatistics() {
+        SearchTermStatisticsDTO expected = new SearchTermStatisticsDTO(2, 1, new ArrayList<SearchTermDTO>(), new ArrayList<SearchTermDTO>());
+        when(serviceMock.getSearchTermStatistics()).thenReturn(expected);
+
+        SearchTermStatisticsDTO actual = controller.getSearchTermStatistics();
+
+        verify(serviceMock, times(1)).getSearchTermStatistics();
+        verifyNoMoreInteractions(serviceMock);
+
+        assertEquals(expected, actual);
+    }
+}
@@ -1,36 +1,66 @@
 package net.petrikainulainen.spring.datasolr.todo.controller;
 
+import net.petrikainulainen.spring.datasolr.common.http.SmileHttpMessageConverter;
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
+import net.petrikainulainen.spring.datasolr.common.util.ETagUtil;
 import net.petrikainulainen.spring.datasolr.common.util.LocaleContextHolderWrapper;
 import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
 import net.petrikainulainen.spring.datasolr.todo.config.UnitTestContext;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import net.petrikainulainen.spring.datasolr.todo.dto.ChangeFeedDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.FieldValidationErrorDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.FormValidationErrorDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.MultiGetResultDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchResultPageDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoChangeDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
 import net.petrikainulainen.spring.datasolr.todo.exception.FormValidationError;
+import net.petrikainulainen.spring.datasolr.todo.exception.InvalidChangeTokenException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TodoConflictException;
 import net.petrikainulainen.spring.datasolr.todo.exception.TodoNotFoundException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TooManyIdsException;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoCallback;
 import net.petrikainulainen.spring.datasolr.todo.service.TodoService;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.smile.SmileFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.context.MessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.Validator;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import javax.annotation.Resource;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 /**
@@ -52,6 +82,13 @@ public class TodoControllerTest {
 
     private static final String OBJECT_NAME = "todo";
 
+    private static final Long LAST_ID = 5L;
+    private static final int PAGE_SIZE = 10;
+
+    private static final String CHANGE_TOKEN = "1000-1";
+
+    private static final String ETAG_OUTDATED = "\"outdated\"";
+
     private static final long RESULT_COUNT = 2L;
     private static final String SEARCH_TERM = "Foo";
 
@@ -63,6 +100,10 @@ public class TodoControllerTest {
 
     private TodoService serviceMock;
 
+    private AsyncTaskExecutor searchTaskExecutorMock;
+
+    private AsyncTaskExecutor writeTaskExecutorMock;
+
     @Resource
     private Validator validator;
 
@@ -80,15 +121,21 @@ public class TodoControllerTest {
         ReflectionTestUtils.setField(controller, "service", serviceMock);
 
         ReflectionTestUtils.setField(controller, "validator", validator);
+
+        searchTaskExecutorMock = mock(AsyncTaskExecutor.class);
+        ReflectionTestUtils.setField(controller, "searchTaskExecutor", searchTaskExecutorMock);
+
+        writeTaskExecutorMock = mock(AsyncTaskExecutor.class);
+        ReflectionTestUtils.setField(controller, "writeTaskExecutor", writeTaskExecutorMock);
     }
 
     @Test
-    public void add_AllFieldsOk_ShouldReturnAddedTodo() throws FormValidationError {
+    public void add_AllFieldsOk_ShouldReturnAddedTodo() throws Exception {
         TodoDTO dto = TodoTestUtil.createDTO(null, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
         Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
         when(serviceMock.add(dto)).thenReturn(expected);
 
-        TodoDTO actual = controller.add(dto);
+        TodoDTO actual = callAsyncTask(controller.add(dto));
 
         verify(serviceMock, times(1)).add(dto);
         verifyNoMoreInteractions(serviceMock);
@@ -119,10 +166,10 @@ public class TodoControllerTest {
     }
 
     @Test
-    public void countSearchResults_ShouldReturnSearchResultCount() {
+    public void countSearchResults_ShouldReturnSearchResultCount() throws Exception {
         when(serviceMock.countSearchResults(SEARCH_TERM)).thenReturn(RESULT_COUNT);
 
-        long actual = controller.countSearchResults(SEARCH_TERM);
+        long actual = callAsyncTask(controller.countSearchResults(SEARCH_TERM));
 
         verify(serviceMock, times(1)).countSearchResults(SEARCH_TERM);
         verifyNoMoreInteractions(serviceMock);
@@ -132,24 +179,21 @@ public class TodoControllerTest {
     }
 
     @Test
-    public void deleteById_TodoIsNotFound_ShouldReturnDeletedTodo() throws TodoNotFoundException {
-        Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
-        when(serviceMock.deleteById(TodoTestUtil.ID)).thenReturn(expected);
-
-        TodoDTO actual = controller.deleteById(TodoTestUtil.ID);
+    public void deleteById_TodoIsFound_ShouldReturnNoContent() throws Exception {
+        ResponseEntity<Void> actual = callAsyncTask(controller.deleteById(TodoTestUtil.ID));
 
         verify(serviceMock, times(1)).deleteById(TodoTestUtil.ID);
         verifyNoMoreInteractions(serviceMock);
         verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
 
-        assertTodo(expected, actual);
+        assertEquals(HttpStatus.NO_CONTENT, actual.getStatusCode());
     }
 
     @Test(expected = TodoNotFoundException.class)
-    public void deleteById_TodoIsNotFound_ShouldThrowException() throws TodoNotFoundException {
-        when(serviceMock.deleteById(TodoTestUtil.ID)).thenThrow(new TodoNotFoundException(""));
+    public void deleteById_TodoIsNotFound_ShouldThrowException() throws Exception {
+        doThrow(new TodoNotFoundException("")).when(serviceMock).deleteById(TodoTestUtil.ID);
 
-        controller.deleteById(TodoTestUtil.ID);
+        callAsyncTask(controller.deleteById(TodoTestUtil.ID));
 
         verify(serviceMock, times(1)).deleteById(TodoTestUtil.ID);
         verifyNoMoreInteractions(serviceMock);
@@ -157,28 +201,219 @@ public class TodoControllerTest {
     }
 
     @Test
-    public void findAll_ShouldReturnTodoList() {
-        Todo model = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
-        List<Todo> expected = createModels(model);
+    public void findAll_ShouldWriteTodoListToResponse() throws IOException {
+        final TodoDTO first = new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        final TodoDTO second = new TodoDTO(TodoTestUtil.ID + 1, null, TodoTestUtil.TITLE_UPDATED, TodoTestUtil.VERSION);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                TodoCallback callback = (TodoCallback) invocation.getArguments()[0];
+                callback.process(first);
+                callback.process(second);
+                return null;
+            }
+        }).when(serviceMock).processAll(any(TodoCallback.class));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.findAll(null, response);
+
+        verify(serviceMock, times(1)).processAll(any(TodoCallback.class));
+        verifyNoMoreInteractions(serviceMock);
+        verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
+
+        assertEquals(TodoController.CONTENT_TYPE_JSON, response.getContentType());
+        assertEquals("[{\"id\":1,\"description\":\"description\",\"title\":\"title\",\"version\":0},{\"id\":2,\"description\":null,\"title\":\"updatedTitle\",\"version\":0}]",
+                response.getContentAsString());
+    }
+
+    @Test
+    public void findAll_NoTodosFound_ShouldWriteEmptyListToResponse() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.findAll(null, response);
+
+        verify(serviceMock, times(1)).processAll(any(TodoCallback.class));
+        verifyNoMoreInteractions(serviceMock);
+
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    public void findAll_SmileRequested_ShouldWriteTodoListAsSmile() throws IOException {
+        final TodoDTO dto = new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                TodoCallback callback = (TodoCallback) invocation.getArguments()[0];
+                callback.process(dto);
+                return null;
+            }
+        }).when(serviceMock).processAll(any(TodoCallback.class));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.findAll(SmileHttpMessageConverter.MEDIA_TYPE_SMILE_VALUE, response);
+
+        assertEquals(SmileHttpMessageConverter.MEDIA_TYPE_SMILE_VALUE, response.getContentType());
+
+        TodoDTO[] actual = new ObjectMapper(new SmileFactory()).readValue(response.getContentAsByteArray(), TodoDTO[].class);
+        assertEquals(1, actual.length);
+        assertEquals(dto.getId(), actual[0].getId());
+        assertEquals(dto.getDescription(), actual[0].getDescription());
+        assertEquals(dto.getTitle(), actual[0].getTitle());
+        assertEquals(dto.getVersion(), actual[0].getVersion());
+    }
+
+    @Test
+    public void findChanges_ShouldReturnChangeFeed() throws InvalidChangeTokenException {
+        ChangeFeedDTO expected = new ChangeFeedDTO(new ArrayList<TodoChangeDTO>(), CHANGE_TOKEN, false);
+        when(serviceMock.findChanges(CHANGE_TOKEN, PAGE_SIZE)).thenReturn(expected);
+
+        ChangeFeedDTO actual = controller.findChanges(CHANGE_TOKEN, PAGE_SIZE);
+
+        verify(serviceMock, times(1)).findChanges(CHANGE_TOKEN, PAGE_SIZE);
+        verifyNoMoreInteractions(serviceMock);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test(expected = InvalidChangeTokenException.class)
+    public void findChanges_InvalidChangeToken_ShouldThrowException() throws InvalidChangeTokenException {
+        when(serviceMock.findChanges(CHANGE_TOKEN, PAGE_SIZE)).thenThrow(new InvalidChangeTokenException(""));
+
+        controller.findChanges(CHANGE_TOKEN, PAGE_SIZE);
+    }
+
+    @Test
+    public void findLatest_ShouldReturnLatestTodos() {
+        List<TodoDTO> expected = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        when(serviceMock.findLatest()).thenReturn(expected);
+
+        ResponseEntity<List<TodoDTO>> actual = controller.findLatest(null, null);
+
+        verify(serviceMock, times(1)).findLatest();
+        verifyNoMoreInteractions(serviceMock);
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(expected, actual.getBody());
+        assertNotNull(actual.getHeaders().getETag());
+    }
+
+    @Test
+    public void findLatest_ETagMatches_ShouldReturnNotModified() {
+        List<TodoDTO> expected = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+        when(serviceMock.findLatest()).thenReturn(expected);
+
+        String eTag = controller.findLatest(null, null).getHeaders().getETag();
+        ResponseEntity<List<TodoDTO>> actual = controller.findLatest(null, eTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertNull(actual.getBody());
+    }
+
+    @Test
+    public void findLatest_ETagOfJsonRepresentationIsSentWhenSmileIsRequested_ShouldReturnLatestTodos() {
+        List<TodoDTO> expected = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+        when(serviceMock.findLatest()).thenReturn(expected);
+
+        ResponseEntity<List<TodoDTO>> json = controller.findLatest(null, null);
+        ResponseEntity<List<TodoDTO>> actual = controller.findLatest(SmileHttpMessageConverter.MEDIA_TYPE_SMILE_VALUE, json.getHeaders().getETag());
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(expected, actual.getBody());
+        assertFalse(json.getHeaders().getETag().equals(actual.getHeaders().getETag()));
+        assertEquals(TodoController.REQUEST_HEADER_ACCEPT, actual.getHeaders().getFirst(TodoController.RESPONSE_HEADER_VARY));
+    }
+
+    @Test
+    public void findPage_ShouldReturnTodoList() {
+        List<TodoDTO> expected = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        when(serviceMock.findAll(LAST_ID, PAGE_SIZE)).thenReturn(expected);
+
+        ResponseEntity<List<TodoDTO>> actual = controller.findPage(LAST_ID, PAGE_SIZE, null, null);
+
+        verify(serviceMock, times(1)).findAll(LAST_ID, PAGE_SIZE);
+        verifyNoMoreInteractions(serviceMock);
+        verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(expected, actual.getBody());
+        assertNotNull(actual.getHeaders().getETag());
+    }
+
+    @Test
+    public void findPage_ETagMatches_ShouldReturnNotModified() {
+        List<TodoDTO> expected = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        when(serviceMock.findAll(LAST_ID, PAGE_SIZE)).thenReturn(expected);
+
+        String eTag = controller.findPage(LAST_ID, PAGE_SIZE, null, null).getHeaders().getETag();
+        ResponseEntity<List<TodoDTO>> actual = controller.findPage(LAST_ID, PAGE_SIZE, null, eTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertEquals(eTag, actual.getHeaders().getETag());
+        assertNull(actual.getBody());
+    }
+
+    @Test
+    public void findPage_VersionHasChanged_ShouldReturnTodoList() {
+        List<TodoDTO> original = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+        List<TodoDTO> updated = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION + 1));
+
+        when(serviceMock.findAll(LAST_ID, PAGE_SIZE)).thenReturn(original).thenReturn(updated);
 
-        when(serviceMock.findAll()).thenReturn(expected);
+        String eTag = controller.findPage(LAST_ID, PAGE_SIZE, null, null).getHeaders().getETag();
+        ResponseEntity<List<TodoDTO>> actual = controller.findPage(LAST_ID, PAGE_SIZE, null, eTag);
 
-        List<TodoDTO> actual = controller.findAll();
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(updated, actual.getBody());
+    }
+
+    @Test
+    public void findByIds_ShouldReturnFoundTodosAndMissingIds() throws TooManyIdsException {
+        TodoDTO first = new TodoDTO(2L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        TodoDTO second = new TodoDTO(1L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        List<TodoDTO> expected = Arrays.asList(first, second);
+        List<Long> ids = Arrays.asList(2L, 3L, 1L, 3L);
 
-        verify(serviceMock, times(1)).findAll();
+        when(serviceMock.findByIds(ids)).thenReturn(expected);
+
+        ResponseEntity<MultiGetResultDTO> actual = controller.findByIds(ids, null, null);
+
+        verify(serviceMock, times(1)).findByIds(ids);
         verifyNoMoreInteractions(serviceMock);
         verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
 
-        assertTodos(expected, actual);
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(expected, actual.getBody().getResults());
+        assertEquals(Arrays.asList(3L), actual.getBody().getMissingIds());
+        assertNotNull(actual.getHeaders().getETag());
+    }
+
+    @Test
+    public void findByIds_ETagMatches_ShouldReturnNotModified() throws TooManyIdsException {
+        List<TodoDTO> expected = Arrays.asList(new TodoDTO(1L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+        List<Long> ids = Arrays.asList(1L, 3L);
+
+        when(serviceMock.findByIds(ids)).thenReturn(expected);
+
+        String eTag = controller.findByIds(ids, null, null).getHeaders().getETag();
+        ResponseEntity<MultiGetResultDTO> actual = controller.findByIds(ids, null, eTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertNull(actual.getBody());
     }
 
     @Test
-    public void update_AllFieldsOk_ShouldReturnUpdatedTodo() throws FormValidationError, TodoNotFoundException {
+    public void update_AllFieldsOk_ShouldReturnUpdatedTodo() throws Exception {
         TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION_UPDATED, TodoTestUtil.TITLE_UPDATED);
+        dto.setVersion(TodoTestUtil.VERSION);
         Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
         when(serviceMock.update(dto)).thenReturn(expected);
 
-        TodoDTO actual = controller.update(dto, TodoTestUtil.ID);
+        TodoDTO actual = callAsyncTask(controller.update(dto, TodoTestUtil.ID));
 
         verify(serviceMock, times(1)).update(dto);
         verifyNoMoreInteractions(serviceMock);
@@ -208,51 +443,93 @@ public class TodoControllerTest {
         verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock, serviceMock);
     }
 
+    @Test
+    public void update_VersionIsMissing_ShouldThrowException() throws TodoNotFoundException {
+        TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+
+        try {
+            controller.update(dto, TodoTestUtil.ID);
+            fail("Should throw FormValidationError");
+        }
+        catch (FormValidationError e) {
+            List<FieldError> fieldErrors = e.getFieldErrors();
+            assertEquals(1, fieldErrors.size());
+            assertEquals(TodoController.FIELD_NAME_VERSION, fieldErrors.get(0).getField());
+            assertEquals(TodoController.ERROR_CODE_VERSION_MISSING, fieldErrors.get(0).getCode());
+        }
+
+        verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock, serviceMock);
+    }
+
     @Test(expected = TodoNotFoundException.class)
-    public void update_TodoIsNotFound_ShouldThrowException() throws FormValidationError, TodoNotFoundException {
+    public void update_TodoIsNotFound_ShouldThrowException() throws Exception {
         TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        dto.setVersion(TodoTestUtil.VERSION);
         when(serviceMock.update(dto)).thenThrow(new TodoNotFoundException(""));
 
-        controller.update(dto, TodoTestUtil.ID);
+        callAsyncTask(controller.update(dto, TodoTestUtil.ID));
 
         verify(serviceMock, times(1)).update(dto);
         verifyNoMoreInteractions(serviceMock);
         verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
     }
 
-    private void assertTodos(List<Todo> expected, List<TodoDTO> actual) {
-        assertEquals(expected.size(), actual.size());
+    @Test(expected = TodoConflictException.class)
+    public void update_VersionHasChanged_ShouldThrowException() throws Exception {
+        TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        dto.setVersion(TodoTestUtil.VERSION);
+        when(serviceMock.update(dto)).thenThrow(new TodoConflictException(""));
+
+        callAsyncTask(controller.update(dto, TodoTestUtil.ID));
 
-        for (int index = 0; index < expected.size(); index++) {
-            Todo model = expected.get(index);
-            TodoDTO dto = actual.get(index);
-            assertTodo(model, dto);
-        }
+        verify(serviceMock, times(1)).update(dto);
+        verifyNoMoreInteractions(serviceMock);
+        verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
     }
 
-    private List<Todo> createModels(Todo... models) {
-        List<Todo> todos = new ArrayList<Todo>();
+    @Test
+    public void add_AllFieldsOk_ShouldUseWriteTaskExecutor() throws FormValidationError {
+        TodoDTO dto = TodoTestUtil.createDTO(null, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
 
-        for (Todo model: models) {
-            todos.add(model);
-        }
+        WebAsyncTask<TodoDTO> task = controller.add(dto);
 
-        return todos;
+        assertEquals(writeTaskExecutorMock, task.getExecutor());
+        assertEquals(TodoController.WRITE_TIMEOUT, task.getTimeout().longValue());
+        verifyZeroInteractions(serviceMock);
     }
 
     @Test
-    public void search_ShouldReturnTodoList() {
+    public void search_ShouldUseSearchTaskExecutor() {
+        WebAsyncTask<ResponseEntity<List<TodoDTO>>> task = controller.search(SEARCH_TERM, new PageRequest(1, 1), null, null);
+
+        assertEquals(searchTaskExecutorMock, task.getExecutor());
+        assertEquals(TodoController.SEARCH_TIMEOUT, task.getTimeout().longValue());
+        verifyZeroInteractions(serviceMock);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T callAsyncTask(WebAsyncTask<T> task) throws Exception {
+        return (T) task.getCallable().call();
+    }
+
+    @Test
+    public void search_ShouldReturnTodoList() throws Exception {
         TodoDocument document = TodoTestUtil.createDocument(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
         List<TodoDocument> documents = createDocuments(document);
 
         when(serviceMock.search(eq(SEARCH_TERM), any(Pageable.class))).thenReturn(documents);
 
         PageRequest page = new PageRequest(1, 1);
-        List<TodoDTO> results = controller.search(SEARCH_TERM, page);
+        ResponseEntity<List<TodoDTO>> response = callAsyncTask(controller.search(SEARCH_TERM, page, null, null));
 
         verify(serviceMock, times(1)).search(SEARCH_TERM, page);
         verifyNoMoreInteractions(serviceMock);
 
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getETag());
+
+        List<TodoDTO> results = response.getBody();
+
         assertEquals(documents.size(), results.size());
 
         for (int index = 0; index < documents.size(); index++) {
@@ -265,6 +542,44 @@ public class TodoControllerTest {
         }
     }
 
+    @Test
+    public void search_ETagMatches_ShouldReturnNotModified() throws Exception {
+        TodoDocument document = TodoTestUtil.createDocument(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        PageRequest page = new PageRequest(1, 1);
+
+        when(serviceMock.search(SEARCH_TERM, page)).thenReturn(createDocuments(document));
+
+        String eTag = callAsyncTask(controller.search(SEARCH_TERM, page, null, null)).getHeaders().getETag();
+        ResponseEntity<List<TodoDTO>> actual = callAsyncTask(controller.search(SEARCH_TERM, page, null, eTag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertEquals(eTag, actual.getHeaders().getETag());
+        assertNull(actual.getBody());
+    }
+
+    @Test
+    public void searchPage_ShouldReturnSearchResultsAndTotalCount() throws Exception {
+        TodoDocument document = TodoTestUtil.createDocument(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        PageRequest page = new PageRequest(0, 1);
+
+        when(serviceMock.searchPage(SEARCH_TERM, page)).thenReturn(new PageImpl<TodoDocument>(createDocuments(document), page, RESULT_COUNT));
+
+        ResponseEntity<SearchResultPageDTO> response = callAsyncTask(controller.searchPage(SEARCH_TERM, page, null, ETAG_OUTDATED));
+
+        verify(serviceMock, times(1)).searchPage(SEARCH_TERM, page);
+        verifyNoMoreInteractions(serviceMock);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getETag());
+
+        SearchResultPageDTO actual = response.getBody();
+
+        assertEquals(RESULT_COUNT, actual.getTotalCount());
+        assertEquals(1, actual.getResults().size());
+        assertEquals(TodoTestUtil.ID, actual.getResults().get(0).getId());
+        assertEquals(TodoTestUtil.TITLE, actual.getResults().get(0).getTitle());
+    }
+
     private List<TodoDocument> createDocuments(TodoDocument... documents) {
         List<TodoDocument> list = new ArrayList<TodoDocument>();
 
@@ -275,25 +590,119 @@ public class TodoControllerTest {
         return list;
     }
 
+    @Test
+    public void subscribeToChanges_ShouldStartAsyncRequestAndSubscribeToEvents() {
+        EventBroadcaster broadcasterMock = mock(EventBroadcaster.class);
+        when(serviceMock.getChangeBroadcaster()).thenReturn(broadcasterMock);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.subscribeToChanges(LAST_ID, request, response);
+
+        verify(serviceMock, times(1)).getChangeBroadcaster();
+        verifyNoMoreInteractions(serviceMock);
+
+        assertTrue(request.isAsyncStarted());
+        assertSame(response, request.getAsyncContext().getResponse());
+        verify(broadcasterMock, times(1)).subscribe(request.getAsyncContext(), LAST_ID);
+    }
+
+    @Test(expected = AccessDeniedException.class)
+    public void subscribeToChanges_UserIsNotAuthorized_ShouldNotStartAsyncRequest() {
+        when(serviceMock.getChangeBroadcaster()).thenThrow(new AccessDeniedException(""));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+
+        try {
+            controller.subscribeToChanges(LAST_ID, request, new MockHttpServletResponse());
+        }
+        finally {
+            assertFalse(request.isAsyncStarted());
+        }
+    }
+
     @Test
     public void findById_TodoIsFound_ShouldReturnTodo() throws TodoNotFoundException {
         Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
         when(serviceMock.findById(TodoTestUtil.ID)).thenReturn(expected);
 
-        TodoDTO actual = controller.findById(TodoTestUtil.ID);
+        ResponseEntity<TodoDTO> actual = controller.findById(TodoTestUtil.ID, null, null);
 
         verify(serviceMock, times(1)).findById(TodoTestUtil.ID);
         verifyNoMoreInteractions(serviceMock);
         verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
 
-        assertTodo(expected, actual);
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(ETagUtil.fromVersion(TodoTestUtil.ID, TodoTestUtil.VERSION), actual.getHeaders().getETag());
+        assertTodo(expected, actual.getBody());
+    }
+
+    @Test
+    public void findById_ETagMatches_ShouldReturnNotModifiedWithoutReadingTodo() throws TodoNotFoundException {
+        String eTag = ETagUtil.fromVersion(TodoTestUtil.ID, TodoTestUtil.VERSION);
+        when(serviceMock.findVersionById(TodoTestUtil.ID)).thenReturn(TodoTestUtil.VERSION);
+
+        ResponseEntity<TodoDTO> actual = controller.findById(TodoTestUtil.ID, null, eTag);
+
+        verify(serviceMock, times(1)).findVersionById(TodoTestUtil.ID);
+        verifyNoMoreInteractions(serviceMock);
+        verifyZeroInteractions(localeHolderWrapperMock, messageSourceMock);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertEquals(eTag, actual.getHeaders().getETag());
+        assertNull(actual.getBody());
+    }
+
+    @Test
+    public void findById_SmileIsRequested_ShouldReturnETagOfSmileRepresentation() throws TodoNotFoundException {
+        Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        when(serviceMock.findById(TodoTestUtil.ID)).thenReturn(expected);
+
+        ResponseEntity<TodoDTO> actual = controller.findById(TodoTestUtil.ID, SmileHttpMessageConverter.MEDIA_TYPE_SMILE_VALUE, null);
+
+        String jsonETag = ETagUtil.fromVersion(TodoTestUtil.ID, TodoTestUtil.VERSION);
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals(ETagUtil.forRepresentation(jsonETag, TodoController.REPRESENTATION_SMILE), actual.getHeaders().getETag());
+        assertEquals(TodoController.REQUEST_HEADER_ACCEPT, actual.getHeaders().getFirst(TodoController.RESPONSE_HEADER_VARY));
+    }
+
+    @Test
+    public void findById_SmileIsRequestedWithETagOfJsonRepresentation_ShouldReturnTodo() throws TodoNotFoundException {
+        Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        when(serviceMock.findVersionById(TodoTestUtil.ID)).thenReturn(TodoTestUtil.VERSION);
+        when(serviceMock.findById(TodoTestUtil.ID)).thenReturn(expected);
+
+        String jsonETag = ETagUtil.fromVersion(TodoTestUtil.ID, TodoTestUtil.VERSION);
+        ResponseEntity<TodoDTO> actual = controller.findById(TodoTestUtil.ID, SmileHttpMessageConverter.MEDIA_TYPE_SMILE_VALUE, jsonETag);
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertTodo(expected, actual.getBody());
+    }
+
+    @Test
+    public void findById_ETagIsOutdated_ShouldReturnTodo() throws TodoNotFoundException {
+        Todo expected = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        when(serviceMock.findVersionById(TodoTestUtil.ID)).thenReturn(TodoTestUtil.VERSION);
+        when(serviceMock.findById(TodoTestUtil.ID)).thenReturn(expected);
+
+        ResponseEntity<TodoDTO> actual = controller.findById(TodoTestUtil.ID, null, ETAG_OUTDATED);
+
+        verify(serviceMock, times(1)).findVersionById(TodoTestUtil.ID);
+        verify(serviceMock, times(1)).findById(TodoTestUtil.ID);
+        verifyNoMoreInteractions(serviceMock);
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertTodo(expected, actual.getBody());
     }
 
     @Test(expected = TodoNotFoundException.class)
     public void findById_TodoIsNotFound_ShouldThrowException() throws TodoNotFoundException {
         when(serviceMock.findById(TodoTestUtil.ID)).thenThrow(new TodoNotFoundException(""));
 
-        controller.findById(TodoTestUtil.ID);
+        controller.findById(TodoTestUtil.ID, null, null);
 
         verify(serviceMock, times(1)).findById(TodoTestUtil.ID);
         verifyNoMoreInteractions(serviceMock);
@@ -458,6 +867,7 @@ public class TodoControllerTest {
         assertEquals(expected.getId(), actual.getId());
         assertEquals(expected.getDescription(), actual.getDescription());
         assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getVersion(), actual.getVersion().longValue());
     }
 
     private FieldError createFieldError(String objectName, String path, String... errorMessageCodes) {
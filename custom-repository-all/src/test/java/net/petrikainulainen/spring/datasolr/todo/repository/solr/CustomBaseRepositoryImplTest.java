@@ -3,18 +3,32 @@ package net.petrikainulainen.spring.datasolr.todo.repository.solr;
 import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServer;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.solr.core.SolrCallback;
 import org.springframework.data.solr.core.SolrOperations;
 import org.springframework.data.solr.core.query.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static junit.framework.Assert.assertEquals;
-import static junit.framework.Assert.fail;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
@@ -106,33 +120,119 @@ public class CustomBaseRepositoryImplTest {
     }
 
     @Test
-    public void update_ExistingDocument_ShouldDoPartialUpdate() {
-        Todo todoEntry = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+    public void findOne_DocumentFound_ShouldUseRealTimeGetAndReturnDocument() throws Exception {
+        SolrServer solrServerMock = mock(SolrServer.class);
+        QueryResponse responseMock = mock(QueryResponse.class);
+        TodoDocument document = TodoDocument.getBuilder(TodoTestUtil.ID, TodoTestUtil.TITLE).build();
+
+        when(solrServerMock.query(any(SolrParams.class))).thenReturn(responseMock);
+        when(responseMock.getBeans(TodoDocument.class)).thenReturn(Arrays.asList(document));
+
+        Object actual = executeQueryCallback(solrServerMock, new Callback() {
+            @Override
+            public Object call() {
+                return repository.findOne(TodoTestUtil.ID.toString());
+            }
+        });
 
-        repository.update(todoEntry);
+        ArgumentCaptor<SolrParams> paramsArgument = ArgumentCaptor.forClass(SolrParams.class);
+        verify(solrServerMock, times(1)).query(paramsArgument.capture());
 
-        ArgumentCaptor<PartialUpdate> partialUpdateArgument = ArgumentCaptor.forClass(PartialUpdate.class);
-        verify(solrOperationsMock, times(1)).saveBean(partialUpdateArgument.capture());
-        verify(solrOperationsMock, times(1)).commit();
+        SolrParams params = paramsArgument.getValue();
+        assertEquals(CustomBaseRepositoryImpl.REQUEST_HANDLER_REAL_TIME_GET, params.get(CommonParams.QT));
+        assertEquals(TodoTestUtil.ID.toString(), params.get(CustomBaseRepositoryImpl.PARAM_IDS));
 
-        PartialUpdate update = partialUpdateArgument.getValue();
+        assertEquals(document, actual);
+    }
 
-        assertEquals(todoEntry.getId().toString(), update.getIdField().getValue());
+    @Test
+    public void findOne_DocumentNotFound_ShouldReturnNull() throws Exception {
+        SolrServer solrServerMock = mock(SolrServer.class);
+        QueryResponse responseMock = mock(QueryResponse.class);
 
-        List<UpdateField> updatedFields = update.getUpdates();
-        assertEquals(2, updatedFields.size());
+        when(solrServerMock.query(any(SolrParams.class))).thenReturn(responseMock);
+        when(responseMock.getBeans(TodoDocument.class)).thenReturn(new ArrayList<TodoDocument>());
 
-        for (UpdateField updatedField: updatedFields) {
-            String fieldName = updatedField.getName();
-            if (fieldName.equals(TodoDocument.FIELD_DESCRIPTION)) {
-                assertEquals(todoEntry.getDescription(), updatedField.getValue());
+        Object actual = executeQueryCallback(solrServerMock, new Callback() {
+            @Override
+            public Object call() {
+                return repository.findOne(TodoTestUtil.ID.toString());
             }
-            else if (fieldName.equals(TodoDocument.FIELD_TITLE)) {
-                assertEquals(todoEntry.getTitle(), updatedField.getValue());
+        });
+
+        assertNull(actual);
+    }
+
+    @Test
+    public void findAll_MultipleIds_ShouldUseRealTimeGetWithAllIds() throws Exception {
+        SolrServer solrServerMock = mock(SolrServer.class);
+        QueryResponse responseMock = mock(QueryResponse.class);
+
+        when(solrServerMock.query(any(SolrParams.class))).thenReturn(responseMock);
+        when(responseMock.getBeans(TodoDocument.class)).thenReturn(new ArrayList<TodoDocument>());
+
+        executeQueryCallback(solrServerMock, new Callback() {
+            @Override
+            public Object call() {
+                return repository.findAll(Arrays.asList("1", "2"));
             }
-            else {
-                fail("Unknown field: " + fieldName);
+        });
+
+        ArgumentCaptor<SolrParams> paramsArgument = ArgumentCaptor.forClass(SolrParams.class);
+        verify(solrServerMock, times(1)).query(paramsArgument.capture());
+
+        assertEquals("1,2", paramsArgument.getValue().get(CustomBaseRepositoryImpl.PARAM_IDS));
+    }
+
+    @Test
+    public void findAll_NoIds_ShouldReturnEmptyListWithoutQueryingSolr() {
+        Iterable actual = repository.findAll(new ArrayList<String>());
+
+        verifyZeroInteractions(solrOperationsMock);
+        assertFalse(actual.iterator().hasNext());
+    }
+
+    @Test
+    public void update_ExistingDocument_ShouldDoAtomicUpdateWithCommitWithin() throws Exception {
+        Todo todoEntry = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        SolrServer solrServerMock = mock(SolrServer.class);
+        when(solrServerMock.request(any(SolrRequest.class))).thenReturn(new NamedList<Object>());
+
+        repository.update(todoEntry);
+
+        ArgumentCaptor<SolrCallback> callbackArgument = ArgumentCaptor.forClass(SolrCallback.class);
+        verify(solrOperationsMock, times(1)).execute(callbackArgument.capture());
+        verify(solrOperationsMock, never()).commit();
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        callbackArgument.getValue().doInSolr(solrServerMock);
+
+        ArgumentCaptor<UpdateRequest> requestArgument = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(solrServerMock, times(1)).request(requestArgument.capture());
+
+        UpdateRequest request = requestArgument.getValue();
+        assertEquals(CustomBaseRepositoryImpl.COMMIT_WITHIN_MILLIS, request.getCommitWithin());
+        assertEquals(1, request.getDocuments().size());
+
+        SolrInputDocument update = request.getDocuments().get(0);
+        assertEquals(todoEntry.getId().toString(), update.getFieldValue(TodoDocument.FIELD_ID));
+        assertEquals(todoEntry.getDescription(), ((Map) update.getFieldValue(TodoDocument.FIELD_DESCRIPTION)).get("set"));
+        assertEquals(todoEntry.getTitle(), ((Map) update.getFieldValue(TodoDocument.FIELD_TITLE)).get("set"));
+    }
+
+    private Object executeQueryCallback(final SolrServer solrServer, Callback callback) {
+        when(solrOperationsMock.execute(any(SolrCallback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                SolrCallback solrCallback = (SolrCallback) invocation.getArguments()[0];
+                return solrCallback.doInSolr(solrServer);
             }
-        }
+        });
+
+        return callback.call();
+    }
+
+    private interface Callback {
+        Object call();
     }
 }
@@ -0,0 +1,238 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoRepository;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class RecentTodoBufferTest {
+
+    private static final int SIZE = 2;
+    private static final int RESERVE = 1;
+
+    private static final long REFILL_TIMEOUT_MILLIS = 5000L;
+
+    private RecentTodoBuffer buffer;
+
+    private TodoRepository repositoryMock;
+
+    @Before
+    public void setUp() {
+        buffer = new RecentTodoBuffer(SIZE, RESERVE);
+
+        repositoryMock = mock(TodoRepository.class);
+        ReflectionTestUtils.setField(buffer, "repository", repositoryMock);
+    }
+
+    @After
+    public void tearDown() {
+        buffer.shutdown();
+    }
+
+    @Test
+    public void findLatest_BufferIsEmpty_ShouldReturnEmptyList() {
+        assertTrue(buffer.findLatest().isEmpty());
+    }
+
+    @Test
+    public void findLatest_ShouldReturnLatestTodosFirst() {
+        buffer.add(createModel(1L, 1000L));
+        buffer.add(createModel(3L, 3000L));
+        buffer.add(createModel(2L, 2000L));
+
+        assertIds(buffer.findLatest(), 3L, 2L);
+    }
+
+    @Test
+    public void findLatest_SameCreationTime_ShouldOrderByIdDescending() {
+        buffer.add(createModel(1L, 1000L));
+        buffer.add(createModel(2L, 1000L));
+
+        assertIds(buffer.findLatest(), 2L, 1L);
+    }
+
+    @Test
+    public void add_BufferIsFull_ShouldRemoveOldestTodo() {
+        buffer.add(createModel(1L, 1000L));
+        buffer.add(createModel(2L, 2000L));
+        buffer.add(createModel(3L, 3000L));
+        buffer.add(createModel(4L, 4000L));
+
+        buffer.remove(4L);
+        buffer.remove(3L);
+
+        assertIds(buffer.findLatest(), 2L);
+    }
+
+    @Test
+    public void add_BufferIsFullAndTodoIsOlderThanOldestTodo_ShouldNotAddTodo() {
+        buffer.add(createModel(2L, 2000L));
+        buffer.add(createModel(3L, 3000L));
+        buffer.add(createModel(4L, 4000L));
+        buffer.add(createModel(1L, 1000L));
+
+        buffer.remove(4L);
+        buffer.remove(3L);
+
+        assertIds(buffer.findLatest(), 2L);
+    }
+
+    @Test
+    public void remove_ShouldReplaceRemovedTodoFromReserve() {
+        buffer.add(createModel(1L, 1000L));
+        buffer.add(createModel(2L, 2000L));
+        buffer.add(createModel(3L, 3000L));
+
+        buffer.remove(3L);
+
+        assertIds(buffer.findLatest(), 2L, 1L);
+    }
+
+    @Test
+    public void remove_ReserveIsUsedUp_ShouldRefillBufferInBackground() {
+        buffer.start();
+        buffer.add(createModel(1L, 1000L));
+        buffer.add(createModel(2L, 2000L));
+        buffer.add(createModel(3L, 3000L));
+        buffer.add(createModel(4L, 4000L));
+        when(repositoryMock.findAll(any(Pageable.class))).thenReturn(createPage(createModel(2L, 2000L), createModel(1L, 1000L)));
+
+        buffer.remove(4L);
+        buffer.remove(3L);
+
+        verify(repositoryMock, timeout((int) REFILL_TIMEOUT_MILLIS)).findAll(any(Pageable.class));
+    }
+
+    @Test
+    public void remove_BufferContainsAllTodos_ShouldNotRefillBuffer() {
+        buffer.start();
+        buffer.load(Arrays.asList(createModel(2L, 2000L), createModel(1L, 1000L)));
+
+        buffer.remove(2L);
+
+        verifyZeroInteractions(repositoryMock);
+        assertIds(buffer.findLatest(), 1L);
+    }
+
+    @Test
+    public void refill_ShouldAddMissingTodosFromDatabase() {
+        buffer.add(createModel(3L, 3000L));
+        when(repositoryMock.findAll(any(Pageable.class))).thenReturn(createPage(createModel(3L, 3000L), createModel(2L, 2000L), createModel(1L, 1000L)));
+
+        buffer.refill();
+
+        assertIds(buffer.findLatest(), 3L, 2L);
+    }
+
+    @Test
+    public void refill_TodoIsRemovedDuringRefill_ShouldNotAddRemovedTodo() {
+        when(repositoryMock.findAll(any(Pageable.class))).thenAnswer(new Answer<Page<Todo>>() {
+            @Override
+            public Page<Todo> answer(InvocationOnMock invocation) {
+                buffer.remove(2L);
+                return createPage(createModel(2L, 2000L), createModel(1L, 1000L));
+            }
+        });
+
+        buffer.refill();
+
+        assertIds(buffer.findLatest(), 1L);
+    }
+
+    @Test
+    public void refill_TodoIsUpdatedDuringRefill_ShouldKeepUpdatedTodo() {
+        buffer.add(createModel(1L, 1000L));
+        buffer.update(createUpdatedModel(1L, TodoTestUtil.VERSION + 1));
+        when(repositoryMock.findAll(any(Pageable.class))).thenReturn(createPage(createModel(1L, 1000L)));
+
+        buffer.refill();
+
+        assertEquals(TodoTestUtil.TITLE_UPDATED, buffer.findLatest().get(0).getTitle());
+    }
+
+    @Test
+    public void update_NewerVersion_ShouldReplaceTodo() {
+        buffer.add(createModel(1L, 1000L));
+
+        buffer.update(createUpdatedModel(1L, TodoTestUtil.VERSION + 1));
+
+        TodoDTO actual = buffer.findLatest().get(0);
+        assertEquals(TodoTestUtil.TITLE_UPDATED, actual.getTitle());
+        assertEquals(Long.valueOf(TodoTestUtil.VERSION + 1), actual.getVersion());
+    }
+
+    @Test
+    public void update_OlderVersion_ShouldNotReplaceTodo() {
+        buffer.add(createModel(1L, 1000L));
+        buffer.update(createUpdatedModel(1L, TodoTestUtil.VERSION + 2));
+
+        Todo older = createUpdatedModel(1L, TodoTestUtil.VERSION + 1);
+        ReflectionTestUtils.setField(older, "title", TodoTestUtil.TITLE);
+        buffer.update(older);
+
+        assertEquals(TodoTestUtil.TITLE_UPDATED, buffer.findLatest().get(0).getTitle());
+    }
+
+    @Test
+    public void update_TodoIsNotFound_ShouldNotAddTodo() {
+        buffer.update(createUpdatedModel(1L, TodoTestUtil.VERSION + 1));
+
+        assertTrue(buffer.findLatest().isEmpty());
+    }
+
+    @Test
+    public void load_ShouldReplaceContent() {
+        buffer.add(createModel(5L, 5000L));
+
+        buffer.load(Arrays.asList(createModel(2L, 2000L), createModel(1L, 1000L)));
+
+        assertIds(buffer.findLatest(), 2L, 1L);
+    }
+
+    private Todo createModel(Long id, long creationTime) {
+        Todo model = TodoTestUtil.createModel(id, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        ReflectionTestUtils.setField(model, "creationTime", new DateTime(creationTime));
+        return model;
+    }
+
+    private Page<Todo> createPage(Todo... todos) {
+        return new PageImpl<Todo>(Arrays.asList(todos));
+    }
+
+    private Todo createUpdatedModel(Long id, long version) {
+        return Todo.getBuilder(TodoTestUtil.TITLE_UPDATED)
+                .id(id)
+                .description(TodoTestUtil.DESCRIPTION_UPDATED)
+                .version(version)
+                .build();
+    }
+
+    private void assertIds(List<TodoDTO> todos, Long... expectedIds) {
+        List<Long> ids = new ArrayList<Long>();
+        for (TodoDTO todo: todos) {
+            ids.add(todo.getId());
+        }
+        assertEquals(Arrays.asList(expectedIds), ids);
+    }
+}
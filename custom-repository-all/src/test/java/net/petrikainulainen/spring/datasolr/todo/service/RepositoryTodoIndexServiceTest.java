@@ -1,21 +1,39 @@
 package net.petrikainulainen.spring.datasolr.todo.service;
 
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrOperations;
+import net.petrikainulainen.spring.datasolr.common.solr.AsyncSolrTemplate;
 import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
 import net.petrikainulainen.spring.datasolr.todo.repository.solr.TodoDocumentRepository;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.solr.core.SolrOperations;
+import org.springframework.data.solr.core.query.SolrDataQuery;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.mockito.Mockito.*;
 
 /**
@@ -29,12 +47,25 @@ public class RepositoryTodoIndexServiceTest {
 
     private TodoDocumentRepository repositoryMock;
 
+    private SolrOperations solrOperationsMock;
+
+    private ExecutorService solrExecutor;
+
     @Before
     public void setUp() {
         service = new RepositoryTodoIndexService();
 
         repositoryMock = mock(TodoDocumentRepository.class);
         ReflectionTestUtils.setField(service, "repository", repositoryMock);
+
+        solrOperationsMock = mock(SolrOperations.class);
+        solrExecutor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(service, "asyncSolrTemplate", new AsyncSolrTemplate(solrOperationsMock, solrExecutor));
+    }
+
+    @After
+    public void tearDown() {
+        solrExecutor.shutdownNow();
     }
 
     @Test
@@ -43,11 +74,17 @@ public class RepositoryTodoIndexServiceTest {
 
         service.addToIndex(todoEntry);
 
-        ArgumentCaptor<TodoDocument> todoDocumentArgument = ArgumentCaptor.forClass(TodoDocument.class);
-        verify(repositoryMock, times(1)).save(todoDocumentArgument.capture());
-        verifyNoMoreInteractions(repositoryMock);
+        ArgumentCaptor<Collection> documentsArgument = ArgumentCaptor.forClass(Collection.class);
+        InOrder inOrder = inOrder(solrOperationsMock);
+        inOrder.verify(solrOperationsMock, times(1)).saveBeans(documentsArgument.capture());
+        inOrder.verify(solrOperationsMock, times(1)).commit();
+        verifyNoMoreInteractions(solrOperationsMock);
+        verifyZeroInteractions(repositoryMock);
+
+        Collection documents = documentsArgument.getValue();
+        assertEquals(1, documents.size());
 
-        TodoDocument todoDocument = todoDocumentArgument.getValue();
+        TodoDocument todoDocument = (TodoDocument) documents.iterator().next();
 
         assertEquals(todoEntry.getId().toString(), todoDocument.getId());
         assertEquals(todoEntry.getDescription(), todoDocument.getDescription());
@@ -70,8 +107,11 @@ public class RepositoryTodoIndexServiceTest {
     public void deleteFromIndex_ShouldDeleteDocumentFromIndex() {
         service.deleteFromIndex(1L);
 
-        verify(repositoryMock, times(1)).delete("1");
-        verifyNoMoreInteractions(repositoryMock);
+        InOrder inOrder = inOrder(solrOperationsMock);
+        inOrder.verify(solrOperationsMock, times(1)).deleteById("1");
+        inOrder.verify(solrOperationsMock, times(1)).commit();
+        verifyNoMoreInteractions(solrOperationsMock);
+        verifyZeroInteractions(repositoryMock);
     }
 
     @Test
@@ -142,6 +182,91 @@ public class RepositoryTodoIndexServiceTest {
         assertTrue(todos.isEmpty());
     }
 
+    @Test
+    public void searchPage_ShouldReturnDocumentsAndResultCount() {
+        ReflectionTestUtils.setField(service, "queryMethodType", RepositoryTodoIndexService.QUERY_METHOD_METHOD_NAME);
+
+        List<TodoDocument> expected = new ArrayList<TodoDocument>();
+        expected.add(TodoTestUtil.createDocument(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE));
+
+        PageRequest page = new PageRequest(0, 1);
+        when(repositoryMock.findByTitleContainsOrDescriptionContains(SEARCH_TERM, SEARCH_TERM, page)).thenReturn(expected);
+        when(solrOperationsMock.count(any(SolrDataQuery.class))).thenReturn(5L);
+
+        Page<TodoDocument> actual = service.searchPage(SEARCH_TERM, page);
+
+        verify(repositoryMock, times(1)).findByTitleContainsOrDescriptionContains(SEARCH_TERM, SEARCH_TERM, page);
+        verifyNoMoreInteractions(repositoryMock);
+
+        verify(solrOperationsMock, times(1)).count(any(SolrDataQuery.class));
+        verifyNoMoreInteractions(solrOperationsMock);
+
+        assertEquals(expected, actual.getContent());
+        assertEquals(5L, actual.getTotalElements());
+    }
+
+    @Test
+    public void searchPage_SearchQueryFails_ShouldCancelCountQuery() throws Exception {
+        ReflectionTestUtils.setField(service, "queryMethodType", RepositoryTodoIndexService.QUERY_METHOD_METHOD_NAME);
+
+        final CountDownLatch countStarted = new CountDownLatch(1);
+        final CountDownLatch countInterrupted = new CountDownLatch(1);
+        PageRequest page = new PageRequest(0, 1);
+
+        when(solrOperationsMock.count(any(SolrDataQuery.class))).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) throws Throwable {
+                countStarted.countDown();
+                try {
+                    Thread.sleep(RepositoryTodoIndexService.SOLR_OPERATION_TIMEOUT);
+                }
+                catch (InterruptedException ex) {
+                    countInterrupted.countDown();
+                }
+                return 5L;
+            }
+        });
+        when(repositoryMock.findByTitleContainsOrDescriptionContains(SEARCH_TERM, SEARCH_TERM, page)).thenAnswer(new Answer<List<TodoDocument>>() {
+            @Override
+            public List<TodoDocument> answer(InvocationOnMock invocation) throws Throwable {
+                countStarted.await();
+                throw new IllegalStateException();
+            }
+        });
+
+        try {
+            service.searchPage(SEARCH_TERM, page);
+            fail("The failure of the search query should have been thrown");
+        }
+        catch (IllegalStateException ex) {
+            //The failure of the search query is passed to the caller.
+        }
+
+        assertTrue(countInterrupted.await(RepositoryTodoIndexService.SOLR_OPERATION_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void searchPage_CountQueryIsRejected_ShouldCancelSearchQuery() {
+        AsyncSolrOperations asyncSolrTemplateMock = mock(AsyncSolrOperations.class);
+        ReflectionTestUtils.setField(service, "asyncSolrTemplate", asyncSolrTemplateMock);
+
+        Future<List<TodoDocument>> documents = mock(Future.class);
+        when(asyncSolrTemplateMock.execute(any(Callable.class))).thenReturn(documents);
+        when(asyncSolrTemplateMock.count(any(SolrDataQuery.class))).thenThrow(new TaskRejectedException("Saturated"));
+
+        try {
+            service.searchPage(SEARCH_TERM, new PageRequest(0, 1));
+            fail("The rejection of the count query should have been thrown");
+        }
+        catch (TaskRejectedException ex) {
+            //The rejection of the count query is passed to the caller.
+        }
+
+        verify(documents, times(1)).cancel(true);
+        verifyZeroInteractions(repositoryMock);
+    }
+
     @Test
     public void update_ExistingTodo_ShouldUpdateDocument() {
         Todo todoEntry = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
@@ -1,23 +1,53 @@
 package net.petrikainulainen.spring.datasolr.todo.service;
 
+import net.petrikainulainen.spring.datasolr.common.sse.EventBroadcaster;
 import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
 import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import net.petrikainulainen.spring.datasolr.todo.dto.ChangeFeedDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoChangeDTO;
 import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import net.petrikainulainen.spring.datasolr.todo.exception.InvalidChangeTokenException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TodoConflictException;
 import net.petrikainulainen.spring.datasolr.todo.exception.TodoNotFoundException;
+import net.petrikainulainen.spring.datasolr.todo.exception.TooManyIdsException;
 import net.petrikainulainen.spring.datasolr.todo.model.Todo;
+import net.petrikainulainen.spring.datasolr.todo.model.TodoTombstone;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoCallback;
 import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoRepository;
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoTombstoneRepository;
+import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.mockito.Mockito.*;
 
 /**
@@ -25,6 +55,9 @@ import static org.mockito.Mockito.*;
  */
 public class RepositoryTodoServiceTest {
 
+    private static final Long LAST_ID = 5L;
+    private static final int PAGE_SIZE = 10;
+
     private static final long RESULT_COUNT = 1L;
     private static final String SEARCH_TERM = "Foo";
 
@@ -34,6 +67,22 @@ public class RepositoryTodoServiceTest {
 
     private TodoIndexService indexServiceMock;
 
+    private TodoTombstoneRepository tombstoneRepositoryMock;
+
+    private ApplicationEventPublisher eventPublisherMock;
+
+    private EventBroadcaster eventBroadcasterMock;
+
+    private TodoSnapshotStore snapshotStoreMock;
+
+    private RecentTodoBuffer recentTodosMock;
+
+    private TodoIdFilter idFilterMock;
+
+    private SearchTermTracker searchTermTrackerMock;
+
+    private PlatformTransactionManager transactionManagerMock;
+
     @Before
     public void setUp() {
         service = new RepositoryTodoService();
@@ -43,6 +92,32 @@ public class RepositoryTodoServiceTest {
 
         indexServiceMock = mock(TodoIndexService.class);
         ReflectionTestUtils.setField(service, "indexService", indexServiceMock);
+
+        tombstoneRepositoryMock = mock(TodoTombstoneRepository.class);
+        ReflectionTestUtils.setField(service, "tombstoneRepository", tombstoneRepositoryMock);
+
+        eventPublisherMock = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisherMock);
+
+        eventBroadcasterMock = mock(EventBroadcaster.class);
+        ReflectionTestUtils.setField(service, "todoEventBroadcaster", eventBroadcasterMock);
+
+        snapshotStoreMock = mock(TodoSnapshotStore.class);
+        ReflectionTestUtils.setField(service, "snapshotStore", snapshotStoreMock);
+
+        recentTodosMock = mock(RecentTodoBuffer.class);
+        ReflectionTestUtils.setField(service, "recentTodos", recentTodosMock);
+
+        idFilterMock = mock(TodoIdFilter.class);
+        ReflectionTestUtils.setField(service, "idFilter", idFilterMock);
+
+        searchTermTrackerMock = mock(SearchTermTracker.class);
+        ReflectionTestUtils.setField(service, "searchTermTracker", searchTermTrackerMock);
+
+        transactionManagerMock = mock(PlatformTransactionManager.class);
+        TransactionTemplate primaryReadTransactionTemplate = new TransactionTemplate(transactionManagerMock);
+        primaryReadTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ReflectionTestUtils.setField(service, "primaryReadTransactionTemplate", primaryReadTransactionTemplate);
     }
 
     @Test
@@ -66,6 +141,50 @@ public class RepositoryTodoServiceTest {
         assertNull(model.getId());
         assertEquals(dto.getDescription(), model.getDescription());
         assertEquals(dto.getTitle(), model.getTitle());
+
+        ArgumentCaptor<TodoDTO> eventArgument = ArgumentCaptor.forClass(TodoDTO.class);
+        verify(eventBroadcasterMock, times(1)).publish(eq(RepositoryTodoService.EVENT_NAME_ADDED), eventArgument.capture());
+        assertEquals(TodoTestUtil.ID, eventArgument.getValue().getId());
+
+        ArgumentCaptor<TodoDTO> snapshotArgument = ArgumentCaptor.forClass(TodoDTO.class);
+        verify(snapshotStoreMock, times(1)).put(snapshotArgument.capture());
+        assertEquals(TodoTestUtil.ID, snapshotArgument.getValue().getId());
+        assertEquals(TodoTestUtil.TITLE, snapshotArgument.getValue().getTitle());
+
+        verify(recentTodosMock, times(1)).add(persisted);
+        verify(idFilterMock, times(1)).added(TodoTestUtil.ID);
+        verify(idFilterMock, times(1)).completed(TodoTestUtil.ID);
+        assertIndexChangedEventPublished(TodoTestUtil.ID);
+    }
+
+    @Test
+    public void add_TransactionIsActive_ShouldPublishEventAfterCommit() {
+        TodoDTO dto = TodoTestUtil.createDTO(null, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        when(repositoryMock.save(any(Todo.class))).thenReturn(TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.add(dto);
+            verifyZeroInteractions(eventBroadcasterMock);
+            verifyZeroInteractions(eventPublisherMock);
+            verifyZeroInteractions(snapshotStoreMock);
+            verify(idFilterMock, times(1)).added(TodoTestUtil.ID);
+            verify(idFilterMock, never()).completed(anyLong());
+
+            for (TransactionSynchronization synchronization: TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            for (TransactionSynchronization synchronization: TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(eventBroadcasterMock, times(1)).publish(eq(RepositoryTodoService.EVENT_NAME_ADDED), any(TodoDTO.class));
+        verify(idFilterMock, times(1)).completed(TodoTestUtil.ID);
+        assertIndexChangedEventPublished(TodoTestUtil.ID);
     }
 
     @Test
@@ -82,45 +201,228 @@ public class RepositoryTodoServiceTest {
     }
 
     @Test
-    public void deleteById_TodoIsFound_ShouldReturnDeletedTodo() throws TodoNotFoundException {
-        Todo model = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
-        when(repositoryMock.findOne(TodoTestUtil.ID)).thenReturn(model);
+    public void deleteById_TodoIsFound_ShouldDeleteTodoWithoutReadingIt() throws TodoNotFoundException {
+        when(repositoryMock.removeById(TodoTestUtil.ID)).thenReturn(1);
 
-        Todo actual = service.deleteById(TodoTestUtil.ID);
+        service.deleteById(TodoTestUtil.ID);
 
-        verify(repositoryMock, times(1)).findOne(TodoTestUtil.ID);
-        verify(repositoryMock, times(1)).delete(model);
+        verify(repositoryMock, times(1)).removeById(TodoTestUtil.ID);
         verifyNoMoreInteractions(repositoryMock);
 
         verify(indexServiceMock, times(1)).deleteFromIndex(TodoTestUtil.ID);
         verifyNoMoreInteractions(indexServiceMock);
 
-        assertEquals(model, actual);
+        ArgumentCaptor<TodoTombstone> tombstoneArgument = ArgumentCaptor.forClass(TodoTombstone.class);
+        verify(tombstoneRepositoryMock, times(1)).save(tombstoneArgument.capture());
+        assertEquals(TodoTestUtil.ID, tombstoneArgument.getValue().getTodoId());
+        assertNotNull(tombstoneArgument.getValue().getDeletionTime());
+
+        ArgumentCaptor<Map> eventArgument = ArgumentCaptor.forClass(Map.class);
+        verify(eventBroadcasterMock, times(1)).publish(eq(RepositoryTodoService.EVENT_NAME_DELETED), eventArgument.capture());
+        assertEquals(TodoTestUtil.ID, eventArgument.getValue().get("id"));
+
+        verify(snapshotStoreMock, times(1)).remove(TodoTestUtil.ID);
+        verify(recentTodosMock, times(1)).remove(TodoTestUtil.ID);
+        verify(idFilterMock, times(1)).missing(TodoTestUtil.ID);
+        assertIndexChangedEventPublished(TodoTestUtil.ID);
+    }
+
+    @Test
+    public void deleteById_ToDoIsNotFound_ShouldThrowExceptionAndRememberMissingId() {
+        when(repositoryMock.removeById(TodoTestUtil.ID)).thenReturn(0);
+
+        try {
+            service.deleteById(TodoTestUtil.ID);
+            fail("Should throw TodoNotFoundException");
+        }
+        catch (TodoNotFoundException ex) {
+            //Expected
+        }
+
+        verify(repositoryMock, times(1)).removeById(TodoTestUtil.ID);
+        verifyNoMoreInteractions(repositoryMock);
+        verifyZeroInteractions(indexServiceMock);
+        verify(idFilterMock, times(1)).missing(TodoTestUtil.ID);
     }
 
     @Test(expected = TodoNotFoundException.class)
-    public void deleteById_ToDoIsNotFound_ShouldThrowException() throws TodoNotFoundException {
-        when(repositoryMock.findOne(TodoTestUtil.ID)).thenReturn(null);
+    public void deleteById_IdIsMissing_ShouldThrowExceptionWithoutQueryingDatabase() throws TodoNotFoundException {
+        when(idFilterMock.isMissing(TodoTestUtil.ID)).thenReturn(true);
+
+        try {
+            service.deleteById(TodoTestUtil.ID);
+        }
+        finally {
+            verifyZeroInteractions(repositoryMock, tombstoneRepositoryMock, indexServiceMock);
+        }
+    }
 
-        service.deleteById(TodoTestUtil.ID);
+    @Test
+    public void findAllPage_LastIdGiven_ShouldReturnNextPage() {
+        List<TodoDTO> dtos = new ArrayList<TodoDTO>();
+        when(repositoryMock.findDTOsByIdGreaterThan(eq(LAST_ID), any(Pageable.class))).thenReturn(dtos);
 
-        verify(repositoryMock, times(1)).findOne(TodoTestUtil.ID);
+        List<TodoDTO> actual = service.findAll(LAST_ID, PAGE_SIZE);
+
+        ArgumentCaptor<Pageable> pageArgument = ArgumentCaptor.forClass(Pageable.class);
+        verify(repositoryMock, times(1)).findDTOsByIdGreaterThan(eq(LAST_ID), pageArgument.capture());
+        verifyNoMoreInteractions(repositoryMock);
+        verifyZeroInteractions(indexServiceMock);
+
+        Pageable page = pageArgument.getValue();
+        assertEquals(0, page.getPageNumber());
+        assertEquals(PAGE_SIZE, page.getPageSize());
+
+        Sort.Order order = page.getSort().iterator().next();
+        assertEquals("id", order.getProperty());
+        assertEquals(Sort.Direction.ASC, order.getDirection());
+
+        assertEquals(dtos, actual);
+    }
+
+    @Test
+    public void findAllPage_LastIdIsNull_ShouldReturnFirstPage() {
+        service.findAll(null, PAGE_SIZE);
+
+        verify(repositoryMock, times(1)).findDTOsByIdGreaterThan(eq(RepositoryTodoService.FIRST_PAGE_LAST_ID), any(Pageable.class));
+        verifyNoMoreInteractions(repositoryMock);
+    }
+
+    @Test
+    public void findAllPage_TooLargePageSize_ShouldLimitPageSize() {
+        service.findAll(LAST_ID, RepositoryTodoService.MAX_PAGE_SIZE + 1);
+
+        ArgumentCaptor<Pageable> pageArgument = ArgumentCaptor.forClass(Pageable.class);
+        verify(repositoryMock, times(1)).findDTOsByIdGreaterThan(eq(LAST_ID), pageArgument.capture());
+
+        assertEquals(RepositoryTodoService.MAX_PAGE_SIZE, pageArgument.getValue().getPageSize());
+    }
+
+    @Test
+    public void processAll_ShouldScrollThroughAllTodos() throws IOException {
+        TodoCallback callback = mock(TodoCallback.class);
+
+        service.processAll(callback);
+
+        verify(repositoryMock, times(1)).scrollAll(callback);
         verifyNoMoreInteractions(repositoryMock);
         verifyZeroInteractions(indexServiceMock);
     }
 
     @Test
-    public void findAll_ShouldReturnTodoList() {
-        List<Todo> models = new ArrayList<Todo>();
-        when(repositoryMock.findAll()).thenReturn(models);
+    public void findLatest_ShouldReturnTodosFromBuffer() {
+        List<TodoDTO> latest = Arrays.asList(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+        when(recentTodosMock.findLatest()).thenReturn(latest);
+
+        List<TodoDTO> actual = service.findLatest();
+
+        verifyZeroInteractions(repositoryMock, indexServiceMock);
+        assertEquals(latest, actual);
+    }
+
+    @Test
+    public void loadRecentTodos_ShouldLoadLatestTodosToBuffer() {
+        List<Todo> latest = Arrays.asList(TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE));
+        when(recentTodosMock.getCapacity()).thenReturn(PAGE_SIZE);
+        when(repositoryMock.findAll(any(Pageable.class))).thenReturn(new PageImpl<Todo>(latest));
 
-        List<Todo> actual = service.findAll();
+        service.loadRecentTodos();
 
-        verify(repositoryMock, times(1)).findAll();
+        ArgumentCaptor<Pageable> pageArgument = ArgumentCaptor.forClass(Pageable.class);
+        verify(repositoryMock, times(1)).findAll(pageArgument.capture());
+        verifyNoMoreInteractions(repositoryMock);
+
+        Pageable page = pageArgument.getValue();
+        assertEquals(0, page.getPageNumber());
+        assertEquals(PAGE_SIZE, page.getPageSize());
+        assertEquals(Sort.Direction.DESC, page.getSort().getOrderFor("creationTime").getDirection());
+        assertEquals(Sort.Direction.DESC, page.getSort().getOrderFor("id").getDirection());
+
+        verify(recentTodosMock, times(1)).load(latest);
+    }
+
+    @Test
+    public void findByIds_ShouldReturnTodosInRequestedOrder() throws TooManyIdsException {
+        TodoDTO first = new TodoDTO(1L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        TodoDTO second = new TodoDTO(2L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        when(repositoryMock.findDTOsByIdIn(anyCollection())).thenReturn(Arrays.asList(first, second));
+
+        List<TodoDTO> actual = service.findByIds(Arrays.asList(2L, 3L, 1L, 2L));
+
+        ArgumentCaptor<Collection> idsArgument = ArgumentCaptor.forClass(Collection.class);
+        verify(repositoryMock, times(1)).findDTOsByIdIn(idsArgument.capture());
         verifyNoMoreInteractions(repositoryMock);
         verifyZeroInteractions(indexServiceMock);
 
-        assertEquals(models, actual);
+        assertEquals(Arrays.asList(2L, 3L, 1L), new ArrayList(idsArgument.getValue()));
+        assertEquals(Arrays.asList(second, first), actual);
+
+        verify(snapshotStoreMock, times(1)).putIfAbsent(first);
+        verify(snapshotStoreMock, times(1)).putIfAbsent(second);
+    }
+
+    @Test
+    public void findByIds_SnapshotIsFound_ShouldQueryOnlyMissingTodos() throws TooManyIdsException {
+        TodoDTO first = new TodoDTO(1L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        TodoDTO second = new TodoDTO(2L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        when(snapshotStoreMock.find(2L)).thenReturn(second);
+        when(repositoryMock.findDTOsByIdIn(anyCollection())).thenReturn(Arrays.asList(first));
+
+        List<TodoDTO> actual = service.findByIds(Arrays.asList(2L, 1L));
+
+        ArgumentCaptor<Collection> idsArgument = ArgumentCaptor.forClass(Collection.class);
+        verify(repositoryMock, times(1)).findDTOsByIdIn(idsArgument.capture());
+        verifyNoMoreInteractions(repositoryMock);
+
+        assertEquals(Arrays.asList(1L), new ArrayList(idsArgument.getValue()));
+        assertEquals(Arrays.asList(second, first), actual);
+    }
+
+    @Test
+    public void findByIds_AllSnapshotsAreFound_ShouldNotQueryDatabase() throws TooManyIdsException {
+        TodoDTO first = new TodoDTO(1L, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        when(snapshotStoreMock.find(1L)).thenReturn(first);
+
+        List<TodoDTO> actual = service.findByIds(Arrays.asList(1L));
+
+        verifyZeroInteractions(repositoryMock);
+        assertEquals(Arrays.asList(first), actual);
+    }
+
+    @Test
+    public void findByIds_MoreIdsThanQueryLimit_ShouldSplitIdsIntoSeveralQueries() throws TooManyIdsException {
+        List<Long> ids = new ArrayList<Long>();
+        for (long id = 1; id <= RepositoryTodoService.MAX_IDS_PER_QUERY + 1; id++) {
+            ids.add(id);
+        }
+        when(repositoryMock.findDTOsByIdIn(anyCollection())).thenReturn(new ArrayList<TodoDTO>());
+
+        List<TodoDTO> actual = service.findByIds(ids);
+
+        ArgumentCaptor<Collection> idsArgument = ArgumentCaptor.forClass(Collection.class);
+        verify(repositoryMock, times(2)).findDTOsByIdIn(idsArgument.capture());
+        verifyNoMoreInteractions(repositoryMock);
+
+        List<Collection> queriedIds = idsArgument.getAllValues();
+        assertEquals(RepositoryTodoService.MAX_IDS_PER_QUERY, queriedIds.get(0).size());
+        assertEquals(1, queriedIds.get(1).size());
+
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test(expected = TooManyIdsException.class)
+    public void findByIds_MoreIdsThanRequestLimit_ShouldThrowException() throws TooManyIdsException {
+        List<Long> ids = new ArrayList<Long>();
+        for (long id = 1; id <= RepositoryTodoService.MAX_IDS_PER_REQUEST + 1; id++) {
+            ids.add(id);
+        }
+
+        try {
+            service.findByIds(ids);
+        }
+        finally {
+            verifyZeroInteractions(repositoryMock, snapshotStoreMock);
+        }
     }
 
     @Test
@@ -135,47 +437,251 @@ public class RepositoryTodoServiceTest {
         verifyZeroInteractions(indexServiceMock);
 
         assertEquals(model, actual);
+
+        ArgumentCaptor<TodoDTO> snapshotArgument = ArgumentCaptor.forClass(TodoDTO.class);
+        verify(snapshotStoreMock, times(1)).putIfAbsent(snapshotArgument.capture());
+        assertEquals(TodoTestUtil.ID, snapshotArgument.getValue().getId());
+        assertEquals(TodoTestUtil.DESCRIPTION, snapshotArgument.getValue().getDescription());
+        assertEquals(TodoTestUtil.TITLE, snapshotArgument.getValue().getTitle());
+    }
+
+    @Test
+    public void findById_SnapshotIsFound_ShouldReturnTodoWithoutQueryingDatabase() throws TodoNotFoundException {
+        TodoDTO snapshot = new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+        when(snapshotStoreMock.find(TodoTestUtil.ID)).thenReturn(snapshot);
+
+        Todo actual = service.findById(TodoTestUtil.ID);
+
+        verifyZeroInteractions(repositoryMock);
+
+        assertEquals(TodoTestUtil.ID, actual.getId());
+        assertEquals(TodoTestUtil.DESCRIPTION, actual.getDescription());
+        assertEquals(TodoTestUtil.TITLE, actual.getTitle());
+        assertEquals(TodoTestUtil.VERSION.longValue(), actual.getVersion());
+    }
+
+    @Test(expected = TodoNotFoundException.class)
+    public void findById_IdIsMissing_ShouldThrowExceptionWithoutQueryingDatabase() throws TodoNotFoundException {
+        when(idFilterMock.isMissing(TodoTestUtil.ID)).thenReturn(true);
+
+        try {
+            service.findById(TodoTestUtil.ID);
+        }
+        finally {
+            verifyZeroInteractions(repositoryMock, snapshotStoreMock);
+        }
+    }
+
+    @Test
+    public void findById_TodoIsFoundOnlyFromPrimary_ShouldReturnTodo() throws TodoNotFoundException {
+        Todo model = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        when(repositoryMock.findOne(TodoTestUtil.ID)).thenReturn(null, model);
+
+        Todo actual = service.findById(TodoTestUtil.ID);
+
+        verify(repositoryMock, times(2)).findOne(TodoTestUtil.ID);
+        verifyNoMoreInteractions(repositoryMock);
+        verifyPrimaryRead();
+        verify(idFilterMock, never()).missing(TodoTestUtil.ID);
+
+        assertEquals(model, actual);
     }
 
     @Test(expected = TodoNotFoundException.class)
     public void findById_ToDoIsNotFound_ShouldThrowException() throws TodoNotFoundException {
         when(repositoryMock.findOne(TodoTestUtil.ID)).thenReturn(null);
 
-        service.findById(TodoTestUtil.ID);
+        try {
+            service.findById(TodoTestUtil.ID);
+        }
+        finally {
+            verify(repositoryMock, times(2)).findOne(TodoTestUtil.ID);
+            verifyNoMoreInteractions(repositoryMock);
+            verifyZeroInteractions(indexServiceMock);
+            verifyPrimaryRead();
+            verify(idFilterMock, times(1)).missing(TodoTestUtil.ID);
+        }
+    }
 
-        verify(repositoryMock, times(1)).findOne(TodoTestUtil.ID);
+    @Test
+    public void findChanges_NoChangeToken_ShouldReturnMergedChangesInOrder() throws InvalidChangeTokenException {
+        Todo created = createModel(1L, 1000L, 1000L);
+        Todo modified = createModel(2L, 1000L, 3000L);
+        TodoTombstone deleted = new TodoTombstone(3L, new DateTime(2000L));
+
+        when(repositoryMock.findModifiedAfter(any(DateTime.class), anyLong(), any(DateTime.class), any(Pageable.class))).thenReturn(Arrays.asList(created, modified));
+        when(tombstoneRepositoryMock.findDeletedAfter(any(DateTime.class), anyLong(), any(DateTime.class), any(Pageable.class))).thenReturn(Arrays.asList(deleted));
+
+        ChangeFeedDTO actual = service.findChanges(null, PAGE_SIZE);
+
+        ArgumentCaptor<DateTime> timeArgument = ArgumentCaptor.forClass(DateTime.class);
+        verify(repositoryMock, times(1)).findModifiedAfter(timeArgument.capture(), eq(0L), any(DateTime.class), any(Pageable.class));
+        assertEquals(0L, timeArgument.getValue().getMillis());
+
+        List<TodoChangeDTO> changes = actual.getChanges();
+        assertEquals(3, changes.size());
+        assertChange(changes.get(0), TodoChangeDTO.Type.CREATED, 1L, 1000L);
+        assertChange(changes.get(1), TodoChangeDTO.Type.DELETED, 3L, 2000L);
+        assertChange(changes.get(2), TodoChangeDTO.Type.MODIFIED, 2L, 3000L);
+
+        assertNull(changes.get(1).getTodo());
+        assertEquals(Long.valueOf(2L), changes.get(2).getTodo().getId());
+
+        assertEquals("3000-2", actual.getNextToken());
+        assertFalse(actual.isHasMore());
+    }
+
+    @Test
+    public void findChanges_MoreChangesThanPageSize_ShouldReturnFirstPage() throws InvalidChangeTokenException {
+        Todo first = createModel(1L, 1000L, 1000L);
+        TodoTombstone second = new TodoTombstone(3L, new DateTime(1000L));
+
+        when(repositoryMock.findModifiedAfter(any(DateTime.class), anyLong(), any(DateTime.class), any(Pageable.class))).thenReturn(Arrays.asList(first));
+        when(tombstoneRepositoryMock.findDeletedAfter(any(DateTime.class), anyLong(), any(DateTime.class), any(Pageable.class))).thenReturn(Arrays.asList(second));
+
+        ChangeFeedDTO actual = service.findChanges("500-7", 1);
+
+        verify(repositoryMock, times(1)).findModifiedAfter(eq(new DateTime(500L)), eq(7L), any(DateTime.class), any(Pageable.class));
+        verify(tombstoneRepositoryMock, times(1)).findDeletedAfter(eq(new DateTime(500L)), eq(7L), any(DateTime.class), any(Pageable.class));
+
+        assertEquals(1, actual.getChanges().size());
+        assertChange(actual.getChanges().get(0), TodoChangeDTO.Type.CREATED, 1L, 1000L);
+        assertEquals("1000-1", actual.getNextToken());
+        assertTrue(actual.isHasMore());
+    }
+
+    @Test
+    public void findChanges_NoChangesFound_ShouldReturnGivenToken() throws InvalidChangeTokenException {
+        when(repositoryMock.findModifiedAfter(any(DateTime.class), anyLong(), any(DateTime.class), any(Pageable.class))).thenReturn(new ArrayList<Todo>());
+        when(tombstoneRepositoryMock.findDeletedAfter(any(DateTime.class), anyLong(), any(DateTime.class), any(Pageable.class))).thenReturn(new ArrayList<TodoTombstone>());
+
+        ChangeFeedDTO actual = service.findChanges("500-7", PAGE_SIZE);
+
+        assertTrue(actual.getChanges().isEmpty());
+        assertEquals("500-7", actual.getNextToken());
+        assertFalse(actual.isHasMore());
+    }
+
+    @Test(expected = InvalidChangeTokenException.class)
+    public void findChanges_InvalidChangeToken_ShouldThrowException() throws InvalidChangeTokenException {
+        service.findChanges("foo", PAGE_SIZE);
+    }
+
+    private Todo createModel(Long id, long creationTime, long modificationTime) {
+        Todo model = TodoTestUtil.createModel(id, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
+        ReflectionTestUtils.setField(model, "creationTime", new DateTime(creationTime));
+        ReflectionTestUtils.setField(model, "modificationTime", new DateTime(modificationTime));
+        return model;
+    }
+
+    private void assertChange(TodoChangeDTO change, TodoChangeDTO.Type expectedType, Long expectedId, long expectedTime) {
+        assertEquals(expectedType, change.getType());
+        assertEquals(expectedId, change.getId());
+        assertEquals(expectedTime, change.getTime());
+    }
+
+    @Test
+    public void findVersionById_TodoIsFound_ShouldReturnVersion() throws TodoNotFoundException {
+        when(repositoryMock.findVersionById(TodoTestUtil.ID)).thenReturn(TodoTestUtil.VERSION);
+
+        long actual = service.findVersionById(TodoTestUtil.ID);
+
+        verify(repositoryMock, times(1)).findVersionById(TodoTestUtil.ID);
         verifyNoMoreInteractions(repositoryMock);
         verifyZeroInteractions(indexServiceMock);
+
+        assertEquals(TodoTestUtil.VERSION.longValue(), actual);
+    }
+
+    @Test
+    public void findVersionById_TodoIsFoundOnlyFromPrimary_ShouldReturnVersion() throws TodoNotFoundException {
+        when(repositoryMock.findVersionById(TodoTestUtil.ID)).thenReturn(null, TodoTestUtil.VERSION);
+
+        long actual = service.findVersionById(TodoTestUtil.ID);
+
+        verify(repositoryMock, times(2)).findVersionById(TodoTestUtil.ID);
+        verifyNoMoreInteractions(repositoryMock);
+        verifyPrimaryRead();
+        verify(idFilterMock, never()).missing(TodoTestUtil.ID);
+
+        assertEquals(TodoTestUtil.VERSION.longValue(), actual);
+    }
+
+    @Test(expected = TodoNotFoundException.class)
+    public void findVersionById_TodoIsNotFound_ShouldThrowException() throws TodoNotFoundException {
+        when(repositoryMock.findVersionById(TodoTestUtil.ID)).thenReturn(null);
+
+        try {
+            service.findVersionById(TodoTestUtil.ID);
+        }
+        finally {
+            verifyPrimaryRead();
+            verify(idFilterMock, times(1)).missing(TodoTestUtil.ID);
+        }
     }
 
     @Test
-    public void update_TodoFound_ShouldReturnUpdatedTodo() throws TodoNotFoundException {
+    public void update_TodoFound_ShouldReturnUpdatedTodoWithoutReadingIt() throws TodoConflictException, TodoNotFoundException {
         TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION_UPDATED, TodoTestUtil.TITLE_UPDATED);
-        Todo model = TodoTestUtil.createModel(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE);
-        when(repositoryMock.findOne(dto.getId())).thenReturn(model);
+        dto.setVersion(TodoTestUtil.VERSION);
+        when(repositoryMock.updateByIdAndVersion(eq(TodoTestUtil.ID), eq(TodoTestUtil.VERSION.longValue()), eq(TodoTestUtil.DESCRIPTION_UPDATED), eq(TodoTestUtil.TITLE_UPDATED), any(DateTime.class))).thenReturn(1);
 
         Todo actual = service.update(dto);
 
-        verify(repositoryMock, times(1)).findOne(dto.getId());
+        verify(repositoryMock, times(1)).updateByIdAndVersion(eq(TodoTestUtil.ID), eq(TodoTestUtil.VERSION.longValue()), eq(TodoTestUtil.DESCRIPTION_UPDATED), eq(TodoTestUtil.TITLE_UPDATED), any(DateTime.class));
         verifyNoMoreInteractions(repositoryMock);
 
-        verify(indexServiceMock, times(1)).update(model);
+        verify(indexServiceMock, times(1)).update(actual);
         verifyNoMoreInteractions(indexServiceMock);
 
         assertEquals(dto.getId(), actual.getId());
         assertEquals(dto.getDescription(), actual.getDescription());
         assertEquals(dto.getTitle(), actual.getTitle());
+        assertEquals(TodoTestUtil.VERSION + 1, actual.getVersion());
+        assertNotNull(actual.getModificationTime());
+
+        ArgumentCaptor<TodoDTO> eventArgument = ArgumentCaptor.forClass(TodoDTO.class);
+        verify(eventBroadcasterMock, times(1)).publish(eq(RepositoryTodoService.EVENT_NAME_UPDATED), eventArgument.capture());
+        assertEquals(Long.valueOf(TodoTestUtil.VERSION + 1), eventArgument.getValue().getVersion());
+
+        ArgumentCaptor<TodoDTO> snapshotArgument = ArgumentCaptor.forClass(TodoDTO.class);
+        verify(snapshotStoreMock, times(1)).put(snapshotArgument.capture());
+        assertEquals(TodoTestUtil.TITLE_UPDATED, snapshotArgument.getValue().getTitle());
+        assertEquals(Long.valueOf(TodoTestUtil.VERSION + 1), snapshotArgument.getValue().getVersion());
+
+        verify(recentTodosMock, times(1)).update(actual);
+        assertIndexChangedEventPublished(TodoTestUtil.ID);
+    }
+
+    @Test
+    public void getChangeBroadcaster_ShouldReturnBroadcaster() {
+        EventBroadcaster actual = service.getChangeBroadcaster();
+
+        assertSame(eventBroadcasterMock, actual);
+        verifyZeroInteractions(eventBroadcasterMock, repositoryMock, indexServiceMock);
     }
 
     @Test(expected = TodoNotFoundException.class)
-    public void update_ToDoIsNotFound_ShouldThrowException() throws TodoNotFoundException {
+    public void update_ToDoIsNotFound_ShouldThrowException() throws TodoConflictException, TodoNotFoundException {
         TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION_UPDATED, TodoTestUtil.TITLE_UPDATED);
-        when(repositoryMock.findOne(dto.getId())).thenReturn(null);
+        dto.setVersion(TodoTestUtil.VERSION);
+        when(repositoryMock.updateByIdAndVersion(eq(TodoTestUtil.ID), eq(TodoTestUtil.VERSION.longValue()), anyString(), anyString(), any(DateTime.class))).thenReturn(0);
+        when(repositoryMock.exists(TodoTestUtil.ID)).thenReturn(false);
+
+        service.update(dto);
+
+        verifyZeroInteractions(indexServiceMock);
+    }
+
+    @Test(expected = TodoConflictException.class)
+    public void update_VersionHasChanged_ShouldThrowException() throws TodoConflictException, TodoNotFoundException {
+        TodoDTO dto = TodoTestUtil.createDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION_UPDATED, TodoTestUtil.TITLE_UPDATED);
+        dto.setVersion(TodoTestUtil.VERSION);
+        when(repositoryMock.updateByIdAndVersion(eq(TodoTestUtil.ID), eq(TodoTestUtil.VERSION.longValue()), anyString(), anyString(), any(DateTime.class))).thenReturn(0);
+        when(repositoryMock.exists(TodoTestUtil.ID)).thenReturn(true);
 
         service.update(dto);
 
-        verify(repositoryMock, times(1)).findOne(dto.getId());
-        verifyNoMoreInteractions(repositoryMock);
         verifyZeroInteractions(indexServiceMock);
     }
 
@@ -192,5 +698,59 @@ public class RepositoryTodoServiceTest {
         verifyZeroInteractions(repositoryMock);
 
         assertEquals(expected, actual);
+
+        verify(searchTermTrackerMock, times(1)).record(eq(SEARCH_TERM), anyLong(), eq(true));
+    }
+
+    @Test
+    public void searchPage_ShouldReturnPageOfTodoDocuments() {
+        Page<TodoDocument> expected = new PageImpl<TodoDocument>(new ArrayList<TodoDocument>());
+        when(indexServiceMock.searchPage(eq(SEARCH_TERM), any(Pageable.class))).thenReturn(expected);
+
+        PageRequest page = new PageRequest(1, 1);
+        Page<TodoDocument> actual = service.searchPage(SEARCH_TERM, page);
+
+        verify(indexServiceMock, times(1)).searchPage(SEARCH_TERM, page);
+        verifyNoMoreInteractions(indexServiceMock);
+        verifyZeroInteractions(repositoryMock);
+
+        assertEquals(expected, actual);
+
+        verify(searchTermTrackerMock, times(1)).record(eq(SEARCH_TERM), anyLong(), eq(true));
+    }
+
+    @Test
+    public void searchPage_ResultsAreFound_ShouldRecordSearchWithResults() {
+        Page<TodoDocument> expected = new PageImpl<TodoDocument>(Arrays.asList(TodoTestUtil.createDocument(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE)));
+        when(indexServiceMock.searchPage(eq(SEARCH_TERM), any(Pageable.class))).thenReturn(expected);
+
+        service.searchPage(SEARCH_TERM, new PageRequest(0, 1));
+
+        verify(searchTermTrackerMock, times(1)).record(eq(SEARCH_TERM), anyLong(), eq(false));
+    }
+
+    @Test
+    public void getSearchTermStatistics_ShouldReturnStatisticsOfTracker() {
+        SearchTermStatisticsDTO expected = new SearchTermStatisticsDTO(1, 0, new ArrayList<SearchTermDTO>(), new ArrayList<SearchTermDTO>());
+        when(searchTermTrackerMock.getStatistics()).thenReturn(expected);
+
+        SearchTermStatisticsDTO actual = service.getSearchTermStatistics();
+
+        assertEquals(expected, actual);
+    }
+
+    private void assertIndexChangedEventPublished(Long expectedId) {
+        ArgumentCaptor<TodoIndexChangedEvent> eventArgument = ArgumentCaptor.forClass(TodoIndexChangedEvent.class);
+        verify(eventPublisherMock, times(1)).publishEvent(eventArgument.capture());
+        assertEquals(expectedId, eventArgument.getValue().getId());
+    }
+
+    private void verifyPrimaryRead() {
+        ArgumentCaptor<TransactionDefinition> transactionArgument = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManagerMock, times(1)).getTransaction(transactionArgument.capture());
+
+        TransactionDefinition transaction = transactionArgument.getValue();
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, transaction.getPropagationBehavior());
+        assertFalse(transaction.isReadOnly());
     }
 }
@@ -0,0 +1,226 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.document.TodoDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SearchCacheWarmerTest {
+
+    private static final long TIME_BUDGET = 5000L;
+    private static final int THREAD_COUNT = 2;
+    private static final int JIT_ITERATIONS = 3;
+    private static final long MIN_INTERVAL = 60000L;
+
+    private static final String STORED_TERM = "stored";
+    private static final String TRACKED_TERM = "tracked";
+
+    private TodoIndexService indexServiceMock;
+
+    private TodoService todoServiceMock;
+
+    private SearchTermTracker searchTermTrackerMock;
+
+    private File termFile;
+
+    @Before
+    public void setUp() throws IOException {
+        indexServiceMock = mock(TodoIndexService.class);
+        todoServiceMock = mock(TodoService.class);
+        searchTermTrackerMock = mock(SearchTermTracker.class);
+
+        termFile = File.createTempFile("search-terms", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        termFile.delete();
+    }
+
+    @Test
+    public void start_Disabled_ShouldNotWarmCaches() {
+        SearchCacheWarmer warmer = createWarmer(false, 0);
+
+        warmer.start();
+        warmer.onApplicationEvent(new TodoIndexChangedEvent(1L));
+        warmer.shutdown();
+
+        verifyZeroInteractions(indexServiceMock, todoServiceMock, searchTermTrackerMock);
+    }
+
+    @Test
+    public void start_ShouldReplayStoredAndTrackedTerms() throws Exception {
+        writeTermFile(STORED_TERM, TRACKED_TERM);
+        when(searchTermTrackerMock.getTopTerms()).thenReturn(Arrays.asList(TRACKED_TERM));
+
+        SearchCacheWarmer warmer = createWarmer(true, 0);
+        try {
+            startAndWait(warmer);
+        }
+        finally {
+            warmer.shutdown();
+        }
+
+        verify(indexServiceMock, times(1)).search(eq(STORED_TERM), any(Pageable.class));
+        verify(indexServiceMock, times(1)).countSearchResults(STORED_TERM);
+        verify(indexServiceMock, times(1)).search(eq(TRACKED_TERM), any(Pageable.class));
+        verify(indexServiceMock, times(1)).countSearchResults(TRACKED_TERM);
+        verifyNoMoreInteractions(indexServiceMock);
+        verifyZeroInteractions(todoServiceMock);
+    }
+
+    @Test
+    public void start_JitWarmUpEnabled_ShouldCallReadMethodsOfService() throws Exception {
+        when(searchTermTrackerMock.getTopTerms()).thenReturn(Arrays.asList(TRACKED_TERM));
+
+        SearchCacheWarmer warmer = createWarmer(true, JIT_ITERATIONS);
+        try {
+            startAndWait(warmer);
+        }
+        finally {
+            warmer.shutdown();
+        }
+
+        verify(todoServiceMock, times(JIT_ITERATIONS)).findLatest();
+        verify(todoServiceMock, times(JIT_ITERATIONS)).findAll(null, SearchCacheWarmer.WARM_UP_PAGE_SIZE);
+        verify(todoServiceMock, times(JIT_ITERATIONS)).countSearchResults(TRACKED_TERM);
+        verifyNoMoreInteractions(todoServiceMock);
+    }
+
+    @Test
+    public void shutdown_ShouldStoreTrackedTerms() throws Exception {
+        when(searchTermTrackerMock.getTopTerms()).thenReturn(Arrays.asList(TRACKED_TERM, STORED_TERM));
+
+        SearchCacheWarmer warmer = createWarmer(true, 0);
+        startAndWait(warmer);
+        warmer.shutdown();
+
+        assertEquals(Arrays.asList(TRACKED_TERM, STORED_TERM), readTermFile());
+    }
+
+    @Test
+    public void warm_NoTerms_ShouldNotSearch() throws Exception {
+        SearchCacheWarmer warmer = createWarmer(true, 0);
+        try {
+            startAndWait(warmer);
+
+            assertEquals(0, warmer.warm(new ArrayList<String>()));
+        }
+        finally {
+            warmer.shutdown();
+        }
+
+        verifyZeroInteractions(indexServiceMock);
+    }
+
+    @Test
+    public void isStartupWarmingDone_Disabled_ShouldReturnTrue() {
+        SearchCacheWarmer warmer = createWarmer(false, 0);
+
+        warmer.start();
+
+        assertTrue(warmer.isStartupWarmingDone());
+    }
+
+    @Test
+    public void isStartupWarmingDone_StartupWarmingIsRunning_ShouldReturnFalseUntilWarmingFinishes() throws Exception {
+        final CountDownLatch searchStarted = new CountDownLatch(1);
+        final CountDownLatch searchReleased = new CountDownLatch(1);
+        when(searchTermTrackerMock.getTopTerms()).thenReturn(Arrays.asList(TRACKED_TERM));
+        when(indexServiceMock.search(eq(TRACKED_TERM), any(Pageable.class))).thenAnswer(new Answer<List<TodoDocument>>() {
+            @Override
+            public List<TodoDocument> answer(InvocationOnMock invocation) throws Throwable {
+                searchStarted.countDown();
+                searchReleased.await();
+                return new ArrayList<TodoDocument>();
+            }
+        });
+
+        SearchCacheWarmer warmer = createWarmer(true, 0);
+        try {
+            warmer.start();
+            searchStarted.await();
+
+            assertFalse(warmer.isStartupWarmingDone());
+
+            searchReleased.countDown();
+            Future<?> startupWarming = (Future<?>) ReflectionTestUtils.getField(warmer, "startupWarming");
+            startupWarming.get();
+
+            assertTrue(warmer.isStartupWarmingDone());
+        }
+        finally {
+            searchReleased.countDown();
+            warmer.shutdown();
+        }
+    }
+
+    private void startAndWait(SearchCacheWarmer warmer) throws Exception {
+        warmer.start();
+
+        Future<?> startupWarming = (Future<?>) ReflectionTestUtils.getField(warmer, "startupWarming");
+        startupWarming.get();
+    }
+
+    private SearchCacheWarmer createWarmer(boolean enabled, int jitIterations) {
+        SearchCacheWarmer warmer = new SearchCacheWarmer(enabled, termFile.getPath(), TIME_BUDGET, THREAD_COUNT, jitIterations, MIN_INTERVAL);
+
+        ReflectionTestUtils.setField(warmer, "indexService", indexServiceMock);
+        ReflectionTestUtils.setField(warmer, "todoService", todoServiceMock);
+        ReflectionTestUtils.setField(warmer, "searchTermTracker", searchTermTrackerMock);
+
+        return warmer;
+    }
+
+    private void writeTermFile(String... terms) throws IOException {
+        FileWriter writer = new FileWriter(termFile);
+        try {
+            for (String term: terms) {
+                writer.write(term + "\n");
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private List<String> readTermFile() throws IOException {
+        List<String> terms = new ArrayList<String>();
+
+        BufferedReader reader = new BufferedReader(new FileReader(termFile));
+        try {
+            String term;
+            while ((term = reader.readLine()) != null) {
+                terms.add(term);
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        return terms;
+    }
+}
@@ -0,0 +1,98 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermDTO;
+import net.petrikainulainen.spring.datasolr.todo.dto.SearchTermStatisticsDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class SearchTermTrackerTest {
+
+    private static final int TERM_COUNT = 2;
+    private static final int SKETCH_WIDTH = 1024;
+    private static final int SKETCH_DEPTH = 4;
+
+    private SearchTermTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new SearchTermTracker(TERM_COUNT, SKETCH_WIDTH, SKETCH_DEPTH);
+    }
+
+    @After
+    public void tearDown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    public void getStatistics_NoSearches_ShouldReturnEmptyStatistics() {
+        SearchTermStatisticsDTO actual = tracker.getStatistics();
+
+        assertEquals(0, actual.getSearchCount());
+        assertEquals(0, actual.getZeroResultSearchCount());
+        assertTrue(actual.getTopTerms().isEmpty());
+        assertTrue(actual.getTopZeroResultTerms().isEmpty());
+    }
+
+    @Test
+    public void getStatistics_ShouldReturnTopTermsWithAverageLatency() {
+        tracker.record("Foo", micros(100), false);
+        tracker.record("foo ", micros(300), false);
+        tracker.record("bar", micros(50), false);
+
+        SearchTermStatisticsDTO actual = tracker.getStatistics();
+
+        assertEquals(3, actual.getSearchCount());
+        assertEquals(0, actual.getZeroResultSearchCount());
+
+        List<SearchTermDTO> topTerms = actual.getTopTerms();
+        assertEquals(2, topTerms.size());
+        assertTerm(topTerms.get(0), "foo", 2, 200);
+        assertTerm(topTerms.get(1), "bar", 1, 50);
+        assertTrue(actual.getTopZeroResultTerms().isEmpty());
+    }
+
+    @Test
+    public void getStatistics_SearchReturnsNoResults_ShouldReturnZeroResultTerm() {
+        tracker.record("foo", micros(100), false);
+        tracker.record("missing", micros(10), true);
+
+        SearchTermStatisticsDTO actual = tracker.getStatistics();
+
+        assertEquals(2, actual.getSearchCount());
+        assertEquals(1, actual.getZeroResultSearchCount());
+
+        List<SearchTermDTO> zeroResultTerms = actual.getTopZeroResultTerms();
+        assertEquals(1, zeroResultTerms.size());
+        assertTerm(zeroResultTerms.get(0), "missing", 1, 10);
+    }
+
+    @Test
+    public void getTopTerms_ShouldReturnNormalizedTermsInOrder() {
+        tracker.record("bar", micros(10), false);
+        tracker.record(" Foo", micros(10), false);
+        tracker.record("foo", micros(10), false);
+
+        assertEquals(Arrays.asList("foo", "bar"), tracker.getTopTerms());
+    }
+
+    private long micros(long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    private void assertTerm(SearchTermDTO actual, String expectedTerm, long expectedCount, long expectedLatency) {
+        assertEquals(expectedTerm, actual.getTerm());
+        assertEquals(expectedCount, actual.getCount());
+        assertEquals(expectedLatency, actual.getAverageLatencyMicros());
+    }
+}
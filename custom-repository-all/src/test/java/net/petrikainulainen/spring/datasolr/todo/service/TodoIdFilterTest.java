@@ -0,0 +1,232 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.repository.jpa.TodoRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TodoIdFilterTest {
+
+    private static final Long EXISTING_ID = 1L;
+    private static final Long MISSING_ID = 2L;
+
+    private static final int EXPECTED_ID_COUNT = 1000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.0001;
+    private static final long NEGATIVE_CACHE_TTL = 60000L;
+    private static final int NEGATIVE_CACHE_SIZE = 2;
+    private static final long REBUILD_INTERVAL = 60000L;
+
+    private TodoIdFilter filter;
+
+    private TodoRepository repositoryMock;
+
+    private PlatformTransactionManager transactionManagerMock;
+
+    @Before
+    public void setUp() {
+        filter = createFilter(true, NEGATIVE_CACHE_TTL);
+    }
+
+    @Test
+    public void isMissing_FilterIsNotBuilt_ShouldReturnFalse() {
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void isMissing_IdIsFoundFromDatabase_ShouldReturnFalse() {
+        when(repositoryMock.findIdsByIdGreaterThan(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(EXISTING_ID));
+
+        filter.rebuild();
+
+        assertFalse(filter.isMissing(EXISTING_ID));
+        assertTrue(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void isMissing_IdIsAdded_ShouldReturnFalse() {
+        filter.rebuild();
+
+        filter.added(MISSING_ID);
+
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void isMissing_IdIsRemembered_ShouldReturnTrue() {
+        when(repositoryMock.findIdsByIdGreaterThan(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(EXISTING_ID));
+        filter.rebuild();
+
+        filter.missing(EXISTING_ID);
+
+        assertTrue(filter.isMissing(EXISTING_ID));
+    }
+
+    @Test
+    public void isMissing_RememberedIdHasExpired_ShouldReturnFalse() {
+        filter = createFilter(true, -1L);
+        when(repositoryMock.findIdsByIdGreaterThan(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(EXISTING_ID));
+        filter.rebuild();
+
+        filter.missing(EXISTING_ID);
+
+        assertFalse(filter.isMissing(EXISTING_ID));
+    }
+
+    @Test
+    public void isMissing_RememberedIdIsAdded_ShouldReturnFalse() {
+        filter.rebuild();
+        filter.missing(MISSING_ID);
+
+        filter.added(MISSING_ID);
+
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void missing_NegativeCacheIsFull_ShouldNotRememberId() {
+        filter.missing(3L);
+        filter.missing(4L);
+
+        filter.missing(MISSING_ID);
+
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void isMissing_FilterIsDisabled_ShouldReturnFalse() {
+        filter = createFilter(false, NEGATIVE_CACHE_TTL);
+
+        filter.rebuild();
+        filter.missing(MISSING_ID);
+
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void rebuild_MoreIdsThanBatchSize_ShouldReadIdsInBatches() {
+        final List<Long> firstBatch = new ArrayList<Long>();
+        for (long id = 1; id <= TodoIdFilter.REBUILD_BATCH_SIZE; id++) {
+            firstBatch.add(id);
+        }
+        final Long lastId = (long) TodoIdFilter.REBUILD_BATCH_SIZE + 1;
+
+        when(repositoryMock.findIdsByIdGreaterThan(eq(0L), any(Pageable.class))).thenReturn(firstBatch);
+        when(repositoryMock.findIdsByIdGreaterThan(eq((long) TodoIdFilter.REBUILD_BATCH_SIZE), any(Pageable.class))).thenReturn(Arrays.asList(lastId));
+
+        filter.rebuild();
+
+        verify(repositoryMock, times(2)).findIdsByIdGreaterThan(anyLong(), any(Pageable.class));
+        verify(transactionManagerMock, times(2)).getTransaction(any(TransactionDefinition.class));
+        assertFalse(filter.isMissing(1L));
+        assertFalse(filter.isMissing(lastId));
+        assertTrue(filter.isMissing(lastId + 1));
+    }
+
+    @Test
+    public void rebuild_IdIsAddedDuringRebuild_ShouldKeepAddedId() {
+        when(repositoryMock.findIdsByIdGreaterThan(eq(0L), any(Pageable.class))).thenAnswer(new Answer<List<Long>>() {
+            @Override
+            public List<Long> answer(InvocationOnMock invocation) throws Throwable {
+                filter.added(MISSING_ID);
+                return Arrays.asList(EXISTING_ID);
+            }
+        });
+
+        filter.rebuild();
+
+        assertFalse(filter.isMissing(EXISTING_ID));
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void rebuild_AddingTransactionIsNotCompleted_ShouldKeepPendingId() {
+        filter.rebuild();
+        filter.added(MISSING_ID);
+
+        //The rebuild cannot see the uncommitted row.
+        filter.rebuild();
+
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void rebuild_AddingTransactionIsCompletedDuringRebuild_ShouldKeepAddedId() {
+        filter.rebuild();
+        filter.added(MISSING_ID);
+
+        when(repositoryMock.findIdsByIdGreaterThan(eq(0L), any(Pageable.class))).thenAnswer(new Answer<List<Long>>() {
+            @Override
+            public List<Long> answer(InvocationOnMock invocation) throws Throwable {
+                List<Long> committedIds = Arrays.asList(EXISTING_ID);
+                filter.completed(MISSING_ID);
+                return committedIds;
+            }
+        });
+
+        filter.rebuild();
+
+        assertFalse(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void rebuild_AddingTransactionWasRolledBack_ShouldForgetId() {
+        filter.added(MISSING_ID);
+        filter.completed(MISSING_ID);
+
+        filter.rebuild();
+
+        assertTrue(filter.isMissing(MISSING_ID));
+    }
+
+    @Test
+    public void rebuild_ShouldReadIdsFromPrimaryDatabase() {
+        filter.rebuild();
+
+        ArgumentCaptor<TransactionDefinition> transactionArgument = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManagerMock, times(1)).getTransaction(transactionArgument.capture());
+
+        TransactionDefinition transaction = transactionArgument.getValue();
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, transaction.getPropagationBehavior());
+        assertFalse(transaction.isReadOnly());
+    }
+
+    private TodoIdFilter createFilter(boolean enabled, long negativeCacheTtl) {
+        TodoIdFilter created = new TodoIdFilter(enabled,
+                EXPECTED_ID_COUNT,
+                FALSE_POSITIVE_PROBABILITY,
+                negativeCacheTtl,
+                NEGATIVE_CACHE_SIZE,
+                REBUILD_INTERVAL
+        );
+
+        repositoryMock = mock(TodoRepository.class);
+        when(repositoryMock.findIdsByIdGreaterThan(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<Long>());
+        ReflectionTestUtils.setField(created, "repository", repositoryMock);
+
+        transactionManagerMock = mock(PlatformTransactionManager.class);
+        TransactionTemplate primaryReadTransactionTemplate = new TransactionTemplate(transactionManagerMock);
+        primaryReadTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ReflectionTestUtils.setField(created, "primaryReadTransactionTemplate", primaryReadTransactionTemplate);
+
+        return created;
+    }
+}
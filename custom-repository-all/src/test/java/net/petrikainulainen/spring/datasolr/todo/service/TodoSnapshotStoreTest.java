@@ -0,0 +1,105 @@
+package net.petrikainulainen.spring.datasolr.todo.service;
+
+import net.petrikainulainen.spring.datasolr.todo.TodoTestUtil;
+import net.petrikainulainen.spring.datasolr.todo.dto.TodoDTO;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * @author Petri Kainulainen
+ */
+public class TodoSnapshotStoreTest {
+
+    private static final int CAPACITY = 1024;
+
+    private static final String DESCRIPTION_NON_ASCII = "Päivitä kuvaus";
+    private static final String TITLE_NON_ASCII = "Otsikko €";
+
+    private TodoSnapshotStore store;
+
+    @Before
+    public void setUp() {
+        store = new TodoSnapshotStore(CAPACITY);
+    }
+
+    @Test
+    public void find_SnapshotIsStored_ShouldReturnTodo() {
+        store.put(new TodoDTO(TodoTestUtil.ID, DESCRIPTION_NON_ASCII, TITLE_NON_ASCII, TodoTestUtil.VERSION));
+
+        TodoDTO actual = store.find(TodoTestUtil.ID);
+
+        assertEquals(TodoTestUtil.ID, actual.getId());
+        assertEquals(DESCRIPTION_NON_ASCII, actual.getDescription());
+        assertEquals(TITLE_NON_ASCII, actual.getTitle());
+        assertEquals(TodoTestUtil.VERSION, actual.getVersion());
+    }
+
+    @Test
+    public void find_DescriptionIsNull_ShouldReturnTodoWithoutDescription() {
+        store.put(new TodoDTO(TodoTestUtil.ID, null, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        TodoDTO actual = store.find(TodoTestUtil.ID);
+
+        assertNull(actual.getDescription());
+        assertEquals(TodoTestUtil.TITLE, actual.getTitle());
+    }
+
+    @Test
+    public void find_DescriptionIsEmpty_ShouldReturnEmptyDescription() {
+        store.put(new TodoDTO(TodoTestUtil.ID, "", TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        assertEquals("", store.find(TodoTestUtil.ID).getDescription());
+    }
+
+    @Test
+    public void put_NewerVersion_ShouldReplaceSnapshot() {
+        store.put(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        store.put(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION_UPDATED, TodoTestUtil.TITLE_UPDATED, TodoTestUtil.VERSION + 1));
+
+        TodoDTO actual = store.find(TodoTestUtil.ID);
+        assertEquals(TodoTestUtil.TITLE_UPDATED, actual.getTitle());
+        assertEquals(Long.valueOf(TodoTestUtil.VERSION + 1), actual.getVersion());
+    }
+
+    @Test
+    public void putIfAbsent_UpdateIsCommittedAfterRead_ShouldKeepUpdatedSnapshot() {
+        TodoDTO read = new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION);
+
+        store.put(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION_UPDATED, TodoTestUtil.TITLE_UPDATED, TodoTestUtil.VERSION + 1));
+        store.putIfAbsent(read);
+
+        TodoDTO actual = store.find(TodoTestUtil.ID);
+        assertEquals(TodoTestUtil.TITLE_UPDATED, actual.getTitle());
+        assertEquals(Long.valueOf(TodoTestUtil.VERSION + 1), actual.getVersion());
+    }
+
+    @Test
+    public void remove_ShouldRemoveSnapshot() {
+        store.put(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        store.remove(TodoTestUtil.ID);
+
+        assertNull(store.find(TodoTestUtil.ID));
+    }
+
+    @Test
+    public void isEnabled_CapacityIsZero_ShouldIgnoreSnapshots() {
+        store = new TodoSnapshotStore(0);
+
+        store.put(new TodoDTO(TodoTestUtil.ID, TodoTestUtil.DESCRIPTION, TodoTestUtil.TITLE, TodoTestUtil.VERSION));
+
+        assertFalse(store.isEnabled());
+        assertNull(store.find(TodoTestUtil.ID));
+    }
+
+    @Test
+    public void isEnabled_CapacityIsPositive_ShouldReturnTrue() {
+        assertTrue(store.isEnabled());
+    }
+}